@@ -26,23 +26,25 @@ import com.datastax.oss.driver.api.core.cql.Statement;
 import com.datastax.oss.driver.api.core.metadata.Node;
 import com.datastax.oss.driver.api.core.metadata.TokenMap;
 import com.datastax.oss.driver.api.core.metadata.token.Token;
+import com.datastax.oss.driver.api.core.metadata.token.TokenRange;
 import com.datastax.oss.driver.api.core.type.codec.registry.CodecRegistry;
+import com.datastax.oss.driver.internal.core.metadata.token.Murmur3Token;
+import com.datastax.oss.driver.internal.core.metadata.token.Murmur3TokenFactory;
 import com.datastax.oss.driver.shaded.guava.common.base.Preconditions;
-import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableList;
 import com.datastax.oss.dsbulk.sampler.DataSizes;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 public class DefaultStatementBatcher implements StatementBatcher {
 
@@ -54,6 +56,12 @@ public class DefaultStatementBatcher implements StatementBatcher {
   protected final int maxBatchStatements;
   protected final long maxSizeInBytes;
 
+  // Grouping structures are reused across invocations, but cannot be shared between threads.
+  private final ThreadLocal<StatementGrouper> groupers =
+      ThreadLocal.withInitial(StatementGrouper::new);
+
+  private volatile ReplicaSetIndex replicaSetIndex;
+
   /**
    * Creates a new {@link DefaultStatementBatcher} that produces {@linkplain
    * DefaultBatchType#UNLOGGED unlogged} batches, operates in {@linkplain BatchMode#PARTITION_KEY
@@ -236,34 +244,43 @@ public class DefaultStatementBatcher implements StatementBatcher {
   @NonNull
   public List<Statement<?>> batchByGroupingKey(
       @NonNull Iterable<BatchableStatement<?>> statements) {
-    return StreamSupport.stream(statements.spliterator(), false)
-        .collect(Collectors.groupingBy(this::groupingKey))
-        .values()
-        .stream()
-        .flatMap(stmts -> maybeBatch(stmts).stream())
-        .collect(Collectors.toList());
+    StatementGrouper grouper = groupers.get();
+    try {
+      for (BatchableStatement<?> statement : statements) {
+        group(grouper, statement);
+      }
+      List<Statement<?>> batches = new ArrayList<>(grouper.size());
+      for (int i = 0; i < grouper.size(); i++) {
+        maybeBatch(grouper.get(i), batches);
+      }
+      return batches;
+    } finally {
+      // release the statements
+      grouper.clear();
+    }
   }
 
   @Override
   @NonNull
   public List<Statement<?>> batchAll(@NonNull Collection<BatchableStatement<?>> statements) {
-    return maybeBatch(statements);
+    List<Statement<?>> batches = new ArrayList<>();
+    maybeBatch(statements, batches);
+    return batches;
   }
 
-  @NonNull
-  private List<Statement<?>> maybeBatch(@NonNull Collection<BatchableStatement<?>> stmts) {
+  private void maybeBatch(
+      @NonNull Collection<BatchableStatement<?>> stmts, @NonNull List<Statement<?>> batches) {
     Objects.requireNonNull(stmts);
     Preconditions.checkArgument(!stmts.isEmpty());
     // Don't wrap single statements in batch.
     if (stmts.size() == 1) {
       if (stmts instanceof List) {
         List<BatchableStatement<?>> list = (List<BatchableStatement<?>>) stmts;
-        return Collections.singletonList(list.get(0));
+        batches.add(list.get(0));
       } else {
-        return Collections.singletonList(stmts.iterator().next());
+        batches.add(stmts.iterator().next());
       }
     } else {
-      ImmutableList.Builder<Statement<?>> batches = ImmutableList.builder();
       List<BatchableStatement<?>> current = new ArrayList<>();
       AdaptiveSizingBatchPredicate shouldFlush = new AdaptiveSizingBatchPredicate();
       for (Iterator<? extends BatchableStatement<?>> it = stmts.iterator(); it.hasNext(); ) {
@@ -279,12 +296,10 @@ public class DefaultStatementBatcher implements StatementBatcher {
       if (current.size() > 0) {
         flush(current, batches);
       }
-      return batches.build();
     }
   }
 
-  private void flush(
-      List<BatchableStatement<?>> current, ImmutableList.Builder<Statement<?>> batches) {
+  private void flush(List<BatchableStatement<?>> current, List<Statement<?>> batches) {
     if (current.size() == 1) {
       batches.add(current.get(0));
     } else {
@@ -292,26 +307,40 @@ public class DefaultStatementBatcher implements StatementBatcher {
     }
   }
 
+  /**
+   * Adds the given statement to its group; this is the allocation-free equivalent of {@link
+   * #groupingKey(Statement)}.
+   */
+  private void group(@NonNull StatementGrouper grouper, @NonNull BatchableStatement<?> statement) {
+    Token routingToken = statement.getRoutingToken();
+    ByteBuffer routingKey = statement.getRoutingKey();
+    if (batchMode == BatchMode.REPLICA_SET) {
+      int replicaSet = replicaSetId(statement, routingToken, routingKey);
+      if (replicaSet != -1) {
+        grouper.add(replicaSet, BatchMode.REPLICA_SET, statement);
+        return;
+      }
+    }
+    if (routingToken instanceof Murmur3Token) {
+      grouper.add(((Murmur3Token) routingToken).getValue(), null, statement);
+    } else if (routingToken != null) {
+      grouper.add(routingToken.hashCode(), routingToken, statement);
+    } else if (routingKey != null && routingKey.hasRemaining()) {
+      grouper.add(routingKey.hashCode(), routingKey, statement);
+    } else {
+      grouper.addUngrouped(statement);
+    }
+  }
+
   @NonNull
   protected Object groupingKey(@NonNull Statement<?> statement) {
     Token routingToken = statement.getRoutingToken();
     ByteBuffer routingKey = statement.getRoutingKey();
     switch (batchMode) {
       case REPLICA_SET:
-        CqlIdentifier keyspace = getKeyspace(statement);
-        if (keyspace != null) {
-          TokenMap tokenMap = session.getMetadata().getTokenMap().orElse(null);
-          if (tokenMap != null) {
-            Set<Node> replicas = null;
-            if (routingKey != null) {
-              replicas = tokenMap.getReplicas(keyspace, routingKey);
-            } else if (routingToken != null) {
-              replicas = tokenMap.getReplicas(keyspace, routingToken);
-            }
-            if (replicas != null && !replicas.isEmpty()) {
-              return replicas.hashCode();
-            }
-          }
+        int replicaSet = replicaSetId(statement, routingToken, routingKey);
+        if (replicaSet != -1) {
+          return replicaSet;
         }
         // fall-through
 
@@ -327,6 +356,30 @@ public class DefaultStatementBatcher implements StatementBatcher {
     return statement;
   }
 
+  /**
+   * Returns the index of the replica set owning the given statement's partition, or -1 if it cannot
+   * be determined.
+   */
+  private int replicaSetId(
+      @NonNull Statement<?> statement,
+      @Nullable Token routingToken,
+      @Nullable ByteBuffer routingKey) {
+    CqlIdentifier keyspace = getKeyspace(statement);
+    if (keyspace != null) {
+      TokenMap tokenMap = session.getMetadata().getTokenMap().orElse(null);
+      if (tokenMap != null) {
+        ReplicaSetIndex index = replicaSetIndex;
+        if (index == null || index.tokenMap != tokenMap || !index.keyspace.equals(keyspace)) {
+          // first use, or the token map was refreshed
+          index = new ReplicaSetIndex(tokenMap, keyspace);
+          replicaSetIndex = index;
+        }
+        return index.lookup(routingToken, routingKey);
+      }
+    }
+    return -1;
+  }
+
   @Nullable
   private CqlIdentifier getKeyspace(Statement<?> statement) {
     if (statement.getKeyspace() != null) {
@@ -374,4 +427,84 @@ public class DefaultStatementBatcher implements StatementBatcher {
       return maxSizeInBytes;
     }
   }
+
+  /**
+   * Assigns an index to each replica set of a keyspace.
+   *
+   * <p>With the Murmur3 partitioner, the ring is indexed once: the end tokens of all token ranges
+   * are kept in a sorted array, alongside the index of their replica set, so that the replica set
+   * of a token can be found with a binary search, without hashing any replica set. With other
+   * partitioners, replica sets are obtained from the token map for each statement, and indexed in a
+   * hash map.
+   */
+  private static final class ReplicaSetIndex {
+
+    private final TokenMap tokenMap;
+    private final CqlIdentifier keyspace;
+    private final Map<Set<Node>, Integer> ids = new ConcurrentHashMap<>();
+
+    // only set for Murmur3 tokens
+    private final long[] rangeEnds;
+    private final int[] rangeIds;
+
+    private ReplicaSetIndex(@NonNull TokenMap tokenMap, @NonNull CqlIdentifier keyspace) {
+      this.tokenMap = tokenMap;
+      this.keyspace = keyspace;
+      Set<TokenRange> ranges = tokenMap.getTokenRanges();
+      if (Murmur3TokenFactory.PARTITIONER_NAME.equals(tokenMap.getPartitionerName())
+          && !ranges.isEmpty()) {
+        TokenRange[] sorted = ranges.toArray(new TokenRange[0]);
+        Arrays.sort(sorted, (r1, r2) -> r1.getEnd().compareTo(r2.getEnd()));
+        rangeEnds = new long[sorted.length];
+        rangeIds = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+          rangeEnds[i] = ((Murmur3Token) sorted[i].getEnd()).getValue();
+          rangeIds[i] = idOf(tokenMap.getReplicas(keyspace, sorted[i]));
+        }
+      } else {
+        rangeEnds = null;
+        rangeIds = null;
+      }
+    }
+
+    private int lookup(@Nullable Token routingToken, @Nullable ByteBuffer routingKey) {
+      if (rangeEnds != null) {
+        long token;
+        if (routingToken instanceof Murmur3Token) {
+          token = ((Murmur3Token) routingToken).getValue();
+        } else if (routingKey != null) {
+          token = ((Murmur3Token) tokenMap.newToken(routingKey)).getValue();
+        } else {
+          return -1;
+        }
+        // ranges are start-exclusive and end-inclusive; tokens greater than the last end token
+        // belong to the range that wraps around the ring, which has the lowest end token
+        int i = Arrays.binarySearch(rangeEnds, token);
+        if (i < 0) {
+          i = -i - 1;
+        }
+        return rangeIds[i == rangeEnds.length ? 0 : i];
+      }
+      Set<Node> replicas = null;
+      if (routingKey != null) {
+        replicas = tokenMap.getReplicas(keyspace, routingKey);
+      } else if (routingToken != null) {
+        replicas = tokenMap.getReplicas(keyspace, routingToken);
+      }
+      return idOf(replicas);
+    }
+
+    private int idOf(@Nullable Set<Node> replicas) {
+      if (replicas == null || replicas.isEmpty()) {
+        return -1;
+      }
+      Integer id = ids.get(replicas);
+      if (id == null) {
+        synchronized (ids) {
+          id = ids.computeIfAbsent(replicas, r -> ids.size());
+        }
+      }
+      return id;
+    }
+  }
 }
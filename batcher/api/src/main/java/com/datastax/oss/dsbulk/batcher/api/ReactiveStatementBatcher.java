@@ -74,4 +74,14 @@ public interface ReactiveStatementBatcher extends StatementBatcher {
    */
   @NonNull
   Publisher<Statement<?>> batchAll(@NonNull Publisher<BatchableStatement<?>> statements);
+
+  /**
+   * Returns the number of groups of statements currently accumulated by this batcher, across all
+   * its subscribers, and waiting to be emitted.
+   *
+   * <p>The default implementation returns zero.
+   */
+  default int getOpenGroups() {
+    return 0;
+  }
 }
@@ -21,6 +21,7 @@ import com.datastax.oss.driver.api.core.cql.BatchType;
 import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
 import com.datastax.oss.driver.api.core.type.codec.registry.CodecRegistry;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import java.time.Duration;
 
 public interface ReactiveStatementBatcherFactory {
 
@@ -30,6 +31,12 @@ public interface ReactiveStatementBatcherFactory {
   /** The default maximum data size in bytes that a batch can contain (unlimited). */
   long DEFAULT_MAX_SIZE_BYTES = -1;
 
+  /** The default maximum number of groups of statements that can be accumulated at once. */
+  int DEFAULT_MAX_OPEN_GROUPS = 1024;
+
+  /** The default maximum time that a statement can wait in its group (unlimited). */
+  Duration DEFAULT_MAX_BATCH_DELAY = Duration.ZERO;
+
   /**
    * Creates a new {@link ReactiveStatementBatcher} that produces {@linkplain
    * DefaultBatchType#UNLOGGED unlogged} batches, operates in {@linkplain BatchMode#PARTITION_KEY
@@ -154,4 +161,40 @@ public interface ReactiveStatementBatcherFactory {
       @NonNull BatchType batchType,
       int maxBatchStatements,
       long maxSizeInBytes);
+
+  /**
+   * Creates a new {@link ReactiveStatementBatcher} that produces batches of the given {@code
+   * batchType}, operates in the specified {@code batchMode} and uses the given {@linkplain
+   * CqlSession session} as its source for the {@linkplain ProtocolVersion protocol version} and the
+   * {@link CodecRegistry} instance to use. It uses the given maximum number of statements, maximum
+   * data size in bytes, maximum number of open groups and maximum batch delay.
+   *
+   * <p>The default implementation ignores the maximum number of open groups and the maximum batch
+   * delay.
+   *
+   * @param session The {@linkplain CqlSession session} to use; cannot be {@code null}.
+   * @param batchMode The batch mode to use; cannot be {@code null}.
+   * @param batchType The batch type to use; cannot be {@code null}.
+   * @param maxBatchStatements The maximum number of statements in a batch. If set to zero or any
+   *     negative value, the number of statements is considered unlimited.
+   * @param maxSizeInBytes The maximum number of bytes of data in one batch. If set to zero or any
+   *     negative value, the data size is considered unlimited.
+   * @param maxOpenGroups The maximum number of groups of statements that can be accumulated at once
+   *     when {@linkplain ReactiveStatementBatcher#batchByGroupingKey(org.reactivestreams.Publisher)
+   *     batching reactively}; when a new group would exceed this number, the oldest group is
+   *     emitted as is. Must be strictly positive.
+   * @param maxBatchDelay The maximum time that a group of statements can be accumulated when
+   *     batching reactively, before being emitted as is. If zero or negative, groups are only
+   *     emitted when full, or when the upstream publisher completes.
+   */
+  default ReactiveStatementBatcher create(
+      @NonNull CqlSession session,
+      @NonNull BatchMode batchMode,
+      @NonNull BatchType batchType,
+      int maxBatchStatements,
+      long maxSizeInBytes,
+      int maxOpenGroups,
+      @NonNull Duration maxBatchDelay) {
+    return create(session, batchMode, batchType, maxBatchStatements, maxSizeInBytes);
+  }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.batcher.api;
+
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A reusable structure that groups statements by grouping key.
+ *
+ * <p>Grouping keys are primitive longs, optionally qualified by an object: when the long alone
+ * identifies the group, e.g. a Murmur3 token or a replica set index, the qualifier is {@code null};
+ * otherwise the long is a hash of the qualifier, and groups are told apart by comparing their
+ * qualifiers with {@link Object#equals(Object)}. Keys are stored in an open-addressing hash table
+ * with linear probing, and groups are kept in insertion order.
+ *
+ * <p>The table and the group lists are retained by {@link #clear()}, so that an instance can be
+ * reused to group many sets of statements without allocating new structures each time.
+ *
+ * <p>This class is not thread-safe.
+ */
+final class StatementGrouper {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private long[] hashes = new long[INITIAL_CAPACITY];
+  private Object[] qualifiers = new Object[INITIAL_CAPACITY];
+  // group index + 1, or 0 if the slot is empty
+  private int[] slots = new int[INITIAL_CAPACITY];
+  private int keyCount;
+
+  private final List<List<BatchableStatement<?>>> groups = new ArrayList<>();
+  private int groupCount;
+
+  /**
+   * Adds the given statement to the group of the given key.
+   *
+   * @param hash the grouping key, or its hash if a qualifier is provided.
+   * @param qualifier the grouping key qualifier, or {@code null} if the hash alone identifies the
+   *     group.
+   * @param statement the statement to add.
+   */
+  void add(long hash, @Nullable Object qualifier, @NonNull BatchableStatement<?> statement) {
+    int mask = slots.length - 1;
+    int i = mix(hash) & mask;
+    while (slots[i] != 0) {
+      if (hashes[i] == hash && Objects.equals(qualifiers[i], qualifier)) {
+        groups.get(slots[i] - 1).add(statement);
+        return;
+      }
+      i = (i + 1) & mask;
+    }
+    hashes[i] = hash;
+    qualifiers[i] = qualifier;
+    slots[i] = groupCount + 1;
+    newGroup().add(statement);
+    // keep the load factor below 0.5
+    if (++keyCount * 2 > slots.length) {
+      resize();
+    }
+  }
+
+  /** Adds the given statement to a group of its own. */
+  void addUngrouped(@NonNull BatchableStatement<?> statement) {
+    newGroup().add(statement);
+  }
+
+  /** Returns the number of groups. */
+  int size() {
+    return groupCount;
+  }
+
+  /** Returns the group at the given index; groups are indexed in order of creation. */
+  @NonNull
+  List<BatchableStatement<?>> get(int index) {
+    return groups.get(index);
+  }
+
+  /** Removes all the groups, retaining the allocated structures. */
+  void clear() {
+    if (keyCount > 0) {
+      Arrays.fill(slots, 0);
+      Arrays.fill(qualifiers, null);
+      keyCount = 0;
+    }
+    for (int i = 0; i < groupCount; i++) {
+      groups.get(i).clear();
+    }
+    groupCount = 0;
+  }
+
+  @NonNull
+  private List<BatchableStatement<?>> newGroup() {
+    if (groupCount == groups.size()) {
+      groups.add(new ArrayList<>());
+    }
+    return groups.get(groupCount++);
+  }
+
+  private void resize() {
+    long[] oldHashes = hashes;
+    Object[] oldQualifiers = qualifiers;
+    int[] oldSlots = slots;
+    int capacity = oldSlots.length * 2;
+    hashes = new long[capacity];
+    qualifiers = new Object[capacity];
+    slots = new int[capacity];
+    int mask = capacity - 1;
+    for (int j = 0; j < oldSlots.length; j++) {
+      if (oldSlots[j] != 0) {
+        int i = mix(oldHashes[j]) & mask;
+        while (slots[i] != 0) {
+          i = (i + 1) & mask;
+        }
+        hashes[i] = oldHashes[j];
+        qualifiers[i] = oldQualifiers[j];
+        slots[i] = oldSlots[j];
+      }
+    }
+  }
+
+  /** Spreads the bits of the hash, since tokens and hash codes may be poorly distributed. */
+  private static int mix(long hash) {
+    long h = hash * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+}
@@ -17,7 +17,11 @@ package com.datastax.oss.dsbulk.batcher.api;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.datastax.oss.driver.api.core.CqlIdentifier;
@@ -33,7 +37,11 @@ import com.datastax.oss.driver.api.core.metadata.Metadata;
 import com.datastax.oss.driver.api.core.metadata.Node;
 import com.datastax.oss.driver.api.core.metadata.TokenMap;
 import com.datastax.oss.driver.api.core.metadata.token.Token;
+import com.datastax.oss.driver.api.core.metadata.token.TokenRange;
 import com.datastax.oss.driver.api.core.type.codec.registry.CodecRegistry;
+import com.datastax.oss.driver.internal.core.metadata.token.Murmur3Token;
+import com.datastax.oss.driver.internal.core.metadata.token.Murmur3TokenFactory;
+import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableSet;
 import com.datastax.oss.driver.shaded.guava.common.collect.Sets;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
@@ -154,6 +162,40 @@ public class StatementBatcherTest {
         .contains(tuple(stmt1, stmt2, stmt5, stmt6), tuple(stmt3, stmt4));
   }
 
+  @Test
+  void should_batch_by_replica_set_using_murmur3_ring() {
+    Murmur3TokenFactory tokenFactory = new Murmur3TokenFactory();
+    TokenRange range1 = tokenFactory.range(tokenFactory.minToken(), new Murmur3Token(-100));
+    TokenRange range2 = tokenFactory.range(new Murmur3Token(-100), new Murmur3Token(100));
+    TokenRange range3 = tokenFactory.range(new Murmur3Token(100), tokenFactory.minToken());
+    Metadata metadata = mock(Metadata.class);
+    TokenMap tokenMap = mock(TokenMap.class);
+    when(session.getMetadata()).thenReturn(metadata);
+    when(metadata.getTokenMap()).thenReturn(Optional.of(tokenMap));
+    when(tokenMap.getPartitionerName()).thenReturn(Murmur3TokenFactory.PARTITIONER_NAME);
+    when(tokenMap.getTokenRanges()).thenReturn(ImmutableSet.of(range2, range3, range1));
+    when(tokenMap.getReplicas(ks, range1)).thenReturn(replicaSet1);
+    when(tokenMap.getReplicas(ks, range2)).thenReturn(replicaSet2);
+    when(tokenMap.getReplicas(ks, range3)).thenReturn(replicaSet1);
+    when(tokenMap.newToken(key1)).thenReturn(new Murmur3Token(0));
+    stmt1 = stmt1.setRoutingToken(new Murmur3Token(-200));
+    stmt2 = stmt2.setRoutingToken(new Murmur3Token(50));
+    stmt3 = stmt3.setRoutingToken(new Murmur3Token(100));
+    stmt4 = stmt4.setRoutingToken(new Murmur3Token(5000));
+    // the min token belongs to the range wrapping around the ring
+    stmt5 = stmt5.setRoutingToken(tokenFactory.minToken());
+    stmt6 = stmt6.setRoutingKey(key1);
+    StatementBatcher batcher = new DefaultStatementBatcher(session, BatchMode.REPLICA_SET);
+    List<Statement<?>> statements =
+        batcher.batchByGroupingKey(stmt1, stmt2, stmt3, stmt4, stmt5, stmt6);
+    assertThat(statements)
+        .extracting(EXTRACTOR)
+        .containsExactly(tuple(stmt1, stmt4, stmt5), tuple(stmt2, stmt3, stmt6));
+    // replicas should be looked up once per range, not once per statement
+    verify(tokenMap, never()).getReplicas(eq(ks), any(ByteBuffer.class));
+    verify(tokenMap, never()).getReplicas(eq(ks), any(Token.class));
+  }
+
   @Test
   void should_batch_by_routing_key_when_replica_set_info_not_available() {
     assignRoutingKeys();
@@ -0,0 +1,76 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.batcher.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.data.ByteUtils;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+class StatementGrouperTest {
+
+  private final SimpleStatement stmt1 = SimpleStatement.newInstance("stmt1");
+  private final SimpleStatement stmt2 = SimpleStatement.newInstance("stmt2");
+  private final SimpleStatement stmt3 = SimpleStatement.newInstance("stmt3");
+  private final SimpleStatement stmt4 = SimpleStatement.newInstance("stmt4");
+
+  @Test
+  void should_group_by_key_in_insertion_order() {
+    StatementGrouper grouper = new StatementGrouper();
+    grouper.add(42, null, stmt1);
+    grouper.addUngrouped(stmt2);
+    grouper.add(-1, null, stmt3);
+    grouper.add(42, null, stmt4);
+    assertThat(grouper.size()).isEqualTo(3);
+    assertThat(grouper.get(0)).containsExactly(stmt1, stmt4);
+    assertThat(grouper.get(1)).containsExactly(stmt2);
+    assertThat(grouper.get(2)).containsExactly(stmt3);
+  }
+
+  @Test
+  void should_tell_apart_keys_with_same_hash() {
+    StatementGrouper grouper = new StatementGrouper();
+    ByteBuffer key1 = ByteUtils.fromHexString("0x1234");
+    ByteBuffer key2 = ByteUtils.fromHexString("0x5678");
+    grouper.add(1, key1, stmt1);
+    grouper.add(1, key2, stmt2);
+    grouper.add(1, null, stmt3);
+    grouper.add(1, ByteUtils.fromHexString("0x1234"), stmt4);
+    assertThat(grouper.size()).isEqualTo(3);
+    assertThat(grouper.get(0)).containsExactly(stmt1, stmt4);
+    assertThat(grouper.get(1)).containsExactly(stmt2);
+    assertThat(grouper.get(2)).containsExactly(stmt3);
+  }
+
+  @Test
+  void should_resize_and_be_reusable() {
+    StatementGrouper grouper = new StatementGrouper();
+    for (int round = 0; round < 2; round++) {
+      for (long key = 0; key < 1000; key++) {
+        grouper.add(key << 32, null, stmt1);
+        grouper.add(key << 32, null, stmt2);
+      }
+      assertThat(grouper.size()).isEqualTo(1000);
+      for (int i = 0; i < 1000; i++) {
+        assertThat(grouper.get(i)).containsExactly(stmt1, stmt2);
+      }
+      grouper.clear();
+      assertThat(grouper.size()).isZero();
+    }
+  }
+}
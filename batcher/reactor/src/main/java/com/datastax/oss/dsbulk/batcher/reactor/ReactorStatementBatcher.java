@@ -23,18 +23,45 @@ import com.datastax.oss.driver.api.core.cql.BatchableStatement;
 import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
 import com.datastax.oss.driver.api.core.cql.Statement;
 import com.datastax.oss.driver.api.core.type.codec.registry.CodecRegistry;
+import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableList;
 import com.datastax.oss.dsbulk.batcher.api.BatchMode;
 import com.datastax.oss.dsbulk.batcher.api.DefaultStatementBatcher;
 import com.datastax.oss.dsbulk.batcher.api.ReactiveStatementBatcher;
 import com.datastax.oss.dsbulk.batcher.api.ReactiveStatementBatcherFactory;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
+/**
+ * A {@link ReactiveStatementBatcher} based on Reactor.
+ *
+ * <p>Statements are accumulated per grouping key in a single map, bounded by the maximum number of
+ * open groups, and each group is emitted as a batch as soon as it is full; when a new group would
+ * exceed the maximum number of open groups, the oldest group is emitted as is. Optionally, groups
+ * that have been accumulating statements for longer than the maximum batch delay are emitted as
+ * well. The remaining groups are emitted when the upstream publisher completes.
+ */
 public class ReactorStatementBatcher extends DefaultStatementBatcher
     implements ReactiveStatementBatcher {
 
+  private static final Object ALL = new Object();
+
+  private final int maxOpenGroups;
+  private final Duration maxBatchDelay;
+
+  private final AtomicInteger openGroups = new AtomicInteger();
+
   /**
    * Creates a new {@link ReactorStatementBatcher} that produces {@linkplain
    * DefaultBatchType#UNLOGGED unlogged} batches, operates in {@linkplain BatchMode#PARTITION_KEY
@@ -44,7 +71,10 @@ public class ReactorStatementBatcher extends DefaultStatementBatcher
    * of statements} (100) and the default {@linkplain
    * ReactiveStatementBatcherFactory#DEFAULT_MAX_SIZE_BYTES maximum data size in bytes} (unlimited).
    */
-  public ReactorStatementBatcher() {}
+  public ReactorStatementBatcher() {
+    this.maxOpenGroups = ReactiveStatementBatcherFactory.DEFAULT_MAX_OPEN_GROUPS;
+    this.maxBatchDelay = ReactiveStatementBatcherFactory.DEFAULT_MAX_BATCH_DELAY;
+  }
 
   /**
    * Creates a new {@link ReactorStatementBatcher} that produces {@linkplain
@@ -59,6 +89,8 @@ public class ReactorStatementBatcher extends DefaultStatementBatcher
    */
   public ReactorStatementBatcher(int maxBatchStatements) {
     super(maxBatchStatements);
+    this.maxOpenGroups = ReactiveStatementBatcherFactory.DEFAULT_MAX_OPEN_GROUPS;
+    this.maxBatchDelay = ReactiveStatementBatcherFactory.DEFAULT_MAX_BATCH_DELAY;
   }
 
   /**
@@ -74,6 +106,8 @@ public class ReactorStatementBatcher extends DefaultStatementBatcher
    */
   public ReactorStatementBatcher(long maxSizeInBytes) {
     super(maxSizeInBytes);
+    this.maxOpenGroups = ReactiveStatementBatcherFactory.DEFAULT_MAX_OPEN_GROUPS;
+    this.maxBatchDelay = ReactiveStatementBatcherFactory.DEFAULT_MAX_BATCH_DELAY;
   }
 
   /**
@@ -90,6 +124,8 @@ public class ReactorStatementBatcher extends DefaultStatementBatcher
    */
   public ReactorStatementBatcher(int maxBatchStatements, long maxSizeInBytes) {
     super(maxBatchStatements, maxSizeInBytes);
+    this.maxOpenGroups = ReactiveStatementBatcherFactory.DEFAULT_MAX_OPEN_GROUPS;
+    this.maxBatchDelay = ReactiveStatementBatcherFactory.DEFAULT_MAX_BATCH_DELAY;
   }
 
   /**
@@ -105,6 +141,8 @@ public class ReactorStatementBatcher extends DefaultStatementBatcher
    */
   public ReactorStatementBatcher(@NonNull CqlSession session) {
     super(session);
+    this.maxOpenGroups = ReactiveStatementBatcherFactory.DEFAULT_MAX_OPEN_GROUPS;
+    this.maxBatchDelay = ReactiveStatementBatcherFactory.DEFAULT_MAX_BATCH_DELAY;
   }
 
   /**
@@ -121,6 +159,8 @@ public class ReactorStatementBatcher extends DefaultStatementBatcher
    */
   public ReactorStatementBatcher(@NonNull CqlSession session, @NonNull BatchMode batchMode) {
     super(session, batchMode);
+    this.maxOpenGroups = ReactiveStatementBatcherFactory.DEFAULT_MAX_OPEN_GROUPS;
+    this.maxBatchDelay = ReactiveStatementBatcherFactory.DEFAULT_MAX_BATCH_DELAY;
   }
 
   /**
@@ -143,6 +183,8 @@ public class ReactorStatementBatcher extends DefaultStatementBatcher
       @NonNull BatchType batchType,
       int maxBatchStatements) {
     super(session, batchMode, batchType, maxBatchStatements);
+    this.maxOpenGroups = ReactiveStatementBatcherFactory.DEFAULT_MAX_OPEN_GROUPS;
+    this.maxBatchDelay = ReactiveStatementBatcherFactory.DEFAULT_MAX_BATCH_DELAY;
   }
 
   /**
@@ -167,34 +209,180 @@ public class ReactorStatementBatcher extends DefaultStatementBatcher
       int maxBatchStatements,
       long maxSizeInBytes) {
     super(session, batchMode, batchType, maxBatchStatements, maxSizeInBytes);
+    this.maxOpenGroups = ReactiveStatementBatcherFactory.DEFAULT_MAX_OPEN_GROUPS;
+    this.maxBatchDelay = ReactiveStatementBatcherFactory.DEFAULT_MAX_BATCH_DELAY;
+  }
+
+  /**
+   * Creates a new {@link ReactorStatementBatcher} that produces batches of the given {@code
+   * batchType}, operates in the specified {@code batchMode} and uses the given {@linkplain
+   * CqlSession session} as its source for the {@linkplain ProtocolVersion protocol version} and the
+   * {@link CodecRegistry} instance to use. It uses the given maximum number of statements, maximum
+   * data size in bytes, maximum number of open groups and maximum batch delay.
+   *
+   * @param session The {@linkplain CqlSession session} to use; cannot be {@code null}.
+   * @param batchMode The batch mode to use; cannot be {@code null}.
+   * @param batchType The batch type to use; cannot be {@code null}.
+   * @param maxBatchStatements The maximum number of statements in a batch. If set to zero or any
+   *     negative value, the number of statements is considered unlimited.
+   * @param maxSizeInBytes The maximum number of bytes of data in one batch. If set to zero or any
+   *     negative value, the data size is considered unlimited.
+   * @param maxOpenGroups The maximum number of groups of statements that can be accumulated at once
+   *     by each subscriber; must be strictly positive.
+   * @param maxBatchDelay The maximum time that a group of statements can be accumulated before
+   *     being emitted. If set to zero or any negative value, the delay is considered unlimited.
+   */
+  public ReactorStatementBatcher(
+      @NonNull CqlSession session,
+      @NonNull BatchMode batchMode,
+      @NonNull BatchType batchType,
+      int maxBatchStatements,
+      long maxSizeInBytes,
+      int maxOpenGroups,
+      @NonNull Duration maxBatchDelay) {
+    super(session, batchMode, batchType, maxBatchStatements, maxSizeInBytes);
+    if (maxOpenGroups <= 0) {
+      throw new IllegalArgumentException("maxOpenGroups must be positive");
+    }
+    this.maxOpenGroups = maxOpenGroups;
+    this.maxBatchDelay = Objects.requireNonNull(maxBatchDelay);
+  }
+
+  @Override
+  public int getOpenGroups() {
+    return openGroups.get();
   }
 
   @Override
   @NonNull
   public Flux<Statement<?>> batchByGroupingKey(
       @NonNull Publisher<BatchableStatement<?>> statements) {
-    return Flux.from(statements).groupBy(this::groupingKey).flatMap(this::batchAll);
+    return batch(statements, this::groupingKey);
   }
 
   @Override
   @NonNull
   public Flux<Statement<?>> batchAll(@NonNull Publisher<BatchableStatement<?>> statements) {
-    return Flux.from(statements)
-        .windowUntil(new ReactorAdaptiveSizingBatchPredicate(), false)
-        .flatMap(
-            stmts ->
-                stmts
-                    .reduce(
-                        new ArrayList<BatchableStatement<?>>(),
-                        (children, child) -> {
-                          children.add(child);
-                          return children;
-                        })
-                    .map(
-                        children ->
-                            children.size() == 1
-                                ? children.get(0)
-                                : BatchStatement.newInstance(batchType, children)));
+    return batch(statements, stmt -> ALL);
+  }
+
+  @NonNull
+  private Flux<Statement<?>> batch(
+      @NonNull Publisher<BatchableStatement<?>> statements,
+      @NonNull Function<Statement<?>, Object> keyFunction) {
+    return Flux.defer(
+        () -> {
+          GroupAccumulator accumulator = new GroupAccumulator(keyFunction);
+          Flux<List<Statement<?>>> batches = Flux.from(statements).map(accumulator::add);
+          if (!maxBatchDelay.isNegative() && !maxBatchDelay.isZero()) {
+            Sinks.Empty<Void> done = Sinks.empty();
+            Flux<List<Statement<?>>> expired =
+                Flux.interval(maxBatchDelay)
+                    .onBackpressureDrop()
+                    .takeUntilOther(done.asMono())
+                    .map(tick -> accumulator.expire());
+            batches = Flux.merge(batches.doOnTerminate(done::tryEmitEmpty), expired);
+          }
+          return batches
+              .concatWith(Mono.fromCallable(accumulator::drain))
+              // release the statements still accumulated in case of error or cancellation
+              .doFinally(signal -> accumulator.drain())
+              .flatMapIterable(Function.identity());
+        });
+  }
+
+  /**
+   * Accumulates statements per grouping key for one subscriber. Methods are synchronized since
+   * expired groups are emitted from a different thread.
+   */
+  private class GroupAccumulator {
+
+    private final Function<Statement<?>, Object> keyFunction;
+
+    // groups in order of creation
+    private final Map<Object, Group> groups = new LinkedHashMap<>();
+
+    private GroupAccumulator(@NonNull Function<Statement<?>, Object> keyFunction) {
+      this.keyFunction = keyFunction;
+    }
+
+    /** Adds the given statement to its group, and returns the batches ready to be emitted. */
+    @NonNull
+    synchronized List<Statement<?>> add(@NonNull BatchableStatement<?> statement) {
+      Statement<?> evicted = null;
+      Object key = keyFunction.apply(statement);
+      Group group = groups.get(key);
+      if (group == null) {
+        if (groups.size() >= maxOpenGroups) {
+          Iterator<Group> it = groups.values().iterator();
+          evicted = it.next().close();
+          it.remove();
+        }
+        group = new Group();
+        groups.put(key, group);
+      }
+      if (group.add(statement)) {
+        groups.remove(key);
+        return evicted == null
+            ? ImmutableList.of(group.close())
+            : ImmutableList.of(evicted, group.close());
+      }
+      return evicted == null ? ImmutableList.of() : ImmutableList.of(evicted);
+    }
+
+    /** Removes the groups older than the maximum batch delay, and returns their batches. */
+    @NonNull
+    synchronized List<Statement<?>> expire() {
+      ImmutableList.Builder<Statement<?>> ready = ImmutableList.builder();
+      long deadline = System.nanoTime() - maxBatchDelay.toNanos();
+      for (Iterator<Group> it = groups.values().iterator(); it.hasNext(); ) {
+        Group group = it.next();
+        if (group.createdNanos - deadline > 0) {
+          // subsequent groups are younger
+          break;
+        }
+        ready.add(group.close());
+        it.remove();
+      }
+      return ready.build();
+    }
+
+    /** Removes all the groups, and returns their batches. */
+    @NonNull
+    synchronized List<Statement<?>> drain() {
+      ImmutableList.Builder<Statement<?>> ready = ImmutableList.builder();
+      for (Group group : groups.values()) {
+        ready.add(group.close());
+      }
+      groups.clear();
+      return ready.build();
+    }
+  }
+
+  private class Group {
+
+    private final List<BatchableStatement<?>> children = new ArrayList<>();
+    private final AdaptiveSizingBatchPredicate shouldFlush =
+        new ReactorAdaptiveSizingBatchPredicate();
+    private final long createdNanos = System.nanoTime();
+
+    private Group() {
+      openGroups.incrementAndGet();
+    }
+
+    /** Adds the given statement to this group, and returns whether the group is now full. */
+    boolean add(@NonNull BatchableStatement<?> statement) {
+      children.add(statement);
+      return shouldFlush.test(statement);
+    }
+
+    @NonNull
+    Statement<?> close() {
+      openGroups.decrementAndGet();
+      return children.size() == 1
+          ? children.get(0)
+          : BatchStatement.newInstance(batchType, children);
+    }
   }
 
   private class ReactorAdaptiveSizingBatchPredicate extends AdaptiveSizingBatchPredicate {}
@@ -21,6 +21,7 @@ import com.datastax.oss.dsbulk.batcher.api.BatchMode;
 import com.datastax.oss.dsbulk.batcher.api.ReactiveStatementBatcher;
 import com.datastax.oss.dsbulk.batcher.api.ReactiveStatementBatcherFactory;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import java.time.Duration;
 
 public class ReactorStatementBatcherFactory implements ReactiveStatementBatcherFactory {
 
@@ -54,4 +55,23 @@ public class ReactorStatementBatcherFactory implements ReactiveStatementBatcherF
     return new ReactorStatementBatcher(
         session, batchMode, batchType, maxBatchStatements, maxSizeInBytes);
   }
+
+  @Override
+  public ReactiveStatementBatcher create(
+      @NonNull CqlSession session,
+      @NonNull BatchMode batchMode,
+      @NonNull BatchType batchType,
+      int maxBatchStatements,
+      long maxSizeInBytes,
+      int maxOpenGroups,
+      @NonNull Duration maxBatchDelay) {
+    return new ReactorStatementBatcher(
+        session,
+        batchMode,
+        batchType,
+        maxBatchStatements,
+        maxSizeInBytes,
+        maxOpenGroups,
+        maxBatchDelay);
+  }
 }
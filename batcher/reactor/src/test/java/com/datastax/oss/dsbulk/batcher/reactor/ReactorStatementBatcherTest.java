@@ -21,12 +21,19 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
 import com.datastax.oss.driver.api.core.cql.Statement;
 import com.datastax.oss.driver.api.core.metadata.Metadata;
 import com.datastax.oss.driver.api.core.metadata.TokenMap;
 import com.datastax.oss.dsbulk.batcher.api.BatchMode;
 import com.datastax.oss.dsbulk.batcher.api.StatementBatcherTest;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Flux;
@@ -244,4 +251,61 @@ class ReactorStatementBatcherTest extends StatementBatcherTest {
         .extracting(EXTRACTOR)
         .contains(tuple(stmt1, stmt2, stmt3, stmt4, stmt5, stmt6));
   }
+
+  @Test
+  void should_emit_oldest_group_when_max_open_groups_reached() {
+    assignRoutingKeys();
+    ReactorStatementBatcher batcher =
+        new ReactorStatementBatcher(
+            session, BatchMode.PARTITION_KEY, DefaultBatchType.UNLOGGED, 10, -1, 1, Duration.ZERO);
+    Flux<Statement<?>> statements =
+        Flux.from(batcher.batchByGroupingKey(Flux.just(stmt1, stmt2, stmt3, stmt4, stmt5, stmt6)));
+    assertThat(statements.collectList().block())
+        .extracting(EXTRACTOR)
+        .containsExactly(tuple(stmt1, stmt2), tuple(stmt3, stmt4), tuple(stmt5), tuple(stmt6));
+    assertThat(batcher.getOpenGroups()).isZero();
+  }
+
+  @Test
+  void should_emit_group_after_max_batch_delay() {
+    assignRoutingKeys();
+    ReactorStatementBatcher batcher =
+        new ReactorStatementBatcher(
+            session,
+            BatchMode.PARTITION_KEY,
+            DefaultBatchType.UNLOGGED,
+            10,
+            -1,
+            10,
+            Duration.ofMillis(50));
+    // the upstream publisher never completes
+    Flux<BatchableStatement<?>> upstream =
+        Flux.<BatchableStatement<?>>just(stmt1, stmt2).concatWith(Flux.never());
+    Statement<?> statement =
+        Flux.from(batcher.batchByGroupingKey(upstream)).next().block(Duration.ofSeconds(5));
+    assertThat(statement).extracting(EXTRACTOR).isEqualTo(tuple(stmt1, stmt2));
+    assertThat(batcher.getOpenGroups()).isZero();
+  }
+
+  @Test
+  void should_batch_statements_with_many_distinct_grouping_keys() {
+    List<BatchableStatement<?>> stmts = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      ByteBuffer key = ByteBuffer.allocate(4).putInt(0, i % 2500);
+      stmts.add(SimpleStatement.newInstance("INSERT " + i).setRoutingKey(key));
+    }
+    ReactorStatementBatcher batcher =
+        new ReactorStatementBatcher(
+            session,
+            BatchMode.PARTITION_KEY,
+            DefaultBatchType.UNLOGGED,
+            10,
+            -1,
+            4096,
+            Duration.ZERO);
+    List<Statement<?>> statements =
+        Flux.from(batcher.batchByGroupingKey(Flux.fromIterable(stmts))).collectList().block();
+    assertThat(statements).hasSize(2500).allMatch(BatchStatement.class::isInstance);
+    assertThat(batcher.getOpenGroups()).isZero();
+  }
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for the benchmarks jar.
+ *
+ * <p>Accepts the same arguments as JMH's own launcher, but always enables the {@linkplain
+ * GCProfiler GC profiler}, so that allocation rates are reported alongside throughput.
+ */
+public class BenchmarkRunner {
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions cli = new CommandLineOptions(args);
+    if (cli.shouldHelp()) {
+      cli.showHelp();
+    } else if (cli.shouldList()) {
+      new Runner(cli).list();
+    } else {
+      ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+      boolean gcProfilerEnabled =
+          cli.getProfilers().stream()
+              .anyMatch(
+                  profiler ->
+                      profiler.getKlass().equals("gc")
+                          || profiler.getKlass().equals(GCProfiler.class.getName()));
+      if (!gcProfilerEnabled) {
+        options.addProfiler(GCProfiler.class);
+      }
+      new Runner(options.build()).run();
+    }
+  }
+}
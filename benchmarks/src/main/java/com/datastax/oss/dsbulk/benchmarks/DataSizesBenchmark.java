@@ -0,0 +1,89 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.benchmarks;
+
+import com.datastax.oss.driver.api.core.ProtocolVersion;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.type.codec.registry.CodecRegistry;
+import com.datastax.oss.dsbulk.sampler.DataSizes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the throughput of {@link DataSizes#getDataSize(Statement, ProtocolVersion,
+ * CodecRegistry)} for bound statements and for batches of 32 bound statements. The score is in
+ * statements per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataSizesBenchmark {
+
+  private static final int STATEMENTS = 10_240;
+
+  private static final int BATCH_SIZE = 32;
+
+  private List<BatchableStatement<?>> statements;
+  private List<BatchStatement> batches;
+
+  @Setup
+  public void setup() {
+    statements =
+        SyntheticData.boundStatements(
+            SyntheticData.insertStatement(), SyntheticData.rows(STATEMENTS, STATEMENTS));
+    batches = new ArrayList<>();
+    for (int i = 0; i < STATEMENTS; i += BATCH_SIZE) {
+      batches.add(
+          BatchStatement.newInstance(
+              DefaultBatchType.UNLOGGED, statements.subList(i, i + BATCH_SIZE)));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(STATEMENTS)
+  public void boundStatements(Blackhole bh) {
+    for (Statement<?> statement : statements) {
+      bh.consume(DataSizes.getDataSize(statement, ProtocolVersion.DEFAULT, CodecRegistry.DEFAULT));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(STATEMENTS)
+  public void batchStatements(Blackhole bh) {
+    for (Statement<?> batch : batches) {
+      bh.consume(DataSizes.getDataSize(batch, ProtocolVersion.DEFAULT, CodecRegistry.DEFAULT));
+    }
+  }
+}
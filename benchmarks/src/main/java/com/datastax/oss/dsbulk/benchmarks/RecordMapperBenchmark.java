@@ -0,0 +1,112 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.benchmarks;
+
+import com.datastax.oss.driver.api.core.ProtocolVersion;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.type.reflect.GenericType;
+import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableSet;
+import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableSetMultimap;
+import com.datastax.oss.dsbulk.codecs.api.ConvertingCodecFactory;
+import com.datastax.oss.dsbulk.codecs.text.TextConversionContext;
+import com.datastax.oss.dsbulk.connectors.api.DefaultMappedField;
+import com.datastax.oss.dsbulk.connectors.api.DefaultRecord;
+import com.datastax.oss.dsbulk.connectors.api.Field;
+import com.datastax.oss.dsbulk.mapping.CQLWord;
+import com.datastax.oss.dsbulk.mapping.DefaultMapping;
+import com.datastax.oss.dsbulk.workflow.commons.schema.DefaultRecordMapper;
+import com.datastax.oss.dsbulk.workflow.commons.statement.UnmappableStatement;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the throughput of {@link DefaultRecordMapper#map}, i.e. the conversion of textual
+ * records into bound statements, as done by the load workflow with text-based connectors.
+ *
+ * <p>Since mapping a record clears it, records are recreated from pre-generated values at each
+ * invocation; record creation is therefore included in the score, which is in records per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecordMapperBenchmark {
+
+  private static final int RECORDS = 10_000;
+
+  private static final URI RESOURCE = URI.create("file://benchmark.csv");
+
+  private Field[] fields;
+  private List<String[]> rows;
+  private DefaultRecordMapper mapper;
+
+  @Setup
+  public void setup() {
+    rows = SyntheticData.textRows(SyntheticData.rows(RECORDS, RECORDS));
+    fields = new Field[SyntheticData.COLUMN_NAMES.length];
+    ImmutableSetMultimap.Builder<Field, CQLWord> fieldsToVariables = ImmutableSetMultimap.builder();
+    for (int i = 0; i < fields.length; i++) {
+      fields[i] = new DefaultMappedField(SyntheticData.COLUMN_NAMES[i]);
+      fieldsToVariables.put(fields[i], CQLWord.fromInternal(SyntheticData.COLUMN_NAMES[i]));
+    }
+    DefaultMapping mapping =
+        new DefaultMapping(
+            fieldsToVariables.build(),
+            new ConvertingCodecFactory(new TextConversionContext()),
+            ImmutableSet.of());
+    mapper =
+        new DefaultRecordMapper(
+            SyntheticData.insertStatement(),
+            ImmutableSet.of(CQLWord.fromInternal("pk")),
+            ImmutableSet.of(CQLWord.fromInternal("cc")),
+            ProtocolVersion.DEFAULT,
+            mapping,
+            (field, cqlType) -> GenericType.STRING,
+            true,
+            false,
+            false);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(RECORDS)
+  public void mapRecords(Blackhole bh) {
+    long position = 0;
+    for (String[] row : rows) {
+      BatchableStatement<?> statement =
+          mapper.map(DefaultRecord.mapped(null, RESOURCE, ++position, fields, (Object[]) row));
+      if (statement instanceof UnmappableStatement) {
+        throw new IllegalStateException(
+            "Record could not be mapped", ((UnmappableStatement) statement).getError());
+      }
+      bh.consume(statement);
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.benchmarks;
+
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.dsbulk.batcher.api.DefaultStatementBatcher;
+import com.datastax.oss.dsbulk.batcher.reactor.ReactorStatementBatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+/**
+ * Measures the throughput of {@link DefaultStatementBatcher#batchByGroupingKey} and {@link
+ * ReactorStatementBatcher#batchByGroupingKey} in partition key mode.
+ *
+ * <p>Just like the load workflow does, statements are handed to the batchers in chunks of {@code
+ * batch.bufferSize} statements, using the default settings (32 statements per batch and a buffer
+ * size of 4 times that value). The score is in statements per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StatementBatcherBenchmark {
+
+  private static final int STATEMENTS = 10_240;
+
+  private static final int MAX_BATCH_STATEMENTS = 32;
+
+  private static final int BUFFER_SIZE = 4 * MAX_BATCH_STATEMENTS;
+
+  /** The number of distinct partition keys in the statements to batch. */
+  @Param({"10", "1000", "10240"})
+  public int partitions;
+
+  /** The maximum batch size in bytes; -1 means unlimited, i.e. batching by statement count only. */
+  @Param({"-1", "10240"})
+  public long maxSizeInBytes;
+
+  private List<BatchableStatement<?>> statements;
+  private List<List<BatchableStatement<?>>> chunks;
+  private DefaultStatementBatcher defaultBatcher;
+  private ReactorStatementBatcher reactorBatcher;
+
+  @Setup
+  public void setup() {
+    statements =
+        SyntheticData.boundStatements(
+            SyntheticData.insertStatement(), SyntheticData.rows(STATEMENTS, partitions));
+    chunks = new ArrayList<>();
+    for (int i = 0; i < STATEMENTS; i += BUFFER_SIZE) {
+      chunks.add(statements.subList(i, i + BUFFER_SIZE));
+    }
+    defaultBatcher = new DefaultStatementBatcher(MAX_BATCH_STATEMENTS, maxSizeInBytes);
+    reactorBatcher = new ReactorStatementBatcher(MAX_BATCH_STATEMENTS, maxSizeInBytes);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(STATEMENTS)
+  public void defaultBatcher(Blackhole bh) {
+    for (List<BatchableStatement<?>> chunk : chunks) {
+      for (Statement<?> statement : defaultBatcher.batchByGroupingKey(chunk)) {
+        bh.consume(statement);
+      }
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(STATEMENTS)
+  public void reactorBatcher(Blackhole bh) {
+    Flux.fromIterable(statements)
+        .window(BUFFER_SIZE)
+        .concatMap(reactorBatcher::batchByGroupingKey)
+        .doOnNext(bh::consume)
+        .blockLast();
+  }
+}
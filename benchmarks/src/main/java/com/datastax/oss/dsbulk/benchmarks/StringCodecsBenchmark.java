@@ -0,0 +1,97 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.benchmarks;
+
+import com.datastax.oss.driver.api.core.ProtocolVersion;
+import com.datastax.oss.driver.api.core.type.reflect.GenericType;
+import com.datastax.oss.dsbulk.codecs.api.ConvertingCodec;
+import com.datastax.oss.dsbulk.codecs.api.ConvertingCodecFactory;
+import com.datastax.oss.dsbulk.codecs.text.TextConversionContext;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the throughput of the {@code StringTo*Codec} family, i.e. the parsing and serialization
+ * of textual field values into their CQL binary form. The score is in values per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StringCodecsBenchmark {
+
+  private static final int VALUES = 1024;
+
+  /** The column whose values should be converted, see {@link SyntheticData#COLUMN_NAMES}. */
+  @Param({"pk", "cc", "v_text", "v_double", "v_timestamp", "v_uuid", "v_boolean", "v_decimal"})
+  public String column;
+
+  private ConvertingCodec<String, Object> codec;
+  private String[] values;
+
+  @Setup
+  public void setup() {
+    int index = -1;
+    for (int i = 0; i < SyntheticData.COLUMN_NAMES.length; i++) {
+      if (SyntheticData.COLUMN_NAMES[i].equals(column)) {
+        index = i;
+      }
+    }
+    if (index == -1) {
+      throw new IllegalArgumentException("Unknown column: " + column);
+    }
+    ConvertingCodecFactory codecFactory = new ConvertingCodecFactory(new TextConversionContext());
+    codec =
+        codecFactory.createConvertingCodec(
+            SyntheticData.COLUMN_TYPES[index], GenericType.STRING, true);
+    List<String[]> rows = SyntheticData.textRows(SyntheticData.rows(VALUES, VALUES));
+    values = new String[VALUES];
+    for (int i = 0; i < VALUES; i++) {
+      values[i] = rows.get(i)[index];
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(VALUES)
+  public void encode(Blackhole bh) {
+    for (String value : values) {
+      bh.consume(codec.encode(value, ProtocolVersion.DEFAULT));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(VALUES)
+  public void externalToInternal(Blackhole bh) {
+    for (String value : values) {
+      bh.consume(codec.externalToInternal(value));
+    }
+  }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.benchmarks;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.ProtocolVersion;
+import com.datastax.oss.driver.api.core.cql.BatchableStatement;
+import com.datastax.oss.driver.api.core.cql.ColumnDefinition;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.detach.AttachmentPoint;
+import com.datastax.oss.driver.api.core.type.DataType;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import com.datastax.oss.driver.api.core.type.codec.registry.CodecRegistry;
+import com.datastax.oss.driver.internal.core.cql.DefaultColumnDefinition;
+import com.datastax.oss.driver.internal.core.cql.DefaultColumnDefinitions;
+import com.datastax.oss.driver.internal.core.cql.DefaultPreparedStatement;
+import com.datastax.oss.dsbulk.config.ConfigUtils;
+import com.datastax.oss.protocol.internal.ProtocolConstants;
+import com.datastax.oss.protocol.internal.response.result.ColumnSpec;
+import com.datastax.oss.protocol.internal.response.result.RawType;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigValueFactory;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Generates deterministic synthetic data for the benchmarks.
+ *
+ * <p>All generated rows follow the same table layout: {@code ks.t1(pk int, cc bigint, v_text text,
+ * v_double double, v_timestamp timestamp, v_uuid uuid, v_boolean boolean, v_decimal decimal,
+ * PRIMARY KEY (pk, cc))}. Rows are generated with a fixed seed so that consecutive runs operate on
+ * the exact same data set.
+ */
+final class SyntheticData {
+
+  static final String KEYSPACE = "ks";
+  static final String TABLE = "t1";
+
+  static final String[] COLUMN_NAMES = {
+    "pk", "cc", "v_text", "v_double", "v_timestamp", "v_uuid", "v_boolean", "v_decimal"
+  };
+
+  static final DataType[] COLUMN_TYPES = {
+    DataTypes.INT,
+    DataTypes.BIGINT,
+    DataTypes.TEXT,
+    DataTypes.DOUBLE,
+    DataTypes.TIMESTAMP,
+    DataTypes.UUID,
+    DataTypes.BOOLEAN,
+    DataTypes.DECIMAL
+  };
+
+  private static final int[] PROTOCOL_CODES = {
+    ProtocolConstants.DataType.INT,
+    ProtocolConstants.DataType.BIGINT,
+    ProtocolConstants.DataType.VARCHAR,
+    ProtocolConstants.DataType.DOUBLE,
+    ProtocolConstants.DataType.TIMESTAMP,
+    ProtocolConstants.DataType.UUID,
+    ProtocolConstants.DataType.BOOLEAN,
+    ProtocolConstants.DataType.DECIMAL
+  };
+
+  private static final long SEED = 42L;
+
+  private static final long EPOCH_2020 = 1577836800000L;
+
+  private static final String ALPHABET =
+      "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 ";
+
+  private SyntheticData() {}
+
+  /**
+   * Generates rows of typed values, in column order.
+   *
+   * @param count the number of rows to generate.
+   * @param partitions the number of distinct partition keys to spread the rows across.
+   * @return the generated rows.
+   */
+  static List<Object[]> rows(int count, int partitions) {
+    Random random = new Random(SEED);
+    List<Object[]> rows = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      rows.add(
+          new Object[] {
+            random.nextInt(partitions),
+            (long) i,
+            randomText(random, 8 + random.nextInt(56)),
+            random.nextDouble() * 1_000_000d,
+            Instant.ofEpochMilli(EPOCH_2020 + (random.nextLong() & 0xFFFFFFFFFL)),
+            new UUID(random.nextLong(), random.nextLong()),
+            random.nextBoolean(),
+            BigDecimal.valueOf(random.nextInt(), 4)
+          });
+    }
+    return rows;
+  }
+
+  /**
+   * Converts the given rows to their textual form, as they would be read from a text-based
+   * connector.
+   */
+  static List<String[]> textRows(List<Object[]> rows) {
+    List<String[]> textRows = new ArrayList<>(rows.size());
+    for (Object[] row : rows) {
+      String[] textRow = new String[row.length];
+      for (int i = 0; i < row.length; i++) {
+        textRow[i] = row[i].toString();
+      }
+      textRows.add(textRow);
+    }
+    return textRows;
+  }
+
+  /** Writes the given rows to a new CSV file with a header line. */
+  static Path writeCsv(List<Object[]> rows) throws IOException {
+    Path file = Files.createTempFile("dsbulk-benchmark", ".csv");
+    file.toFile().deleteOnExit();
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      writer.write(String.join(",", COLUMN_NAMES));
+      writer.newLine();
+      for (String[] row : textRows(rows)) {
+        for (int i = 0; i < row.length; i++) {
+          if (i > 0) {
+            writer.write(',');
+          }
+          if (COLUMN_TYPES[i] == DataTypes.TEXT) {
+            writer.write('"');
+            writer.write(row[i]);
+            writer.write('"');
+          } else {
+            writer.write(row[i]);
+          }
+        }
+        writer.newLine();
+      }
+    }
+    return file;
+  }
+
+  /** Writes the given rows to a new Json file, one document per line. */
+  static Path writeJson(List<Object[]> rows) throws IOException {
+    Path file = Files.createTempFile("dsbulk-benchmark", ".json");
+    file.toFile().deleteOnExit();
+    JsonFactory factory = new JsonFactory();
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        JsonGenerator generator = factory.createGenerator(writer)) {
+      generator.setRootValueSeparator(null);
+      for (Object[] row : rows) {
+        generator.writeStartObject();
+        generator.writeNumberField(COLUMN_NAMES[0], (Integer) row[0]);
+        generator.writeNumberField(COLUMN_NAMES[1], (Long) row[1]);
+        generator.writeStringField(COLUMN_NAMES[2], (String) row[2]);
+        generator.writeNumberField(COLUMN_NAMES[3], (Double) row[3]);
+        generator.writeStringField(COLUMN_NAMES[4], row[4].toString());
+        generator.writeStringField(COLUMN_NAMES[5], row[5].toString());
+        generator.writeBooleanField(COLUMN_NAMES[6], (Boolean) row[6]);
+        generator.writeNumberField(COLUMN_NAMES[7], (BigDecimal) row[7]);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+      }
+    }
+    return file;
+  }
+
+  /**
+   * Creates the settings for the given connector, using the reference configuration and reading
+   * from the given file.
+   */
+  static Config connectorSettings(String connectorName, Path file) {
+    return ConfigUtils.createApplicationConfig(null)
+        .resolve()
+        .getConfig("dsbulk.connector." + connectorName)
+        .withValue("url", ConfigValueFactory.fromAnyRef(file.toUri().toString()));
+  }
+
+  /**
+   * Creates a prepared INSERT statement for the benchmark table, without the need for a session or
+   * a running cluster.
+   */
+  static PreparedStatement insertStatement() {
+    List<ColumnDefinition> definitions = new ArrayList<>();
+    StringBuilder query = new StringBuilder("INSERT INTO ");
+    query.append(KEYSPACE).append('.').append(TABLE).append(" (");
+    for (int i = 0; i < COLUMN_NAMES.length; i++) {
+      definitions.add(
+          new DefaultColumnDefinition(
+              new ColumnSpec(
+                  KEYSPACE, TABLE, COLUMN_NAMES[i], i, RawType.PRIMITIVES.get(PROTOCOL_CODES[i])),
+              AttachmentPoint.NONE));
+      if (i > 0) {
+        query.append(',');
+      }
+      query.append(COLUMN_NAMES[i]);
+    }
+    query.append(") VALUES (");
+    for (int i = 0; i < COLUMN_NAMES.length; i++) {
+      query.append(i == 0 ? ":" : ",:").append(COLUMN_NAMES[i]);
+    }
+    query.append(')');
+    return new DefaultPreparedStatement(
+        ByteBuffer.wrap(new byte[] {1, 2, 3, 4}),
+        query.toString(),
+        DefaultColumnDefinitions.valueOf(definitions),
+        Collections.singletonList(0),
+        null,
+        DefaultColumnDefinitions.valueOf(Collections.emptyList()),
+        CqlIdentifier.fromInternal(KEYSPACE),
+        Collections.emptyMap(),
+        null,
+        null,
+        null,
+        null,
+        null,
+        Collections.emptyMap(),
+        null,
+        null,
+        null,
+        -1,
+        null,
+        null,
+        false,
+        CodecRegistry.DEFAULT,
+        ProtocolVersion.DEFAULT);
+  }
+
+  /** Binds the given rows to the given prepared statement. */
+  static List<BatchableStatement<?>> boundStatements(
+      PreparedStatement insertStatement, List<Object[]> rows) {
+    List<BatchableStatement<?>> statements = new ArrayList<>(rows.size());
+    for (Object[] row : rows) {
+      statements.add(insertStatement.bind(row));
+    }
+    return statements;
+  }
+
+  private static String randomText(Random random, int length) {
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      chars[i] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+    }
+    return new String(chars);
+  }
+}
@@ -47,6 +47,11 @@ public class ZonedTemporalFormat extends SimpleTemporalFormat {
     this.timeZone = timeZone;
   }
 
+  /** The time zone applied to inputs without time zone information, and used when formatting. */
+  public ZoneId getTimeZone() {
+    return timeZone;
+  }
+
   @Override
   public TemporalAccessor parse(String text) {
     TemporalAccessor temporal = super.parse(text);
@@ -74,6 +74,16 @@ public class CodecUtils {
   private static final String CQL_TIMESTAMP = "CQL_TIMESTAMP";
   private static final String UNITS_SINCE_EPOCH = "UNITS_SINCE_EPOCH";
 
+  // plain longs with up to 18 digits cannot overflow
+  private static final int MAX_PLAIN_LONG_DIGITS = 18;
+
+  // plain decimals with up to 15 digits are exactly represented by their nearest double
+  private static final int MAX_PLAIN_DOUBLE_DIGITS = 15;
+
+  private static final double[] POWERS_OF_TEN = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+  };
+
   /**
    * Parses the given string as a number.
    *
@@ -281,6 +291,93 @@ public class CodecUtils {
     return number;
   }
 
+  /**
+   * Parses the given string as a long, if it is a plain integer, that is, if it only contains up to
+   * 18 ASCII digits, optionally preceded by a minus sign.
+   *
+   * <p>This method is meant to be used as a fast path before {@link #parseNumber(String,
+   * NumberFormat, TemporalFormat, ZoneId, TimeUnit, ZonedDateTime, Map, List)}: plain integers are
+   * parsed to the same value by every {@link NumberFormat} created by {@link
+   * #getNumberFormat(String, Locale, RoundingMode, boolean)}, or are rejected by it and then parsed
+   * by {@link BigDecimal#BigDecimal(String)}. This method does not throw nor allocate intermediary
+   * objects.
+   *
+   * @param s the string to parse, may be {@code null}.
+   * @return the parsed value, or {@code null} if the string is not a plain integer.
+   */
+  @Nullable
+  public static Long parsePlainLong(@Nullable String s) {
+    if (s == null) {
+      return null;
+    }
+    int length = s.length();
+    int start = length > 0 && s.charAt(0) == '-' ? 1 : 0;
+    if (length == start || length - start > MAX_PLAIN_LONG_DIGITS) {
+      return null;
+    }
+    long value = 0;
+    for (int i = start; i < length; i++) {
+      int digit = s.charAt(i) - '0';
+      if (digit < 0 || digit > 9) {
+        return null;
+      }
+      value = value * 10 + digit;
+    }
+    return start == 0 ? value : -value;
+  }
+
+  /**
+   * Parses the given string as a double, if it is a plain decimal number, that is, if it only
+   * contains up to 15 ASCII digits, optionally preceded by a minus sign, and optionally separated
+   * by one dot; the dot must be preceded and followed by at least one digit.
+   *
+   * <p>This method is meant to be used as a fast path before {@link #parseNumber(String,
+   * NumberFormat, TemporalFormat, ZoneId, TimeUnit, ZonedDateTime, Map, List)}, when the number
+   * format in use does not interpret the dot as a grouping separator. With at most 15 digits, the
+   * returned double is the exact same number as the one that would have been obtained by parsing
+   * the string to a {@link BigDecimal} and converting it to a double. This method does not throw
+   * nor allocate intermediary objects.
+   *
+   * @param s the string to parse, may be {@code null}.
+   * @return the parsed value, or {@code null} if the string is not a plain decimal number.
+   */
+  @Nullable
+  public static Double parsePlainDouble(@Nullable String s) {
+    if (s == null) {
+      return null;
+    }
+    int length = s.length();
+    int start = length > 0 && s.charAt(0) == '-' ? 1 : 0;
+    long mantissa = 0;
+    int digits = 0;
+    int dot = -1;
+    for (int i = start; i < length; i++) {
+      char c = s.charAt(i);
+      if (c == '.') {
+        if (dot != -1 || i == start || i == length - 1) {
+          return null;
+        }
+        dot = i;
+      } else {
+        int digit = c - '0';
+        if (digit < 0 || digit > 9 || ++digits > MAX_PLAIN_DOUBLE_DIGITS) {
+          return null;
+        }
+        mantissa = mantissa * 10 + digit;
+      }
+    }
+    if (digits == 0) {
+      return null;
+    }
+    if (mantissa == 0) {
+      // BigDecimal has no negative zero
+      return 0d;
+    }
+    // both operands are exact doubles, and the division is correctly rounded
+    double value = dot == -1 ? mantissa : mantissa / POWERS_OF_TEN[length - dot - 1];
+    return start == 0 ? value : -value;
+  }
+
   /**
    * Formats the given number using the given format.
    *
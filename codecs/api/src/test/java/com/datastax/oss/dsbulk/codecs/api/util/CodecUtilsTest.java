@@ -21,6 +21,8 @@ import static com.datastax.oss.dsbulk.codecs.api.util.CodecUtils.formatNumber;
 import static com.datastax.oss.dsbulk.codecs.api.util.CodecUtils.instantToNumber;
 import static com.datastax.oss.dsbulk.codecs.api.util.CodecUtils.numberToInstant;
 import static com.datastax.oss.dsbulk.codecs.api.util.CodecUtils.parseNumber;
+import static com.datastax.oss.dsbulk.codecs.api.util.CodecUtils.parsePlainDouble;
+import static com.datastax.oss.dsbulk.codecs.api.util.CodecUtils.parsePlainLong;
 import static com.datastax.oss.dsbulk.codecs.api.util.CodecUtils.toBigDecimal;
 import static com.datastax.oss.dsbulk.codecs.api.util.CodecUtils.toBigIntegerExact;
 import static com.datastax.oss.dsbulk.codecs.api.util.CodecUtils.toByteValueExact;
@@ -288,6 +290,54 @@ class CodecUtilsTest {
         .hasMessageContaining("Invalid number format: 0.1234 ABC");
   }
 
+  @Test
+  void should_parse_plain_long() {
+    assertThat(parsePlainLong("0")).isEqualTo(0L);
+    assertThat(parsePlainLong("-0")).isEqualTo(0L);
+    assertThat(parsePlainLong("42")).isEqualTo(42L);
+    assertThat(parsePlainLong("-0042")).isEqualTo(-42L);
+    assertThat(parsePlainLong("999999999999999999")).isEqualTo(999_999_999_999_999_999L);
+    assertThat(parsePlainLong("-999999999999999999")).isEqualTo(-999_999_999_999_999_999L);
+    // not plain integers
+    assertThat(parsePlainLong(null)).isNull();
+    assertThat(parsePlainLong("")).isNull();
+    assertThat(parsePlainLong("-")).isNull();
+    assertThat(parsePlainLong("+42")).isNull();
+    assertThat(parsePlainLong(" 42")).isNull();
+    assertThat(parsePlainLong("1,234")).isNull();
+    assertThat(parsePlainLong("1.0")).isNull();
+    assertThat(parsePlainLong("1E3")).isNull();
+    assertThat(parsePlainLong("2020-01-01")).isNull();
+    assertThat(parsePlainLong("\u0664\u0662")).isNull();
+    // too many digits
+    assertThat(parsePlainLong("1000000000000000000")).isNull();
+  }
+
+  @Test
+  void should_parse_plain_double() {
+    assertThat(parsePlainDouble("0")).isEqualTo(0d);
+    // BigDecimal has no negative zero
+    assertThat(Double.doubleToLongBits(parsePlainDouble("-0.0"))).isEqualTo(0L);
+    assertThat(parsePlainDouble("42")).isEqualTo(42d);
+    assertThat(parsePlainDouble("1234.56")).isEqualTo(1234.56d);
+    assertThat(parsePlainDouble("-0.1")).isEqualTo(-0.1d);
+    assertThat(parsePlainDouble("0.30000000000000")).isEqualTo(0.3d);
+    assertThat(parsePlainDouble("123456789.012345")).isEqualTo(123456789.012345d);
+    assertThat(parsePlainDouble("0.00000000000001")).isEqualTo(1e-14d);
+    // not plain decimals
+    assertThat(parsePlainDouble(null)).isNull();
+    assertThat(parsePlainDouble("")).isNull();
+    assertThat(parsePlainDouble("-")).isNull();
+    assertThat(parsePlainDouble(".5")).isNull();
+    assertThat(parsePlainDouble("5.")).isNull();
+    assertThat(parsePlainDouble("1.2.3")).isNull();
+    assertThat(parsePlainDouble("1,234.56")).isNull();
+    assertThat(parsePlainDouble("1.5E3")).isNull();
+    assertThat(parsePlainDouble("NaN")).isNull();
+    // too many digits
+    assertThat(parsePlainDouble("0.1234567890123456")).isNull();
+  }
+
   @Test
   void should_format_number() {
     assertThat(formatNumber(null, numberFormat1)).isNull();
@@ -15,14 +15,24 @@
  */
 package com.datastax.oss.dsbulk.codecs.text.json;
 
+import com.datastax.oss.driver.api.core.ProtocolVersion;
 import com.datastax.oss.driver.api.core.type.reflect.GenericType;
+import com.datastax.oss.dsbulk.codecs.api.ConvertingCodec;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.json.JsonReadFeature;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.List;
 
 public class JsonCodecUtils {
 
@@ -56,4 +66,142 @@ public class JsonCodecUtils {
         .enable(DeserializationFeature.FAIL_ON_TRAILING_TOKENS)
         .build();
   }
+
+  /**
+   * Returns a reader for Json values embedded in a larger document: it behaves like the given
+   * object mapper, except that it does not fail on trailing tokens.
+   *
+   * @param objectMapper The object mapper to derive the reader from.
+   * @return A reader to use with {@link #encode(ConvertingCodec, ObjectReader, String,
+   *     ProtocolVersion)}.
+   */
+  public static ObjectReader getElementReader(@NonNull ObjectMapper objectMapper) {
+    return objectMapper.reader().without(DeserializationFeature.FAIL_ON_TRAILING_TOKENS);
+  }
+
+  /**
+   * Encodes the given Json array or object directly to its CQL wire format, parsing it with a
+   * streaming parser.
+   *
+   * <p>The result is the same as reading the entire input as a tree, converting it with the given
+   * codec, and then encoding the resulting Java value; but elements are encoded as they are parsed,
+   * without building a tree nor an intermediary collection.
+   *
+   * @param codec The codec to encode the value with.
+   * @param reader The reader to parse the input with, as returned by {@link
+   *     #getElementReader(ObjectMapper)}.
+   * @param json The input to encode.
+   * @param protocolVersion The protocol version to use.
+   * @return The encoded value, or {@code null} if the input is not a Json array or object, or if it
+   *     cannot be encoded this way, e.g. because it is invalid; in which case callers should go
+   *     through the regular conversion path, which will either produce the result or report the
+   *     error.
+   */
+  @Nullable
+  public static ByteBuffer encode(
+      @NonNull ConvertingCodec<JsonNode, ?> codec,
+      @NonNull ObjectReader reader,
+      @NonNull String json,
+      @NonNull ProtocolVersion protocolVersion) {
+    if (!(codec instanceof JsonNodeConvertingCodec)) {
+      return null;
+    }
+    try (JsonParser parser = reader.createParser(json)) {
+      JsonToken token = parser.nextToken();
+      if (token == JsonToken.START_ARRAY || token == JsonToken.START_OBJECT) {
+        ByteBuffer bytes =
+            ((JsonNodeConvertingCodec<?>) codec).encode(parser, reader, protocolVersion);
+        // the entire input must be parsed
+        if (bytes != null && parser.nextToken() == null) {
+          return bytes;
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      // let the regular conversion path report the error
+    }
+    return null;
+  }
+
+  /**
+   * Encodes the Json value the given parser is positioned on with the given codec, leaving the
+   * parser at the end of that value.
+   */
+  static ByteBuffer encode(
+      @NonNull ConvertingCodec<JsonNode, ?> codec,
+      @NonNull JsonParser parser,
+      @NonNull ObjectReader reader,
+      @NonNull ProtocolVersion protocolVersion)
+      throws IOException {
+    if (codec instanceof JsonNodeConvertingCodec) {
+      return ((JsonNodeConvertingCodec<?>) codec).encode(parser, reader, protocolVersion);
+    }
+    return codec.encode(readTree(parser, reader), protocolVersion);
+  }
+
+  /**
+   * Reads the Json value the given parser is positioned on as a tree, leaving the parser at the end
+   * of that value. Scalars that the tree deserializer would map to a single node type are read
+   * directly, without going through the reader.
+   */
+  @NonNull
+  static JsonNode readTree(@NonNull JsonParser parser, @NonNull ObjectReader reader)
+      throws IOException {
+    JsonNodeFactory nodeFactory = reader.getConfig().getNodeFactory();
+    switch (parser.currentToken()) {
+      case VALUE_STRING:
+        return nodeFactory.textNode(parser.getText());
+      case VALUE_TRUE:
+        return nodeFactory.booleanNode(true);
+      case VALUE_FALSE:
+        return nodeFactory.booleanNode(false);
+      case VALUE_NULL:
+        return nodeFactory.nullNode();
+      default:
+        return reader.readTree(parser);
+    }
+  }
+
+  /**
+   * Serializes already encoded elements in the CQL wire format of collections: the number of
+   * elements, followed by each element prefixed with its size. Map entries are written as two
+   * consecutive elements, the key and the value.
+   */
+  @NonNull
+  static ByteBuffer packCollection(int size, @NonNull List<ByteBuffer> elements) {
+    int length = 4;
+    for (ByteBuffer element : elements) {
+      length += 4 + element.remaining();
+    }
+    ByteBuffer result = ByteBuffer.allocate(length);
+    result.putInt(size);
+    for (ByteBuffer element : elements) {
+      result.putInt(element.remaining());
+      result.put(element.duplicate());
+    }
+    result.flip();
+    return result;
+  }
+
+  /**
+   * Serializes already encoded fields in the CQL wire format of tuples and UDTs: each field
+   * prefixed with its size, null fields being written as a size of -1.
+   */
+  @NonNull
+  static ByteBuffer packFields(@NonNull ByteBuffer[] fields) {
+    int length = 0;
+    for (ByteBuffer field : fields) {
+      length += field == null ? 4 : 4 + field.remaining();
+    }
+    ByteBuffer result = ByteBuffer.allocate(length);
+    for (ByteBuffer field : fields) {
+      if (field == null) {
+        result.putInt(-1);
+      } else {
+        result.putInt(field.remaining());
+        result.put(field.duplicate());
+      }
+    }
+    result.flip();
+    return result;
+  }
 }
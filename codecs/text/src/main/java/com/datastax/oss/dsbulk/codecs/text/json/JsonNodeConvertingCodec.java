@@ -15,9 +15,15 @@
  */
 package com.datastax.oss.dsbulk.codecs.text.json;
 
+import com.datastax.oss.driver.api.core.ProtocolVersion;
 import com.datastax.oss.driver.api.core.type.codec.TypeCodec;
 import com.datastax.oss.dsbulk.codecs.api.ConvertingCodec;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 public abstract class JsonNodeConvertingCodec<T> extends ConvertingCodec<JsonNode, T> {
@@ -65,4 +71,29 @@ public abstract class JsonNodeConvertingCodec<T> extends ConvertingCodec<JsonNod
   protected boolean isNullOrEmpty(JsonNode node) {
     return isNull(node) || (node.isValueNode() && node.asText().isEmpty());
   }
+
+  /**
+   * Encodes the Json value the given parser is positioned on, leaving the parser at the end of that
+   * value.
+   *
+   * <p>This is equivalent to reading the value as a tree and encoding it with {@link
+   * #encode(Object, ProtocolVersion)}, which is what this implementation does. Codecs for
+   * collections, maps, tuples and UDTs override it to encode their elements as they are parsed,
+   * without building a tree nor an intermediary Java value; they may throw any exception when the
+   * value cannot be encoded this way, in which case callers should go through the regular
+   * conversion path instead.
+   *
+   * @param parser The parser, positioned on the first token of the value to encode.
+   * @param reader The reader to use to read values as trees.
+   * @param protocolVersion The protocol version to use.
+   * @return The encoded value.
+   * @see JsonCodecUtils#encode(ConvertingCodec, ObjectReader, String, ProtocolVersion)
+   */
+  public ByteBuffer encode(
+      @NonNull JsonParser parser,
+      @NonNull ObjectReader reader,
+      @NonNull ProtocolVersion protocolVersion)
+      throws IOException {
+    return encode(JsonCodecUtils.readTree(parser, reader), protocolVersion);
+  }
 }
@@ -15,14 +15,25 @@
  */
 package com.datastax.oss.dsbulk.codecs.text.json;
 
+import com.datastax.oss.driver.api.core.ProtocolVersion;
+import com.datastax.oss.driver.api.core.type.SetType;
 import com.datastax.oss.driver.api.core.type.codec.TypeCodec;
 import com.datastax.oss.dsbulk.codecs.api.ConvertingCodec;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Supplier;
 
 public abstract class JsonNodeToCollectionCodec<E, C extends Collection<E>>
@@ -32,6 +43,7 @@ public abstract class JsonNodeToCollectionCodec<E, C extends Collection<E>>
   private final Supplier<C> collectionSupplier;
   private final ObjectMapper objectMapper;
   private final C emptyCollection;
+  private final boolean uniqueElements;
 
   JsonNodeToCollectionCodec(
       TypeCodec<C> collectionCodec,
@@ -45,6 +57,7 @@ public abstract class JsonNodeToCollectionCodec<E, C extends Collection<E>>
     this.objectMapper = objectMapper;
     this.collectionSupplier = collectionSupplier;
     this.emptyCollection = emptyCollection;
+    uniqueElements = collectionCodec.getCqlType() instanceof SetType;
   }
 
   @Override
@@ -67,6 +80,31 @@ public abstract class JsonNodeToCollectionCodec<E, C extends Collection<E>>
     return collection;
   }
 
+  @Override
+  public ByteBuffer encode(
+      @NonNull JsonParser parser,
+      @NonNull ObjectReader reader,
+      @NonNull ProtocolVersion protocolVersion)
+      throws IOException {
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      return super.encode(parser, reader, protocolVersion);
+    }
+    List<ByteBuffer> elements = new ArrayList<>();
+    Set<ByteBuffer> distinct = uniqueElements ? new HashSet<>() : null;
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      ByteBuffer element = JsonCodecUtils.encode(eltCodec, parser, reader, protocolVersion);
+      if (element == null) {
+        throw new NullPointerException("Collection elements cannot be null");
+      }
+      // duplicates are left to the regular path, which compares converted elements, not bytes
+      if (distinct != null && !distinct.add(element)) {
+        throw new IllegalArgumentException("Duplicate set element");
+      }
+      elements.add(element);
+    }
+    return JsonCodecUtils.packCollection(elements.size(), elements);
+  }
+
   @Override
   public JsonNode internalToExternal(C value) {
     if (value == null) {
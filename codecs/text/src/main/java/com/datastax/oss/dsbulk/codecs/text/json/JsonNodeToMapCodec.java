@@ -15,16 +15,26 @@
  */
 package com.datastax.oss.dsbulk.codecs.text.json;
 
+import com.datastax.oss.driver.api.core.ProtocolVersion;
 import com.datastax.oss.driver.api.core.type.codec.TypeCodec;
 import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableMap;
 import com.datastax.oss.dsbulk.codecs.api.ConvertingCodec;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class JsonNodeToMapCodec<K, V> extends JsonNodeConvertingCodec<Map<K, V>> {
 
@@ -68,6 +78,37 @@ public class JsonNodeToMapCodec<K, V> extends JsonNodeConvertingCodec<Map<K, V>>
     return map;
   }
 
+  @Override
+  public ByteBuffer encode(
+      @NonNull JsonParser parser,
+      @NonNull ObjectReader reader,
+      @NonNull ProtocolVersion protocolVersion)
+      throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      return super.encode(parser, reader, protocolVersion);
+    }
+    List<ByteBuffer> entries = new ArrayList<>();
+    Set<ByteBuffer> keys = new HashSet<>();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      ByteBuffer key = keyCodec.encode(parser.getCurrentName(), protocolVersion);
+      if (key == null) {
+        throw new NullPointerException("Map keys cannot be null");
+      }
+      // duplicates are left to the regular path, where the last occurrence wins
+      if (!keys.add(key)) {
+        throw new IllegalArgumentException("Duplicate map key");
+      }
+      parser.nextToken();
+      ByteBuffer value = JsonCodecUtils.encode(valueCodec, parser, reader, protocolVersion);
+      if (value == null) {
+        throw new NullPointerException("Map values cannot be null");
+      }
+      entries.add(key);
+      entries.add(value);
+    }
+    return JsonCodecUtils.packCollection(keys.size(), entries);
+  }
+
   @Override
   public JsonNode internalToExternal(Map<K, V> map) {
     if (map == null) {
@@ -15,13 +15,20 @@
  */
 package com.datastax.oss.dsbulk.codecs.text.json;
 
+import com.datastax.oss.driver.api.core.ProtocolVersion;
 import com.datastax.oss.driver.api.core.data.TupleValue;
 import com.datastax.oss.driver.api.core.type.TupleType;
 import com.datastax.oss.driver.api.core.type.codec.TypeCodec;
 import com.datastax.oss.dsbulk.codecs.api.ConvertingCodec;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 public class JsonNodeToTupleCodec extends JsonNodeConvertingCodec<TupleValue> {
@@ -72,6 +79,36 @@ public class JsonNodeToTupleCodec extends JsonNodeConvertingCodec<TupleValue> {
     return tuple;
   }
 
+  @Override
+  public ByteBuffer encode(
+      @NonNull JsonParser parser,
+      @NonNull ObjectReader reader,
+      @NonNull ProtocolVersion protocolVersion)
+      throws IOException {
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      return super.encode(parser, reader, protocolVersion);
+    }
+    int tupleSize = definition.getComponentTypes().size();
+    ByteBuffer[] fields = new ByteBuffer[tupleSize];
+    int nodeSize = 0;
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      if (nodeSize < tupleSize) {
+        fields[nodeSize] =
+            JsonCodecUtils.encode(eltCodecs.get(nodeSize), parser, reader, protocolVersion);
+      } else {
+        parser.skipChildren();
+      }
+      nodeSize++;
+    }
+    if (nodeSize > tupleSize && !allowExtraFields) {
+      throw JsonSchemaMismatchException.arraySizeGreaterThanTupleSize(tupleSize, nodeSize);
+    }
+    if (nodeSize < tupleSize && !allowMissingFields) {
+      throw JsonSchemaMismatchException.arraySizeLesserThanTupleSize(tupleSize, nodeSize);
+    }
+    return JsonCodecUtils.packFields(fields);
+  }
+
   @Override
   public JsonNode internalToExternal(TupleValue tuple) {
     if (tuple == null) {
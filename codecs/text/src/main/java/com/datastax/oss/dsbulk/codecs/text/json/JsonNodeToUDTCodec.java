@@ -16,15 +16,22 @@
 package com.datastax.oss.dsbulk.codecs.text.json;
 
 import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.ProtocolVersion;
 import com.datastax.oss.driver.api.core.data.UdtValue;
 import com.datastax.oss.driver.api.core.type.UserDefinedType;
 import com.datastax.oss.driver.api.core.type.codec.TypeCodec;
 import com.datastax.oss.driver.shaded.guava.common.collect.Iterators;
 import com.datastax.oss.driver.shaded.guava.common.collect.Sets;
 import com.datastax.oss.dsbulk.codecs.api.ConvertingCodec;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -101,17 +108,21 @@ public class JsonNodeToUDTCodec extends JsonNodeConvertingCodec<UdtValue> {
     Set<String> nodeFieldNames = new LinkedHashSet<>();
     Iterators.addAll(nodeFieldNames, node.fieldNames());
     if (!udtFieldNames.equals(nodeFieldNames)) {
-      Set<String> extraneous = Sets.difference(nodeFieldNames, udtFieldNames);
-      Set<String> missing = Sets.difference(udtFieldNames, nodeFieldNames);
-      boolean hasExtras = !allowExtraFields && !extraneous.isEmpty();
-      boolean hasMissing = !allowMissingFields && !missing.isEmpty();
-      if (hasMissing && hasExtras) {
-        throw JsonSchemaMismatchException.objectHasMissingAndExtraneousFields(extraneous, missing);
-      } else if (hasExtras) {
-        throw JsonSchemaMismatchException.objectHasExtraneousFields(extraneous);
-      } else if (hasMissing) {
-        throw JsonSchemaMismatchException.objectHasMissingFields(missing);
-      }
+      checkFields(
+          Sets.difference(nodeFieldNames, udtFieldNames),
+          Sets.difference(udtFieldNames, nodeFieldNames));
+    }
+  }
+
+  private void checkFields(Set<String> extraneous, Set<String> missing) {
+    boolean hasExtras = !allowExtraFields && !extraneous.isEmpty();
+    boolean hasMissing = !allowMissingFields && !missing.isEmpty();
+    if (hasMissing && hasExtras) {
+      throw JsonSchemaMismatchException.objectHasMissingAndExtraneousFields(extraneous, missing);
+    } else if (hasExtras) {
+      throw JsonSchemaMismatchException.objectHasExtraneousFields(extraneous);
+    } else if (hasMissing) {
+      throw JsonSchemaMismatchException.objectHasMissingFields(missing);
     }
   }
 
@@ -126,6 +137,72 @@ public class JsonNodeToUDTCodec extends JsonNodeConvertingCodec<UdtValue> {
     }
   }
 
+  @Override
+  public ByteBuffer encode(
+      @NonNull JsonParser parser,
+      @NonNull ObjectReader reader,
+      @NonNull ProtocolVersion protocolVersion)
+      throws IOException {
+    JsonToken token = parser.currentToken();
+    if (token != JsonToken.START_OBJECT && token != JsonToken.START_ARRAY) {
+      return super.encode(parser, reader, protocolVersion);
+    }
+    List<CqlIdentifier> fieldNames = definition.getFieldNames();
+    int udtSize = fieldNames.size();
+    ByteBuffer[] fields = new ByteBuffer[udtSize];
+    if (token == JsonToken.START_OBJECT) {
+      boolean[] found = new boolean[udtSize];
+      int foundCount = 0;
+      Set<String> extraneous = new LinkedHashSet<>();
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        int i = definition.firstIndexOf(CqlIdentifier.fromInternal(name));
+        parser.nextToken();
+        if (i < 0) {
+          extraneous.add(name);
+          parser.skipChildren();
+        } else if (found[i]) {
+          // duplicates are left to the regular path, where the last occurrence wins
+          throw new IllegalArgumentException("Duplicate field: " + name);
+        } else {
+          found[i] = true;
+          foundCount++;
+          fields[i] =
+              JsonCodecUtils.encode(
+                  fieldCodecs.get(fieldNames.get(i)), parser, reader, protocolVersion);
+        }
+      }
+      if (foundCount < udtSize || !extraneous.isEmpty()) {
+        Set<String> missing = new LinkedHashSet<>();
+        for (int i = 0; i < udtSize; i++) {
+          if (!found[i]) {
+            missing.add(fieldNames.get(i).asInternal());
+          }
+        }
+        checkFields(extraneous, missing);
+      }
+    } else {
+      int nodeSize = 0;
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        if (nodeSize < udtSize) {
+          fields[nodeSize] =
+              JsonCodecUtils.encode(
+                  fieldCodecs.get(fieldNames.get(nodeSize)), parser, reader, protocolVersion);
+        } else {
+          parser.skipChildren();
+        }
+        nodeSize++;
+      }
+      if (nodeSize > udtSize && !allowExtraFields) {
+        throw JsonSchemaMismatchException.arraySizeGreaterThanUDTSize(udtSize, nodeSize);
+      }
+      if (nodeSize < udtSize && !allowMissingFields) {
+        throw JsonSchemaMismatchException.arraySizeLesserThanUDTSize(udtSize, nodeSize);
+      }
+    }
+    return JsonCodecUtils.packFields(fields);
+  }
+
   @Override
   public JsonNode internalToExternal(UdtValue value) {
     if (value == null) {
@@ -60,7 +60,7 @@ public class StringToBigIntegerCodec extends StringToNumberCodec<BigInteger> {
 
   @Override
   public BigInteger externalToInternal(String s) {
-    Number number = parseNumber(s);
+    Number number = parseIntegral(s);
     if (number == null) {
       return null;
     }
@@ -17,12 +17,15 @@ package com.datastax.oss.dsbulk.codecs.text.string;
 
 import static java.util.stream.Collectors.toList;
 
+import com.datastax.oss.driver.api.core.ProtocolVersion;
 import com.datastax.oss.driver.api.core.type.codec.TypeCodecs;
 import com.datastax.oss.dsbulk.codecs.api.format.temporal.TemporalFormat;
 import com.datastax.oss.dsbulk.codecs.api.util.OverflowStrategy;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import io.netty.util.concurrent.FastThreadLocal;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.ByteBuffer;
 import java.text.NumberFormat;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -59,10 +62,19 @@ public class StringToByteCodec extends StringToNumberCodec<Byte> {
 
   @Override
   public Byte externalToInternal(String s) {
-    Number number = parseNumber(s);
+    Number number = parseIntegral(s);
     if (number == null) {
       return null;
     }
     return narrowNumber(number, Byte.class);
   }
+
+  @Override
+  public String decode(ByteBuffer bytes, @NonNull ProtocolVersion protocolVersion) {
+    if (plainNumbers && bytes != null && bytes.remaining() == 1) {
+      // same as Byte.toString(), without boxing the value first
+      return Byte.toString(bytes.get(bytes.position()));
+    }
+    return super.decode(bytes, protocolVersion);
+  }
 }
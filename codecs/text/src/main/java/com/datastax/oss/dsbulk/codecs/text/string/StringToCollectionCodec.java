@@ -15,12 +15,17 @@
  */
 package com.datastax.oss.dsbulk.codecs.text.string;
 
+import com.datastax.oss.driver.api.core.ProtocolVersion;
 import com.datastax.oss.dsbulk.codecs.api.ConvertingCodec;
+import com.datastax.oss.dsbulk.codecs.text.json.JsonCodecUtils;
 import com.datastax.oss.dsbulk.codecs.text.utils.StringUtils;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.List;
 
@@ -29,12 +34,14 @@ public abstract class StringToCollectionCodec<E, C extends Collection<E>>
 
   private final ConvertingCodec<JsonNode, C> jsonCodec;
   private final ObjectMapper objectMapper;
+  private final ObjectReader elementReader;
 
   StringToCollectionCodec(
       ConvertingCodec<JsonNode, C> jsonCodec, ObjectMapper objectMapper, List<String> nullStrings) {
     super(jsonCodec.getInternalCodec(), nullStrings);
     this.jsonCodec = jsonCodec;
     this.objectMapper = objectMapper;
+    elementReader = JsonCodecUtils.getElementReader(objectMapper);
   }
 
   @Override
@@ -50,6 +57,17 @@ public abstract class StringToCollectionCodec<E, C extends Collection<E>>
     }
   }
 
+  @Override
+  public ByteBuffer encode(String s, @NonNull ProtocolVersion protocolVersion) {
+    if (isNullOrEmpty(s)) {
+      return null;
+    }
+    ByteBuffer bytes =
+        JsonCodecUtils.encode(
+            jsonCodec, elementReader, StringUtils.ensureBrackets(s), protocolVersion);
+    return bytes == null ? super.encode(s, protocolVersion) : bytes;
+  }
+
   @Override
   public String internalToExternal(C collection) {
     if (collection == null) {
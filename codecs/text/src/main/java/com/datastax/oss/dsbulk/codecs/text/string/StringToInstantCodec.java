@@ -15,11 +15,17 @@
  */
 package com.datastax.oss.dsbulk.codecs.text.string;
 
+import com.datastax.oss.driver.api.core.ProtocolVersion;
 import com.datastax.oss.driver.api.core.type.codec.TypeCodecs;
+import com.datastax.oss.dsbulk.codecs.api.format.temporal.CqlTemporalFormat;
 import com.datastax.oss.dsbulk.codecs.api.format.temporal.TemporalFormat;
 import com.datastax.oss.dsbulk.codecs.api.util.CodecUtils;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.nio.ByteBuffer;
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.temporal.TemporalAccessor;
 import java.util.List;
@@ -29,6 +35,9 @@ public class StringToInstantCodec extends StringToTemporalCodec<Instant> {
   private final ZoneId timeZone;
   private final ZonedDateTime epoch;
 
+  // whether timestamps are formatted as ISO-8601 date-times in UTC, which is the default
+  private final boolean isoUtcTimestamps;
+
   public StringToInstantCodec(
       TemporalFormat temporalFormat,
       ZoneId timeZone,
@@ -37,6 +46,10 @@ public class StringToInstantCodec extends StringToTemporalCodec<Instant> {
     super(TypeCodecs.TIMESTAMP, temporalFormat, nullStrings);
     this.timeZone = timeZone;
     this.epoch = epoch;
+    isoUtcTimestamps =
+        temporalFormat instanceof CqlTemporalFormat
+            && ZoneOffset.UTC.equals(
+                ((CqlTemporalFormat) temporalFormat).getTimeZone().normalized());
   }
 
   @Override
@@ -47,4 +60,63 @@ public class StringToInstantCodec extends StringToTemporalCodec<Instant> {
     }
     return CodecUtils.toInstant(temporal, timeZone, epoch.toLocalDate());
   }
+
+  @Override
+  public String decode(ByteBuffer bytes, @NonNull ProtocolVersion protocolVersion) {
+    if (isoUtcTimestamps && bytes != null && bytes.remaining() == 8) {
+      String formatted = formatIsoUtc(bytes.getLong(bytes.position()));
+      if (formatted != null) {
+        return formatted;
+      }
+    }
+    return super.decode(bytes, protocolVersion);
+  }
+
+  /**
+   * Formats the given timestamp the same way as {@link CqlTemporalFormat} does in UTC, e.g. {@code
+   * 2016-07-24T20:34:12.999Z}, without going through a {@link java.time.format.DateTimeFormatter}.
+   * Returns null for years that are not printed with exactly four digits.
+   */
+  private static String formatIsoUtc(long millis) {
+    long seconds = Math.floorDiv(millis, 1000L);
+    int milliOfSecond = (int) Math.floorMod(millis, 1000L);
+    LocalDateTime dateTime = LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+    int year = dateTime.getYear();
+    if (year < 0 || year > 9999) {
+      return null;
+    }
+    char[] chars = new char[24];
+    int pos = 0;
+    pos = appendDigits(chars, pos, year, 4);
+    chars[pos++] = '-';
+    pos = appendDigits(chars, pos, dateTime.getMonthValue(), 2);
+    chars[pos++] = '-';
+    pos = appendDigits(chars, pos, dateTime.getDayOfMonth(), 2);
+    chars[pos++] = 'T';
+    pos = appendDigits(chars, pos, dateTime.getHour(), 2);
+    chars[pos++] = ':';
+    pos = appendDigits(chars, pos, dateTime.getMinute(), 2);
+    chars[pos++] = ':';
+    pos = appendDigits(chars, pos, dateTime.getSecond(), 2);
+    if (milliOfSecond != 0) {
+      // fractions are printed with as few digits as possible
+      chars[pos++] = '.';
+      int digits = 3;
+      while (milliOfSecond % 10 == 0) {
+        milliOfSecond /= 10;
+        digits--;
+      }
+      pos = appendDigits(chars, pos, milliOfSecond, digits);
+    }
+    chars[pos++] = 'Z';
+    return new String(chars, 0, pos);
+  }
+
+  private static int appendDigits(char[] chars, int pos, int value, int digits) {
+    for (int i = pos + digits - 1; i >= pos; i--) {
+      chars[i] = (char) ('0' + value % 10);
+      value /= 10;
+    }
+    return pos + digits;
+  }
 }
@@ -17,12 +17,15 @@ package com.datastax.oss.dsbulk.codecs.text.string;
 
 import static java.util.stream.Collectors.toList;
 
+import com.datastax.oss.driver.api.core.ProtocolVersion;
 import com.datastax.oss.driver.api.core.type.codec.PrimitiveLongCodec;
 import com.datastax.oss.dsbulk.codecs.api.format.temporal.TemporalFormat;
 import com.datastax.oss.dsbulk.codecs.api.util.OverflowStrategy;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import io.netty.util.concurrent.FastThreadLocal;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.ByteBuffer;
 import java.text.NumberFormat;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -60,10 +63,19 @@ public class StringToLongCodec extends StringToNumberCodec<Long> {
 
   @Override
   public Long externalToInternal(String s) {
-    Number number = parseNumber(s);
+    Number number = parseIntegral(s);
     if (number == null) {
       return null;
     }
     return narrowNumber(number, Long.class);
   }
+
+  @Override
+  public String decode(ByteBuffer bytes, @NonNull ProtocolVersion protocolVersion) {
+    if (plainNumbers && bytes != null && bytes.remaining() == 8) {
+      // same as Long.toString(), without boxing the value first
+      return Long.toString(bytes.getLong(bytes.position()));
+    }
+    return super.decode(bytes, protocolVersion);
+  }
 }
@@ -15,12 +15,17 @@
  */
 package com.datastax.oss.dsbulk.codecs.text.string;
 
+import com.datastax.oss.driver.api.core.ProtocolVersion;
 import com.datastax.oss.dsbulk.codecs.api.ConvertingCodec;
+import com.datastax.oss.dsbulk.codecs.text.json.JsonCodecUtils;
 import com.datastax.oss.dsbulk.codecs.text.utils.StringUtils;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
 
@@ -28,6 +33,7 @@ public class StringToMapCodec<K, V> extends StringConvertingCodec<Map<K, V>> {
 
   private final ConvertingCodec<JsonNode, Map<K, V>> jsonCodec;
   private final ObjectMapper objectMapper;
+  private final ObjectReader elementReader;
 
   public StringToMapCodec(
       ConvertingCodec<JsonNode, Map<K, V>> jsonCodec,
@@ -36,6 +42,7 @@ public class StringToMapCodec<K, V> extends StringConvertingCodec<Map<K, V>> {
     super(jsonCodec.getInternalCodec(), nullStrings);
     this.jsonCodec = jsonCodec;
     this.objectMapper = objectMapper;
+    elementReader = JsonCodecUtils.getElementReader(objectMapper);
   }
 
   @Override
@@ -51,6 +58,17 @@ public class StringToMapCodec<K, V> extends StringConvertingCodec<Map<K, V>> {
     }
   }
 
+  @Override
+  public ByteBuffer encode(String s, @NonNull ProtocolVersion protocolVersion) {
+    if (isNullOrEmpty(s)) {
+      return null;
+    }
+    ByteBuffer bytes =
+        JsonCodecUtils.encode(
+            jsonCodec, elementReader, StringUtils.ensureBraces(s), protocolVersion);
+    return bytes == null ? super.encode(s, protocolVersion) : bytes;
+  }
+
   @Override
   public String internalToExternal(Map<K, V> map) {
     if (map == null) {
@@ -16,12 +16,15 @@
 package com.datastax.oss.dsbulk.codecs.text.string;
 
 import com.datastax.oss.driver.api.core.type.codec.TypeCodec;
+import com.datastax.oss.dsbulk.codecs.api.format.number.ToStringNumberFormat;
 import com.datastax.oss.dsbulk.codecs.api.format.temporal.TemporalFormat;
 import com.datastax.oss.dsbulk.codecs.api.util.CodecUtils;
 import com.datastax.oss.dsbulk.codecs.api.util.OverflowStrategy;
 import io.netty.util.concurrent.FastThreadLocal;
+import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.text.NumberFormat;
+import java.text.ParseException;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.List;
@@ -30,6 +33,8 @@ import java.util.concurrent.TimeUnit;
 
 public abstract class StringToNumberCodec<N extends Number> extends StringConvertingCodec<N> {
 
+  private static final BigDecimal ONE_AND_A_HALF = new BigDecimal("1.5");
+
   private final FastThreadLocal<NumberFormat> numberFormat;
   private final OverflowStrategy overflowStrategy;
   private final RoundingMode roundingMode;
@@ -39,6 +44,13 @@ public abstract class StringToNumberCodec<N extends Number> extends StringConver
   private final ZonedDateTime epoch;
   private final Map<String, Boolean> booleanStrings;
   private final List<N> booleanNumbers;
+  private final boolean plainDecimals;
+
+  /**
+   * Whether numbers are formatted with {@link Number#toString()}; if so, subclasses may format
+   * values straight from their wire format, without decoding them to boxed numbers first.
+   */
+  final boolean plainNumbers;
 
   StringToNumberCodec(
       TypeCodec<N> targetCodec,
@@ -62,6 +74,8 @@ public abstract class StringToNumberCodec<N extends Number> extends StringConver
     this.epoch = epoch;
     this.booleanStrings = booleanStrings;
     this.booleanNumbers = booleanNumbers;
+    this.plainDecimals = parsesDotAsDecimalSeparator(numberFormat.get());
+    this.plainNumbers = numberFormat.get() instanceof ToStringNumberFormat;
   }
 
   @Override
@@ -87,7 +101,49 @@ public abstract class StringToNumberCodec<N extends Number> extends StringConver
         booleanNumbers);
   }
 
+  /**
+   * Parses the given string as a number, parsing plain integers directly to a {@link Long}; other
+   * strings are parsed with {@link #parseNumber(String)}.
+   */
+  Number parseIntegral(String s) {
+    if (isNullOrEmpty(s)) {
+      return null;
+    }
+    Long l = CodecUtils.parsePlainLong(s);
+    return l != null ? l : parseNumber(s);
+  }
+
+  /**
+   * Parses the given string as a number, parsing plain decimal numbers directly to a {@link
+   * Double}, if the number format allows it; other strings are parsed with {@link
+   * #parseNumber(String)}.
+   */
+  Number parseFloatingPoint(String s) {
+    if (isNullOrEmpty(s)) {
+      return null;
+    }
+    if (plainDecimals) {
+      Double d = CodecUtils.parsePlainDouble(s);
+      if (d != null) {
+        return d;
+      }
+    }
+    return parseNumber(s);
+  }
+
   N narrowNumber(Number number, Class<? extends N> targetClass) {
     return CodecUtils.narrowNumber(number, targetClass, overflowStrategy, roundingMode);
   }
+
+  private static boolean parsesDotAsDecimalSeparator(NumberFormat numberFormat) {
+    // formats that reject plain decimals are fine, since these are then parsed as BigDecimals;
+    // but formats that accept them with a different value, e.g. because the dot is a grouping
+    // separator in their locale, cannot use the fast path.
+    try {
+      Number number = CodecUtils.parseNumber("1.5", numberFormat);
+      return number != null && CodecUtils.toBigDecimal(number).compareTo(ONE_AND_A_HALF) == 0;
+    } catch (ParseException e) {
+      return true;
+    }
+  }
 }
@@ -15,18 +15,24 @@
  */
 package com.datastax.oss.dsbulk.codecs.text.string;
 
+import com.datastax.oss.driver.api.core.ProtocolVersion;
 import com.datastax.oss.driver.api.core.data.TupleValue;
 import com.datastax.oss.dsbulk.codecs.api.ConvertingCodec;
+import com.datastax.oss.dsbulk.codecs.text.json.JsonCodecUtils;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 public class StringToTupleCodec extends StringConvertingCodec<TupleValue> {
 
   private final ConvertingCodec<JsonNode, TupleValue> jsonCodec;
   private final ObjectMapper objectMapper;
+  private final ObjectReader elementReader;
 
   public StringToTupleCodec(
       ConvertingCodec<JsonNode, TupleValue> jsonCodec,
@@ -35,6 +41,7 @@ public class StringToTupleCodec extends StringConvertingCodec<TupleValue> {
     super(jsonCodec.getInternalCodec(), nullStrings);
     this.jsonCodec = jsonCodec;
     this.objectMapper = objectMapper;
+    elementReader = JsonCodecUtils.getElementReader(objectMapper);
   }
 
   @Override
@@ -50,6 +57,15 @@ public class StringToTupleCodec extends StringConvertingCodec<TupleValue> {
     }
   }
 
+  @Override
+  public ByteBuffer encode(String s, @NonNull ProtocolVersion protocolVersion) {
+    if (isNullOrEmpty(s)) {
+      return null;
+    }
+    ByteBuffer bytes = JsonCodecUtils.encode(jsonCodec, elementReader, s, protocolVersion);
+    return bytes == null ? super.encode(s, protocolVersion) : bytes;
+  }
+
   @Override
   public String internalToExternal(TupleValue tuple) {
     if (tuple == null) {
@@ -15,16 +15,21 @@
  */
 package com.datastax.oss.dsbulk.codecs.text.string;
 
+import com.datastax.oss.driver.api.core.ProtocolVersion;
 import com.datastax.oss.driver.api.core.type.codec.TypeCodec;
 import com.datastax.oss.dsbulk.codecs.api.ConvertingCodec;
 import com.datastax.oss.dsbulk.codecs.api.util.CodecUtils;
 import com.datastax.oss.dsbulk.codecs.api.util.TimeUUIDGenerator;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
 public class StringToUUIDCodec extends StringConvertingCodec<UUID> {
 
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
   private final ConvertingCodec<String, Instant> instantCodec;
   private final TimeUUIDGenerator generator;
 
@@ -53,4 +58,24 @@ public class StringToUUIDCodec extends StringConvertingCodec<UUID> {
     }
     return value.toString();
   }
+
+  @Override
+  public String decode(ByteBuffer bytes, @NonNull ProtocolVersion protocolVersion) {
+    if (bytes != null && bytes.remaining() == 16) {
+      // same as UUID.toString(), without creating the UUID first
+      char[] chars = new char[36];
+      int pos = bytes.position();
+      int j = 0;
+      for (int i = 0; i < 16; i++) {
+        if (i == 4 || i == 6 || i == 8 || i == 10) {
+          chars[j++] = '-';
+        }
+        byte b = bytes.get(pos + i);
+        chars[j++] = HEX_DIGITS[(b >> 4) & 0xF];
+        chars[j++] = HEX_DIGITS[b & 0xF];
+      }
+      return new String(chars);
+    }
+    return super.decode(bytes, protocolVersion);
+  }
 }
@@ -23,6 +23,7 @@ import com.datastax.oss.driver.api.core.type.reflect.GenericType;
 import com.datastax.oss.dsbulk.codecs.api.ConversionContext;
 import com.datastax.oss.dsbulk.codecs.api.ConvertingCodecFactory;
 import com.datastax.oss.dsbulk.codecs.text.TextConversionContext;
+import java.util.Locale;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -51,6 +52,8 @@ class StringToDoubleCodecTest {
         .toInternal(0d)
         .convertsFromExternal("1234.56")
         .toInternal(1234.56d)
+        .convertsFromExternal("-0.5")
+        .toInternal(-0.5d)
         .convertsFromExternal("1,234.56")
         .toInternal(1234.56d)
         .convertsFromExternal("1.7976931348623157E308")
@@ -73,6 +76,28 @@ class StringToDoubleCodecTest {
         .toInternal(null);
   }
 
+  @Test
+  void should_convert_plain_decimals_according_to_locale() {
+    ConversionContext context =
+        new TextConversionContext()
+            .setLocale(Locale.GERMANY)
+            .setFormatNumbers(true)
+            .setRoundingMode(HALF_EVEN);
+    ConvertingCodecFactory codecFactory = new ConvertingCodecFactory(context);
+    StringToDoubleCodec codec =
+        (StringToDoubleCodec)
+            codecFactory.<String, Double>createConvertingCodec(
+                DataTypes.DOUBLE, GenericType.STRING, true);
+    // the dot is a grouping separator in this locale
+    assertThat(codec)
+        .convertsFromExternal("1234.56")
+        .toInternal(123456d)
+        .convertsFromExternal("1234,56")
+        .toInternal(1234.56d)
+        .convertsFromExternal("1234")
+        .toInternal(1234d);
+  }
+
   @Test
   void should_convert_from_valid_internal() {
     assertThat(codec)
@@ -86,6 +111,24 @@ class StringToDoubleCodecTest {
         .toExternal("NULL");
   }
 
+  @Test
+  void should_decode_from_valid_internal() {
+    StringToDoubleCodec plainCodec =
+        (StringToDoubleCodec)
+            new ConvertingCodecFactory(new TextConversionContext())
+                .<String, Double>createConvertingCodec(DataTypes.DOUBLE, GenericType.STRING, true);
+    assertThat(plainCodec)
+        .decodesFromInternal(0d)
+        .decodesFromInternal(-0d)
+        .decodesFromInternal(1234.56d)
+        .decodesFromInternal(1e-10)
+        .decodesFromInternal(Double.NaN)
+        .decodesFromInternal(Double.NEGATIVE_INFINITY)
+        .decodesFromInternal(Double.MAX_VALUE)
+        .decodesFromInternal(null);
+    assertThat(codec).decodesFromInternal(1234.56d).decodesFromInternal(null);
+  }
+
   @Test
   void should_not_convert_from_invalid_external() {
     assertThat(codec).cannotConvertFromExternal("not a valid double");
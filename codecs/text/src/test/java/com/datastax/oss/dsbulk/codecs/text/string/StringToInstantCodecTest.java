@@ -27,6 +27,7 @@ import com.datastax.oss.dsbulk.codecs.text.TextConversionContext;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.Random;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -136,6 +137,31 @@ class StringToInstantCodecTest {
     assertThat(codec4).convertsFromInternal(minutesAfterMillennium).toExternal("123456");
   }
 
+  @Test
+  void should_decode_from_valid_internal() {
+    assertThat(codec1)
+        .decodesFromInternal(millennium)
+        .decodesFromInternal(minutesAfterMillennium)
+        .decodesFromInternal(Instant.parse("2016-07-24T20:34:12.999Z"))
+        .decodesFromInternal(Instant.parse("2016-07-24T20:34:12.990Z"))
+        .decodesFromInternal(Instant.parse("2016-07-24T20:34:12.900Z"))
+        .decodesFromInternal(Instant.parse("2016-07-24T20:34:12.009Z"))
+        .decodesFromInternal(Instant.parse("1969-12-31T23:59:59.999Z"))
+        .decodesFromInternal(Instant.parse("0000-01-01T00:00:00Z"))
+        .decodesFromInternal(Instant.parse("9999-12-31T23:59:59.999Z"))
+        .decodesFromInternal(Instant.parse("-0001-12-31T23:59:59.999Z"))
+        .decodesFromInternal(Instant.parse("+10000-01-01T00:00:00Z"))
+        .decodesFromInternal(Instant.ofEpochMilli(Long.MIN_VALUE))
+        .decodesFromInternal(Instant.ofEpochMilli(Long.MAX_VALUE))
+        .decodesFromInternal(null);
+    Random random = new Random();
+    for (int i = 0; i < 1000; i++) {
+      assertThat(codec1).decodesFromInternal(Instant.ofEpochMilli(random.nextLong() >> 20));
+    }
+    assertThat(codec2).decodesFromInternal(millennium);
+    assertThat(codec4).decodesFromInternal(minutesAfterMillennium);
+  }
+
   @Test
   void should_not_convert_from_invalid_external() {
     assertThat(codec1).cannotConvertFromExternal("not a valid date format");
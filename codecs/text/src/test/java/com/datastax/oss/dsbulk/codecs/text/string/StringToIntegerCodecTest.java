@@ -138,6 +138,17 @@ class StringToIntegerCodecTest {
         .toExternal("NULL");
   }
 
+  @Test
+  void should_decode_from_valid_internal() {
+    assertThat(codec1)
+        .decodesFromInternal(0)
+        .decodesFromInternal(-1234)
+        .decodesFromInternal(Integer.MAX_VALUE)
+        .decodesFromInternal(Integer.MIN_VALUE)
+        .decodesFromInternal(null);
+    assertThat(codec2).decodesFromInternal(1234567).decodesFromInternal(null);
+  }
+
   @Test
   void should_not_convert_from_invalid_external() {
     assertThat(codec1)
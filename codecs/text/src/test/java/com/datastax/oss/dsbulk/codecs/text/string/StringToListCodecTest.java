@@ -174,6 +174,34 @@ class StringToListCodecTest {
         .toExternal("NULL");
   }
 
+  @Test
+  void should_encode_from_valid_external() {
+    assertThat(codec1)
+        .encodesFromExternal("[1,2,3]")
+        .encodesFromExternal(" [  1 , 2 , 3 ] ")
+        .encodesFromExternal("1,2,1")
+        .encodesFromExternal("[\"1,234.56\",\"78,900\"]")
+        .encodesFromExternal("[]")
+        .encodesFromExternal("")
+        .encodesFromExternal("NULL");
+    assertThat(codec2)
+        .encodesFromExternal("['2016-07-24T20:34:12.999Z','2018-05-25 20:34:12.999+02:00']");
+    assertThat(codec3)
+        .encodesFromExternal("[\"foo\",\"bar\"]")
+        .encodesFromExternal("['','NULL']")
+        .encodesFromExternal("[\"foo\", \"\\u00e9t\\u00e9\"]");
+  }
+
+  @Test
+  void should_not_encode_from_invalid_external() {
+    assertThat(codec1)
+        .cannotEncodeFromExternal("[1,\"not a valid double\"]")
+        .cannotEncodeFromExternal("[1,2]]")
+        .cannotEncodeFromExternal("[1,{\"not\":\"a double\"}]");
+    // null elements are rejected by the driver
+    assertThat(codec3).cannotEncodeFromExternal("[,]").cannotEncodeFromExternal("[null]");
+  }
+
   @Test
   void should_not_convert_from_invalid_external() {
     assertThat(codec1).cannotConvertFromExternal("[1,\"not a valid double\"]");
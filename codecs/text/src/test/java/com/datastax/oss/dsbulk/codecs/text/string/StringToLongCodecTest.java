@@ -82,6 +82,20 @@ class StringToLongCodecTest {
         .toExternal("NULL");
   }
 
+  @Test
+  void should_decode_from_valid_internal() {
+    StringToLongCodec plainCodec =
+        (StringToLongCodec)
+            new ConvertingCodecFactory(new TextConversionContext())
+                .<String, Long>createConvertingCodec(DataTypes.BIGINT, GenericType.STRING, true);
+    assertThat(plainCodec)
+        .decodesFromInternal(0L)
+        .decodesFromInternal(Long.MAX_VALUE)
+        .decodesFromInternal(Long.MIN_VALUE)
+        .decodesFromInternal(null);
+    assertThat(codec).decodesFromInternal(1234L).decodesFromInternal(null);
+  }
+
   @Test
   void should_not_convert_from_invalid_external() {
     assertThat(codec)
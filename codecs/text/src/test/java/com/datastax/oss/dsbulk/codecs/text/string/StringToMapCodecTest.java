@@ -94,6 +94,20 @@ class StringToMapCodecTest {
         .toExternal("NULL");
   }
 
+  @Test
+  void should_encode_from_valid_external() {
+    assertThat(codec)
+        .encodesFromExternal("{1 : [\"foo\", \"bar\"], 2:[\"qix\"]}")
+        .encodesFromExternal("1 : [\"foo\", \"bar\"], 2:[\"qix\"]")
+        .encodesFromExternal("{ '1,234.56' : ['foo'] , '.12' : ['bar']}")
+        .encodesFromExternal("{1: [], 2 :[]}")
+        .encodesFromExternal("{1: [\"NULL\"], 2: ['']}")
+        // duplicate keys: the last value wins
+        .encodesFromExternal("{1: ['foo'], '1.0': ['bar'], 2: ['qix']}")
+        .encodesFromExternal("{}")
+        .encodesFromExternal("");
+  }
+
   @Test
   void should_not_convert_from_invalid_external() {
     assertThat(codec)
@@ -143,6 +143,19 @@ class StringToSetCodecTest {
         .toExternal("NULL");
   }
 
+  @Test
+  void should_encode_from_valid_external() {
+    assertThat(codec1)
+        .encodesFromExternal("[1,2,3]")
+        // duplicates
+        .encodesFromExternal("[1,2,1]")
+        .encodesFromExternal("[1,1.0,\"1\"]")
+        .encodesFromExternal("[]");
+    assertThat(codec2)
+        .encodesFromExternal("['foo','bar','foo']")
+        .encodesFromExternal("[\"NULL\",\"\"]");
+  }
+
   @Test
   void should_not_convert_from_invalid_external() {
     assertThat(codec1)
@@ -136,6 +136,20 @@ class StringToTupleCodecTest {
         .toExternal("NULL");
   }
 
+  @Test
+  void should_encode_from_valid_external() {
+    assertThat(codec1)
+        .encodesFromExternal("[\"2016-07-24T20:34:12.999\",\"+01:00\"]")
+        .encodesFromExternal("[null,\"\"]")
+        .encodesFromExternal("NULL");
+    assertThat(codec2)
+        .encodesFromExternal("[\"2016-07-24T20:34:12.999Z\",\"+01:00\",42]")
+        .encodesFromExternal("[\"2016-07-24T20:34:12.999Z\",\"+01:00\",[42,{\"foo\":42}]]");
+    assertThat(codec3)
+        .encodesFromExternal("[\"2016-07-24T20:34:12.999Z\"]")
+        .encodesFromExternal("[]");
+  }
+
   @Test
   void should_not_convert_from_invalid_external() {
     assertThat(codec1).cannotConvertFromExternal("{\"not a valid tuple\":42}");
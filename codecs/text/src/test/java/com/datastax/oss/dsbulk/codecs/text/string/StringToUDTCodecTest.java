@@ -196,6 +196,36 @@ class StringToUDTCodecTest {
         .toExternal("NULL");
   }
 
+  @Test
+  void should_encode_from_valid_external() {
+    assertThat(udtCodec1)
+        .encodesFromExternal("{\"F1A\":42,\"f1b\":{\"foo\":1234.56,\"\":0.12}}")
+        .encodesFromExternal("{ \"f1b\" :  { } , \"F1A\" :  null }")
+        .encodesFromExternal("{ \"f1b\" :  null , \"F1A\" :  null }");
+    assertThat(udtCodec2)
+        .encodesFromExternal(
+            "{'f2b':['2017-09-22'],'f2a':{'f1b':{'foo':'1,234.56','':'0000.12000'},'F1A':'42.00'}}");
+    assertThat(udtCodec3)
+        .encodesFromExternal("{\"f1\":42,\"f2\":42,\"f3\":{\"f4\":[42]}}")
+        .encodesFromExternal("[42,42,42]")
+        // duplicate fields: the last value wins
+        .encodesFromExternal("{\"f1\":42,\"f2\":42,\"f1\":43}");
+    assertThat(udtCodec4)
+        .encodesFromExternal("{\"f2\":42}")
+        .encodesFromExternal("{}")
+        .encodesFromExternal("[42]")
+        .encodesFromExternal("[]");
+  }
+
+  @Test
+  void should_not_encode_from_invalid_external() {
+    assertThat(udtCodec1)
+        .cannotEncodeFromExternal("{\"F1A\":42}")
+        .cannotEncodeFromExternal("{\"F1A\":42,\"f1b\":{\"foo\":1234.56,\"\":0.12}} {}");
+    assertThat(udtCodec3).cannotEncodeFromExternal("[42]");
+    assertThat(udtCodec4).cannotEncodeFromExternal("[42,42,42]");
+  }
+
   @Test
   void should_not_convert_from_invalid_external() {
     assertThat(udtCodec1)
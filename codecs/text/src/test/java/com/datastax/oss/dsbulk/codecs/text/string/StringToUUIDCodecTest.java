@@ -111,6 +111,16 @@ class StringToUUIDCodecTest {
         .toExternal("a15341ec-ebef-4eab-b91d-ff16bf801a79");
   }
 
+  @Test
+  void should_decode_from_valid_internal() {
+    assertThat(codec)
+        .decodesFromInternal(UUID.fromString("a15341ec-ebef-4eab-b91d-ff16bf801a79"))
+        .decodesFromInternal(new UUID(0, 0))
+        .decodesFromInternal(new UUID(-1, -1))
+        .decodesFromInternal(UUID.randomUUID())
+        .decodesFromInternal(null);
+  }
+
   @Test
   void should_not_convert_from_invalid_external() {
     assertThat(codec).cannotConvertFromExternal("not a valid UUID");
@@ -0,0 +1,202 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.connectors.api;
+
+import com.datastax.oss.driver.shaded.guava.common.base.MoreObjects;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.net.URI;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A compact {@link Record} implementation that stores its values in an array, and shares its fields
+ * with all the other records created with the same {@link RecordSchema}.
+ *
+ * <p>Compared to {@link DefaultRecord}, this implementation does not allocate any map entry nor
+ * field per value, and allows consumers to access values by their index in the array.
+ */
+public class ArrayBackedRecord implements Record {
+
+  private final Object source;
+  private final URI resource;
+  private final long position;
+  private final RecordSchema schema;
+  private Object[] values;
+
+  /**
+   * Creates a new record. The given array is not copied, and should not be modified afterwards.
+   *
+   * @param source the record source (its original form); may be null if the source cannot be
+   *     determined or should not be retained.
+   * @param resource the record resource (where it comes from: file, database, etc).
+   * @param position the record position inside the resource (line number, etc.).
+   * @param schema the record schema.
+   * @param values the record values, in the order defined by the schema.
+   * @throws IllegalArgumentException if the number of values does not match the schema.
+   */
+  public ArrayBackedRecord(
+      @Nullable Object source,
+      @NonNull URI resource,
+      long position,
+      @NonNull RecordSchema schema,
+      @NonNull Object[] values) {
+    if (schema.size() != values.length) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Expecting record to contain %d fields but found %d.", schema.size(), values.length));
+    }
+    this.source = source;
+    this.resource = resource;
+    this.position = position;
+    this.schema = schema;
+    this.values = values;
+  }
+
+  @Nullable
+  @Override
+  public Object getSource() {
+    return source;
+  }
+
+  @NonNull
+  @Override
+  public URI getResource() {
+    return resource;
+  }
+
+  @Override
+  public long getPosition() {
+    return position;
+  }
+
+  /** @return the schema of this record. */
+  @NonNull
+  public RecordSchema getSchema() {
+    return schema;
+  }
+
+  @NonNull
+  @Override
+  public Set<Field> fields() {
+    return values == null ? Collections.emptySet() : schema.getFields();
+  }
+
+  @NonNull
+  @Override
+  public Collection<Object> values() {
+    return valueList();
+  }
+
+  /** Returns the values in field order; lists, unlike collections, have a well-defined equality. */
+  @NonNull
+  private List<Object> valueList() {
+    if (values == null) {
+      return Collections.emptyList();
+    }
+    Object[] values = this.values;
+    return new AbstractList<Object>() {
+      @Override
+      public Object get(int index) {
+        return values[schema.getValueIndex(index)];
+      }
+
+      @Override
+      public int size() {
+        return schema.getFieldCount();
+      }
+    };
+  }
+
+  @Nullable
+  @Override
+  public Object getFieldValue(@NonNull Field field) {
+    if (values == null) {
+      return null;
+    }
+    int index = schema.getValueIndex(field);
+    return index == -1 ? null : values[index];
+  }
+
+  /**
+   * Returns the value at the given index.
+   *
+   * @param index the value index, as defined by the record schema.
+   * @return the value at the given index.
+   * @throws IllegalStateException if this record was cleared.
+   */
+  @Nullable
+  public Object getValue(int index) {
+    if (values == null) {
+      throw new IllegalStateException("Record was cleared");
+    }
+    return values[index];
+  }
+
+  @Override
+  public void clear() {
+    values = null;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("source", source)
+        .add("resource", resource)
+        .add("position", position)
+        .add("entries", entries())
+        .toString();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ArrayBackedRecord)) {
+      return false;
+    }
+    ArrayBackedRecord that = (ArrayBackedRecord) o;
+    return position == that.position
+        && Objects.equals(source, that.source)
+        && resource.equals(that.resource)
+        && fields().equals(that.fields())
+        && valueList().equals(that.valueList());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(fields(), valueList(), source, resource, position);
+  }
+
+  private String entries() {
+    StringBuilder sb = new StringBuilder("[");
+    Iterator<Field> fields = fields().iterator();
+    Iterator<Object> values = values().iterator();
+    while (fields.hasNext()) {
+      if (sb.length() > 1) {
+        sb.append(", ");
+      }
+      sb.append(fields.next()).append('=').append(values.next());
+    }
+    return sb.append(']').toString();
+  }
+}
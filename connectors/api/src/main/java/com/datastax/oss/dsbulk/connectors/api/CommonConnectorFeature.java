@@ -36,5 +36,15 @@ public enum CommonConnectorFeature implements ConnectorFeature {
    * more than once, then data size sampling should be disallowed. This is notably the case when
    * reading live data streams such as {@linkplain System#in standard input}.
    */
-  DATA_SIZE_SAMPLING
+  DATA_SIZE_SAMPLING,
+
+  /**
+   * Indicates that the connector honors the {@linkplain Connector#setReadCheckpoint(ReadCheckpoint)
+   * read checkpoint} it was given, that is, that it does not emit records that were already
+   * processed by a previous operation, and that it reports the resources it has entirely read. If
+   * this feature is not supported, DSBulk will filter out such records itself, but the connector
+   * will still have to read them; and resources that do not emit any record, such as empty files,
+   * will never be reported as entirely processed.
+   */
+  RESUMABLE_READS
 }
@@ -17,6 +17,7 @@ package com.datastax.oss.dsbulk.connectors.api;
 
 import com.typesafe.config.Config;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import java.net.URI;
 import java.util.function.Function;
 import org.reactivestreams.Publisher;
 
@@ -161,6 +162,22 @@ public interface Connector extends AutoCloseable {
    */
   default void init() throws Exception {}
 
+  /**
+   * Sets the read checkpoint of the operation.
+   *
+   * <p>This method is only invoked when reading; it is guaranteed to be invoked after {@link
+   * #init()} and before {@link #read()}. When a previous operation is being resumed, the checkpoint
+   * reports the records it processed; otherwise, it does not report any record as processed.
+   * Connectors {@linkplain #supports(ConnectorFeature) supporting} {@link
+   * CommonConnectorFeature#RESUMABLE_READS} should not emit records that the checkpoint reports as
+   * already processed, should avoid reading entirely processed resources altogether, and should
+   * notify the checkpoint of each resource they have {@linkplain ReadCheckpoint#resourceRead(URI,
+   * long, long) entirely read}.
+   *
+   * @param checkpoint the read checkpoint of the operation.
+   */
+  default void setReadCheckpoint(@NonNull ReadCheckpoint checkpoint) {}
+
   /**
    * Closes the connector.
    *
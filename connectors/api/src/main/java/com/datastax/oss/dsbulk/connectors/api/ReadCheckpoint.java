@@ -0,0 +1,69 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.connectors.api;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.net.URI;
+
+/**
+ * Information about records that were already processed by a previous, interrupted operation, and
+ * that should not be emitted again when that operation is resumed. The checkpoint is also notified
+ * of the resources that were entirely read, so that they can be reported as processed in the
+ * checkpoint of the current operation.
+ *
+ * <p>Resources and positions are expressed in the same terms as {@link Record#getResource()} and
+ * {@link Record#getPosition()}.
+ *
+ * @see Connector#setReadCheckpoint(ReadCheckpoint)
+ * @see CommonConnectorFeature#RESUMABLE_READS
+ */
+public interface ReadCheckpoint {
+
+  /**
+   * Whether all the records in the given resource were already processed; if so, the connector
+   * should not read the resource at all.
+   *
+   * @param resource the resource to check.
+   * @return {@code true} if the resource was entirely processed, {@code false} otherwise.
+   */
+  boolean isComplete(@NonNull URI resource);
+
+  /**
+   * Whether the record at the given position in the given resource was already processed; if so,
+   * the connector should not emit it.
+   *
+   * @param resource the resource to check.
+   * @param position the record position to check.
+   * @return {@code true} if the record was already processed, {@code false} otherwise.
+   */
+  boolean isProcessed(@NonNull URI resource, long position);
+
+  /**
+   * Notifies that the given resource was entirely read, that is, that all its records were either
+   * emitted, or skipped because they were already processed.
+   *
+   * <p>Connectors should invoke this method even for resources that did not emit any record, e.g.
+   * empty files, or files whose records were all processed: otherwise, such resources cannot be
+   * reported as entirely processed, and would be read again if the operation is resumed.
+   *
+   * @param resource the resource that was read.
+   * @param firstPosition the lowest position of the records read, or -1 if the resource did not
+   *     contain any record.
+   * @param lastPosition the highest position of the records read, or -1 if the resource did not
+   *     contain any record.
+   */
+  default void resourceRead(@NonNull URI resource, long firstPosition, long lastPosition) {}
+}
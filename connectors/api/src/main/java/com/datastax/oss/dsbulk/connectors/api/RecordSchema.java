@@ -0,0 +1,152 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.connectors.api;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The fields of an {@link ArrayBackedRecord}, and the position of their values in the record.
+ *
+ * <p>Record schemas are meant to be created once per resource, e.g. once per file, and shared by
+ * all the records of that resource; they can also be used as keys to cache information that is
+ * common to all records sharing the same fields.
+ */
+public final class RecordSchema {
+
+  /**
+   * Creates a schema for records containing the given number of {@linkplain IndexedField indexed
+   * fields}.
+   *
+   * @param size the number of values in each record.
+   * @return an indexed schema.
+   */
+  @NonNull
+  public static RecordSchema indexed(int size) {
+    LinkedHashMap<Field, Integer> positions = new LinkedHashMap<>();
+    for (int i = 0; i < size; i++) {
+      positions.put(new DefaultIndexedField(i), i);
+    }
+    return new RecordSchema(positions, size);
+  }
+
+  /**
+   * Creates a schema for records containing the given {@linkplain MappedField mapped fields}; each
+   * value is also exposed under an indexed field, so that records can be mapped by name or by
+   * index.
+   *
+   * @param names the record field names, in the order of their values.
+   * @return a mapped schema.
+   */
+  @NonNull
+  public static RecordSchema mapped(@NonNull Field... names) {
+    LinkedHashMap<Field, Integer> positions = new LinkedHashMap<>();
+    for (int i = 0; i < names.length; i++) {
+      positions.put(names[i], i);
+    }
+    for (int i = 0; i < names.length; i++) {
+      positions.put(new DefaultIndexedField(i), i);
+    }
+    return new RecordSchema(positions, names.length);
+  }
+
+  private final int size;
+  private final Field[] fields;
+  private final int[] valueIndices;
+  private final Map<Field, Integer> positions;
+  private final Set<Field> fieldSet;
+
+  private RecordSchema(LinkedHashMap<Field, Integer> positions, int size) {
+    this.size = size;
+    this.positions = positions;
+    fields = positions.keySet().toArray(new Field[0]);
+    valueIndices = new int[fields.length];
+    for (int i = 0; i < fields.length; i++) {
+      valueIndices[i] = positions.get(fields[i]);
+    }
+    fieldSet = Collections.unmodifiableSet(positions.keySet());
+  }
+
+  /** @return the number of values in each record. */
+  public int size() {
+    return size;
+  }
+
+  /** @return all the fields, in iteration order; a value may be exposed under several fields. */
+  @NonNull
+  public Set<Field> getFields() {
+    return fieldSet;
+  }
+
+  /** @return the number of fields, which may be greater than the number of values. */
+  public int getFieldCount() {
+    return fields.length;
+  }
+
+  /**
+   * @param i the field number, between zero and {@link #getFieldCount()} (exclusive).
+   * @return the field.
+   */
+  @NonNull
+  public Field getField(int i) {
+    return fields[i];
+  }
+
+  /**
+   * @param i the field number, between zero and {@link #getFieldCount()} (exclusive).
+   * @return the index of the field's value in the record.
+   */
+  public int getValueIndex(int i) {
+    return valueIndices[i];
+  }
+
+  /**
+   * @param field the field to look up.
+   * @return the index of the field's value in the record, or -1 if the field does not exist.
+   */
+  public int getValueIndex(@NonNull Field field) {
+    Integer index = positions.get(field);
+    return index == null ? -1 : index;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof RecordSchema)) {
+      return false;
+    }
+    RecordSchema that = (RecordSchema) o;
+    return size == that.size
+        && Arrays.equals(fields, that.fields)
+        && Arrays.equals(valueIndices, that.valueIndices);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(fields) + size;
+  }
+
+  @Override
+  public String toString() {
+    return fieldSet.toString();
+  }
+}
@@ -17,6 +17,7 @@ package com.datastax.oss.dsbulk.connectors.commons;
 
 import com.datastax.oss.dsbulk.config.ConfigUtils;
 import com.datastax.oss.dsbulk.connectors.api.Connector;
+import com.datastax.oss.dsbulk.connectors.api.ReadCheckpoint;
 import com.datastax.oss.dsbulk.connectors.api.Record;
 import com.datastax.oss.dsbulk.io.CompressedIOUtils;
 import com.datastax.oss.dsbulk.io.IOUtils;
@@ -25,6 +26,7 @@ import edu.umd.cs.findbugs.annotations.NonNull;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.charset.Charset;
@@ -83,6 +85,7 @@ public abstract class AbstractFileBasedConnector implements Connector {
   protected RecordWriter singleWriter;
   protected AtomicInteger fileCounter;
   protected AtomicInteger nextWriterIndex;
+  protected ReadCheckpoint readCheckpoint;
 
   // Public API
 
@@ -156,13 +159,28 @@ public abstract class AbstractFileBasedConnector implements Connector {
     }
   }
 
+  @Override
+  public void setReadCheckpoint(@NonNull ReadCheckpoint checkpoint) {
+    assert read;
+    this.readCheckpoint = checkpoint;
+  }
+
   @NonNull
   @Override
   public Publisher<Publisher<Record>> read() {
     assert read;
-    return Flux.concat(
-            Flux.fromIterable(roots).flatMap(this::scanRootDirectory), Flux.fromIterable(files))
-        .map(url -> readSingleFile(url).transform(this::applyPerFileLimits));
+    Flux<URL> urls =
+        Flux.concat(
+            Flux.fromIterable(roots).flatMap(this::scanRootDirectory), Flux.fromIterable(files));
+    if (readCheckpoint == null) {
+      return urls.map(url -> readSingleFile(url).transform(this::applyPerFileLimits));
+    }
+    return urls.filter(url -> !isComplete(url))
+        .map(
+            url ->
+                readSingleFile(url)
+                    .transform(this::applyPerFileLimits)
+                    .transform(records -> skipProcessedRecords(url, records)));
   }
 
   @SuppressWarnings("BlockingMethodInNonBlockingContext")
@@ -545,6 +563,46 @@ public abstract class AbstractFileBasedConnector implements Connector {
     return records;
   }
 
+  /**
+   * Whether the {@linkplain #readCheckpoint read checkpoint} reports all the records in the given
+   * URL as already processed, in which case the URL does not need to be read at all.
+   */
+  protected boolean isComplete(@NonNull URL url) {
+    if (readCheckpoint.isComplete(URI.create(url.toExternalForm()))) {
+      LOGGER.debug("Skipping {}: all its records were already processed", url);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Filters out records that the {@linkplain #readCheckpoint read checkpoint} reports as already
+   * processed, and notifies the checkpoint once the URL was entirely read, including when no record
+   * was emitted. Per-file limits must be applied before this method is called, since skipped and
+   * maximum records are counted from the beginning of each file, regardless of whether the
+   * operation is being resumed or not.
+   */
+  @NonNull
+  protected Flux<Record> skipProcessedRecords(@NonNull URL url, @NonNull Flux<Record> records) {
+    URI resource = URI.create(url.toExternalForm());
+    return Flux.defer(
+        () -> {
+          // the lowest and highest positions read; records of split files are not read in order
+          long[] span = {-1, -1};
+          return records
+              .doOnNext(
+                  record -> {
+                    long position = record.getPosition();
+                    if (span[0] == -1 || position < span[0]) {
+                      span[0] = position;
+                    }
+                    span[1] = Math.max(span[1], position);
+                  })
+              .filter(record -> !readCheckpoint.isProcessed(resource, record.getPosition()))
+              .doOnComplete(() -> readCheckpoint.resourceRead(resource, span[0], span[1]));
+        });
+  }
+
   /**
    * Returns the URL that the connector should write to. Not used for reads.
    *
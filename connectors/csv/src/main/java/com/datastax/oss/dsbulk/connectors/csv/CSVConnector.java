@@ -17,20 +17,23 @@ package com.datastax.oss.dsbulk.connectors.csv;
 
 import com.datastax.oss.driver.api.core.type.reflect.GenericType;
 import com.datastax.oss.dsbulk.config.ConfigUtils;
+import com.datastax.oss.dsbulk.connectors.api.ArrayBackedRecord;
 import com.datastax.oss.dsbulk.connectors.api.CommonConnectorFeature;
 import com.datastax.oss.dsbulk.connectors.api.ConnectorFeature;
 import com.datastax.oss.dsbulk.connectors.api.DefaultErrorRecord;
-import com.datastax.oss.dsbulk.connectors.api.DefaultIndexedField;
 import com.datastax.oss.dsbulk.connectors.api.DefaultMappedField;
-import com.datastax.oss.dsbulk.connectors.api.DefaultRecord;
 import com.datastax.oss.dsbulk.connectors.api.Field;
 import com.datastax.oss.dsbulk.connectors.api.MappedField;
 import com.datastax.oss.dsbulk.connectors.api.Record;
 import com.datastax.oss.dsbulk.connectors.api.RecordMetadata;
+import com.datastax.oss.dsbulk.connectors.api.RecordSchema;
 import com.datastax.oss.dsbulk.connectors.commons.AbstractFileBasedConnector;
+import com.datastax.oss.dsbulk.connectors.csv.CSVSplitter.CSVSplit;
 import com.datastax.oss.dsbulk.io.CompressedIOUtils;
+import com.datastax.oss.dsbulk.io.IOUtils;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigException;
+import com.typesafe.config.ConfigValueType;
 import com.univocity.parsers.common.ParsingContext;
 import com.univocity.parsers.common.TextParsingException;
 import com.univocity.parsers.common.TextWritingException;
@@ -40,6 +43,7 @@ import com.univocity.parsers.csv.CsvParserSettings;
 import com.univocity.parsers.csv.CsvWriter;
 import com.univocity.parsers.csv.CsvWriterSettings;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.io.Reader;
 import java.net.URI;
@@ -47,12 +51,18 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLStreamHandler;
 import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 /**
  * A connector for CSV files.
@@ -89,6 +99,7 @@ public class CSVConnector extends AbstractFileBasedConnector {
   private static final String NULL_VALUE = "nullValue";
   private static final String EMPTY_VALUE = "emptyValue";
   private static final String AUTO = "AUTO";
+  private static final String SPLIT_SIZE = "splitSize";
 
   private String delimiter;
   private char quote;
@@ -107,6 +118,8 @@ public class CSVConnector extends AbstractFileBasedConnector {
   private String emptyValue;
   private CsvParserSettings parserSettings;
   private CsvWriterSettings writerSettings;
+  private long splitSize;
+  private Scheduler splitScheduler;
 
   @Override
   @NonNull
@@ -140,6 +153,11 @@ public class CSVConnector extends AbstractFileBasedConnector {
       normalizeLineEndingsInQuotes = settings.getBoolean(NORMALIZE_LINE_ENDINGS_IN_QUOTES);
       nullValue = settings.getIsNull(NULL_VALUE) ? null : settings.getString(NULL_VALUE);
       emptyValue = settings.getIsNull(EMPTY_VALUE) ? null : settings.getString(EMPTY_VALUE);
+      // accept plain numbers, including -1, as well as sizes with units, e.g. 256MB
+      splitSize =
+          settings.getValue(SPLIT_SIZE).valueType() == ConfigValueType.NUMBER
+              ? settings.getLong(SPLIT_SIZE)
+              : settings.getBytes(SPLIT_SIZE);
       if (!AUTO_NEWLINE.equalsIgnoreCase(newline) && (newline.isEmpty() || newline.length() > 2)) {
         throw new IllegalArgumentException(
             String.format(
@@ -182,6 +200,15 @@ public class CSVConnector extends AbstractFileBasedConnector {
       } else {
         format.setLineSeparator(newline);
       }
+      if (splitSize > 0) {
+        String reason = checkSplittable(autoNewline);
+        if (reason == null) {
+          splitScheduler = Schedulers.newParallel("csv-split", maxConcurrentFiles);
+        } else {
+          LOGGER.warn("Files will not be split: {}.", reason);
+          splitSize = -1;
+        }
+      }
     } else {
       writerSettings = new CsvWriterSettings();
       writerSettings.setFormat(format);
@@ -221,17 +248,152 @@ public class CSVConnector extends AbstractFileBasedConnector {
           return true;
         case DATA_SIZE_SAMPLING:
           return isDataSizeSamplingAvailable();
+        case RESUMABLE_READS:
+          return true;
       }
     }
     return false;
   }
 
+  @Override
+  public void close() {
+    try {
+      super.close();
+    } finally {
+      if (splitScheduler != null) {
+        splitScheduler.dispose();
+      }
+    }
+  }
+
   @Override
   @NonNull
   protected RecordReader newSingleFileReader(@NonNull URL url) throws IOException {
     return new CSVRecordReader(url);
   }
 
+  /**
+   * Reads the given URL; if it is a local file larger than {@code splitSize}, the file is split
+   * into ranges that are parsed concurrently.
+   */
+  @NonNull
+  @Override
+  protected Flux<Record> readSingleFile(@NonNull URL url) {
+    if (splitSize > 0) {
+      Path file = IOUtils.getLocalFile(url);
+      if (file != null) {
+        try {
+          if (Files.size(file) > splitSize) {
+            return readSplits(url, file);
+          }
+        } catch (IOException e) {
+          return Flux.error(new IOException("Error reading size of " + url, e));
+        }
+      }
+    }
+    return super.readSingleFile(url);
+  }
+
+  /**
+   * Checks whether files can be split with the current settings.
+   *
+   * @return null if files can be split, or the reason why they cannot.
+   */
+  @Nullable
+  private String checkSplittable(boolean autoNewline) {
+    if (!CompressedIOUtils.isNoneCompression(compression)) {
+      return "compressed files cannot be split";
+    }
+    if (skipRecords > 0 || maxRecords != -1) {
+      return "skipRecords and maxRecords require files to be read sequentially";
+    }
+    if (!encoding.equals(StandardCharsets.UTF_8)
+        && !encoding.equals(StandardCharsets.US_ASCII)
+        && !encoding.equals(StandardCharsets.ISO_8859_1)) {
+      return "only files encoded in UTF-8, US-ASCII or ISO-8859-1 can be split";
+    }
+    if (delimiter.length() != 1
+        || !isAscii(delimiter.charAt(0))
+        || !isAscii(quote)
+        || !isAscii(escape)
+        || !isAscii(comment)
+        || (!autoNewline && !newline.chars().allMatch(c -> isAscii((char) c)))) {
+      return "the delimiter, quote, escape, comment and newline characters must be ASCII "
+          + "characters, and the delimiter must be a single character";
+    }
+    if (!ignoreLeadingWhitespaces && ignoreTrailingWhitespaces) {
+      return "ignoreTrailingWhitespaces cannot be enabled unless ignoreLeadingWhitespaces is "
+          + "enabled too";
+    }
+    return null;
+  }
+
+  private static boolean isAscii(char c) {
+    return c < 128;
+  }
+
+  @NonNull
+  private Flux<Record> readSplits(@NonNull URL url, @NonNull Path file) {
+    MappedField[] fieldNames = null;
+    if (header) {
+      // read the header once for all ranges
+      try (CSVRecordReader reader = new CSVRecordReader(url)) {
+        fieldNames = reader.fieldNames;
+      } catch (IOException e) {
+        return Flux.error(e);
+      }
+    }
+    MappedField[] finalFieldNames = fieldNames;
+    return Flux.using(
+        () ->
+            new CSVSplitter(
+                file,
+                splitSize,
+                delimiter.charAt(0),
+                quote,
+                escape,
+                comment,
+                AUTO_NEWLINE.equalsIgnoreCase(newline) ? null : newline,
+                ignoreLeadingWhitespaces,
+                header),
+        splitter ->
+            Flux.<CSVSplit>generate(sink -> nextSplit(url, splitter, sink))
+                .flatMap(
+                    split ->
+                        Flux.<Record, CSVRecordReader>generate(
+                                () -> new CSVRecordReader(url, file, split, finalFieldNames),
+                                (reader, sink) -> {
+                                  reader.readNext(sink);
+                                  return reader;
+                                },
+                                CSVRecordReader::close)
+                            .subscribeOn(splitScheduler),
+                    maxConcurrentFiles),
+        splitter -> {
+          try {
+            splitter.close();
+          } catch (IOException e) {
+            LOGGER.error("Error closing " + url, e);
+          }
+        });
+  }
+
+  private void nextSplit(
+      @NonNull URL url, @NonNull CSVSplitter splitter, @NonNull SynchronousSink<CSVSplit> sink) {
+    try {
+      CSVSplit split = splitter.nextSplit();
+      if (split == null) {
+        LOGGER.debug("Done splitting {}", url);
+        sink.complete();
+      } else {
+        LOGGER.debug("Parsing range {} of {}", split, url);
+        sink.next(split);
+      }
+    } catch (IOException e) {
+      sink.error(new IOException("Error splitting " + url, e));
+    }
+  }
+
   private class CSVRecordReader implements RecordReader {
 
     private final URL url;
@@ -240,10 +402,18 @@ public class CSVConnector extends AbstractFileBasedConnector {
     private final ParsingContext context;
     private final MappedField[] fieldNames;
 
+    // the range being read when the file is split, null otherwise
+    private final CSVSplit split;
+
+    // resolved once per file when there is a header, otherwise each time the number of values
+    // changes
+    private RecordSchema schema;
+
     private long recordNumber = 1;
 
     private CSVRecordReader(URL url) throws IOException {
       this.url = url;
+      split = null;
       try {
         resource = URI.create(url.toExternalForm());
         parser = new CsvParser(parserSettings);
@@ -251,6 +421,31 @@ public class CSVConnector extends AbstractFileBasedConnector {
         parser.beginParsing(r);
         context = parser.getContext();
         fieldNames = header ? getFieldNames(url, context) : null;
+        schema = header ? RecordSchema.mapped(fieldNames) : null;
+      } catch (Exception e) {
+        throw asIOException(url, e, "Error creating CSV parser for " + url);
+      }
+    }
+
+    private CSVRecordReader(URL url, Path file, CSVSplit split, MappedField[] fieldNames)
+        throws IOException {
+      this.url = url;
+      this.split = split;
+      this.fieldNames = fieldNames;
+      try {
+        resource = URI.create(url.toExternalForm());
+        CsvParserSettings settings = parserSettings.clone();
+        // only the first range contains the header
+        settings.setHeaderExtractionEnabled(header && split.getStart() == 0);
+        // ranges other than the first one cannot detect the line separator reliably
+        settings.setLineSeparatorDetectionEnabled(false);
+        settings.getFormat().setLineSeparator(split.getLineSeparator());
+        parser = new CsvParser(settings);
+        Reader r = IOUtils.newBufferedReader(file, encoding, split.getStart(), split.getEnd());
+        parser.beginParsing(r);
+        context = parser.getContext();
+        schema = header ? RecordSchema.mapped(fieldNames) : null;
+        recordNumber = split.getFirstPosition();
       } catch (Exception e) {
         throw asIOException(url, e, "Error creating CSV parser for " + url);
       }
@@ -291,8 +486,21 @@ public class CSVConnector extends AbstractFileBasedConnector {
           Record record = parseNext(row);
           LOGGER.trace("Emitting record {}", record);
           sink.next(record);
+        } else if (split != null
+            && recordNumber - split.getFirstPosition() != split.getRecordCount()) {
+          // the parser and the splitter disagree on record boundaries: the positions of the
+          // records in this range are not reliable
+          sink.error(
+              new IOException(
+                  String.format(
+                      "Error reading from %s: expecting %d records in range %s, but found %d; "
+                          + "please disable connector.csv.splitSize and try again",
+                      url,
+                      split.getRecordCount(),
+                      split,
+                      recordNumber - split.getFirstPosition())));
         } else {
-          LOGGER.debug("Done reading {}", url);
+          LOGGER.debug("Done reading {}", split == null ? url : url + " " + split);
           sink.complete();
         }
       } catch (Exception e) {
@@ -310,17 +518,11 @@ public class CSVConnector extends AbstractFileBasedConnector {
       Record record;
       try {
         Object[] values = row.getValues();
-        if (header) {
-          record = DefaultRecord.mapped(source, resource, recordNumber++, fieldNames, values);
-          // also emit indexed fields
-          for (int i = 0; i < values.length; i++) {
-            DefaultIndexedField field = new DefaultIndexedField(i);
-            Object value = values[i];
-            ((DefaultRecord) record).setFieldValue(field, value);
-          }
-        } else {
-          record = DefaultRecord.indexed(source, resource, recordNumber++, values);
+        if (!header && (schema == null || schema.size() != values.length)) {
+          schema = RecordSchema.indexed(values.length);
         }
+        // mapped schemas also expose indexed fields
+        record = new ArrayBackedRecord(source, resource, recordNumber++, schema, values);
       } catch (Exception e) {
         record = new DefaultErrorRecord(source, resource, recordNumber, e);
       }
@@ -0,0 +1,351 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.connectors.csv;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Splits a CSV file into byte ranges aligned on record boundaries, and counts the records in each
+ * range, so that ranges can be parsed concurrently while still assigning each record the same
+ * position as when the file is parsed sequentially.
+ *
+ * <p>The file is scanned sequentially, byte per byte, keeping track of quoted values, so that line
+ * separators inside quoted values are not mistaken for record boundaries. Scanning is much faster
+ * than parsing, and ranges are produced while scanning, so the first ranges can be parsed while the
+ * rest of the file is still being scanned.
+ *
+ * <p>Records are counted the way the CSV parser counts them: empty lines, lines containing only
+ * whitespace if leading whitespace is ignored, and comment lines are not records; and when the file
+ * has a header, its first record is not counted. The file encoding must be ASCII-compatible, and
+ * all the special characters must be ASCII characters; this way, each of them is encoded as a
+ * single byte, and cannot appear inside the encoding of another character.
+ */
+final class CSVSplitter implements AutoCloseable {
+
+  private static final int BUFFER_SIZE = 1024 * 1024;
+
+  private final FileChannel channel;
+  private final long splitSize;
+  private final byte delimiter;
+  private final byte quote;
+  private final byte escape;
+  private final byte comment;
+  private final boolean ignoreLeadingWhitespaces;
+  private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+  private final byte[] lineSeparator;
+  private boolean headerPending;
+
+  // position of the next byte to scan
+  private long position;
+  private long splitStart;
+  private long nextPosition = 1;
+  private long records;
+  private boolean done;
+
+  // scanner state
+  private boolean inQuotes;
+  private boolean afterEscape;
+  private boolean afterQuote;
+  private boolean atValueStart = true;
+  private boolean atLineStart = true;
+  private boolean inComment;
+  private boolean hasContent;
+  private boolean afterSeparatorStart;
+
+  /**
+   * Creates a new splitter.
+   *
+   * @param file the file to split.
+   * @param splitSize the minimum size of each range; the last range may be smaller.
+   * @param delimiter the field delimiter.
+   * @param quote the quote character.
+   * @param escape the quote escape character.
+   * @param comment the comment character, or zero if comments are disabled.
+   * @param lineSeparator the line separator, with one or two characters, or null to detect it the
+   *     same way the CSV parser does.
+   * @param ignoreLeadingWhitespaces whether leading whitespaces are ignored.
+   * @param header whether the file starts with a header.
+   * @throws IOException if the file cannot be opened.
+   */
+  CSVSplitter(
+      @NonNull Path file,
+      long splitSize,
+      char delimiter,
+      char quote,
+      char escape,
+      char comment,
+      @Nullable String lineSeparator,
+      boolean ignoreLeadingWhitespaces,
+      boolean header)
+      throws IOException {
+    this.splitSize = splitSize;
+    this.delimiter = (byte) delimiter;
+    this.quote = (byte) quote;
+    this.escape = (byte) escape;
+    this.comment = (byte) comment;
+    this.ignoreLeadingWhitespaces = ignoreLeadingWhitespaces;
+    this.headerPending = header;
+    channel = FileChannel.open(file, READ);
+    try {
+      channel.read(buffer);
+      buffer.flip();
+      this.lineSeparator =
+          toBytes(lineSeparator == null ? detectLineSeparator(buffer) : lineSeparator);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Scans the file until the end of the next range.
+   *
+   * @return the next range, or null if the whole file was scanned.
+   * @throws IOException if the file cannot be read.
+   */
+  @Nullable
+  CSVSplit nextSplit() throws IOException {
+    if (done) {
+      return null;
+    }
+    while (true) {
+      if (!buffer.hasRemaining()) {
+        buffer.clear();
+        int read = channel.read(buffer);
+        buffer.flip();
+        if (read == -1) {
+          if (afterSeparatorStart) {
+            // the first separator character alone is not a line separator
+            afterSeparatorStart = false;
+            scanContent(lineSeparator[0]);
+          }
+          // the last line may not be terminated
+          endLine();
+          done = true;
+          // the file may end exactly at the end of the previous range
+          return position == splitStart ? null : newSplit();
+        }
+      }
+      byte[] array = buffer.array();
+      int limit = buffer.limit();
+      for (int i = buffer.position(); i < limit; i++) {
+        position++;
+        if (scan(array[i]) && position - splitStart >= splitSize) {
+          buffer.position(i + 1);
+          return newSplit();
+        }
+      }
+      buffer.position(limit);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private CSVSplit newSplit() {
+    CSVSplit split =
+        new CSVSplit(
+            splitStart,
+            position,
+            nextPosition,
+            records,
+            new String(lineSeparator, StandardCharsets.US_ASCII));
+    splitStart = position;
+    nextPosition += records;
+    records = 0;
+    return split;
+  }
+
+  /**
+   * Scans the given byte.
+   *
+   * @return true if the byte ends a line.
+   */
+  private boolean scan(byte b) {
+    if (inQuotes) {
+      if (afterEscape) {
+        afterEscape = false;
+      } else if (afterQuote) {
+        afterQuote = false;
+        if (b != quote) {
+          // the previous quote was a closing quote
+          inQuotes = false;
+          return scanUnquoted(b);
+        }
+      } else if (b == quote) {
+        if (escape == quote) {
+          // could be either an escaped quote or a closing quote, depending on the next byte
+          afterQuote = true;
+        } else {
+          inQuotes = false;
+        }
+      } else if (b == escape) {
+        afterEscape = true;
+      }
+      return false;
+    }
+    return scanUnquoted(b);
+  }
+
+  private boolean scanUnquoted(byte b) {
+    if (afterSeparatorStart) {
+      afterSeparatorStart = false;
+      if (b == lineSeparator[1]) {
+        return endLine();
+      }
+      // the first separator character alone is not a line separator
+      scanContent(lineSeparator[0]);
+    }
+    if (b == lineSeparator[0]) {
+      if (lineSeparator.length == 1) {
+        return endLine();
+      }
+      afterSeparatorStart = true;
+      return false;
+    }
+    scanContent(b);
+    return false;
+  }
+
+  private void scanContent(byte b) {
+    if (inComment) {
+      return;
+    }
+    if (atLineStart) {
+      atLineStart = false;
+      if (comment != 0 && b == comment) {
+        inComment = true;
+        return;
+      }
+    }
+    if (b == delimiter) {
+      hasContent = true;
+      atValueStart = true;
+    } else if (b == quote && atValueStart) {
+      hasContent = true;
+      atValueStart = false;
+      inQuotes = true;
+    } else if ((b & 0xFF) <= ' ' && ignoreLeadingWhitespaces) {
+      // leading whitespace: a quote may still open a quoted value
+    } else {
+      hasContent = true;
+      atValueStart = false;
+    }
+  }
+
+  private static String detectLineSeparator(ByteBuffer buffer) {
+    // same detection as the CSV parser: the first CR or LF in the first buffer, and if it is a
+    // CR, whether it is followed by a LF; the system line separator if there is none.
+    for (int i = buffer.position(); i < buffer.limit(); i++) {
+      byte b = buffer.get(i);
+      if (b == '\n') {
+        return "\n";
+      }
+      if (b == '\r') {
+        return i + 1 < buffer.limit() && buffer.get(i + 1) == '\n' ? "\r\n" : "\r";
+      }
+    }
+    return System.lineSeparator();
+  }
+
+  private boolean endLine() {
+    if (hasContent && !inComment) {
+      if (headerPending) {
+        headerPending = false;
+      } else {
+        records++;
+      }
+    }
+    hasContent = false;
+    inComment = false;
+    atLineStart = true;
+    atValueStart = true;
+    return true;
+  }
+
+  private static byte[] toBytes(String s) {
+    byte[] bytes = new byte[s.length()];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) s.charAt(i);
+    }
+    return bytes;
+  }
+
+  /** A range of a CSV file, aligned on record boundaries. */
+  static final class CSVSplit {
+
+    private final long start;
+    private final long end;
+    private final long firstPosition;
+    private final long recordCount;
+    private final String lineSeparator;
+
+    CSVSplit(
+        long start, long end, long firstPosition, long recordCount, @NonNull String lineSeparator) {
+      this.start = start;
+      this.end = end;
+      this.firstPosition = firstPosition;
+      this.recordCount = recordCount;
+      this.lineSeparator = lineSeparator;
+    }
+
+    /** @return the position of the first byte in the range. */
+    long getStart() {
+      return start;
+    }
+
+    /** @return the position of the byte following the last byte in the range. */
+    long getEnd() {
+      return end;
+    }
+
+    /**
+     * @return the position of the first record in the range, as in {@code Record.getPosition()}.
+     */
+    long getFirstPosition() {
+      return firstPosition;
+    }
+
+    /** @return the number of records in the range. */
+    long getRecordCount() {
+      return recordCount;
+    }
+
+    /** @return the line separator of the file, either the configured one or the detected one. */
+    @NonNull
+    String getLineSeparator() {
+      return lineSeparator;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "[%d, %d) (positions %d to %d)",
+          start, end, firstPosition, firstPosition + recordCount - 1);
+    }
+  }
+}
@@ -22,6 +22,7 @@ import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
 import static org.assertj.core.util.Throwables.getRootCause;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -36,6 +37,7 @@ import com.datastax.oss.dsbulk.connectors.api.DefaultMappedField;
 import com.datastax.oss.dsbulk.connectors.api.DefaultRecord;
 import com.datastax.oss.dsbulk.connectors.api.ErrorRecord;
 import com.datastax.oss.dsbulk.connectors.api.Field;
+import com.datastax.oss.dsbulk.connectors.api.ReadCheckpoint;
 import com.datastax.oss.dsbulk.connectors.api.Record;
 import com.datastax.oss.dsbulk.io.CompressedIOUtils;
 import com.datastax.oss.dsbulk.tests.logging.LogCapture;
@@ -68,6 +70,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -961,6 +965,172 @@ class CSVConnectorTest {
     connector.close();
   }
 
+  @Test
+  void should_skip_processed_records_when_resuming() throws Exception {
+    CSVConnector connector = new CSVConnector();
+    Config settings =
+        TestConfigUtils.createTestConfig(
+            "dsbulk.connector.csv", "url", url("/root"), "recursive", false);
+    connector.configure(settings, true, true);
+    connector.init();
+    URI sample1 = URI.create(rawURL("/root/ip-by-country-sample1.csv").toExternalForm());
+    URI sample2 = URI.create(rawURL("/root/ip-by-country-sample2.csv").toExternalForm());
+    URI sample3 = URI.create(rawURL("/root/ip-by-country-sample3.csv").toExternalForm());
+    Map<URI, String> resourcesRead = new ConcurrentHashMap<>();
+    assertThat(connector.supports(CommonConnectorFeature.RESUMABLE_READS)).isTrue();
+    connector.setReadCheckpoint(
+        new ReadCheckpoint() {
+          @Override
+          public boolean isComplete(URI resource) {
+            return resource.equals(sample1);
+          }
+
+          @Override
+          public boolean isProcessed(URI resource, long position) {
+            return resource.equals(sample2) && position <= 50;
+          }
+
+          @Override
+          public void resourceRead(URI resource, long firstPosition, long lastPosition) {
+            resourcesRead.put(resource, firstPosition + ":" + lastPosition);
+          }
+        });
+    List<Record> records = Flux.merge(connector.read()).collectList().block();
+    assertThat(records).hasSize(150);
+    assertThat(records).noneMatch(record -> record.getResource().equals(sample1));
+    assertThat(records)
+        .filteredOn(record -> record.getResource().equals(sample2))
+        .hasSize(50)
+        .allMatch(record -> record.getPosition() > 50);
+    // skipped records are accounted for in the positions read
+    assertThat(resourcesRead)
+        .hasSize(2)
+        .containsEntry(sample2, "1:100")
+        .containsEntry(sample3, "1:100");
+    connector.close();
+  }
+
+  @Test
+  void should_report_resources_without_records_when_resuming() throws Exception {
+    CSVConnector connector = new CSVConnector();
+    Path rootPath = Files.createTempDirectory("test");
+    try {
+      Path headerOnly = Files.write(rootPath.resolve("header-only.csv"), "a,b\n".getBytes(UTF_8));
+      Config settings =
+          TestConfigUtils.createTestConfig(
+              "dsbulk.connector.csv", "url", StringUtils.quoteJson(rootPath), "header", true);
+      connector.configure(settings, true, true);
+      connector.init();
+      Map<URI, String> resourcesRead = new ConcurrentHashMap<>();
+      connector.setReadCheckpoint(
+          new ReadCheckpoint() {
+            @Override
+            public boolean isComplete(URI resource) {
+              return false;
+            }
+
+            @Override
+            public boolean isProcessed(URI resource, long position) {
+              return false;
+            }
+
+            @Override
+            public void resourceRead(URI resource, long firstPosition, long lastPosition) {
+              resourcesRead.put(resource, firstPosition + ":" + lastPosition);
+            }
+          });
+      assertThat(Flux.merge(connector.read()).count().block()).isZero();
+      assertThat(resourcesRead)
+          .containsOnly(entry(URI.create(headerOnly.toUri().toURL().toExternalForm()), "-1:-1"));
+      connector.close();
+    } finally {
+      FileUtils.deleteDirectory(rootPath);
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  void should_read_split_file_with_same_positions_as_sequential_read(boolean header)
+      throws Exception {
+    Path file = Files.createTempFile("test", ".csv");
+    List<String> lines = new ArrayList<>();
+    if (header) {
+      lines.add("key,value");
+    }
+    for (int i = 0; i < 500; i++) {
+      if (i % 7 == 0) {
+        lines.add("");
+      }
+      if (i % 11 == 0) {
+        lines.add("#comment " + i);
+      }
+      if (i % 3 == 0) {
+        lines.add(i + ",\"multi\nline, \\\"quoted\\\"\r\nvalue " + i + "\"");
+      } else {
+        lines.add(i + ",value " + i);
+      }
+    }
+    Files.write(file, lines, UTF_8);
+    try {
+      List<Record> expected = readFile(file, header, -1);
+      List<Record> actual = readFile(file, header, 256);
+      assertThat(expected).hasSize(500);
+      Function<Record, String> summary =
+          record -> record.getPosition() + ":" + record.getSource() + record.values();
+      assertThat(actual.stream().map(summary))
+          .containsExactlyInAnyOrderElementsOf(
+              expected.stream().map(summary).collect(Collectors.toList()));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  void should_not_split_files_when_settings_incompatible(
+      @LogCapture(value = CSVConnector.class, level = Level.WARN) LogInterceptor logs)
+      throws Exception {
+    CSVConnector connector = new CSVConnector();
+    Config settings =
+        TestConfigUtils.createTestConfig(
+            "dsbulk.connector.csv",
+            "url",
+            url("/sample.csv"),
+            "splitSize",
+            "\"1kB\"",
+            "maxRecords",
+            10);
+    connector.configure(settings, true, true);
+    connector.init();
+    assertThat(logs.getLoggedMessages())
+        .contains(
+            "Files will not be split: skipRecords and maxRecords require files to be read sequentially.");
+    connector.close();
+  }
+
+  private static List<Record> readFile(Path file, boolean header, long splitSize) throws Exception {
+    CSVConnector connector = new CSVConnector();
+    Config settings =
+        TestConfigUtils.createTestConfig(
+            "dsbulk.connector.csv",
+            "url",
+            StringUtils.quoteJson(file),
+            "header",
+            header,
+            "comment",
+            "\"#\"",
+            "splitSize",
+            splitSize,
+            "maxConcurrentFiles",
+            4);
+    connector.configure(settings, true, true);
+    connector.init();
+    try {
+      return Flux.merge(connector.read()).collectList().block();
+    } finally {
+      connector.close();
+    }
+  }
+
   @Test
   void should_honor_ignoreLeadingWhitespaces_and_ignoreTrailingWhitespaces_when_reading()
       throws Exception {
@@ -0,0 +1,147 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.connectors.csv;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+import com.datastax.oss.dsbulk.connectors.csv.CSVSplitter.CSVSplit;
+import com.datastax.oss.dsbulk.io.IOUtils;
+import com.univocity.parsers.csv.CsvParser;
+import com.univocity.parsers.csv.CsvParserSettings;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class CSVSplitterTest {
+
+  @ParameterizedTest(name = "[{index}] {0} (escape: {1}, ilw: {2}, itw: {3}, header: {4})")
+  @MethodSource
+  void should_split_on_record_boundaries(
+      String contents,
+      char escape,
+      boolean ignoreLeadingWhitespaces,
+      boolean ignoreTrailingWhitespaces,
+      boolean header)
+      throws Exception {
+    Path file = Files.createTempFile("test", ".csv");
+    try {
+      Files.write(file, contents.getBytes(UTF_8));
+      List<CSVSplit> splits = new ArrayList<>();
+      try (CSVSplitter splitter =
+          new CSVSplitter(file, 1, ',', '"', escape, '#', null, ignoreLeadingWhitespaces, header)) {
+        CSVSplit split;
+        while ((split = splitter.nextSplit()) != null) {
+          splits.add(split);
+        }
+      }
+      CsvParserSettings settings =
+          newParserSettings(escape, ignoreLeadingWhitespaces, ignoreTrailingWhitespaces);
+      settings.setHeaderExtractionEnabled(header);
+      settings.setLineSeparatorDetectionEnabled(true);
+      List<String[]> expected = parse(file, settings, 0, Files.size(file));
+      List<String[]> actual = new ArrayList<>();
+      long start = 0;
+      long position = 1;
+      for (CSVSplit split : splits) {
+        assertThat(split.getStart()).isEqualTo(start);
+        assertThat(split.getFirstPosition()).isEqualTo(position);
+        settings = newParserSettings(escape, ignoreLeadingWhitespaces, ignoreTrailingWhitespaces);
+        settings.setHeaderExtractionEnabled(header && split.getStart() == 0);
+        settings.getFormat().setLineSeparator(split.getLineSeparator());
+        List<String[]> records = parse(file, settings, split.getStart(), split.getEnd());
+        assertThat(records).hasSize((int) split.getRecordCount());
+        actual.addAll(records);
+        start = split.getEnd();
+        position += split.getRecordCount();
+      }
+      assertThat(start).isEqualTo(Files.size(file));
+      assertThat(actual).containsExactlyElementsOf(expected);
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @SuppressWarnings("unused")
+  static Stream<Arguments> should_split_on_record_boundaries() {
+    String[] contents = {
+      "a,b\n1,2\n3,4\n",
+      "a,b\r\n1,2\r\n3,4",
+      "a,b\r1,2\r3,4\r",
+      "a,b\n\n1,2\n\n\n3,4\n",
+      "a,b\n#comment\n1,2\n #not a comment\n#comment,\"\n3,4\n",
+      "a,b\n  \n1,2\n \t \n3,4\n",
+      "a,b\n\"1\n2\",\"3\r\n\n4\"\n8,9\n",
+      "a,b\n1\"2,3\n\"4\n5\",6\n",
+      "a,b\n \"1\n2\",3\n4,5\n",
+      "a,b\n\"1\"x\n,2\n3,4\n",
+      "a,b\r\n1\r2,3\r\n4,5\r\n",
+      "a,b\n\"unterminated\n1,2\n",
+      "1,2"
+    };
+    List<Arguments> arguments = new ArrayList<>();
+    for (String content : contents) {
+      for (char escape : new char[] {'\\', '"'}) {
+        addArguments(arguments, content, escape);
+      }
+    }
+    addArguments(arguments, "a,b\n\"1,\\\"2\n\\\"\",3\n4,5\n", '\\');
+    addArguments(arguments, "a,b\n\"1,\"\"2\n\"\"\",3\n\"\"\"\"\n4,5\n", '"');
+    return arguments.stream();
+  }
+
+  private static void addArguments(List<Arguments> arguments, String content, char escape) {
+    for (boolean header : new boolean[] {true, false}) {
+      arguments.add(arguments(content, escape, true, true, header));
+      arguments.add(arguments(content, escape, true, false, header));
+      arguments.add(arguments(content, escape, false, false, header));
+    }
+  }
+
+  private static CsvParserSettings newParserSettings(
+      char escape, boolean ignoreLeadingWhitespaces, boolean ignoreTrailingWhitespaces) {
+    CsvParserSettings settings = new CsvParserSettings();
+    settings.getFormat().setDelimiter(',');
+    settings.getFormat().setQuote('"');
+    settings.getFormat().setQuoteEscape(escape);
+    settings.getFormat().setComment('#');
+    settings.setIgnoreLeadingWhitespaces(ignoreLeadingWhitespaces);
+    settings.setIgnoreTrailingWhitespaces(ignoreTrailingWhitespaces);
+    return settings;
+  }
+
+  private static List<String[]> parse(Path file, CsvParserSettings settings, long start, long end)
+      throws Exception {
+    List<String[]> records = new ArrayList<>();
+    try (Reader reader = IOUtils.newBufferedReader(file, UTF_8, start, end)) {
+      CsvParser parser = new CsvParser(settings);
+      parser.beginParsing(reader);
+      String[] record;
+      while ((record = parser.parseNext()) != null) {
+        records.add(record);
+      }
+      parser.stopParsing();
+    }
+    return records;
+  }
+}
@@ -26,6 +26,7 @@ import com.datastax.oss.dsbulk.connectors.api.Record;
 import com.datastax.oss.dsbulk.connectors.api.RecordMetadata;
 import com.datastax.oss.dsbulk.connectors.commons.AbstractFileBasedConnector;
 import com.datastax.oss.dsbulk.io.CompressedIOUtils;
+import com.datastax.oss.dsbulk.io.IOUtils;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
@@ -36,10 +37,10 @@ import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigException;
 import edu.umd.cs.findbugs.annotations.NonNull;
@@ -50,10 +51,11 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLStreamHandler;
 import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
-import java.util.Map.Entry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.SynchronousSink;
@@ -87,6 +89,9 @@ public class JsonConnector extends AbstractFileBasedConnector {
   private static final String SERIALIZATION_STRATEGY = "serializationStrategy";
   private static final String PRETTY_PRINT = "prettyPrint";
 
+  /** The maximum number of distinct field names to cache, per file. */
+  private static final int MAX_CACHED_FIELDS = 1024;
+
   private DocumentMode mode;
   private ObjectMapper objectMapper;
   private Map<JsonParser.Feature, Boolean> parserFeatures;
@@ -166,6 +171,8 @@ public class JsonConnector extends AbstractFileBasedConnector {
           return false;
         case DATA_SIZE_SAMPLING:
           return isDataSizeSamplingAvailable();
+        case RESUMABLE_READS:
+          return true;
       }
     }
     return false;
@@ -177,12 +184,27 @@ public class JsonConnector extends AbstractFileBasedConnector {
     return new JsonRecordReader(url);
   }
 
+  /**
+   * Reads documents token by token, instead of reading each document as a tree and then copying its
+   * fields to a record. Scalar field values are converted to nodes as they are read, and directly
+   * stored in the record; only nested objects and arrays are read as trees. Field names are
+   * resolved to fields once per file.
+   */
   private class JsonRecordReader implements RecordReader {
 
     private final URL url;
     private final URI resource;
     private final JsonParser parser;
-    private final MappingIterator<JsonNode> nodesIterator;
+    private final JsonNodeFactory nodeFactory = objectMapper.getNodeFactory();
+    private final Map<String, MappedField> fields = new HashMap<>();
+    private final boolean bigIntegerForInts =
+        objectMapper.isEnabled(DeserializationFeature.USE_BIG_INTEGER_FOR_INTS);
+    private final boolean longForInts =
+        objectMapper.isEnabled(DeserializationFeature.USE_LONG_FOR_INTS);
+    private final boolean bigDecimalForFloats =
+        objectMapper.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    private final boolean failOnDuplicateKeys =
+        objectMapper.isEnabled(DeserializationFeature.FAIL_ON_READING_DUP_TREE_KEY);
 
     private long recordNumber = 1;
 
@@ -191,15 +213,24 @@ public class JsonConnector extends AbstractFileBasedConnector {
       resource = URI.create(url.toExternalForm());
       try {
         JsonFactory factory = objectMapper.getFactory();
-        BufferedReader r = CompressedIOUtils.newBufferedReader(url, encoding, compression);
-        parser = factory.createParser(r);
+        Path file =
+            encoding.equals(StandardCharsets.UTF_8)
+                    && CompressedIOUtils.isNoneCompression(compression)
+                ? IOUtils.getLocalFile(url)
+                : null;
+        if (file != null) {
+          // let Jackson decode the file bytes itself, with its faster byte-based parser
+          parser = factory.createParser(Files.newInputStream(file));
+        } else {
+          BufferedReader r = CompressedIOUtils.newBufferedReader(url, encoding, compression);
+          parser = factory.createParser(r);
+        }
         if (mode == DocumentMode.SINGLE_DOCUMENT) {
           do {
             parser.nextToken();
           } while (parser.currentToken() != JsonToken.START_ARRAY && parser.currentToken() != null);
           parser.nextToken();
         }
-        nodesIterator = objectMapper.readValues(parser, JsonNode.class);
       } catch (Exception e) {
         throw new IOException(String.format("Error reading from %s", url), e);
       }
@@ -209,24 +240,21 @@ public class JsonConnector extends AbstractFileBasedConnector {
     @Override
     public RecordReader readNext(@NonNull SynchronousSink<Record> sink) {
       try {
-        if (nodesIterator.hasNext()) {
-          if (parser.currentToken() != JsonToken.START_OBJECT) {
+        JsonToken token = parser.currentToken();
+        if (token == null) {
+          token = parser.nextToken();
+        }
+        if (token != null && token != JsonToken.END_ARRAY) {
+          if (token != JsonToken.START_OBJECT) {
             throw new JsonParseException(
                 parser,
                 String.format(
                     "Expecting START_OBJECT, got %s. Did you forget to set connector.json.mode to SINGLE_DOCUMENT?",
-                    parser.currentToken()));
+                    token));
           }
-          JsonNode source = nodesIterator.next();
-          Map<MappedField, JsonNode> fields = new HashMap<>();
-          Iterator<Entry<String, JsonNode>> children = source.fields();
-          while (children.hasNext()) {
-            Entry<String, JsonNode> child = children.next();
-            fields.put(new DefaultMappedField(child.getKey()), child.getValue());
-          }
-          Record record =
-              DefaultRecord.mapped(
-                  retainRecordSources ? source : null, resource, recordNumber++, fields);
+          Record record = readRecord();
+          // move past the end of the document
+          parser.clearCurrentToken();
           LOGGER.trace("Emitting record {}", record);
           sink.next(record);
         } else {
@@ -239,6 +267,86 @@ public class JsonConnector extends AbstractFileBasedConnector {
       return this;
     }
 
+    @NonNull
+    private Record readRecord() throws IOException {
+      ObjectNode source = retainRecordSources ? nodeFactory.objectNode() : null;
+      DefaultRecord record = new DefaultRecord(source, resource, recordNumber++);
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String name = parser.getCurrentName();
+        MappedField field = fields.get(name);
+        if (field == null) {
+          field = new DefaultMappedField(name);
+          if (fields.size() < MAX_CACHED_FIELDS) {
+            fields.put(name, field);
+          }
+        }
+        JsonNode value = readValue(parser.nextToken());
+        if (record.containsKey(field) && failOnDuplicateKeys) {
+          throw new JsonParseException(
+              parser,
+              String.format(
+                  "Duplicate field '%s': not allowed when FAIL_ON_READING_DUP_TREE_KEY is enabled",
+                  name));
+        }
+        record.setFieldValue(field, value);
+        if (source != null) {
+          source.set(name, value);
+        }
+      }
+      return record;
+    }
+
+    /**
+     * Converts the current value to a node, the same way the tree deserializer would; objects and
+     * arrays are delegated to it.
+     */
+    @NonNull
+    private JsonNode readValue(@NonNull JsonToken token) throws IOException {
+      switch (token) {
+        case VALUE_STRING:
+          return nodeFactory.textNode(parser.getText());
+        case VALUE_NUMBER_INT:
+          {
+            JsonParser.NumberType type =
+                bigIntegerForInts
+                    ? JsonParser.NumberType.BIG_INTEGER
+                    : longForInts ? JsonParser.NumberType.LONG : parser.getNumberType();
+            if (type == JsonParser.NumberType.INT) {
+              return nodeFactory.numberNode(parser.getIntValue());
+            }
+            if (type == JsonParser.NumberType.LONG) {
+              return nodeFactory.numberNode(parser.getLongValue());
+            }
+            return nodeFactory.numberNode(parser.getBigIntegerValue());
+          }
+        case VALUE_NUMBER_FLOAT:
+          {
+            JsonParser.NumberType type = parser.getNumberType();
+            if (type == JsonParser.NumberType.BIG_DECIMAL) {
+              return nodeFactory.numberNode(parser.getDecimalValue());
+            }
+            if (bigDecimalForFloats) {
+              // NaN and infinities cannot be represented as decimals
+              return parser.isNaN()
+                  ? nodeFactory.numberNode(parser.getDoubleValue())
+                  : nodeFactory.numberNode(parser.getDecimalValue());
+            }
+            if (type == JsonParser.NumberType.FLOAT) {
+              return nodeFactory.numberNode(parser.getFloatValue());
+            }
+            return nodeFactory.numberNode(parser.getDoubleValue());
+          }
+        case VALUE_TRUE:
+          return nodeFactory.booleanNode(true);
+        case VALUE_FALSE:
+          return nodeFactory.booleanNode(false);
+        case VALUE_NULL:
+          return nodeFactory.nullNode();
+        default:
+          return objectMapper.readTree(parser);
+      }
+    }
+
     @Override
     public void close() throws IOException {
       if (parser != null) {
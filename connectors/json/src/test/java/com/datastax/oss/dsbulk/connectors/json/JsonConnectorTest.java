@@ -22,6 +22,7 @@ import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.any;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.util.Throwables.getRootCause;
@@ -46,6 +47,7 @@ import com.datastax.oss.dsbulk.tests.utils.TestConfigUtils;
 import com.datastax.oss.dsbulk.url.BulkLoaderURLStreamHandlerFactory;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
@@ -69,6 +71,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
@@ -1126,6 +1129,44 @@ class JsonConnectorTest {
     }
   }
 
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  void should_read_values_as_tree_deserializer_would(boolean retainRecordSources) throws Exception {
+    String doc =
+        "{\"int\": 1, \"long\": 12345678901, \"varint\": 123456789012345678901, "
+            + "\"decimal\": 1.10, \"text\": \"foo\", \"bool\": true, \"null\": null, "
+            + "\"object\": {\"a\": [1, 2.0]}, \"array\": [{\"b\": null}]}";
+    Path dir = Files.createTempDirectory("test");
+    try {
+      Path file = dir.resolve("doc.json");
+      Files.write(file, Collections.nCopies(2, doc), UTF_8);
+      JsonConnector connector = new JsonConnector();
+      Config settings =
+          TestConfigUtils.createTestConfig("dsbulk.connector.json", "url", quoteJson(file));
+      connector.configure(settings, true, retainRecordSources);
+      connector.init();
+      List<Record> actual = Flux.merge(connector.read()).collectList().block();
+      ObjectMapper mapper = new ObjectMapper();
+      mapper.setNodeFactory(JsonNodeFactory.withExactBigDecimals(true));
+      mapper.enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+      JsonNode expected = mapper.readTree(doc);
+      assertThat(actual).hasSize(2);
+      for (Record record : actual) {
+        assertThat(record.fields()).hasSize(expected.size());
+        expected
+            .fields()
+            .forEachRemaining(
+                entry ->
+                    assertThat(record.getFieldValue(new DefaultMappedField(entry.getKey())))
+                        .isEqualTo(entry.getValue()));
+        assertThat(record.getSource()).isEqualTo(retainRecordSources ? expected : null);
+      }
+      connector.close();
+    } finally {
+      deleteDirectory(dir);
+    }
+  }
+
   @Test
   void should_report_wrong_document_mode() throws Exception {
     JsonConnector connector = new JsonConnector();
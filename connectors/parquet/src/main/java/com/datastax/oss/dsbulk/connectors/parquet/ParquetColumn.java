@@ -0,0 +1,570 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.connectors.parquet;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.datastax.oss.driver.api.core.type.reflect.GenericType;
+import com.datastax.oss.dsbulk.connectors.parquet.ThriftStruct.ThriftList;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A column of a Parquet file: its physical type, as stored in the file, and its logical type, which
+ * determines the Java type of its values.
+ *
+ * <p>Only flat schemas are supported: all columns must be primitive columns directly under the root
+ * of the schema, and must be either required or optional, but not repeated.
+ */
+final class ParquetColumn {
+
+  // Physical types
+  static final int BOOLEAN = 0;
+  static final int INT32 = 1;
+  static final int INT64 = 2;
+  static final int INT96 = 3;
+  static final int FLOAT = 4;
+  static final int DOUBLE = 5;
+  static final int BYTE_ARRAY = 6;
+  static final int FIXED_LEN_BYTE_ARRAY = 7;
+
+  // Repetition types
+  static final int REQUIRED = 0;
+  static final int OPTIONAL = 1;
+  static final int REPEATED = 2;
+
+  // Converted types, superseded by logical types but still written by many tools
+  private static final int CONVERTED_UTF8 = 0;
+  private static final int CONVERTED_ENUM = 4;
+  private static final int CONVERTED_DECIMAL = 5;
+  private static final int CONVERTED_DATE = 6;
+  private static final int CONVERTED_TIME_MILLIS = 7;
+  private static final int CONVERTED_TIME_MICROS = 8;
+  private static final int CONVERTED_TIMESTAMP_MILLIS = 9;
+  private static final int CONVERTED_TIMESTAMP_MICROS = 10;
+  private static final int CONVERTED_UINT_8 = 11;
+  private static final int CONVERTED_UINT_16 = 12;
+  private static final int CONVERTED_UINT_32 = 13;
+  private static final int CONVERTED_UINT_64 = 14;
+  private static final int CONVERTED_INT_8 = 15;
+  private static final int CONVERTED_INT_16 = 16;
+  private static final int CONVERTED_JSON = 19;
+
+  // Logical types, identified by their field ids in the LogicalType union
+  private static final int LOGICAL_STRING = 1;
+  private static final int LOGICAL_ENUM = 4;
+  private static final int LOGICAL_DECIMAL = 5;
+  private static final int LOGICAL_DATE = 6;
+  private static final int LOGICAL_TIME = 7;
+  private static final int LOGICAL_TIMESTAMP = 8;
+  private static final int LOGICAL_INTEGER = 10;
+  private static final int LOGICAL_JSON = 12;
+  private static final int LOGICAL_UUID = 14;
+
+  // Time units, identified by their field ids in the TimeUnit union
+  private static final int UNIT_MILLIS = 1;
+  private static final int UNIT_MICROS = 2;
+  private static final int UNIT_NANOS = 3;
+
+  // Julian day number of the Unix epoch, used by INT96 timestamps
+  private static final long JULIAN_EPOCH_DAY = 2_440_588L;
+
+  /** How values are converted from their physical representation to Java objects. */
+  enum Kind {
+    BOOLEAN,
+    BYTE,
+    SHORT,
+    INT,
+    LONG,
+    UNSIGNED_LONG,
+    FLOAT,
+    DOUBLE,
+    STRING,
+    BYTES,
+    DECIMAL,
+    DATE,
+    TIME_MILLIS,
+    TIME_MICROS,
+    TIME_NANOS,
+    TIMESTAMP_MILLIS,
+    TIMESTAMP_MICROS,
+    TIMESTAMP_NANOS,
+    TIMESTAMP_INT96,
+    UUID
+  }
+
+  private final String name;
+  private final int physicalType;
+  private final int typeLength;
+  private final boolean optional;
+  private final Kind kind;
+  private final int scale;
+
+  private ParquetColumn(
+      String name, int physicalType, int typeLength, boolean optional, Kind kind, int scale) {
+    this.name = name;
+    this.physicalType = physicalType;
+    this.typeLength = typeLength;
+    this.optional = optional;
+    this.kind = kind;
+    this.scale = scale;
+  }
+
+  /**
+   * Creates a column from its schema element, as found in the file metadata.
+   *
+   * @throws IllegalArgumentException if the column is not supported.
+   */
+  @NonNull
+  static ParquetColumn fromSchemaElement(@NonNull ThriftStruct element) {
+    String name = element.getString(4);
+    if (element.getInt(5, 0) > 0 || !element.has(1)) {
+      throw new IllegalArgumentException(
+          String.format("Column %s is a group; nested schemas are not supported", name));
+    }
+    int repetition = element.getInt(3, REQUIRED);
+    if (repetition == REPEATED) {
+      throw new IllegalArgumentException(
+          String.format("Column %s is repeated; nested schemas are not supported", name));
+    }
+    int physicalType = element.getInt(1);
+    int convertedType = element.getInt(6, -1);
+    ThriftStruct logicalType = element.getStruct(10);
+    Kind kind = kind(name, physicalType, convertedType, logicalType);
+    // the precision of decimals is not needed to decode them
+    int scale = element.getInt(7, 0);
+    if (logicalType != null && logicalType.getStruct(LOGICAL_DECIMAL) != null) {
+      scale = logicalType.getStruct(LOGICAL_DECIMAL).getInt(1, scale);
+    }
+    return new ParquetColumn(
+        name, physicalType, element.getInt(2, 0), repetition == OPTIONAL, kind, scale);
+  }
+
+  /**
+   * Creates an optional column suitable for writing values of the given Java type. Types that have
+   * no natural Parquet representation are written as strings.
+   */
+  @NonNull
+  static ParquetColumn forJavaType(@NonNull String name, @NonNull Class<?> javaType) {
+    if (javaType == Boolean.class) {
+      return new ParquetColumn(name, BOOLEAN, 0, true, Kind.BOOLEAN, 0);
+    } else if (javaType == Byte.class) {
+      return new ParquetColumn(name, INT32, 0, true, Kind.BYTE, 0);
+    } else if (javaType == Short.class) {
+      return new ParquetColumn(name, INT32, 0, true, Kind.SHORT, 0);
+    } else if (javaType == Integer.class) {
+      return new ParquetColumn(name, INT32, 0, true, Kind.INT, 0);
+    } else if (javaType == Long.class) {
+      return new ParquetColumn(name, INT64, 0, true, Kind.LONG, 0);
+    } else if (javaType == Float.class) {
+      return new ParquetColumn(name, FLOAT, 0, true, Kind.FLOAT, 0);
+    } else if (javaType == Double.class) {
+      return new ParquetColumn(name, DOUBLE, 0, true, Kind.DOUBLE, 0);
+    } else if (ByteBuffer.class.isAssignableFrom(javaType)) {
+      return new ParquetColumn(name, BYTE_ARRAY, 0, true, Kind.BYTES, 0);
+    } else if (javaType == Instant.class) {
+      return new ParquetColumn(name, INT64, 0, true, Kind.TIMESTAMP_MILLIS, 0);
+    } else if (javaType == LocalDate.class) {
+      return new ParquetColumn(name, INT32, 0, true, Kind.DATE, 0);
+    } else if (javaType == LocalTime.class) {
+      return new ParquetColumn(name, INT64, 0, true, Kind.TIME_NANOS, 0);
+    } else if (javaType == UUID.class) {
+      return new ParquetColumn(name, FIXED_LEN_BYTE_ARRAY, 16, true, Kind.UUID, 0);
+    }
+    return new ParquetColumn(name, BYTE_ARRAY, 0, true, Kind.STRING, 0);
+  }
+
+  @NonNull
+  String getName() {
+    return name;
+  }
+
+  int getPhysicalType() {
+    return physicalType;
+  }
+
+  int getTypeLength() {
+    return typeLength;
+  }
+
+  boolean isOptional() {
+    return optional;
+  }
+
+  @NonNull
+  Kind getKind() {
+    return kind;
+  }
+
+  /** Returns the Java type of the values of this column, as returned by {@link #toJava(Object)}. */
+  @NonNull
+  GenericType<?> getJavaType() {
+    switch (kind) {
+      case BOOLEAN:
+        return GenericType.BOOLEAN;
+      case BYTE:
+        return GenericType.BYTE;
+      case SHORT:
+        return GenericType.SHORT;
+      case INT:
+        return GenericType.INTEGER;
+      case LONG:
+        return GenericType.LONG;
+      case UNSIGNED_LONG:
+        return GenericType.BIG_INTEGER;
+      case FLOAT:
+        return GenericType.FLOAT;
+      case DOUBLE:
+        return GenericType.DOUBLE;
+      case STRING:
+        return GenericType.STRING;
+      case BYTES:
+        return GenericType.BYTE_BUFFER;
+      case DECIMAL:
+        return GenericType.BIG_DECIMAL;
+      case DATE:
+        return GenericType.LOCAL_DATE;
+      case TIME_MILLIS:
+      case TIME_MICROS:
+      case TIME_NANOS:
+        return GenericType.LOCAL_TIME;
+      case TIMESTAMP_MILLIS:
+      case TIMESTAMP_MICROS:
+      case TIMESTAMP_NANOS:
+      case TIMESTAMP_INT96:
+        return GenericType.INSTANT;
+      case UUID:
+        return GenericType.UUID;
+      default:
+        throw new IllegalStateException("Unknown kind: " + kind);
+    }
+  }
+
+  /**
+   * Converts a value in its physical representation, as decoded from the file, to its Java
+   * representation.
+   *
+   * @param value the physical value: a {@link Boolean}, {@link Integer}, {@link Long}, {@link
+   *     Float}, {@link Double}, or a {@code byte[]} for INT96, BYTE_ARRAY and FIXED_LEN_BYTE_ARRAY
+   *     values.
+   */
+  @NonNull
+  Object toJava(@NonNull Object value) {
+    switch (kind) {
+      case BYTE:
+        return ((Integer) value).byteValue();
+      case SHORT:
+        return ((Integer) value).shortValue();
+      case LONG:
+        // unsigned 32-bit integers
+        return value instanceof Integer ? ((Integer) value).longValue() & 0xFFFFFFFFL : value;
+      case UNSIGNED_LONG:
+        {
+          long l = (Long) value;
+          BigInteger big = BigInteger.valueOf(l & Long.MAX_VALUE);
+          return l < 0 ? big.setBit(63) : big;
+        }
+      case STRING:
+        return new String((byte[]) value, UTF_8);
+      case BYTES:
+        return ByteBuffer.wrap((byte[]) value);
+      case DECIMAL:
+        {
+          BigInteger unscaled;
+          if (value instanceof byte[]) {
+            unscaled = new BigInteger((byte[]) value);
+          } else {
+            unscaled = BigInteger.valueOf(((Number) value).longValue());
+          }
+          return new BigDecimal(unscaled, scale);
+        }
+      case DATE:
+        return LocalDate.ofEpochDay((Integer) value);
+      case TIME_MILLIS:
+        return LocalTime.ofNanoOfDay(TimeUnit.MILLISECONDS.toNanos((Integer) value));
+      case TIME_MICROS:
+        return LocalTime.ofNanoOfDay(TimeUnit.MICROSECONDS.toNanos((Long) value));
+      case TIME_NANOS:
+        return LocalTime.ofNanoOfDay((Long) value);
+      case TIMESTAMP_MILLIS:
+        return Instant.ofEpochMilli((Long) value);
+      case TIMESTAMP_MICROS:
+        {
+          long micros = (Long) value;
+          return Instant.ofEpochSecond(
+              Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1000L);
+        }
+      case TIMESTAMP_NANOS:
+        {
+          long nanos = (Long) value;
+          return Instant.ofEpochSecond(
+              Math.floorDiv(nanos, 1_000_000_000L), Math.floorMod(nanos, 1_000_000_000L));
+        }
+      case TIMESTAMP_INT96:
+        {
+          // 8 bytes of nanos of day, followed by 4 bytes of Julian day, little-endian
+          ByteBuffer bytes = ByteBuffer.wrap((byte[]) value).order(ByteOrder.LITTLE_ENDIAN);
+          long nanosOfDay = bytes.getLong();
+          long julianDay = bytes.getInt();
+          return Instant.ofEpochSecond((julianDay - JULIAN_EPOCH_DAY) * 86_400L, nanosOfDay);
+        }
+      case UUID:
+        {
+          ByteBuffer bytes = ByteBuffer.wrap((byte[]) value);
+          return new UUID(bytes.getLong(), bytes.getLong());
+        }
+      default:
+        return value;
+    }
+  }
+
+  /**
+   * Converts a Java value to its physical representation, the inverse of {@link #toJava(Object)}.
+   * Only used for columns created with {@link #forJavaType(String, Class)}.
+   */
+  @NonNull
+  Object toPhysical(@NonNull Object value) {
+    switch (kind) {
+      case BYTE:
+      case SHORT:
+        return ((Number) value).intValue();
+      case STRING:
+        return value.toString().getBytes(UTF_8);
+      case BYTES:
+        {
+          ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+          byte[] bytes = new byte[buffer.remaining()];
+          buffer.get(bytes);
+          return bytes;
+        }
+      case DATE:
+        return Math.toIntExact(((LocalDate) value).toEpochDay());
+      case TIME_NANOS:
+        return ((LocalTime) value).toNanoOfDay();
+      case TIMESTAMP_MILLIS:
+        return ((Instant) value).toEpochMilli();
+      case UUID:
+        {
+          UUID uuid = (UUID) value;
+          return ByteBuffer.allocate(16)
+              .putLong(uuid.getMostSignificantBits())
+              .putLong(uuid.getLeastSignificantBits())
+              .array();
+        }
+      default:
+        return value;
+    }
+  }
+
+  /** Returns the schema element describing this column, to be written in the file metadata. */
+  @NonNull
+  ThriftStruct toSchemaElement() {
+    ThriftStruct element =
+        new ThriftStruct().set(1, physicalType).set(3, optional ? OPTIONAL : REQUIRED).set(4, name);
+    if (physicalType == FIXED_LEN_BYTE_ARRAY) {
+      element.set(2, typeLength);
+    }
+    switch (kind) {
+      case BYTE:
+        element.set(6, CONVERTED_INT_8).set(10, integerType(8));
+        break;
+      case SHORT:
+        element.set(6, CONVERTED_INT_16).set(10, integerType(16));
+        break;
+      case STRING:
+        element.set(6, CONVERTED_UTF8).set(10, new ThriftStruct().set(LOGICAL_STRING, empty()));
+        break;
+      case DATE:
+        element.set(6, CONVERTED_DATE).set(10, new ThriftStruct().set(LOGICAL_DATE, empty()));
+        break;
+      case TIME_NANOS:
+        element.set(10, temporalType(LOGICAL_TIME, false, UNIT_NANOS));
+        break;
+      case TIMESTAMP_MILLIS:
+        element
+            .set(6, CONVERTED_TIMESTAMP_MILLIS)
+            .set(10, temporalType(LOGICAL_TIMESTAMP, true, UNIT_MILLIS));
+        break;
+      case UUID:
+        element.set(10, new ThriftStruct().set(LOGICAL_UUID, empty()));
+        break;
+      default:
+        break;
+    }
+    return element;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s (%s%s)", name, kind, optional ? "" : ", required");
+  }
+
+  private static Kind kind(
+      String name, int physicalType, int convertedType, @Nullable ThriftStruct logicalType) {
+    switch (physicalType) {
+      case BOOLEAN:
+        return Kind.BOOLEAN;
+      case INT32:
+        if (logicalType != null && logicalType.getStruct(LOGICAL_INTEGER) != null) {
+          ThriftStruct integer = logicalType.getStruct(LOGICAL_INTEGER);
+          int bitWidth = integer.getInt(1, 32);
+          boolean signed = integer.getBoolean(2, true);
+          if (!signed) {
+            return bitWidth < 16 ? Kind.SHORT : bitWidth < 32 ? Kind.INT : Kind.LONG;
+          }
+          return bitWidth == 8 ? Kind.BYTE : bitWidth == 16 ? Kind.SHORT : Kind.INT;
+        }
+        if (isDecimal(convertedType, logicalType)) {
+          return Kind.DECIMAL;
+        }
+        if (isLogical(logicalType, LOGICAL_DATE) || convertedType == CONVERTED_DATE) {
+          return Kind.DATE;
+        }
+        if (isLogical(logicalType, LOGICAL_TIME) || convertedType == CONVERTED_TIME_MILLIS) {
+          return Kind.TIME_MILLIS;
+        }
+        switch (convertedType) {
+          case CONVERTED_INT_8:
+            return Kind.BYTE;
+          case CONVERTED_INT_16:
+          case CONVERTED_UINT_8:
+            return Kind.SHORT;
+          case CONVERTED_UINT_16:
+            return Kind.INT;
+          case CONVERTED_UINT_32:
+            return Kind.LONG;
+          default:
+            return Kind.INT;
+        }
+      case INT64:
+        if (logicalType != null && logicalType.getStruct(LOGICAL_INTEGER) != null) {
+          boolean signed = logicalType.getStruct(LOGICAL_INTEGER).getBoolean(2, true);
+          return signed ? Kind.LONG : Kind.UNSIGNED_LONG;
+        }
+        if (isDecimal(convertedType, logicalType)) {
+          return Kind.DECIMAL;
+        }
+        if (isLogical(logicalType, LOGICAL_TIMESTAMP)) {
+          switch (timeUnit(logicalType.getStruct(LOGICAL_TIMESTAMP))) {
+            case UNIT_MILLIS:
+              return Kind.TIMESTAMP_MILLIS;
+            case UNIT_MICROS:
+              return Kind.TIMESTAMP_MICROS;
+            default:
+              return Kind.TIMESTAMP_NANOS;
+          }
+        }
+        if (isLogical(logicalType, LOGICAL_TIME)) {
+          return timeUnit(logicalType.getStruct(LOGICAL_TIME)) == UNIT_MICROS
+              ? Kind.TIME_MICROS
+              : Kind.TIME_NANOS;
+        }
+        switch (convertedType) {
+          case CONVERTED_TIMESTAMP_MILLIS:
+            return Kind.TIMESTAMP_MILLIS;
+          case CONVERTED_TIMESTAMP_MICROS:
+            return Kind.TIMESTAMP_MICROS;
+          case CONVERTED_TIME_MICROS:
+            return Kind.TIME_MICROS;
+          case CONVERTED_UINT_64:
+            return Kind.UNSIGNED_LONG;
+          default:
+            return Kind.LONG;
+        }
+      case INT96:
+        return Kind.TIMESTAMP_INT96;
+      case FLOAT:
+        return Kind.FLOAT;
+      case DOUBLE:
+        return Kind.DOUBLE;
+      case BYTE_ARRAY:
+      case FIXED_LEN_BYTE_ARRAY:
+        if (isDecimal(convertedType, logicalType)) {
+          return Kind.DECIMAL;
+        }
+        if (isLogical(logicalType, LOGICAL_UUID)) {
+          return Kind.UUID;
+        }
+        if (isLogical(logicalType, LOGICAL_STRING)
+            || isLogical(logicalType, LOGICAL_ENUM)
+            || isLogical(logicalType, LOGICAL_JSON)
+            || convertedType == CONVERTED_UTF8
+            || convertedType == CONVERTED_ENUM
+            || convertedType == CONVERTED_JSON) {
+          return Kind.STRING;
+        }
+        return Kind.BYTES;
+      default:
+        throw new IllegalArgumentException(
+            String.format("Column %s has unknown physical type %d", name, physicalType));
+    }
+  }
+
+  private static boolean isLogical(@Nullable ThriftStruct logicalType, int id) {
+    return logicalType != null && logicalType.has(id);
+  }
+
+  private static boolean isDecimal(int convertedType, @Nullable ThriftStruct logicalType) {
+    return convertedType == CONVERTED_DECIMAL || isLogical(logicalType, LOGICAL_DECIMAL);
+  }
+
+  private static int timeUnit(@NonNull ThriftStruct temporalType) {
+    ThriftStruct unit = temporalType.getStruct(2);
+    if (unit == null || unit.has(UNIT_MILLIS)) {
+      return UNIT_MILLIS;
+    }
+    return unit.has(UNIT_MICROS) ? UNIT_MICROS : UNIT_NANOS;
+  }
+
+  private static ThriftStruct integerType(int bitWidth) {
+    return new ThriftStruct()
+        .set(LOGICAL_INTEGER, new ThriftStruct().set(1, (byte) bitWidth).set(2, true));
+  }
+
+  private static ThriftStruct temporalType(int logicalType, boolean utc, int unit) {
+    return new ThriftStruct()
+        .set(
+            logicalType,
+            new ThriftStruct().set(1, utc).set(2, new ThriftStruct().set(unit, empty())));
+  }
+
+  private static ThriftStruct empty() {
+    return new ThriftStruct();
+  }
+
+  /** Returns the list of encodings used when writing a column. */
+  @NonNull
+  static ThriftList writtenEncodings() {
+    return new ThriftList(
+        ThriftStruct.I32, Arrays.asList(ParquetEncodings.PLAIN, ParquetEncodings.RLE));
+  }
+
+  @NonNull
+  static ThriftList path(@NonNull String name) {
+    return new ThriftList(ThriftStruct.BINARY, Collections.singletonList(name.getBytes(UTF_8)));
+  }
+}
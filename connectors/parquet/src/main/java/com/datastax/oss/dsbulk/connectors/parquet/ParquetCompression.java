@@ -0,0 +1,172 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.connectors.parquet;
+
+import com.github.luben.zstd.Zstd;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.brotli.dec.BrotliInputStream;
+import org.xerial.snappy.Snappy;
+
+/** Compression codecs for Parquet pages. */
+final class ParquetCompression {
+
+  static final int UNCOMPRESSED = 0;
+  static final int SNAPPY = 1;
+  static final int GZIP = 2;
+  static final int LZO = 3;
+  static final int BROTLI = 4;
+  static final int LZ4 = 5;
+  static final int ZSTD = 6;
+  static final int LZ4_RAW = 7;
+
+  private static final List<String> NAMES =
+      Arrays.asList("UNCOMPRESSED", "SNAPPY", "GZIP", "LZO", "BROTLI", "LZ4", "ZSTD", "LZ4_RAW");
+
+  /** The codecs that can be used when writing. */
+  static final List<String> WRITE_CODECS = Arrays.asList("UNCOMPRESSED", "SNAPPY", "GZIP", "ZSTD");
+
+  private ParquetCompression() {}
+
+  /**
+   * Returns the id of the given codec, as stored in the column chunk metadata.
+   *
+   * @throws IllegalArgumentException if the codec cannot be used when writing.
+   */
+  static int codecForWrite(@NonNull String name) {
+    String upper = name.toUpperCase(Locale.ROOT);
+    if (!WRITE_CODECS.contains(upper)) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Invalid value for connector.parquet.codec, valid values: %s, got: '%s'",
+              String.join(",", WRITE_CODECS), name));
+    }
+    return NAMES.indexOf(upper);
+  }
+
+  @NonNull
+  static byte[] compress(int codec, @NonNull byte[] data) throws IOException {
+    switch (codec) {
+      case UNCOMPRESSED:
+        return data;
+      case SNAPPY:
+        return Snappy.compress(data);
+      case GZIP:
+        {
+          ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+          try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+          }
+          return out.toByteArray();
+        }
+      case ZSTD:
+        return Zstd.compress(data);
+      default:
+        throw new IOException("Unsupported compression codec for writing: " + name(codec));
+    }
+  }
+
+  @NonNull
+  static byte[] decompress(int codec, @NonNull byte[] data, int uncompressedSize)
+      throws IOException {
+    switch (codec) {
+      case UNCOMPRESSED:
+        return data;
+      case SNAPPY:
+        return Snappy.uncompress(data);
+      case GZIP:
+        return readFully(new GZIPInputStream(new ByteArrayInputStream(data)), uncompressedSize);
+      case BROTLI:
+        return readFully(new BrotliInputStream(new ByteArrayInputStream(data)), uncompressedSize);
+      case ZSTD:
+        return Zstd.decompress(data, uncompressedSize);
+      case LZ4_RAW:
+        return lz4().decompress(data, uncompressedSize);
+      case LZ4:
+        return decompressHadoopLz4(data, uncompressedSize);
+      default:
+        throw new IOException("Unsupported compression codec: " + name(codec));
+    }
+  }
+
+  @NonNull
+  static String name(int codec) {
+    return codec >= 0 && codec < NAMES.size() ? NAMES.get(codec) : String.valueOf(codec);
+  }
+
+  /**
+   * Decompresses data compressed with the deprecated LZ4 codec, which is framed as Hadoop's
+   * BlockCompressorStream does; some writers however used plain LZ4 blocks instead, so these are
+   * accepted as well.
+   */
+  private static byte[] decompressHadoopLz4(byte[] data, int uncompressedSize) throws IOException {
+    LZ4SafeDecompressor decompressor = lz4();
+    try {
+      ByteBuffer in = ByteBuffer.wrap(data);
+      byte[] out = new byte[uncompressedSize];
+      int written = 0;
+      while (in.hasRemaining()) {
+        int blockSize = in.getInt();
+        int blockEnd = written + blockSize;
+        while (written < blockEnd) {
+          int compressedSize = in.getInt();
+          written +=
+              decompressor.decompress(
+                  data, in.position(), compressedSize, out, written, blockEnd - written);
+          in.position(in.position() + compressedSize);
+        }
+      }
+      if (written == uncompressedSize) {
+        return out;
+      }
+    } catch (RuntimeException e) {
+      // not framed, fall through
+    }
+    try {
+      return decompressor.decompress(data, uncompressedSize);
+    } catch (LZ4Exception e) {
+      throw new IOException("Invalid LZ4 data", e);
+    }
+  }
+
+  private static LZ4SafeDecompressor lz4() {
+    return LZ4Factory.fastestInstance().safeDecompressor();
+  }
+
+  private static byte[] readFully(InputStream in, int expectedSize) throws IOException {
+    try (InputStream stream = in) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(32, expectedSize));
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = stream.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,465 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.connectors.parquet;
+
+import com.datastax.oss.driver.api.core.type.DataType;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import com.datastax.oss.driver.api.core.type.reflect.GenericType;
+import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableMap;
+import com.datastax.oss.dsbulk.config.ConfigUtils;
+import com.datastax.oss.dsbulk.connectors.api.ArrayBackedRecord;
+import com.datastax.oss.dsbulk.connectors.api.CommonConnectorFeature;
+import com.datastax.oss.dsbulk.connectors.api.ConnectorFeature;
+import com.datastax.oss.dsbulk.connectors.api.DefaultIndexedField;
+import com.datastax.oss.dsbulk.connectors.api.DefaultMappedField;
+import com.datastax.oss.dsbulk.connectors.api.Field;
+import com.datastax.oss.dsbulk.connectors.api.Record;
+import com.datastax.oss.dsbulk.connectors.api.RecordMetadata;
+import com.datastax.oss.dsbulk.connectors.api.RecordSchema;
+import com.datastax.oss.dsbulk.connectors.commons.AbstractFileBasedConnector;
+import com.datastax.oss.dsbulk.connectors.parquet.ParquetFileReader.RowGroup;
+import com.datastax.oss.dsbulk.connectors.parquet.ParquetFileReader.RowGroupReader;
+import com.datastax.oss.dsbulk.io.IOUtils;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigException;
+import com.typesafe.config.ConfigFactory;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLStreamHandler;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.SynchronousSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * A connector for Parquet files.
+ *
+ * <p>Only flat schemas are supported: each column of the file must be a primitive column, and
+ * becomes a field of the records. Values are emitted as typed Java objects, e.g. {@link Integer}
+ * for INT32 columns, or {@link java.time.Instant} for timestamps, and the connector's {@linkplain
+ * #getRecordMetadata() record metadata} reports these types, so that they can be converted to CQL
+ * types without going through text. The records of each file are emitted in file order, but up to
+ * {@code maxConcurrentFiles} row groups of the file are decoded ahead, in parallel; each row group
+ * being decoded is held entirely in memory.
+ *
+ * <p>When writing, the schema of each file is derived from the fields of the first record, and from
+ * the CQL types of the columns they are mapped to.
+ *
+ * <p>It is capable of reading from any URL, provided that there is a {@link URLStreamHandler
+ * handler} installed for it; files that are not on the local filesystem are read in memory. For
+ * file URLs, it is also capable of reading several files at once from a given root directory.
+ *
+ * <p>This connector is highly configurable; see its {@code dsbulk-reference.conf} file, bundled
+ * within its jar archive, for detailed information.
+ */
+public class ParquetConnector extends AbstractFileBasedConnector {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ParquetConnector.class);
+
+  private static final String CODEC = "codec";
+  private static final String ROW_GROUP_SIZE = "rowGroupSize";
+  private static final String PAGE_SIZE = "pageSize";
+
+  // Parquet files handle their own encoding and compression
+  private static final Config FIXED_SETTINGS =
+      ConfigFactory.parseMap(ImmutableMap.of(ENCODING, "UTF-8", COMPRESSION, "none"));
+
+  /** The Java types used to write CQL types; all other types are written as strings. */
+  private static final Map<DataType, GenericType<?>> WRITE_TYPES =
+      ImmutableMap.<DataType, GenericType<?>>builder()
+          .put(DataTypes.BOOLEAN, GenericType.BOOLEAN)
+          .put(DataTypes.TINYINT, GenericType.BYTE)
+          .put(DataTypes.SMALLINT, GenericType.SHORT)
+          .put(DataTypes.INT, GenericType.INTEGER)
+          .put(DataTypes.BIGINT, GenericType.LONG)
+          .put(DataTypes.COUNTER, GenericType.LONG)
+          .put(DataTypes.FLOAT, GenericType.FLOAT)
+          .put(DataTypes.DOUBLE, GenericType.DOUBLE)
+          .put(DataTypes.TIMESTAMP, GenericType.INSTANT)
+          .put(DataTypes.DATE, GenericType.LOCAL_DATE)
+          .put(DataTypes.TIME, GenericType.LOCAL_TIME)
+          .put(DataTypes.UUID, GenericType.UUID)
+          .put(DataTypes.TIMEUUID, GenericType.UUID)
+          .put(DataTypes.BLOB, GenericType.BYTE_BUFFER)
+          .build();
+
+  private int codec;
+  private long rowGroupSize;
+  private int pageSize;
+  private Scheduler rowGroupScheduler;
+
+  // the Java types of the fields: when reading, as declared in the files read so far; when
+  // writing, as resolved from the CQL types of the columns
+  private final ConcurrentMap<Field, GenericType<?>> fieldTypes = new ConcurrentHashMap<>();
+
+  @Override
+  @NonNull
+  public String getConnectorName() {
+    return "parquet";
+  }
+
+  @Override
+  public void configure(@NonNull Config settings, boolean read, boolean retainRecordSources) {
+    try {
+      super.configure(settings.withFallback(FIXED_SETTINGS), read, retainRecordSources);
+      codec = ParquetCompression.codecForWrite(settings.getString(CODEC));
+      rowGroupSize = settings.getBytes(ROW_GROUP_SIZE);
+      pageSize = Math.toIntExact(settings.getBytes(PAGE_SIZE));
+      if (rowGroupSize <= 0 || pageSize <= 0) {
+        throw new IllegalArgumentException(
+            String.format(
+                "Invalid value for dsbulk.connector.parquet.%s or %s: Expecting positive sizes",
+                ROW_GROUP_SIZE, PAGE_SIZE));
+      }
+    } catch (ConfigException e) {
+      throw ConfigUtils.convertConfigException(e, "dsbulk.connector.parquet");
+    } catch (ArithmeticException e) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Invalid value for dsbulk.connector.parquet.%s: Expecting a size lesser than 2GB",
+              PAGE_SIZE));
+    }
+  }
+
+  @Override
+  public void init() throws URISyntaxException, IOException {
+    super.init();
+    if (read) {
+      rowGroupScheduler = Schedulers.newParallel("parquet-row-group", maxConcurrentFiles);
+    }
+  }
+
+  @NonNull
+  @Override
+  public RecordMetadata getRecordMetadata() {
+    return (field, cqlType) -> {
+      if (read) {
+        // fields always come from a file that was opened already
+        GenericType<?> type = fieldTypes.get(field);
+        return type == null ? GenericType.STRING : type;
+      }
+      return fieldTypes.computeIfAbsent(
+          field, f -> WRITE_TYPES.getOrDefault(cqlType, GenericType.STRING));
+    };
+  }
+
+  @Override
+  public boolean supports(@NonNull ConnectorFeature feature) {
+    if (feature instanceof CommonConnectorFeature) {
+      CommonConnectorFeature commonFeature = (CommonConnectorFeature) feature;
+      switch (commonFeature) {
+        case MAPPED_RECORDS:
+          return true;
+        case INDEXED_RECORDS:
+          return false;
+        case DATA_SIZE_SAMPLING:
+          return isDataSizeSamplingAvailable();
+        case RESUMABLE_READS:
+          return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void close() {
+    try {
+      super.close();
+    } finally {
+      if (rowGroupScheduler != null) {
+        rowGroupScheduler.dispose();
+      }
+    }
+  }
+
+  @Override
+  @NonNull
+  protected RecordReader newSingleFileReader(@NonNull URL url) throws IOException {
+    ParquetFileReader reader = openReader(url);
+    try {
+      return new ParquetRecordReader(url, reader, registerSchema(reader));
+    } catch (IOException | RuntimeException e) {
+      try {
+        reader.close();
+      } catch (IOException e1) {
+        e.addSuppressed(e1);
+      }
+      throw e;
+    }
+  }
+
+  @NonNull
+  private static ParquetFileReader openReader(@NonNull URL url) throws IOException {
+    try {
+      return ParquetFileReader.open(url);
+    } catch (IOException e) {
+      throw new IOException(String.format("Error reading from %s", url), e);
+    }
+  }
+
+  /**
+   * Creates the record schema of the given file, and registers the types of its fields.
+   *
+   * @throws IOException if a field has a different type in another file.
+   */
+  @NonNull
+  private RecordSchema registerSchema(@NonNull ParquetFileReader reader) throws IOException {
+    List<ParquetColumn> columns = reader.getColumns();
+    Field[] names = new Field[columns.size()];
+    for (int i = 0; i < names.length; i++) {
+      ParquetColumn column = columns.get(i);
+      names[i] = new DefaultMappedField(column.getName());
+      registerType(reader, names[i], column.getJavaType());
+      registerType(reader, new DefaultIndexedField(i), column.getJavaType());
+    }
+    return RecordSchema.mapped(names);
+  }
+
+  private void registerType(
+      @NonNull ParquetFileReader reader, @NonNull Field field, @NonNull GenericType<?> type)
+      throws IOException {
+    GenericType<?> previous = fieldTypes.putIfAbsent(field, type);
+    if (previous != null && !previous.equals(type)) {
+      throw new IOException(
+          String.format(
+              "Error reading from %s: field %s has type %s, but it had type %s in previous files",
+              reader, field.getFieldDescription(), type, previous));
+    }
+  }
+
+  /**
+   * Emits the rows of a file in file order, so that positions, as well as {@code skipRecords} and
+   * {@code maxRecords}, work as with any other connector; meanwhile, up to {@code
+   * maxConcurrentFiles} of the following row groups are read and decoded in parallel, each of them
+   * entirely in memory.
+   */
+  private class ParquetRecordReader implements RecordReader {
+
+    private final URI resource;
+    private final ParquetFileReader reader;
+    private final RecordSchema schema;
+    private final Iterator<RowGroup> rowGroups;
+    private final Deque<CompletableFuture<DecodedRowGroup>> decoding = new ArrayDeque<>();
+
+    private DecodedRowGroup current;
+    private int rowIndex;
+
+    private ParquetRecordReader(
+        @NonNull URL url, @NonNull ParquetFileReader reader, @NonNull RecordSchema schema) {
+      this.resource = URI.create(url.toExternalForm());
+      this.reader = reader;
+      this.schema = schema;
+      this.rowGroups = reader.getRowGroups().iterator();
+      decodeAhead();
+    }
+
+    @NonNull
+    @Override
+    public RecordReader readNext(@NonNull SynchronousSink<Record> sink) {
+      try {
+        while (current == null || rowIndex == current.rows.size()) {
+          CompletableFuture<DecodedRowGroup> next = decoding.poll();
+          if (next == null) {
+            LOGGER.debug("Done reading {}", reader);
+            sink.complete();
+            return this;
+          }
+          current = next.join();
+          rowIndex = 0;
+          decodeAhead();
+        }
+        Object[] values = current.rows.get(rowIndex);
+        // release the row, it will not be read again
+        current.rows.set(rowIndex, null);
+        long position = current.rowGroup.getFirstRow() + ++rowIndex;
+        Object source = retainRecordSources ? Arrays.asList(values.clone()) : null;
+        Record record = new ArrayBackedRecord(source, resource, position, schema, values);
+        LOGGER.trace("Emitting record {}", record);
+        sink.next(record);
+      } catch (CompletionException e) {
+        sink.error(new IOException(String.format("Error reading from %s", reader), e.getCause()));
+      } catch (Exception e) {
+        sink.error(new IOException(String.format("Error reading from %s", reader), e));
+      }
+      return this;
+    }
+
+    private void decodeAhead() {
+      while (decoding.size() < maxConcurrentFiles && rowGroups.hasNext()) {
+        RowGroup rowGroup = rowGroups.next();
+        decoding.add(
+            CompletableFuture.supplyAsync(() -> decode(rowGroup), rowGroupScheduler::schedule));
+      }
+    }
+
+    @NonNull
+    private DecodedRowGroup decode(@NonNull RowGroup rowGroup) {
+      LOGGER.debug("Reading row group {} of {}", rowGroup.getIndex(), reader);
+      try {
+        RowGroupReader rowGroupReader = reader.readRowGroup(rowGroup);
+        List<Object[]> rows = new ArrayList<>(Math.toIntExact(rowGroup.getRowCount()));
+        Object[] values;
+        while ((values = rowGroupReader.nextRow()) != null) {
+          rows.add(values);
+        }
+        return new DecodedRowGroup(rowGroup, rows);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      // row groups being decoded will fail once the file is closed; their results are discarded
+      for (CompletableFuture<DecodedRowGroup> future : decoding) {
+        future.cancel(false);
+      }
+      decoding.clear();
+      reader.close();
+    }
+  }
+
+  /** The rows of a row group, decoded. */
+  private static final class DecodedRowGroup {
+
+    private final RowGroup rowGroup;
+    private final List<Object[]> rows;
+
+    private DecodedRowGroup(RowGroup rowGroup, List<Object[]> rows) {
+      this.rowGroup = rowGroup;
+      this.rows = rows;
+    }
+  }
+
+  @NonNull
+  @Override
+  protected RecordWriter newSingleFileWriter() {
+    return new ParquetRecordWriter();
+  }
+
+  private class ParquetRecordWriter implements RecordWriter {
+
+    private URL url;
+    private ParquetFileWriter writer;
+    private Field[] fields;
+    private long currentRecords;
+
+    @Override
+    public void write(@NonNull Record record) throws IOException {
+      try {
+        if (writer == null) {
+          open(record);
+        } else if (shouldRoll()) {
+          close();
+          open(record);
+        }
+        LOGGER.trace("Writing record {}", record);
+        if (record.fields().size() != fields.length) {
+          throw new IllegalArgumentException(
+              String.format(
+                  "Expecting record to contain fields %s, got %s",
+                  Arrays.toString(fields), record.fields()));
+        }
+        Object[] values = new Object[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+          values[i] = record.getFieldValue(fields[i]);
+        }
+        writer.writeRow(values);
+        currentRecords++;
+      } catch (ClosedChannelException e) {
+        // OK, happens when the channel was closed due to interruption
+      } catch (RuntimeException e) {
+        throw new IOException(String.format("Error writing to %s", url), e);
+      }
+    }
+
+    private boolean shouldRoll() {
+      return !roots.isEmpty() && currentRecords == maxRecords;
+    }
+
+    private void open(Record record) throws IOException {
+      url = getOrCreateDestinationURL();
+      try {
+        fields = record.fields().toArray(new Field[0]);
+        List<ParquetColumn> columns = new ArrayList<>(fields.length);
+        Map<String, Field> names = new HashMap<>();
+        for (Field field : fields) {
+          String name = field.getFieldDescription();
+          Field existing = names.put(name, field);
+          if (existing != null) {
+            throw new IllegalArgumentException("Duplicate field name: " + name);
+          }
+          GenericType<?> type = fieldTypes.get(field);
+          Class<?> javaType;
+          if (type != null) {
+            javaType = type.getRawType();
+          } else {
+            Object value = record.getFieldValue(field);
+            javaType = value == null ? String.class : value.getClass();
+          }
+          columns.add(ParquetColumn.forJavaType(name, javaType));
+        }
+        writer =
+            new ParquetFileWriter(
+                IOUtils.newBufferedOutputStream(url), columns, codec, rowGroupSize, pageSize);
+        currentRecords = 0;
+        LOGGER.debug("Writing " + url);
+      } catch (ClosedChannelException e) {
+        // OK, happens when the channel was closed due to interruption
+      } catch (RuntimeException | IOException e) {
+        throw new IOException(String.format("Error opening %s", url), e);
+      }
+    }
+
+    @Override
+    public void flush() {
+      // row groups cannot be flushed partially; they are written when full, or when closing
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (writer != null) {
+        try {
+          writer.close();
+          LOGGER.debug("Done writing {}", url);
+          writer = null;
+        } catch (ClosedChannelException e) {
+          // OK, happens when the channel was closed due to interruption
+        } catch (RuntimeException | IOException e) {
+          throw new IOException(String.format("Error closing %s", url), e);
+        }
+      }
+    }
+  }
+}
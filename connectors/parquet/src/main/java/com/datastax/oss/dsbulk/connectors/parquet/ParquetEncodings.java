@@ -0,0 +1,472 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.connectors.parquet;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Encoders and decoders for the value and level encodings of Parquet data pages.
+ *
+ * <p>Decoders operate on little-endian {@link ByteBuffer}s positioned at the start of the encoded
+ * data, and return values in their physical representation; see {@link
+ * ParquetColumn#toJava(Object)}.
+ */
+final class ParquetEncodings {
+
+  static final int PLAIN = 0;
+  static final int PLAIN_DICTIONARY = 2;
+  static final int RLE = 3;
+  static final int BIT_PACKED = 4;
+  static final int DELTA_BINARY_PACKED = 5;
+  static final int DELTA_LENGTH_BYTE_ARRAY = 6;
+  static final int DELTA_BYTE_ARRAY = 7;
+  static final int RLE_DICTIONARY = 8;
+  static final int BYTE_STREAM_SPLIT = 9;
+
+  private ParquetEncodings() {}
+
+  /** A decoder for the values of a data page. */
+  interface ValuesDecoder {
+
+    /** Returns the next non-null value. */
+    @NonNull
+    Object next() throws IOException;
+  }
+
+  /**
+   * Creates a decoder for values encoded with the given encoding.
+   *
+   * @param encoding the encoding.
+   * @param data the encoded values.
+   * @param column the column being decoded.
+   * @param dictionary the dictionary of the column chunk, or null if it has none; dictionary values
+   *     are already converted to their Java representation, and so are the values returned by
+   *     decoders of dictionary-encoded data.
+   * @throws IOException if the encoding is not supported.
+   */
+  @NonNull
+  static ValuesDecoder newDecoder(
+      int encoding,
+      @NonNull ByteBuffer data,
+      @NonNull ParquetColumn column,
+      @Nullable Object[] dictionary)
+      throws IOException {
+    data.order(ByteOrder.LITTLE_ENDIAN);
+    int physicalType = column.getPhysicalType();
+    switch (encoding) {
+      case PLAIN:
+        return new PlainDecoder(data, physicalType, column.getTypeLength());
+      case PLAIN_DICTIONARY:
+      case RLE_DICTIONARY:
+        {
+          if (dictionary == null) {
+            throw new IOException(
+                String.format("Column %s has no dictionary page", column.getName()));
+          }
+          // pages containing only nulls may have no data at all
+          int bitWidth = data.hasRemaining() ? data.get() & 0xFF : 0;
+          RleDecoder indices = new RleDecoder(data, bitWidth);
+          return () -> dictionary[indices.nextInt()];
+        }
+      case RLE:
+        if (physicalType == ParquetColumn.BOOLEAN) {
+          // boolean values are prefixed with their length
+          data.getInt();
+          RleDecoder bits = new RleDecoder(data, 1);
+          return () -> bits.nextInt() != 0;
+        }
+        break;
+      case DELTA_BINARY_PACKED:
+        {
+          long[] values = decodeDeltas(data);
+          int[] index = {0};
+          if (physicalType == ParquetColumn.INT32) {
+            return () -> (int) values[index[0]++];
+          } else if (physicalType == ParquetColumn.INT64) {
+            return () -> values[index[0]++];
+          }
+          break;
+        }
+      case DELTA_LENGTH_BYTE_ARRAY:
+        if (physicalType == ParquetColumn.BYTE_ARRAY) {
+          long[] lengths = decodeDeltas(data);
+          int[] index = {0};
+          return () -> {
+            byte[] value = new byte[(int) lengths[index[0]++]];
+            data.get(value);
+            return value;
+          };
+        }
+        break;
+      case DELTA_BYTE_ARRAY:
+        if (physicalType == ParquetColumn.BYTE_ARRAY
+            || physicalType == ParquetColumn.FIXED_LEN_BYTE_ARRAY) {
+          long[] prefixLengths = decodeDeltas(data);
+          long[] suffixLengths = decodeDeltas(data);
+          int[] index = {0};
+          byte[][] previous = {new byte[0]};
+          return () -> {
+            int i = index[0]++;
+            int prefixLength = (int) prefixLengths[i];
+            byte[] value = new byte[prefixLength + (int) suffixLengths[i]];
+            System.arraycopy(previous[0], 0, value, 0, prefixLength);
+            data.get(value, prefixLength, value.length - prefixLength);
+            previous[0] = value;
+            return value;
+          };
+        }
+        break;
+      case BYTE_STREAM_SPLIT:
+        {
+          int width = byteWidth(physicalType, column.getTypeLength());
+          if (width > 0) {
+            return new ByteStreamSplitDecoder(data, physicalType, width);
+          }
+          break;
+        }
+      default:
+        break;
+    }
+    throw new IOException(
+        String.format("Unsupported encoding %d for column %s", encoding, column.getName()));
+  }
+
+  /**
+   * Decodes all the values of a dictionary page, and converts them to their Java representation.
+   */
+  @NonNull
+  static Object[] decodeDictionary(
+      @NonNull ByteBuffer data, @NonNull ParquetColumn column, int valueCount) {
+    data.order(ByteOrder.LITTLE_ENDIAN);
+    PlainDecoder decoder = new PlainDecoder(data, column.getPhysicalType(), column.getTypeLength());
+    Object[] dictionary = new Object[valueCount];
+    for (int i = 0; i < valueCount; i++) {
+      dictionary[i] = column.toJava(decoder.next());
+    }
+    return dictionary;
+  }
+
+  private static int byteWidth(int physicalType, int typeLength) {
+    switch (physicalType) {
+      case ParquetColumn.INT32:
+      case ParquetColumn.FLOAT:
+        return 4;
+      case ParquetColumn.INT64:
+      case ParquetColumn.DOUBLE:
+        return 8;
+      case ParquetColumn.FIXED_LEN_BYTE_ARRAY:
+        return typeLength;
+      default:
+        return -1;
+    }
+  }
+
+  /** Decodes PLAIN-encoded values. */
+  private static final class PlainDecoder implements ValuesDecoder {
+
+    private final ByteBuffer data;
+    private final int physicalType;
+    private final int typeLength;
+
+    // for booleans, which are bit-packed
+    private int currentByte;
+    private int bitIndex = 8;
+
+    private PlainDecoder(ByteBuffer data, int physicalType, int typeLength) {
+      this.data = data;
+      this.physicalType = physicalType;
+      this.typeLength = typeLength;
+    }
+
+    @NonNull
+    @Override
+    public Object next() {
+      switch (physicalType) {
+        case ParquetColumn.BOOLEAN:
+          if (bitIndex == 8) {
+            currentByte = data.get();
+            bitIndex = 0;
+          }
+          return (currentByte >>> bitIndex++ & 1) != 0;
+        case ParquetColumn.INT32:
+          return data.getInt();
+        case ParquetColumn.INT64:
+          return data.getLong();
+        case ParquetColumn.FLOAT:
+          return data.getFloat();
+        case ParquetColumn.DOUBLE:
+          return data.getDouble();
+        case ParquetColumn.INT96:
+          return bytes(12);
+        case ParquetColumn.FIXED_LEN_BYTE_ARRAY:
+          return bytes(typeLength);
+        default:
+          return bytes(data.getInt());
+      }
+    }
+
+    private byte[] bytes(int length) {
+      byte[] value = new byte[length];
+      data.get(value);
+      return value;
+    }
+  }
+
+  /** Decodes BYTE_STREAM_SPLIT-encoded values. */
+  private static final class ByteStreamSplitDecoder implements ValuesDecoder {
+
+    private final ByteBuffer data;
+    private final int start;
+    private final int physicalType;
+    private final int width;
+    private final int count;
+    private int index;
+
+    private ByteStreamSplitDecoder(ByteBuffer data, int physicalType, int width) {
+      this.data = data;
+      this.start = data.position();
+      this.physicalType = physicalType;
+      this.width = width;
+      this.count = data.remaining() / width;
+    }
+
+    @NonNull
+    @Override
+    public Object next() {
+      byte[] bytes = new byte[width];
+      for (int k = 0; k < width; k++) {
+        bytes[k] = data.get(start + k * count + index);
+      }
+      index++;
+      if (physicalType == ParquetColumn.FIXED_LEN_BYTE_ARRAY) {
+        return bytes;
+      }
+      ByteBuffer value = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+      switch (physicalType) {
+        case ParquetColumn.INT32:
+          return value.getInt();
+        case ParquetColumn.INT64:
+          return value.getLong();
+        case ParquetColumn.FLOAT:
+          return value.getFloat();
+        default:
+          return value.getDouble();
+      }
+    }
+  }
+
+  /**
+   * Decodes values encoded with the RLE / bit-packing hybrid encoding, used for definition levels,
+   * dictionary indices and booleans.
+   */
+  static final class RleDecoder {
+
+    private final ByteBuffer data;
+    private final int bitWidth;
+    private final int valueBytes;
+
+    private int remaining;
+    private boolean packed;
+    private int runValue;
+    private int packedStart;
+    private long bitOffset;
+
+    RleDecoder(@NonNull ByteBuffer data, int bitWidth) {
+      this.data = data;
+      this.bitWidth = bitWidth;
+      this.valueBytes = (bitWidth + 7) / 8;
+    }
+
+    int nextInt() throws IOException {
+      if (remaining == 0) {
+        readRunHeader();
+      }
+      remaining--;
+      if (!packed) {
+        return runValue;
+      }
+      int value = (int) readBits(data, packedStart, bitOffset, bitWidth);
+      bitOffset += bitWidth;
+      return value;
+    }
+
+    private void readRunHeader() throws IOException {
+      if (!data.hasRemaining()) {
+        throw new IOException("Unexpected end of RLE-encoded data");
+      }
+      int header = ThriftStruct.readVarInt(data);
+      if ((header & 1) == 0) {
+        packed = false;
+        remaining = header >>> 1;
+        runValue = 0;
+        for (int i = 0; i < valueBytes; i++) {
+          runValue |= (data.get() & 0xFF) << (i * 8);
+        }
+      } else {
+        packed = true;
+        int groups = header >>> 1;
+        remaining = groups * 8;
+        packedStart = data.position();
+        bitOffset = 0;
+        // the last group may be truncated
+        data.position(Math.min(data.limit(), packedStart + groups * bitWidth));
+      }
+    }
+  }
+
+  /**
+   * Decodes a whole DELTA_BINARY_PACKED stream; when this method returns, the buffer is positioned
+   * after the last value.
+   */
+  @NonNull
+  static long[] decodeDeltas(@NonNull ByteBuffer data) {
+    int blockSize = ThriftStruct.readVarInt(data);
+    int miniBlocks = ThriftStruct.readVarInt(data);
+    int totalCount = ThriftStruct.readVarInt(data);
+    long[] values = new long[totalCount];
+    if (totalCount == 0) {
+      ThriftStruct.readZigZagLong(data);
+      return values;
+    }
+    int valuesPerMiniBlock = blockSize / miniBlocks;
+    values[0] = ThriftStruct.readZigZagLong(data);
+    int count = 1;
+    int[] bitWidths = new int[miniBlocks];
+    while (count < totalCount) {
+      long minDelta = ThriftStruct.readZigZagLong(data);
+      for (int i = 0; i < miniBlocks; i++) {
+        bitWidths[i] = data.get() & 0xFF;
+      }
+      for (int i = 0; i < miniBlocks && count < totalCount; i++) {
+        int start = data.position();
+        int bitWidth = bitWidths[i];
+        for (int j = 0; j < valuesPerMiniBlock && count < totalCount; j++) {
+          long delta = readBits(data, start, (long) j * bitWidth, bitWidth);
+          values[count] = values[count - 1] + minDelta + delta;
+          count++;
+        }
+        data.position(start + valuesPerMiniBlock * bitWidth / 8);
+      }
+    }
+    return values;
+  }
+
+  /** Reads an unsigned, LSB-first bit-packed value of up to 64 bits. */
+  private static long readBits(ByteBuffer data, int start, long bitOffset, int bitWidth) {
+    long value = 0;
+    int read = 0;
+    while (read < bitWidth) {
+      int b = data.get(start + (int) (bitOffset >>> 3)) & 0xFF;
+      int shift = (int) (bitOffset & 7);
+      int bits = Math.min(8 - shift, bitWidth - read);
+      value |= (long) ((b >>> shift) & ((1 << bits) - 1)) << read;
+      read += bits;
+      bitOffset += bits;
+    }
+    return value;
+  }
+
+  /**
+   * Encodes the definition levels of an optional column, with bit width 1, using RLE runs only.
+   *
+   * @param levels the levels: 1 for a non-null value, 0 for a null value.
+   * @param count the number of levels to encode.
+   * @param out where to write the encoded levels, prefixed with their length, as expected in data
+   *     pages v1.
+   */
+  static void encodeDefinitionLevels(
+      @NonNull boolean[] levels, int count, @NonNull ByteArrayOutputStream out) {
+    ByteArrayOutputStream runs = new ByteArrayOutputStream();
+    int i = 0;
+    while (i < count) {
+      boolean level = levels[i];
+      int j = i + 1;
+      while (j < count && levels[j] == level) {
+        j++;
+      }
+      ThriftStruct.writeVarLong(runs, (long) (j - i) << 1);
+      runs.write(level ? 1 : 0);
+      i = j;
+    }
+    writeIntLE(out, runs.size());
+    out.write(runs.toByteArray(), 0, runs.size());
+  }
+
+  /** Encodes a value with the PLAIN encoding. */
+  static void encodePlain(
+      @NonNull Object value, int physicalType, @NonNull ByteArrayOutputStream out) {
+    switch (physicalType) {
+      case ParquetColumn.INT32:
+        writeIntLE(out, (Integer) value);
+        break;
+      case ParquetColumn.INT64:
+        writeLongLE(out, (Long) value);
+        break;
+      case ParquetColumn.FLOAT:
+        writeIntLE(out, Float.floatToRawIntBits((Float) value));
+        break;
+      case ParquetColumn.DOUBLE:
+        writeLongLE(out, Double.doubleToRawLongBits((Double) value));
+        break;
+      case ParquetColumn.BYTE_ARRAY:
+        {
+          byte[] bytes = (byte[]) value;
+          writeIntLE(out, bytes.length);
+          out.write(bytes, 0, bytes.length);
+          break;
+        }
+      case ParquetColumn.FIXED_LEN_BYTE_ARRAY:
+        {
+          byte[] bytes = (byte[]) value;
+          out.write(bytes, 0, bytes.length);
+          break;
+        }
+      default:
+        throw new IllegalArgumentException("Cannot encode physical type " + physicalType);
+    }
+  }
+
+  /** Encodes booleans with the PLAIN encoding, that is, bit-packed LSB first. */
+  static void encodePlainBooleans(
+      @NonNull boolean[] values, int count, @NonNull ByteArrayOutputStream out) {
+    for (int i = 0; i < count; i += 8) {
+      int b = 0;
+      for (int j = 0; j < 8 && i + j < count; j++) {
+        if (values[i + j]) {
+          b |= 1 << j;
+        }
+      }
+      out.write(b);
+    }
+  }
+
+  static void writeIntLE(@NonNull ByteArrayOutputStream out, int value) {
+    out.write(value);
+    out.write(value >>> 8);
+    out.write(value >>> 16);
+    out.write(value >>> 24);
+  }
+
+  private static void writeLongLE(ByteArrayOutputStream out, long value) {
+    writeIntLE(out, (int) value);
+    writeIntLE(out, (int) (value >>> 32));
+  }
+}
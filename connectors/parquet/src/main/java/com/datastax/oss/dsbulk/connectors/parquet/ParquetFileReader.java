@@ -0,0 +1,446 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.connectors.parquet;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import com.datastax.oss.dsbulk.connectors.parquet.ParquetEncodings.RleDecoder;
+import com.datastax.oss.dsbulk.connectors.parquet.ParquetEncodings.ValuesDecoder;
+import com.datastax.oss.dsbulk.io.IOUtils;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A reader for Parquet files with flat schemas.
+ *
+ * <p>The file footer is read when the reader is opened; row groups can then be read independently
+ * of each other, and concurrently: each row group reader loads the column chunks of its row group
+ * in memory, then decodes them page by page.
+ *
+ * <p>Local files are read through a {@link FileChannel}, with positional reads; files accessed
+ * through other URLs, including standard input, are read entirely in memory first, since Parquet
+ * files are not meant to be streamed.
+ */
+final class ParquetFileReader implements AutoCloseable {
+
+  static final byte[] MAGIC = "PAR1".getBytes(US_ASCII);
+
+  // Page types
+  private static final int DATA_PAGE = 0;
+  private static final int DICTIONARY_PAGE = 2;
+  private static final int DATA_PAGE_V2 = 3;
+
+  private final URL url;
+  private final Source source;
+  private final List<ParquetColumn> columns;
+  private final List<RowGroup> rowGroups;
+
+  private ParquetFileReader(
+      URL url, Source source, List<ParquetColumn> columns, List<RowGroup> rowGroups) {
+    this.url = url;
+    this.source = source;
+    this.columns = columns;
+    this.rowGroups = rowGroups;
+  }
+
+  /**
+   * Opens the given file and reads its footer.
+   *
+   * @throws IOException if the file cannot be read, is not a Parquet file, or has a schema that is
+   *     not supported.
+   */
+  @NonNull
+  static ParquetFileReader open(@NonNull URL url) throws IOException {
+    Path file = IOUtils.getLocalFile(url);
+    Source source = file == null ? new MemorySource(url) : new ChannelSource(file);
+    try {
+      long size = source.size();
+      if (size < 12) {
+        throw new IOException("File is too short to be a Parquet file");
+      }
+      ByteBuffer tail = source.read(size - 8, 8).order(ByteOrder.LITTLE_ENDIAN);
+      int footerLength = tail.getInt();
+      byte[] magic = new byte[4];
+      tail.get(magic);
+      if (!Arrays.equals(magic, MAGIC)) {
+        throw new IOException("Not a Parquet file: invalid magic number");
+      }
+      if (footerLength <= 0 || footerLength > size - 12) {
+        throw new IOException("Invalid Parquet footer length: " + footerLength);
+      }
+      ThriftStruct footer = ThriftStruct.read(source.read(size - 8 - footerLength, footerLength));
+      List<ParquetColumn> columns = readSchema(footer.getStructList(2));
+      List<RowGroup> rowGroups = new ArrayList<>();
+      long firstRow = 0;
+      for (ThriftStruct rowGroup : footer.getStructList(4)) {
+        RowGroup group = new RowGroup(rowGroups.size(), firstRow, rowGroup, columns.size());
+        rowGroups.add(group);
+        firstRow += group.rowCount;
+      }
+      return new ParquetFileReader(url, source, columns, Collections.unmodifiableList(rowGroups));
+    } catch (IOException | RuntimeException e) {
+      try {
+        source.close();
+      } catch (IOException e1) {
+        e.addSuppressed(e1);
+      }
+      throw e instanceof IOException ? (IOException) e : new IOException(e.getMessage(), e);
+    }
+  }
+
+  /** Returns the columns of the file, in schema order. */
+  @NonNull
+  List<ParquetColumn> getColumns() {
+    return columns;
+  }
+
+  /** Returns the row groups of the file, in file order. */
+  @NonNull
+  List<RowGroup> getRowGroups() {
+    return rowGroups;
+  }
+
+  /** Reads the given row group. This method can be called concurrently for different row groups. */
+  @NonNull
+  RowGroupReader readRowGroup(@NonNull RowGroup rowGroup) throws IOException {
+    ColumnCursor[] cursors = new ColumnCursor[columns.size()];
+    for (int i = 0; i < cursors.length; i++) {
+      ThriftStruct metadata = rowGroup.chunks.get(i);
+      long start = metadata.getLong(9);
+      long dictionaryOffset = metadata.getLong(11, -1);
+      if (dictionaryOffset > 0 && dictionaryOffset < start) {
+        start = dictionaryOffset;
+      }
+      ByteBuffer chunk = source.read(start, Math.toIntExact(metadata.getLong(7)));
+      cursors[i] = new ColumnCursor(columns.get(i), metadata.getInt(4), chunk);
+    }
+    return new RowGroupReader(rowGroup.rowCount, cursors);
+  }
+
+  @Override
+  public void close() throws IOException {
+    source.close();
+  }
+
+  @Override
+  public String toString() {
+    return url.toExternalForm();
+  }
+
+  private static List<ParquetColumn> readSchema(List<ThriftStruct> elements) throws IOException {
+    if (elements.isEmpty()) {
+      throw new IOException("Parquet file has no schema");
+    }
+    List<ParquetColumn> columns = new ArrayList<>();
+    try {
+      for (ThriftStruct element : elements.subList(1, elements.size())) {
+        columns.add(ParquetColumn.fromSchemaElement(element));
+      }
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Unsupported Parquet schema: " + e.getMessage(), e);
+    }
+    if (elements.get(0).getInt(5, 0) != columns.size()) {
+      throw new IOException("Unsupported Parquet schema: nested schemas are not supported");
+    }
+    return Collections.unmodifiableList(columns);
+  }
+
+  /** A row group in a Parquet file. */
+  static final class RowGroup {
+
+    private final int index;
+    private final long firstRow;
+    private final long rowCount;
+    private final List<ThriftStruct> chunks;
+
+    private RowGroup(int index, long firstRow, ThriftStruct rowGroup, int columnCount)
+        throws IOException {
+      this.index = index;
+      this.firstRow = firstRow;
+      this.rowCount = rowGroup.getLong(3);
+      List<ThriftStruct> chunks = new ArrayList<>(columnCount);
+      for (ThriftStruct chunk : rowGroup.getStructList(1)) {
+        ThriftStruct metadata = chunk.getStruct(3);
+        if (metadata == null || chunk.has(1)) {
+          throw new IOException("Column chunks stored in external files are not supported");
+        }
+        chunks.add(metadata);
+      }
+      if (chunks.size() != columnCount) {
+        throw new IOException(
+            String.format(
+                "Row group %d has %d column chunks, expecting %d",
+                index, chunks.size(), columnCount));
+      }
+      this.chunks = chunks;
+    }
+
+    /** The zero-based index of this row group in the file. */
+    int getIndex() {
+      return index;
+    }
+
+    /** The zero-based index, in the file, of the first row of this row group. */
+    long getFirstRow() {
+      return firstRow;
+    }
+
+    long getRowCount() {
+      return rowCount;
+    }
+  }
+
+  /** A reader for the rows of a row group. */
+  static final class RowGroupReader {
+
+    private final ColumnCursor[] cursors;
+    private long remaining;
+
+    private RowGroupReader(long rowCount, ColumnCursor[] cursors) {
+      this.remaining = rowCount;
+      this.cursors = cursors;
+    }
+
+    /**
+     * Returns the values of the next row, converted to their Java representation, or null if there
+     * are no more rows.
+     */
+    @Nullable
+    Object[] nextRow() throws IOException {
+      if (remaining == 0) {
+        return null;
+      }
+      remaining--;
+      Object[] values = new Object[cursors.length];
+      for (int i = 0; i < cursors.length; i++) {
+        values[i] = cursors[i].next();
+      }
+      return values;
+    }
+  }
+
+  /** Decodes the values of a column chunk, page by page. */
+  private static final class ColumnCursor {
+
+    private final ParquetColumn column;
+    private final int codec;
+    private final ByteBuffer chunk;
+
+    private Object[] dictionary;
+    private int pageRemaining;
+    private RleDecoder definitionLevels;
+    private ValuesDecoder values;
+    private boolean converted;
+
+    private ColumnCursor(ParquetColumn column, int codec, ByteBuffer chunk) {
+      this.column = column;
+      this.codec = codec;
+      this.chunk = chunk;
+    }
+
+    @Nullable
+    Object next() throws IOException {
+      while (pageRemaining == 0) {
+        readPage();
+      }
+      pageRemaining--;
+      if (definitionLevels != null && definitionLevels.nextInt() == 0) {
+        return null;
+      }
+      Object value = values.next();
+      return converted ? value : column.toJava(value);
+    }
+
+    private void readPage() throws IOException {
+      if (!chunk.hasRemaining()) {
+        throw new EOFException(
+            String.format("Unexpected end of column chunk for column %s", column.getName()));
+      }
+      ThriftStruct header = ThriftStruct.read(chunk);
+      int uncompressedSize = header.getInt(2);
+      int compressedSize = header.getInt(3);
+      byte[] page = new byte[compressedSize];
+      chunk.get(page);
+      switch (header.getInt(1)) {
+        case DICTIONARY_PAGE:
+          {
+            ThriftStruct dictionaryHeader = header.getStruct(7);
+            if (dictionaryHeader == null) {
+              throw new IOException("Missing dictionary page header");
+            }
+            byte[] data = ParquetCompression.decompress(codec, page, uncompressedSize);
+            dictionary =
+                ParquetEncodings.decodeDictionary(
+                    ByteBuffer.wrap(data), column, dictionaryHeader.getInt(1));
+            break;
+          }
+        case DATA_PAGE:
+          {
+            ThriftStruct dataHeader = header.getStruct(5);
+            if (dataHeader == null) {
+              throw new IOException("Missing data page header");
+            }
+            ByteBuffer data =
+                ByteBuffer.wrap(ParquetCompression.decompress(codec, page, uncompressedSize))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (column.isOptional()) {
+              if (dataHeader.getInt(3) != ParquetEncodings.RLE) {
+                throw new IOException(
+                    "Unsupported definition level encoding " + dataHeader.getInt(3));
+              }
+              int length = data.getInt();
+              definitionLevels = new RleDecoder(slice(data, length), 1);
+            }
+            startPage(dataHeader.getInt(1), dataHeader.getInt(2), data);
+            break;
+          }
+        case DATA_PAGE_V2:
+          {
+            ThriftStruct dataHeader = header.getStruct(8);
+            if (dataHeader == null) {
+              throw new IOException("Missing data page header");
+            }
+            ByteBuffer levels = ByteBuffer.wrap(page);
+            // flat schemas have no repetition levels
+            levels.position(dataHeader.getInt(6, 0));
+            int definitionLength = dataHeader.getInt(5, 0);
+            if (column.isOptional()) {
+              definitionLevels = new RleDecoder(slice(levels, definitionLength), 1);
+            } else {
+              levels.position(levels.position() + definitionLength);
+            }
+            byte[] compressed = new byte[levels.remaining()];
+            levels.get(compressed);
+            byte[] data =
+                dataHeader.getBoolean(7, true)
+                    ? ParquetCompression.decompress(
+                        codec, compressed, uncompressedSize - (page.length - compressed.length))
+                    : compressed;
+            startPage(dataHeader.getInt(1), dataHeader.getInt(4), ByteBuffer.wrap(data));
+            break;
+          }
+        default:
+          // index pages and unknown pages: ignore
+          break;
+      }
+    }
+
+    private void startPage(int valueCount, int encoding, ByteBuffer data) throws IOException {
+      values = ParquetEncodings.newDecoder(encoding, data, column, dictionary);
+      converted =
+          encoding == ParquetEncodings.PLAIN_DICTIONARY
+              || encoding == ParquetEncodings.RLE_DICTIONARY;
+      pageRemaining = valueCount;
+    }
+
+    private static ByteBuffer slice(ByteBuffer data, int length) {
+      ByteBuffer slice = data.slice();
+      slice.limit(length);
+      data.position(data.position() + length);
+      return slice;
+    }
+  }
+
+  /** Random access to the bytes of a file. */
+  private interface Source extends AutoCloseable {
+
+    long size() throws IOException;
+
+    /** Reads the given range; this method can be called concurrently. */
+    ByteBuffer read(long position, int length) throws IOException;
+
+    @Override
+    void close() throws IOException;
+  }
+
+  private static final class ChannelSource implements Source {
+
+    private final FileChannel channel;
+
+    private ChannelSource(Path file) throws IOException {
+      channel = FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    @Override
+    public long size() throws IOException {
+      return channel.size();
+    }
+
+    @Override
+    public ByteBuffer read(long position, int length) throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocate(length);
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, position + buffer.position()) == -1) {
+          throw new EOFException("Unexpected end of file");
+        }
+      }
+      buffer.flip();
+      return buffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+
+  private static final class MemorySource implements Source {
+
+    private final byte[] bytes;
+
+    private MemorySource(URL url) throws IOException {
+      try (InputStream in = IOUtils.newBufferedInputStream(url)) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+          out.write(buffer, 0, read);
+        }
+        bytes = out.toByteArray();
+      }
+    }
+
+    @Override
+    public long size() {
+      return bytes.length;
+    }
+
+    @Override
+    public ByteBuffer read(long position, int length) throws IOException {
+      if (position < 0 || position + length > bytes.length) {
+        throw new EOFException("Unexpected end of file");
+      }
+      return ByteBuffer.wrap(bytes, (int) position, length).slice();
+    }
+
+    @Override
+    public void close() {}
+  }
+}
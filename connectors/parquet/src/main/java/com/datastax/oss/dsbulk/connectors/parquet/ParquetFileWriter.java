@@ -0,0 +1,260 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.connectors.parquet;
+
+import com.datastax.oss.dsbulk.connectors.parquet.ThriftStruct.ThriftList;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A writer for Parquet files with flat schemas.
+ *
+ * <p>Rows are buffered column by column, and written one row group at a time, when the buffered
+ * data reaches the configured row group size. Values are written in PLAIN-encoded data pages of
+ * roughly the configured page size, with RLE-encoded definition levels, and compressed with the
+ * configured codec.
+ */
+final class ParquetFileWriter implements AutoCloseable {
+
+  private static final int DATA_PAGE = 0;
+
+  private final OutputStream out;
+  private final List<ParquetColumn> columns;
+  private final int codec;
+  private final long rowGroupSize;
+  private final int pageSize;
+  private final ColumnBuffer[] buffers;
+  private final List<ThriftStruct> rowGroups = new ArrayList<>();
+
+  private long position;
+  private long totalRows;
+  private long rowGroupRows;
+
+  /**
+   * Creates a new writer, and writes the file header.
+   *
+   * @param out the stream to write to; it will be closed when this writer is closed.
+   * @param columns the columns to write.
+   * @param codec the compression codec; see {@link ParquetCompression}.
+   * @param rowGroupSize the approximate size of row groups, in bytes.
+   * @param pageSize the approximate size of data pages, in bytes, before compression.
+   */
+  ParquetFileWriter(
+      @NonNull OutputStream out,
+      @NonNull List<ParquetColumn> columns,
+      int codec,
+      long rowGroupSize,
+      int pageSize)
+      throws IOException {
+    this.out = out;
+    this.columns = columns;
+    this.codec = codec;
+    this.rowGroupSize = rowGroupSize;
+    this.pageSize = pageSize;
+    buffers = new ColumnBuffer[columns.size()];
+    for (int i = 0; i < buffers.length; i++) {
+      buffers[i] = new ColumnBuffer(columns.get(i));
+    }
+    write(ParquetFileReader.MAGIC);
+  }
+
+  @NonNull
+  List<ParquetColumn> getColumns() {
+    return columns;
+  }
+
+  /**
+   * Writes a row.
+   *
+   * @param values the values of the row, in their Java representation, in column order; null values
+   *     are allowed.
+   */
+  void writeRow(@NonNull Object[] values) throws IOException {
+    long buffered = 0;
+    for (int i = 0; i < buffers.length; i++) {
+      buffers[i].add(values[i]);
+      buffered += buffers[i].bufferedSize();
+    }
+    rowGroupRows++;
+    if (buffered >= rowGroupSize) {
+      writeRowGroup();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (rowGroupRows > 0) {
+        writeRowGroup();
+      }
+      List<ThriftStruct> schema = new ArrayList<>(columns.size() + 1);
+      schema.add(new ThriftStruct().set(4, "schema").set(5, columns.size()));
+      for (ParquetColumn column : columns) {
+        schema.add(column.toSchemaElement());
+      }
+      ThriftStruct metadata =
+          new ThriftStruct()
+              .set(1, 1)
+              .set(2, new ThriftList(ThriftStruct.STRUCT, schema))
+              .set(3, totalRows)
+              .set(4, new ThriftList(ThriftStruct.STRUCT, rowGroups))
+              .set(6, "dsbulk");
+      byte[] footer = metadata.toBytes();
+      write(footer);
+      ByteArrayOutputStream tail = new ByteArrayOutputStream(8);
+      ParquetEncodings.writeIntLE(tail, footer.length);
+      tail.write(ParquetFileReader.MAGIC, 0, ParquetFileReader.MAGIC.length);
+      write(tail.toByteArray());
+    } finally {
+      out.close();
+    }
+  }
+
+  private void writeRowGroup() throws IOException {
+    List<ThriftStruct> chunks = new ArrayList<>(buffers.length);
+    long totalByteSize = 0;
+    for (ColumnBuffer buffer : buffers) {
+      buffer.finishPage();
+      long offset = position;
+      for (byte[] page : buffer.pages) {
+        write(page);
+      }
+      ThriftStruct metadata =
+          new ThriftStruct()
+              .set(1, buffer.column.getPhysicalType())
+              .set(2, ParquetColumn.writtenEncodings())
+              .set(3, ParquetColumn.path(buffer.column.getName()))
+              .set(4, codec)
+              .set(5, buffer.valueCount)
+              .set(6, buffer.uncompressedSize)
+              .set(7, position - offset)
+              .set(9, offset);
+      chunks.add(new ThriftStruct().set(2, offset).set(3, metadata));
+      totalByteSize += buffer.uncompressedSize;
+      buffer.reset();
+    }
+    rowGroups.add(
+        new ThriftStruct()
+            .set(1, new ThriftList(ThriftStruct.STRUCT, chunks))
+            .set(2, totalByteSize)
+            .set(3, rowGroupRows));
+    totalRows += rowGroupRows;
+    rowGroupRows = 0;
+  }
+
+  private void write(byte[] bytes) throws IOException {
+    out.write(bytes);
+    position += bytes.length;
+  }
+
+  /** The data pages of a column in the current row group. */
+  private final class ColumnBuffer {
+
+    private final ParquetColumn column;
+    private final List<byte[]> pages = new ArrayList<>();
+    private final ByteArrayOutputStream values = new ByteArrayOutputStream();
+
+    private boolean[] definitionLevels = new boolean[1024];
+    private boolean[] booleans;
+    private int pageValueCount;
+    private int pageNonNullCount;
+    private long pagesSize;
+    private long valueCount;
+    private long uncompressedSize;
+
+    private ColumnBuffer(ParquetColumn column) {
+      this.column = column;
+      if (column.getPhysicalType() == ParquetColumn.BOOLEAN) {
+        booleans = new boolean[1024];
+      }
+    }
+
+    void add(@Nullable Object value) throws IOException {
+      if (pageValueCount == definitionLevels.length) {
+        definitionLevels = Arrays.copyOf(definitionLevels, pageValueCount * 2);
+      }
+      definitionLevels[pageValueCount++] = value != null;
+      if (value != null) {
+        Object physical = column.toPhysical(value);
+        if (booleans != null) {
+          if (pageNonNullCount == booleans.length) {
+            booleans = Arrays.copyOf(booleans, pageNonNullCount * 2);
+          }
+          booleans[pageNonNullCount] = (Boolean) physical;
+        } else {
+          ParquetEncodings.encodePlain(physical, column.getPhysicalType(), values);
+        }
+        pageNonNullCount++;
+      }
+      if (values.size() >= pageSize || pageNonNullCount / 8 >= pageSize) {
+        finishPage();
+      }
+    }
+
+    long bufferedSize() {
+      return pagesSize + values.size() + pageValueCount / 8;
+    }
+
+    void finishPage() throws IOException {
+      if (pageValueCount == 0) {
+        return;
+      }
+      ByteArrayOutputStream data = new ByteArrayOutputStream(values.size() + 64);
+      ParquetEncodings.encodeDefinitionLevels(definitionLevels, pageValueCount, data);
+      if (booleans != null) {
+        ParquetEncodings.encodePlainBooleans(booleans, pageNonNullCount, data);
+      } else {
+        values.writeTo(data);
+      }
+      byte[] uncompressed = data.toByteArray();
+      byte[] compressed = ParquetCompression.compress(codec, uncompressed);
+      ThriftStruct header =
+          new ThriftStruct()
+              .set(1, DATA_PAGE)
+              .set(2, uncompressed.length)
+              .set(3, compressed.length)
+              .set(
+                  5,
+                  new ThriftStruct()
+                      .set(1, pageValueCount)
+                      .set(2, ParquetEncodings.PLAIN)
+                      .set(3, ParquetEncodings.RLE)
+                      .set(4, ParquetEncodings.RLE));
+      byte[] headerBytes = header.toBytes();
+      pages.add(headerBytes);
+      pages.add(compressed);
+      pagesSize += headerBytes.length + compressed.length;
+      uncompressedSize += headerBytes.length + uncompressed.length;
+      valueCount += pageValueCount;
+      values.reset();
+      pageValueCount = 0;
+      pageNonNullCount = 0;
+    }
+
+    void reset() {
+      pages.clear();
+      pagesSize = 0;
+      valueCount = 0;
+      uncompressedSize = 0;
+    }
+  }
+}
@@ -0,0 +1,491 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.connectors.parquet;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A Thrift struct, serialized with the Thrift compact protocol, which is the serialization format
+ * of the Parquet file metadata and page headers.
+ *
+ * <p>Fields are identified by their Thrift field ids, as defined in {@code parquet.thrift}. Field
+ * values are stored as {@link Boolean}, {@link Byte}, {@link Short}, {@link Integer}, {@link Long},
+ * {@link Double}, {@code byte[]} for binary and string fields, {@link ThriftStruct} for structs and
+ * unions, and {@link ThriftList} for lists and sets. Maps are not used by the Parquet format; they
+ * are skipped when reading, and cannot be written.
+ */
+final class ThriftStruct {
+
+  private static final byte STOP = 0;
+  private static final byte BOOLEAN_TRUE = 1;
+  private static final byte BOOLEAN_FALSE = 2;
+  static final byte BYTE = 3;
+  static final byte I16 = 4;
+  static final byte I32 = 5;
+  static final byte I64 = 6;
+  static final byte DOUBLE = 7;
+  static final byte BINARY = 8;
+  static final byte LIST = 9;
+  private static final byte SET = 10;
+  private static final byte MAP = 11;
+  static final byte STRUCT = 12;
+
+  private final Map<Short, Object> fields = new TreeMap<>();
+
+  /**
+   * Reads a struct from the given buffer, starting at its current position; when this method
+   * returns, the buffer is positioned after the struct.
+   *
+   * @throws IOException if the buffer does not contain a valid struct.
+   */
+  @NonNull
+  static ThriftStruct read(@NonNull ByteBuffer buffer) throws IOException {
+    try {
+      return readStruct(buffer);
+    } catch (BufferUnderflowException | IllegalArgumentException e) {
+      throw new IOException("Invalid Thrift struct", e);
+    }
+  }
+
+  /** Serializes this struct with the Thrift compact protocol. */
+  @NonNull
+  byte[] toBytes() {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writeStruct(this, out);
+    return out.toByteArray();
+  }
+
+  /**
+   * Sets the value of the given field; a null value removes the field.
+   *
+   * @return this struct.
+   */
+  @NonNull
+  ThriftStruct set(int id, @Nullable Object value) {
+    if (value == null) {
+      fields.remove((short) id);
+    } else {
+      fields.put((short) id, value instanceof String ? ((String) value).getBytes(UTF_8) : value);
+    }
+    return this;
+  }
+
+  boolean has(int id) {
+    return fields.containsKey((short) id);
+  }
+
+  int getInt(int id) {
+    return ((Number) require(id)).intValue();
+  }
+
+  int getInt(int id, int defaultValue) {
+    Object value = fields.get((short) id);
+    return value == null ? defaultValue : ((Number) value).intValue();
+  }
+
+  long getLong(int id) {
+    return ((Number) require(id)).longValue();
+  }
+
+  long getLong(int id, long defaultValue) {
+    Object value = fields.get((short) id);
+    return value == null ? defaultValue : ((Number) value).longValue();
+  }
+
+  boolean getBoolean(int id, boolean defaultValue) {
+    Object value = fields.get((short) id);
+    return value == null ? defaultValue : (Boolean) value;
+  }
+
+  @Nullable
+  String getString(int id) {
+    byte[] value = (byte[]) fields.get((short) id);
+    return value == null ? null : new String(value, UTF_8);
+  }
+
+  @Nullable
+  ThriftStruct getStruct(int id) {
+    return (ThriftStruct) fields.get((short) id);
+  }
+
+  @NonNull
+  List<Object> getList(int id) {
+    ThriftList list = (ThriftList) fields.get((short) id);
+    return list == null ? Collections.emptyList() : list.values;
+  }
+
+  @NonNull
+  @SuppressWarnings("unchecked")
+  List<ThriftStruct> getStructList(int id) {
+    return (List<ThriftStruct>) (List<?>) getList(id);
+  }
+
+  @NonNull
+  private Object require(int id) {
+    Object value = fields.get((short) id);
+    if (value == null) {
+      throw new IllegalArgumentException("Missing required field " + id);
+    }
+    return value;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ThriftStruct)) {
+      return false;
+    }
+    ThriftStruct that = (ThriftStruct) o;
+    if (!fields.keySet().equals(that.fields.keySet())) {
+      return false;
+    }
+    for (Map.Entry<Short, Object> entry : fields.entrySet()) {
+      Object value = entry.getValue();
+      Object other = that.fields.get(entry.getKey());
+      boolean same =
+          value instanceof byte[] && other instanceof byte[]
+              ? Arrays.equals((byte[]) value, (byte[]) other)
+              : value.equals(other);
+      if (!same) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    return fields.keySet().hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return fields.toString();
+  }
+
+  /** A Thrift list or set, along with the Thrift type of its elements. */
+  static final class ThriftList {
+
+    private final byte elementType;
+    private final List<Object> values;
+
+    ThriftList(byte elementType, @NonNull List<?> values) {
+      this.elementType = elementType;
+      this.values = new ArrayList<>(values);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof ThriftList)) {
+        return false;
+      }
+      ThriftList that = (ThriftList) o;
+      if (values.size() != that.values.size()) {
+        return false;
+      }
+      for (int i = 0; i < values.size(); i++) {
+        Object value = values.get(i);
+        Object other = that.values.get(i);
+        boolean same =
+            value instanceof byte[] && other instanceof byte[]
+                ? Arrays.equals((byte[]) value, (byte[]) other)
+                : value.equals(other);
+        if (!same) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return values.size();
+    }
+
+    @Override
+    public String toString() {
+      return values.toString();
+    }
+  }
+
+  // Reading
+
+  private static ThriftStruct readStruct(ByteBuffer buffer) {
+    ThriftStruct struct = new ThriftStruct();
+    short lastId = 0;
+    while (true) {
+      byte header = buffer.get();
+      byte type = (byte) (header & 0x0F);
+      if (type == STOP) {
+        return struct;
+      }
+      int delta = (header & 0xF0) >>> 4;
+      short id = delta == 0 ? (short) readZigZagInt(buffer) : (short) (lastId + delta);
+      lastId = id;
+      Object value;
+      if (type == BOOLEAN_TRUE || type == BOOLEAN_FALSE) {
+        value = type == BOOLEAN_TRUE;
+      } else {
+        value = readValue(buffer, type);
+      }
+      if (value != null) {
+        struct.fields.put(id, value);
+      }
+    }
+  }
+
+  @Nullable
+  private static Object readValue(ByteBuffer buffer, byte type) {
+    switch (type) {
+      case BOOLEAN_TRUE:
+      case BOOLEAN_FALSE:
+        // in collections, booleans are encoded as a single byte
+        return buffer.get() == BOOLEAN_TRUE;
+      case BYTE:
+        return buffer.get();
+      case I16:
+        return (short) readZigZagInt(buffer);
+      case I32:
+        return readZigZagInt(buffer);
+      case I64:
+        return readZigZagLong(buffer);
+      case DOUBLE:
+        return buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).getDouble(advance(buffer, 8));
+      case BINARY:
+        {
+          int length = readVarInt(buffer);
+          if (length < 0) {
+            throw new IllegalArgumentException("Negative binary length: " + length);
+          }
+          byte[] bytes = new byte[length];
+          buffer.get(bytes);
+          return bytes;
+        }
+      case LIST:
+      case SET:
+        {
+          byte header = buffer.get();
+          int size = (header & 0xF0) >>> 4;
+          if (size == 15) {
+            size = readVarInt(buffer);
+          }
+          byte elementType = (byte) (header & 0x0F);
+          List<Object> values = new ArrayList<>(Math.min(size, 1024));
+          for (int i = 0; i < size; i++) {
+            values.add(readValue(buffer, elementType));
+          }
+          return new ThriftList(elementType, values);
+        }
+      case MAP:
+        {
+          int size = readVarInt(buffer);
+          if (size > 0) {
+            byte types = buffer.get();
+            for (int i = 0; i < size; i++) {
+              readValue(buffer, (byte) ((types & 0xF0) >>> 4));
+              readValue(buffer, (byte) (types & 0x0F));
+            }
+          }
+          // maps are not used by Parquet: skip them
+          return null;
+        }
+      case STRUCT:
+        return readStruct(buffer);
+      default:
+        throw new IllegalArgumentException("Unknown Thrift type: " + type);
+    }
+  }
+
+  private static int advance(ByteBuffer buffer, int length) {
+    int position = buffer.position();
+    buffer.position(position + length);
+    return position;
+  }
+
+  static int readVarInt(ByteBuffer buffer) {
+    int result = 0;
+    int shift = 0;
+    while (true) {
+      byte b = buffer.get();
+      result |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return result;
+      }
+      shift += 7;
+      if (shift > 28) {
+        throw new IllegalArgumentException("Variable-length int is too long");
+      }
+    }
+  }
+
+  static long readVarLong(ByteBuffer buffer) {
+    long result = 0;
+    int shift = 0;
+    while (true) {
+      byte b = buffer.get();
+      result |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return result;
+      }
+      shift += 7;
+      if (shift > 63) {
+        throw new IllegalArgumentException("Variable-length long is too long");
+      }
+    }
+  }
+
+  private static int readZigZagInt(ByteBuffer buffer) {
+    int n = readVarInt(buffer);
+    return (n >>> 1) ^ -(n & 1);
+  }
+
+  static long readZigZagLong(ByteBuffer buffer) {
+    long n = readVarLong(buffer);
+    return (n >>> 1) ^ -(n & 1);
+  }
+
+  // Writing
+
+  private static void writeStruct(ThriftStruct struct, ByteArrayOutputStream out) {
+    short lastId = 0;
+    for (Map.Entry<Short, Object> entry : struct.fields.entrySet()) {
+      short id = entry.getKey();
+      Object value = entry.getValue();
+      byte type = typeOf(value);
+      if (type == BOOLEAN_TRUE) {
+        type = (Boolean) value ? BOOLEAN_TRUE : BOOLEAN_FALSE;
+      }
+      int delta = id - lastId;
+      if (delta > 0 && delta <= 15) {
+        out.write(delta << 4 | type);
+      } else {
+        out.write(type);
+        writeVarLong(out, (id << 1) ^ (id >> 31));
+      }
+      lastId = id;
+      if (type != BOOLEAN_TRUE && type != BOOLEAN_FALSE) {
+        writeValue(value, type, out);
+      }
+    }
+    out.write(STOP);
+  }
+
+  private static void writeValue(Object value, byte type, ByteArrayOutputStream out) {
+    switch (type) {
+      case BOOLEAN_TRUE:
+      case BOOLEAN_FALSE:
+        out.write((Boolean) value ? BOOLEAN_TRUE : BOOLEAN_FALSE);
+        break;
+      case BYTE:
+        out.write((Byte) value);
+        break;
+      case I16:
+      case I32:
+      case I64:
+        writeZigZagLong(out, ((Number) value).longValue());
+        break;
+      case DOUBLE:
+        {
+          long bits = Double.doubleToLongBits((Double) value);
+          for (int i = 0; i < 8; i++) {
+            out.write((int) (bits >>> (i * 8)));
+          }
+          break;
+        }
+      case BINARY:
+        {
+          byte[] bytes = (byte[]) value;
+          writeVarLong(out, bytes.length);
+          out.write(bytes, 0, bytes.length);
+          break;
+        }
+      case LIST:
+        {
+          ThriftList list = (ThriftList) value;
+          int size = list.values.size();
+          if (size < 15) {
+            out.write(size << 4 | list.elementType);
+          } else {
+            out.write(0xF0 | list.elementType);
+            writeVarLong(out, size);
+          }
+          for (Object element : list.values) {
+            writeValue(element, list.elementType, out);
+          }
+          break;
+        }
+      case STRUCT:
+        writeStruct((ThriftStruct) value, out);
+        break;
+      default:
+        throw new IllegalArgumentException("Cannot write Thrift type " + type);
+    }
+  }
+
+  private static byte typeOf(Object value) {
+    if (value instanceof Boolean) {
+      return BOOLEAN_TRUE;
+    } else if (value instanceof Byte) {
+      return BYTE;
+    } else if (value instanceof Short) {
+      return I16;
+    } else if (value instanceof Integer) {
+      return I32;
+    } else if (value instanceof Long) {
+      return I64;
+    } else if (value instanceof Double) {
+      return DOUBLE;
+    } else if (value instanceof byte[]) {
+      return BINARY;
+    } else if (value instanceof ThriftList) {
+      return LIST;
+    } else if (value instanceof ThriftStruct) {
+      return STRUCT;
+    }
+    throw new IllegalArgumentException("Cannot write value of type " + value.getClass());
+  }
+
+  static void writeVarLong(ByteArrayOutputStream out, long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  private static void writeZigZagLong(ByteArrayOutputStream out, long value) {
+    writeVarLong(out, (value << 1) ^ (value >> 63));
+  }
+}
@@ -0,0 +1,358 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.connectors.parquet;
+
+import static com.datastax.oss.dsbulk.tests.utils.FileUtils.deleteDirectory;
+import static com.datastax.oss.dsbulk.tests.utils.StringUtils.quoteJson;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.datastax.oss.driver.api.core.type.DataType;
+import com.datastax.oss.driver.api.core.type.DataTypes;
+import com.datastax.oss.driver.api.core.type.reflect.GenericType;
+import com.datastax.oss.dsbulk.connectors.api.DefaultIndexedField;
+import com.datastax.oss.dsbulk.connectors.api.DefaultMappedField;
+import com.datastax.oss.dsbulk.connectors.api.DefaultRecord;
+import com.datastax.oss.dsbulk.connectors.api.Field;
+import com.datastax.oss.dsbulk.connectors.api.Record;
+import com.datastax.oss.dsbulk.connectors.api.RecordMetadata;
+import com.datastax.oss.dsbulk.tests.utils.TestConfigUtils;
+import com.typesafe.config.Config;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import reactor.core.publisher.Flux;
+
+class ParquetConnectorTest {
+
+  private static final URI RESOURCE = URI.create("cql://ks1/table1");
+
+  private static final Field[] FIELDS = {
+    new DefaultMappedField("pk"),
+    new DefaultMappedField("flag"),
+    new DefaultMappedField("tiny"),
+    new DefaultMappedField("small"),
+    new DefaultMappedField("big"),
+    new DefaultMappedField("real"),
+    new DefaultMappedField("dbl"),
+    new DefaultMappedField("txt"),
+    new DefaultMappedField("bytes"),
+    new DefaultMappedField("ts"),
+    new DefaultMappedField("day"),
+    new DefaultMappedField("tod"),
+    new DefaultMappedField("id"),
+    new DefaultMappedField("dec")
+  };
+
+  private static final DataType[] CQL_TYPES = {
+    DataTypes.INT,
+    DataTypes.BOOLEAN,
+    DataTypes.TINYINT,
+    DataTypes.SMALLINT,
+    DataTypes.BIGINT,
+    DataTypes.FLOAT,
+    DataTypes.DOUBLE,
+    DataTypes.TEXT,
+    DataTypes.BLOB,
+    DataTypes.TIMESTAMP,
+    DataTypes.DATE,
+    DataTypes.TIME,
+    DataTypes.UUID,
+    DataTypes.DECIMAL
+  };
+
+  private static final Field[] FIXTURE_FIELDS = {
+    new DefaultMappedField("id"),
+    new DefaultMappedField("qty"),
+    new DefaultMappedField("name"),
+    new DefaultMappedField("score"),
+    new DefaultMappedField("ratio"),
+    new DefaultMappedField("flag"),
+    new DefaultMappedField("ts"),
+    new DefaultMappedField("amount")
+  };
+
+  private Path dir;
+
+  @BeforeEach
+  void createDir() throws Exception {
+    dir = Files.createTempDirectory("test");
+  }
+
+  @AfterEach
+  void deleteDir() {
+    deleteDirectory(dir);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"UNCOMPRESSED", "SNAPPY", "GZIP", "ZSTD"})
+  void should_write_and_read_typed_values(String codec) throws Exception {
+    List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      rows.add(row(i));
+    }
+    rows.add(
+        new Object[] {
+          100, null, null, null, null, null, null, null, null, null, null, null, null, null
+        });
+    write(rows, "codec", codec);
+
+    ParquetConnector connector = new ParquetConnector();
+    connector.configure(settings(), true, false);
+    connector.init();
+    List<Record> records = read(connector);
+    RecordMetadata metadata = connector.getRecordMetadata();
+    connector.close();
+
+    assertThat(records).hasSize(rows.size());
+    for (int i = 0; i < rows.size(); i++) {
+      Record record = records.get(i);
+      assertThat(record.getResource().toString()).endsWith("output-000001.parquet");
+      assertThat(record.getPosition()).isEqualTo(i + 1);
+      Object[] expected = rows.get(i);
+      for (int j = 0; j < FIELDS.length; j++) {
+        Object value = expected[j];
+        if (value instanceof BigDecimal) {
+          // decimals are written as strings
+          value = value.toString();
+        }
+        assertThat(record.getFieldValue(FIELDS[j])).isEqualTo(value);
+        assertThat(record.getFieldValue(new DefaultIndexedField(j))).isEqualTo(value);
+      }
+    }
+    assertThat(metadata.getFieldType(FIELDS[0], DataTypes.INT)).isEqualTo(GenericType.INTEGER);
+    assertThat(metadata.getFieldType(FIELDS[2], DataTypes.TINYINT)).isEqualTo(GenericType.BYTE);
+    assertThat(metadata.getFieldType(FIELDS[9], DataTypes.TIMESTAMP))
+        .isEqualTo(GenericType.INSTANT);
+    assertThat(metadata.getFieldType(new DefaultIndexedField(10), DataTypes.DATE))
+        .isEqualTo(GenericType.LOCAL_DATE);
+    assertThat(metadata.getFieldType(FIELDS[13], DataTypes.DECIMAL)).isEqualTo(GenericType.STRING);
+  }
+
+  @Test
+  void should_read_row_groups_in_parallel_in_file_order() throws Exception {
+    List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      rows.add(row(i));
+    }
+    write(rows, "rowGroupSize", quoteJson("16kB"), "pageSize", quoteJson("2kB"));
+    Path file = dir.resolve("output-000001.parquet");
+    try (ParquetFileReader reader = ParquetFileReader.open(file.toUri().toURL())) {
+      assertThat(reader.getRowGroups().size()).isGreaterThan(10);
+    }
+
+    ParquetConnector connector = new ParquetConnector();
+    connector.configure(settings("maxConcurrentFiles", 4), true, false);
+    connector.init();
+    List<Record> records = read(connector);
+    connector.close();
+
+    assertThat(records).hasSize(rows.size());
+    for (int i = 0; i < rows.size(); i++) {
+      assertThat(records.get(i).getPosition()).isEqualTo(i + 1);
+      assertThat(records.get(i).getFieldValue(FIELDS[0])).isEqualTo(i);
+      assertThat(records.get(i).getFieldValue(FIELDS[7])).isEqualTo("text " + i);
+    }
+  }
+
+  @Test
+  void should_skip_records_and_limit_records() throws Exception {
+    List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      rows.add(row(i));
+    }
+    write(rows, "rowGroupSize", quoteJson("4kB"));
+
+    ParquetConnector connector = new ParquetConnector();
+    connector.configure(settings("skipRecords", 10, "maxRecords", 500), true, false);
+    connector.init();
+    List<Record> records = read(connector);
+    connector.close();
+
+    assertThat(records.stream().map(Record::getPosition).collect(Collectors.toList()))
+        .first()
+        .isEqualTo(11L);
+    assertThat(records).hasSize(500);
+    assertThat(records.get(499).getFieldValue(FIELDS[0])).isEqualTo(509);
+  }
+
+  /**
+   * Reads files that were not written by this connector; see src/test/resources/fixtures for how
+   * they were generated.
+   */
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "dictionary-v1-snappy.parquet",
+        "dictionary-v2-zstd.parquet",
+        "delta-v2-brotli.parquet",
+        "byte-stream-split-v1-lz4.parquet",
+        "delta-v1-lz4-raw.parquet"
+      })
+  void should_read_fixture(String fileName) throws Exception {
+    Path file = Paths.get(getClass().getResource("/fixtures/" + fileName).toURI());
+    ParquetConnector connector = new ParquetConnector();
+    connector.configure(
+        TestConfigUtils.createTestConfig("dsbulk.connector.parquet", "url", quoteJson(file)),
+        true,
+        false);
+    connector.init();
+    List<Record> records = read(connector);
+    RecordMetadata metadata = connector.getRecordMetadata();
+    connector.close();
+
+    assertThat(records).hasSize(250);
+    for (int i = 0; i < records.size(); i++) {
+      Record record = records.get(i);
+      assertThat(record.getPosition()).isEqualTo(i + 1);
+      Object[] expected = fixtureRow(i);
+      for (int j = 0; j < FIXTURE_FIELDS.length; j++) {
+        assertThat(record.getFieldValue(FIXTURE_FIELDS[j]))
+            .as("row %d, column %s", i, FIXTURE_FIELDS[j])
+            .isEqualTo(expected[j]);
+      }
+    }
+    assertThat(metadata.getFieldType(FIXTURE_FIELDS[2], DataTypes.TEXT))
+        .isEqualTo(GenericType.STRING);
+    assertThat(metadata.getFieldType(FIXTURE_FIELDS[6], DataTypes.TIMESTAMP))
+        .isEqualTo(GenericType.INSTANT);
+    assertThat(metadata.getFieldType(FIXTURE_FIELDS[7], DataTypes.DECIMAL))
+        .isEqualTo(GenericType.BIG_DECIMAL);
+  }
+
+  @Test
+  void should_roll_file_when_max_records_reached() throws Exception {
+    List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      rows.add(row(i));
+    }
+    write(rows, "maxRecords", 3);
+    assertThat(dir.resolve("output-000001.parquet")).exists();
+    assertThat(dir.resolve("output-000002.parquet")).exists();
+
+    ParquetConnector connector = new ParquetConnector();
+    connector.configure(settings(), true, false);
+    connector.init();
+    List<Record> records = read(connector);
+    connector.close();
+
+    assertThat(records).hasSize(5);
+  }
+
+  @Test
+  void should_error_when_file_is_not_parquet() throws Exception {
+    Files.write(dir.resolve("invalid.parquet"), "not a parquet file".getBytes(UTF_8));
+    ParquetConnector connector = new ParquetConnector();
+    connector.configure(settings(), true, false);
+    connector.init();
+    assertThatThrownBy(() -> read(connector))
+        .hasRootCauseMessage("Not a Parquet file: invalid magic number");
+    connector.close();
+  }
+
+  @Test
+  void should_reject_unsupported_codec() {
+    ParquetConnector connector = new ParquetConnector();
+    assertThatThrownBy(() -> connector.configure(settings("codec", "LZO"), false, false))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage(
+            "Invalid value for connector.parquet.codec, valid values: "
+                + "UNCOMPRESSED,SNAPPY,GZIP,ZSTD, got: 'LZO'");
+  }
+
+  private static Object[] row(int i) {
+    return new Object[] {
+      i,
+      i % 3 == 0,
+      (byte) i,
+      (short) (i * 3),
+      i * 1_000_000_000L,
+      i / 4f,
+      i / 3d,
+      "text " + i,
+      ByteBuffer.wrap(new byte[] {1, 2, (byte) i}),
+      Instant.ofEpochMilli(1_600_000_000_000L + i),
+      LocalDate.of(2020, 1, 1).plusDays(i),
+      LocalTime.ofNanoOfDay(i * 1_000_001L),
+      new UUID(i, -i),
+      new BigDecimal(i).movePointLeft(2)
+    };
+  }
+
+  /** The rows of the fixture files; must be kept in sync with row(i) in fixtures/generate.py. */
+  private static Object[] fixtureRow(int i) {
+    String prefix = i % 4 == 0 ? "client-\u00e9-" : "customer-";
+    long micros = 1_600_000_000_000_000L + i * 1_000_001L;
+    return new Object[] {
+      i * 7919L - 500_000L * (i % 3),
+      i % 5 == 3 ? null : (i * 37) % 101 - 50,
+      i % 7 == 6 ? null : String.format("%s%04d", prefix, i % 23),
+      i * 1.5 - 99.75,
+      i % 9 == 4 ? null : (i - 125) / 4f,
+      i % 3 == 0,
+      i % 11 == 10 ? null : Instant.EPOCH.plus(micros, ChronoUnit.MICROS),
+      BigDecimal.valueOf((i * 12345) % 100_000 - 50_000, 2)
+    };
+  }
+
+  private void write(List<Object[]> rows, Object... additionalSettings) throws Exception {
+    ParquetConnector connector = new ParquetConnector();
+    connector.configure(settings(additionalSettings), false, false);
+    connector.init();
+    RecordMetadata metadata = connector.getRecordMetadata();
+    for (int i = 0; i < FIELDS.length; i++) {
+      metadata.getFieldType(FIELDS[i], CQL_TYPES[i]);
+    }
+    List<Record> records = new ArrayList<>();
+    for (Object[] row : rows) {
+      Object[] values = row.clone();
+      // decimals are mapped to strings
+      values[13] = values[13] == null ? null : values[13].toString();
+      records.add(DefaultRecord.mapped(null, RESOURCE, -1, FIELDS, values));
+    }
+    Flux.fromIterable(records).transform(connector.write()).blockLast();
+    connector.close();
+  }
+
+  private List<Record> read(ParquetConnector connector) {
+    return Flux.concat(connector.read()).collectList().block();
+  }
+
+  private Config settings(Object... additionalSettings) {
+    Object[] args = new Object[additionalSettings.length + 2];
+    args[0] = "url";
+    args[1] = quoteJson(dir);
+    System.arraycopy(additionalSettings, 0, args, 2, additionalSettings.length);
+    return TestConfigUtils.createTestConfig("dsbulk.connector.parquet", args);
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.connectors.parquet;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.datastax.oss.dsbulk.connectors.parquet.ParquetEncodings.RleDecoder;
+import com.datastax.oss.dsbulk.connectors.parquet.ParquetEncodings.ValuesDecoder;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ParquetEncodingsTest {
+
+  private static final ParquetColumn INT32 = column(ParquetColumn.INT32, new ThriftStruct());
+  private static final ParquetColumn FLOAT = column(ParquetColumn.FLOAT, new ThriftStruct());
+  private static final ParquetColumn STRING =
+      column(ParquetColumn.BYTE_ARRAY, new ThriftStruct().set(6, 0));
+
+  @Test
+  void should_decode_rle_and_bit_packed_runs() throws Exception {
+    // one bit-packed group of 8 values, followed by a run of 4 values
+    ByteBuffer data = bytes(0x03, 0xE4, 0xE4, 0x08, 0x02);
+    RleDecoder decoder = new RleDecoder(data, 2);
+    List<Integer> values = new ArrayList<>();
+    for (int i = 0; i < 12; i++) {
+      values.add(decoder.nextInt());
+    }
+    assertThat(values).containsExactly(0, 1, 2, 3, 0, 1, 2, 3, 2, 2, 2, 2);
+  }
+
+  @Test
+  void should_decode_dictionary_indices() throws Exception {
+    ByteBuffer data = bytes(0x02, 0x03, 0xE4, 0xE4, 0x08, 0x02);
+    ValuesDecoder decoder =
+        ParquetEncodings.newDecoder(
+            ParquetEncodings.RLE_DICTIONARY, data, STRING, new Object[] {"a", "b", "c", "d"});
+    assertThat(decode(decoder, 12))
+        .containsExactly("a", "b", "c", "d", "a", "b", "c", "d", "c", "c", "c", "c");
+  }
+
+  @Test
+  void should_decode_delta_binary_packed_values() throws Exception {
+    // examples from the Parquet specification
+    ByteBuffer data = bytes(0x80, 0x01, 0x04, 0x05, 0x02, 0x02, 0, 0, 0, 0);
+    ValuesDecoder decoder =
+        ParquetEncodings.newDecoder(ParquetEncodings.DELTA_BINARY_PACKED, data, INT32, null);
+    assertThat(decode(decoder, 5)).containsExactly(1, 2, 3, 4, 5);
+    data = bytes(0x80, 0x01, 0x04, 0x08, 0x0E, 0x03, 2, 0, 0, 0, 0xC0, 0xFF, 0, 0, 0, 0, 0, 0);
+    decoder = ParquetEncodings.newDecoder(ParquetEncodings.DELTA_BINARY_PACKED, data, INT32, null);
+    assertThat(decode(decoder, 8)).containsExactly(7, 5, 3, 1, 2, 3, 4, 5);
+    assertThat(data.hasRemaining()).isFalse();
+  }
+
+  @Test
+  void should_decode_delta_byte_arrays() throws Exception {
+    ByteBuffer prefixLengths =
+        bytes(
+            0x80, 0x01, 0x04, 0x04, 0x00, 0x03, 3, 0, 0, 0, 0x44, 0x01, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+            0);
+    ByteBuffer suffixLengths =
+        bytes(
+            0x80, 0x01, 0x04, 0x04, 0x08, 0x03, 3, 0, 0, 0, 0x70, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+    byte[] suffixes = "axislebabbleyhood".getBytes(UTF_8);
+    ByteBuffer data =
+        ByteBuffer.allocate(
+            prefixLengths.remaining() + suffixLengths.remaining() + suffixes.length);
+    data.put(prefixLengths).put(suffixLengths).put(suffixes).flip();
+    ValuesDecoder decoder =
+        ParquetEncodings.newDecoder(ParquetEncodings.DELTA_BYTE_ARRAY, data, STRING, null);
+    List<String> values = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      values.add((String) STRING.toJava(decoder.next()));
+    }
+    assertThat(values).containsExactly("axis", "axle", "babble", "babyhood");
+  }
+
+  @Test
+  void should_decode_byte_stream_split_values() throws Exception {
+    ByteBuffer plain = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+    plain.putFloat(1.5f).putFloat(-2f).putFloat(1e10f);
+    byte[] split = new byte[12];
+    for (int i = 0; i < 3; i++) {
+      for (int k = 0; k < 4; k++) {
+        split[k * 3 + i] = plain.get(i * 4 + k);
+      }
+    }
+    ValuesDecoder decoder =
+        ParquetEncodings.newDecoder(
+            ParquetEncodings.BYTE_STREAM_SPLIT, ByteBuffer.wrap(split), FLOAT, null);
+    assertThat(decode(decoder, 3)).containsExactly(1.5f, -2f, 1e10f);
+  }
+
+  private static ParquetColumn column(int physicalType, ThriftStruct element) {
+    return ParquetColumn.fromSchemaElement(element.set(1, physicalType).set(4, "c"));
+  }
+
+  private static List<Object> decode(ValuesDecoder decoder, int count) throws Exception {
+    List<Object> values = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      values.add(decoder.next());
+    }
+    return values;
+  }
+
+  private static ByteBuffer bytes(int... values) {
+    ByteBuffer buffer = ByteBuffer.allocate(values.length);
+    for (int value : values) {
+      buffer.put((byte) value);
+    }
+    buffer.flip();
+    return buffer;
+  }
+}
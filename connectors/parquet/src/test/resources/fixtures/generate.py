@@ -0,0 +1,687 @@
+#!/usr/bin/env python3
+#
+# Copyright DataStax, Inc.
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+# http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+#
+"""Generates the Parquet files used by ParquetConnectorTest.should_read_fixture.
+
+The files are written from the Parquet format specification, without any code shared with the
+connector, so that the connector's reader is not only tested against its own writer. They cover
+encodings and page layouts that the connector never writes: dictionary pages, with and without
+fallback to plain pages, data pages v2, DELTA_BINARY_PACKED, DELTA_LENGTH_BYTE_ARRAY,
+DELTA_BYTE_ARRAY and BYTE_STREAM_SPLIT, as well as the SNAPPY, ZSTD, LZ4 (Hadoop framing),
+LZ4_RAW and BROTLI codecs.
+
+Only the Python standard library is needed. Compressed data is produced with simple compressors:
+greedy LZ77 matching for SNAPPY and LZ4, and stored, RLE and literals-only blocks for ZSTD and
+BROTLI; these are valid streams, which any decoder of these formats accepts.
+
+The rows are computed by row(i) below; the test computes the same rows. Usage: python3 generate.py
+"""
+
+import os
+import struct
+import zlib
+
+ROW_COUNT = 250
+PAGE_ROWS = 64
+
+# Physical types
+BOOLEAN, INT32, INT64, INT96, FLOAT, DOUBLE, BYTE_ARRAY, FIXED_LEN_BYTE_ARRAY = range(8)
+
+# Encodings
+PLAIN = 0
+PLAIN_DICTIONARY = 2
+RLE = 3
+DELTA_BINARY_PACKED = 5
+DELTA_LENGTH_BYTE_ARRAY = 6
+DELTA_BYTE_ARRAY = 7
+RLE_DICTIONARY = 8
+BYTE_STREAM_SPLIT = 9
+
+# Codecs
+UNCOMPRESSED, SNAPPY, GZIP, LZO, BROTLI, LZ4, ZSTD, LZ4_RAW = range(8)
+
+# Page types
+DATA_PAGE, INDEX_PAGE, DICTIONARY_PAGE, DATA_PAGE_V2 = range(4)
+
+
+def row(i):
+    """Returns the values of row i, in schema order; None stands for null."""
+    prefix = "client-é-" if i % 4 == 0 else "customer-"
+    return [
+        i * 7919 - 500000 * (i % 3),
+        None if i % 5 == 3 else (i * 37) % 101 - 50,
+        None if i % 7 == 6 else "%s%04d" % (prefix, i % 23),
+        i * 1.5 - 99.75,
+        None if i % 9 == 4 else (i - 125) / 4.0,
+        i % 3 == 0,
+        None if i % 11 == 10 else 1600000000000000 + i * 1000001,
+        (i * 12345) % 100000 - 50000,
+    ]
+
+
+# Thrift compact protocol
+
+T_TRUE, T_FALSE, T_BYTE, T_I16, T_I32, T_I64, T_DOUBLE, T_BINARY, T_LIST, T_SET, T_MAP, T_STRUCT = \
+    range(1, 13)
+
+
+def varint(n):
+    out = bytearray()
+    while True:
+        b = n & 0x7F
+        n >>= 7
+        if n:
+            out.append(b | 0x80)
+        else:
+            out.append(b)
+            return bytes(out)
+
+
+def zigzag(n):
+    return varint((n << 1) ^ (n >> 63))
+
+
+class I32(int):
+    pass
+
+
+class I64(int):
+    pass
+
+
+class Struct(object):
+    """A Thrift struct; fields are (id, value) pairs, with values of type bool, I32, I64, bytes,
+    str, Struct, or a (element type, list) tuple for lists."""
+
+    def __init__(self, *fields):
+        self.fields = [f for f in fields if f[1] is not None]
+
+    def encode(self):
+        out = bytearray()
+        last = 0
+        for field_id, value in self.fields:
+            if isinstance(value, bool):
+                type_id = T_TRUE if value else T_FALSE
+            elif isinstance(value, I32):
+                type_id = T_I32
+            elif isinstance(value, I64):
+                type_id = T_I64
+            elif isinstance(value, (bytes, str)):
+                type_id = T_BINARY
+            elif isinstance(value, Struct):
+                type_id = T_STRUCT
+            else:
+                type_id = T_LIST
+            delta = field_id - last
+            if 0 < delta <= 15:
+                out.append(delta << 4 | type_id)
+            else:
+                out.append(type_id)
+                out += zigzag(field_id)
+            last = field_id
+            if type_id not in (T_TRUE, T_FALSE):
+                out += encode_value(type_id, value)
+        out.append(0)
+        return bytes(out)
+
+
+def encode_value(type_id, value):
+    if type_id in (T_I32, T_I64):
+        return zigzag(value)
+    if type_id == T_BINARY:
+        data = value.encode("utf-8") if isinstance(value, str) else value
+        return varint(len(data)) + data
+    if type_id == T_STRUCT:
+        return value.encode()
+    element_type, elements = value
+    header = bytes([len(elements) << 4 | element_type]) if len(elements) < 15 else \
+        bytes([0xF0 | element_type]) + varint(len(elements))
+    return header + b"".join(encode_value(element_type, e) for e in elements)
+
+
+# Schema
+
+class Column(object):
+
+    def __init__(self, name, physical_type, optional, converted_type=None, logical_type=None,
+                 scale=None, precision=None):
+        self.name = name
+        self.physical_type = physical_type
+        self.optional = optional
+        self.converted_type = converted_type
+        self.logical_type = logical_type
+        self.scale = scale
+        self.precision = precision
+
+    def schema_element(self):
+        return Struct(
+            (1, I32(self.physical_type)),
+            (3, I32(1 if self.optional else 0)),
+            (4, self.name),
+            (6, None if self.converted_type is None else I32(self.converted_type)),
+            (7, None if self.scale is None else I32(self.scale)),
+            (8, None if self.precision is None else I32(self.precision)),
+            (10, self.logical_type))
+
+
+COLUMNS = [
+    Column("id", INT64, False),
+    Column("qty", INT32, True),
+    Column("name", BYTE_ARRAY, True, converted_type=0, logical_type=Struct((1, Struct()))),
+    Column("score", DOUBLE, False),
+    Column("ratio", FLOAT, True),
+    Column("flag", BOOLEAN, False),
+    # TIMESTAMP(isAdjustedToUTC=true, unit=MICROS)
+    Column("ts", INT64, True, converted_type=10,
+           logical_type=Struct((8, Struct((1, True), (2, Struct((2, Struct()))))))),
+    # DECIMAL(precision=9, scale=2)
+    Column("amount", INT32, False, converted_type=5, scale=2, precision=9,
+           logical_type=Struct((5, Struct((1, I32(2)), (2, I32(9)))))),
+]
+
+
+# Encodings
+
+def plain(column, values):
+    t = column.physical_type
+    if t == BOOLEAN:
+        return bit_pack([1 if v else 0 for v in values], 1)
+    if t == INT32:
+        return b"".join(struct.pack("<i", v) for v in values)
+    if t == INT64:
+        return b"".join(struct.pack("<q", v) for v in values)
+    if t == FLOAT:
+        return b"".join(struct.pack("<f", v) for v in values)
+    if t == DOUBLE:
+        return b"".join(struct.pack("<d", v) for v in values)
+    return b"".join(struct.pack("<i", len(v)) + v for v in map(to_bytes, values))
+
+
+def to_bytes(value):
+    return value.encode("utf-8") if isinstance(value, str) else value
+
+
+def bit_pack(values, bit_width):
+    """Bit-packs values LSB first, padding the last byte."""
+    acc = 0
+    for k, v in enumerate(values):
+        acc |= v << (k * bit_width)
+    return acc.to_bytes((len(values) * bit_width + 7) // 8, "little")
+
+
+def rle_hybrid(values, bit_width):
+    """Encodes values with the RLE / bit-packing hybrid encoding, using RLE runs for 8 or more
+    repeated values, and bit-packed runs otherwise."""
+    out = bytearray()
+    value_bytes = (bit_width + 7) // 8
+    i = 0
+    n = len(values)
+
+    def run_length(start):
+        j = start
+        while j < n and values[j] == values[start]:
+            j += 1
+        return j - start
+
+    while i < n:
+        run = run_length(i)
+        if run >= 8:
+            out += varint(run << 1)
+            out += values[i].to_bytes(value_bytes, "little")
+            i += run
+            continue
+        # bit-pack groups of 8 values until a long enough run starts; only the last group of the
+        # whole stream may be padded
+        start = i
+        while i < n and (i == start or run_length(i) < 8):
+            i = min(i + 8, n)
+        group = values[start:i]
+        groups = (len(group) + 7) // 8
+        out += varint(groups << 1 | 1)
+        out += bit_pack(group + [0] * (groups * 8 - len(group)), bit_width)
+    return bytes(out)
+
+
+def bit_width_of(n):
+    return n.bit_length()
+
+
+def delta_binary_packed(values, bits=64):
+    """Encodes integers with DELTA_BINARY_PACKED, in blocks of 128 values and 4 miniblocks."""
+    block_size, mini_blocks = 128, 4
+    per_mini = block_size // mini_blocks
+    mask = (1 << bits) - 1
+
+    def wrap(v):
+        v &= mask
+        return v - (1 << bits) if v >> (bits - 1) else v
+
+    out = bytearray(varint(block_size) + varint(mini_blocks) + varint(len(values)))
+    out += zigzag(values[0] if values else 0)
+    deltas = [wrap(values[k] - values[k - 1]) for k in range(1, len(values))]
+    for b in range(0, len(deltas), block_size):
+        block = deltas[b:b + block_size]
+        min_delta = min(block)
+        out += zigzag(min_delta)
+        minis = [[(d - min_delta) & mask for d in block[m:m + per_mini]]
+                 for m in range(0, len(block), per_mini)]
+        widths = [max(v.bit_length() for v in mini) for mini in minis]
+        out += bytes(widths + [0] * (mini_blocks - len(widths)))
+        for mini, width in zip(minis, widths):
+            out += bit_pack(mini + [0] * (per_mini - len(mini)), width)
+    return bytes(out)
+
+
+def delta_length_byte_array(values):
+    data = [to_bytes(v) for v in values]
+    return delta_binary_packed([len(v) for v in data], 32) + b"".join(data)
+
+
+def delta_byte_array(values):
+    data = [to_bytes(v) for v in values]
+    prefixes = []
+    previous = b""
+    for v in data:
+        p = 0
+        while p < min(len(v), len(previous)) and v[p] == previous[p]:
+            p += 1
+        prefixes.append(p)
+        previous = v
+    suffixes = [v[p:] for v, p in zip(data, prefixes)]
+    return delta_binary_packed(prefixes, 32) + delta_length_byte_array(suffixes)
+
+
+def byte_stream_split(column, values):
+    encoded = plain(column, values)
+    width = len(encoded) // len(values) if values else 0
+    return bytes(encoded[k * width + s] for s in range(width) for k in range(len(values)))
+
+
+def encode_values(column, encoding, values, dictionary):
+    if encoding == PLAIN:
+        return plain(column, values)
+    if encoding in (PLAIN_DICTIONARY, RLE_DICTIONARY):
+        width = bit_width_of(len(dictionary) - 1)
+        return bytes([width]) + rle_hybrid([dictionary.index(v) for v in values], width)
+    if encoding == RLE:
+        data = rle_hybrid([1 if v else 0 for v in values], 1)
+        return struct.pack("<i", len(data)) + data
+    if encoding == DELTA_BINARY_PACKED:
+        return delta_binary_packed(values, 32 if column.physical_type == INT32 else 64)
+    if encoding == DELTA_LENGTH_BYTE_ARRAY:
+        return delta_length_byte_array(values)
+    if encoding == DELTA_BYTE_ARRAY:
+        return delta_byte_array(values)
+    if encoding == BYTE_STREAM_SPLIT:
+        return byte_stream_split(column, values)
+    raise ValueError(encoding)
+
+
+# Compression
+
+def snappy(data):
+    out = bytearray(varint(len(data)))
+    table = {}
+    literal_start = i = 0
+
+    def literal(end):
+        chunk = data[literal_start:end]
+        while chunk:
+            piece, chunk = chunk[:65536], chunk[65536:]
+            n = len(piece) - 1
+            if n < 60:
+                out.append(n << 2)
+            elif n < 256:
+                out.extend(bytes([60 << 2, n]))
+            else:
+                out.extend(bytes([61 << 2]) + struct.pack("<H", n))
+            out.extend(piece)
+
+    while i + 4 <= len(data):
+        key = data[i:i + 4]
+        candidate = table.get(key)
+        table[key] = i
+        if candidate is None or i - candidate > 0xFFFF:
+            i += 1
+            continue
+        length = 4
+        while i + length < len(data) and data[candidate + length] == data[i + length]:
+            length += 1
+        literal(i)
+        offset = i - candidate
+        remaining = length
+        while remaining > 0:
+            # copies with 2-byte offsets, of 1 to 64 bytes; keep at least 4 bytes for the last one
+            n = min(remaining, 64) if remaining - 64 >= 4 or remaining <= 64 else 60
+            out.append((n - 1) << 2 | 2)
+            out += struct.pack("<H", offset)
+            remaining -= n
+        i += length
+        literal_start = i
+    literal(len(data))
+    return bytes(out)
+
+
+def lz4_block(data):
+    out = bytearray()
+    table = {}
+    literal_start = i = 0
+    # the last match must start at least 12 bytes before the end, and end at least 5 bytes before
+    match_limit = len(data) - 12
+    while i < match_limit:
+        key = data[i:i + 4]
+        candidate = table.get(key)
+        table[key] = i
+        if candidate is None or i - candidate > 0xFFFF:
+            i += 1
+            continue
+        length = 4
+        while i + length < len(data) - 5 and data[candidate + length] == data[i + length]:
+            length += 1
+        lz4_sequence(out, data[literal_start:i], i - candidate, length)
+        i += length
+        literal_start = i
+    lz4_sequence(out, data[literal_start:], None, None)
+    return bytes(out)
+
+
+def lz4_sequence(out, literals, offset, match_length):
+    literal_length = len(literals)
+    extra_match = None if match_length is None else match_length - 4
+    token = min(literal_length, 15) << 4 | (0 if extra_match is None else min(extra_match, 15))
+    out.append(token)
+    lz4_length(out, literal_length)
+    out.extend(literals)
+    if offset is not None:
+        out += struct.pack("<H", offset)
+        lz4_length(out, extra_match)
+
+
+def lz4_length(out, n):
+    if n >= 15:
+        n -= 15
+        while n >= 255:
+            out.append(255)
+            n -= 255
+        out.append(n)
+
+
+def hadoop_lz4(data, block_size=1024):
+    """Frames LZ4 blocks the way Hadoop's BlockCompressorStream does, as parquet-mr's LZ4 codec:
+    each block of input is prefixed with its length, and each compressed chunk with its size."""
+    out = bytearray()
+    for b in range(0, len(data), block_size):
+        block = data[b:b + block_size]
+        out += struct.pack(">i", len(block))
+        # two compressed chunks per block when possible
+        half = len(block) // 2
+        for chunk in (block[:half], block[half:]) if half > 0 else (block,):
+            compressed = lz4_block(chunk)
+            out += struct.pack(">i", len(compressed)) + compressed
+    return bytes(out)
+
+
+def zstd(data):
+    """Writes a single-segment ZSTD frame made of RLE blocks for runs of identical bytes, and of
+    compressed blocks containing only raw literals and no sequences otherwise; stored (raw) blocks
+    are used for every third literal block, to cover them too."""
+    size = len(data)
+    if size < 256:
+        header = bytes([0x20]) + bytes([size])
+    elif size < 65536 + 256:
+        header = bytes([0x60]) + struct.pack("<H", size - 256)
+    else:
+        header = bytes([0xA0]) + struct.pack("<I", size)
+    blocks = []
+    i = 0
+    literal_blocks = 0
+    while i < size:
+        j = i
+        while j < size and data[j] == data[i] and j - i < 100000:
+            j += 1
+        if j - i >= 16:
+            blocks.append((1, j - i, data[i:i + 1]))
+            i = j
+            continue
+        j = i + 1
+        # extend the literals until a run of 16 identical bytes starts
+        while j < size and j - i < 1000 and data[j:j + 16] != data[j:j + 1] * 16:
+            j += 1
+        literals = data[i:j]
+        literal_blocks += 1
+        if literal_blocks % 3 == 0:
+            blocks.append((0, len(literals), literals))
+        else:
+            n = len(literals)
+            if n < 32:
+                section = bytes([n << 3])
+            else:
+                section = bytes([(n & 0xF) << 4 | 1 << 2, n >> 4])
+            content = section + literals + b"\x00"
+            blocks.append((2, len(content), content))
+        i = j
+    if not blocks:
+        blocks.append((0, 0, b""))
+    out = bytearray(struct.pack("<I", 0xFD2FB528) + header)
+    for k, (block_type, block_size, content) in enumerate(blocks):
+        last = 1 if k == len(blocks) - 1 else 0
+        out += (block_size << 3 | block_type << 1 | last).to_bytes(3, "little")
+        out += content
+    return bytes(out)
+
+
+class BitWriter(object):
+
+    def __init__(self):
+        self.out = bytearray()
+        self.acc = 0
+        self.bits = 0
+
+    def write(self, value, n):
+        self.acc |= value << self.bits
+        self.bits += n
+        while self.bits >= 8:
+            self.out.append(self.acc & 0xFF)
+            self.acc >>= 8
+            self.bits -= 8
+
+    def align(self):
+        if self.bits:
+            self.write(0, 8 - self.bits)
+
+
+def brotli(data, meta_block_size=500):
+    """Writes a Brotli stream made of uncompressed meta-blocks, followed by an empty last one."""
+    w = BitWriter()
+    w.write(0, 1)  # WBITS = 16
+    for b in range(0, len(data), meta_block_size):
+        block = data[b:b + meta_block_size]
+        length = len(block) - 1
+        nibbles = max(4, (length.bit_length() + 3) // 4)
+        w.write(0, 1)  # ISLAST
+        w.write(nibbles - 4, 2)  # MNIBBLES
+        w.write(length, nibbles * 4)  # MLEN - 1
+        w.write(1, 1)  # ISUNCOMPRESSED
+        w.align()
+        w.out.extend(block)
+    w.write(1, 1)  # ISLAST
+    w.write(1, 1)  # ISLASTEMPTY
+    w.align()
+    return bytes(w.out)
+
+
+def compress(codec, data):
+    if codec == UNCOMPRESSED:
+        return data
+    if codec == SNAPPY:
+        return snappy(data)
+    if codec == GZIP:
+        c = zlib.compressobj(9, zlib.DEFLATED, 31)
+        return c.compress(data) + c.flush()
+    if codec == BROTLI:
+        return brotli(data)
+    if codec == LZ4:
+        return hadoop_lz4(data)
+    if codec == ZSTD:
+        return zstd(data)
+    if codec == LZ4_RAW:
+        return lz4_block(data)
+    raise ValueError(codec)
+
+
+# File layout
+
+def write_chunk(out, column, codec, rows, encodings, v2, dictionary_encoded, dictionary_fallback,
+                last_page_uncompressed):
+    """Appends the pages of a column chunk to out, and returns its ColumnChunk struct."""
+    start = len(out)
+    values = [r[COLUMNS.index(column)] for r in rows]
+    dictionary = None
+    dictionary_offset = None
+    uncompressed_total = 0
+    if dictionary_encoded:
+        dictionary = []
+        for v in values:
+            if v is not None and v not in dictionary:
+                dictionary.append(v)
+        page = plain(column, dictionary)
+        compressed = compress(codec, page)
+        header = Struct(
+            (1, I32(DICTIONARY_PAGE)), (2, I32(len(page))), (3, I32(len(compressed))),
+            (7, Struct((1, I32(len(dictionary))),
+                       (2, I32(PLAIN if v2 else PLAIN_DICTIONARY))))).encode()
+        dictionary_offset = len(out)
+        out += header + compressed
+        uncompressed_total += len(header) + len(page)
+    data_offset = len(out)
+    used_encodings = {RLE}
+    pages = list(range(0, len(values), PAGE_ROWS))
+    for p, page_start in enumerate(pages):
+        page_values = values[page_start:page_start + PAGE_ROWS]
+        non_null = [v for v in page_values if v is not None]
+        if dictionary_encoded and (p == 0 or not dictionary_fallback):
+            encoding = RLE_DICTIONARY if v2 else PLAIN_DICTIONARY
+        else:
+            encoding = encodings
+        used_encodings.add(encoding)
+        encoded = encode_values(column, encoding, non_null, dictionary)
+        levels = b""
+        if column.optional:
+            levels = rle_hybrid([0 if v is None else 1 for v in page_values], 1)
+        if v2:
+            compressed_flag = not (last_page_uncompressed and p == len(pages) - 1)
+            compressed = compress(codec, encoded) if compressed_flag else encoded
+            header = Struct(
+                (1, I32(DATA_PAGE_V2)),
+                (2, I32(len(levels) + len(encoded))),
+                (3, I32(len(levels) + len(compressed))),
+                (8, Struct(
+                    (1, I32(len(page_values))),
+                    (2, I32(len(page_values) - len(non_null))),
+                    (3, I32(len(page_values))),
+                    (4, I32(encoding)),
+                    (5, I32(len(levels))),
+                    (6, I32(0)),
+                    (7, compressed_flag)))).encode()
+            out += header + levels + compressed
+            uncompressed_total += len(header) + len(levels) + len(encoded)
+        else:
+            if levels:
+                levels = struct.pack("<i", len(levels)) + levels
+            page = levels + encoded
+            compressed = compress(codec, page)
+            header = Struct(
+                (1, I32(DATA_PAGE)),
+                (2, I32(len(page))),
+                (3, I32(len(compressed))),
+                (5, Struct((1, I32(len(page_values))), (2, I32(encoding)), (3, I32(RLE)),
+                           (4, I32(RLE))))).encode()
+            out += header + compressed
+            uncompressed_total += len(header) + len(page)
+    metadata = Struct(
+        (1, I32(column.physical_type)),
+        (2, (T_I32, sorted(I32(e) for e in used_encodings))),
+        (3, (T_BINARY, [column.name])),
+        (4, I32(codec)),
+        (5, I64(len(values))),
+        (6, I64(uncompressed_total)),
+        (7, I64(len(out) - start)),
+        (9, I64(data_offset)),
+        (11, None if dictionary_offset is None else I64(dictionary_offset)))
+    return Struct((2, I64(start)), (3, metadata)), uncompressed_total, len(out) - start
+
+
+def write_file(name, codec, v2, encodings, dictionary=(), dictionary_fallback=(),
+               row_group_sizes=(ROW_COUNT,), last_page_uncompressed=False):
+    rows = [row(i) for i in range(ROW_COUNT)]
+    out = bytearray(b"PAR1")
+    row_groups = []
+    first = 0
+    for size in row_group_sizes:
+        group_rows = rows[first:first + size]
+        chunks = []
+        uncompressed = compressed = 0
+        for column in COLUMNS:
+            chunk, u, c = write_chunk(
+                out, column, codec, group_rows, encodings.get(column.name, PLAIN), v2,
+                column.name in dictionary, column.name in dictionary_fallback,
+                last_page_uncompressed)
+            chunks.append(chunk)
+            uncompressed += u
+            compressed += c
+        row_groups.append(Struct(
+            (1, (T_STRUCT, chunks)), (2, I64(uncompressed)), (3, I64(len(group_rows))),
+            (6, I64(compressed))))
+        first += size
+    schema = [Struct((4, "schema"), (5, I32(len(COLUMNS))))]
+    schema += [c.schema_element() for c in COLUMNS]
+    footer = Struct(
+        (1, I32(2 if v2 else 1)),
+        (2, (T_STRUCT, schema)),
+        (3, I64(ROW_COUNT)),
+        (4, (T_STRUCT, row_groups)),
+        (6, "dsbulk fixture generator (generate.py)")).encode()
+    out += footer + struct.pack("<i", len(footer)) + b"PAR1"
+    with open(os.path.join(os.path.dirname(os.path.abspath(__file__)), name), "wb") as f:
+        f.write(out)
+
+
+def main():
+    write_file(
+        "dictionary-v1-snappy.parquet", SNAPPY, False, {},
+        dictionary=("qty", "name", "amount"), dictionary_fallback=("name",),
+        row_group_sizes=(150, 100))
+    write_file(
+        "dictionary-v2-zstd.parquet", ZSTD, True, {"flag": RLE},
+        dictionary=("qty", "name", "score", "ts", "amount"))
+    write_file(
+        "delta-v2-brotli.parquet", BROTLI, True,
+        {"id": DELTA_BINARY_PACKED, "qty": DELTA_BINARY_PACKED, "name": DELTA_BYTE_ARRAY,
+         "flag": RLE, "ts": DELTA_BINARY_PACKED, "amount": DELTA_BINARY_PACKED},
+        last_page_uncompressed=True)
+    write_file(
+        "byte-stream-split-v1-lz4.parquet", LZ4, False,
+        {"name": DELTA_LENGTH_BYTE_ARRAY, "score": BYTE_STREAM_SPLIT,
+         "ratio": BYTE_STREAM_SPLIT, "ts": BYTE_STREAM_SPLIT})
+    write_file(
+        "delta-v1-lz4-raw.parquet", LZ4_RAW, False,
+        {"id": DELTA_BINARY_PACKED, "qty": DELTA_BINARY_PACKED, "name": DELTA_BYTE_ARRAY,
+         "score": BYTE_STREAM_SPLIT, "amount": DELTA_BINARY_PACKED},
+        row_group_sizes=(100, 100, 50))
+
+
+if __name__ == "__main__":
+    main()
@@ -16,12 +16,12 @@
 package com.datastax.oss.dsbulk.executor.api;
 
 import com.datastax.oss.driver.api.core.CqlSession;
-import com.datastax.oss.driver.shaded.guava.common.util.concurrent.RateLimiter;
 import com.datastax.oss.dsbulk.executor.api.listener.ExecutionListener;
+import com.datastax.oss.dsbulk.executor.api.throttling.AsyncRateLimiter;
+import com.datastax.oss.dsbulk.executor.api.throttling.AsyncSemaphore;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.util.Objects;
-import java.util.concurrent.Semaphore;
 
 /** Base class for implementations of {@link BulkExecutor}. */
 public abstract class AbstractBulkExecutor implements BulkExecutor, AutoCloseable {
@@ -36,9 +36,9 @@ public abstract class AbstractBulkExecutor implements BulkExecutor, AutoCloseabl
 
   protected final boolean failFast;
 
-  protected final @Nullable Semaphore maxConcurrentRequests;
+  protected final @Nullable AsyncSemaphore maxConcurrentRequests;
 
-  protected final @Nullable RateLimiter rateLimiter;
+  protected final @Nullable AsyncRateLimiter rateLimiter;
 
   protected final @Nullable ExecutionListener listener;
 
@@ -65,13 +65,16 @@ public abstract class AbstractBulkExecutor implements BulkExecutor, AutoCloseabl
     this.session = session;
     this.failFast = failFast;
     this.maxConcurrentRequests =
-        maxInFlightRequests <= 0 ? null : new Semaphore(maxInFlightRequests);
-    this.rateLimiter = maxRequestsPerSecond <= 0 ? null : RateLimiter.create(maxRequestsPerSecond);
+        maxInFlightRequests <= 0 ? null : new AsyncSemaphore(maxInFlightRequests);
+    this.rateLimiter =
+        maxRequestsPerSecond <= 0 ? null : new AsyncRateLimiter(maxRequestsPerSecond);
     this.listener = listener;
   }
 
   @Override
   public void close() {
-    // no-op
+    if (rateLimiter != null) {
+      rateLimiter.close();
+    }
   }
 }
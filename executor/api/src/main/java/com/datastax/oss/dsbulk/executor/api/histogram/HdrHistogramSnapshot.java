@@ -29,7 +29,7 @@ import org.HdrHistogram.HistogramIterationValue;
  * https://bitbucket.org/marshallpierce/hdrhistogram-metrics-reservoir, initially published under
  * COIL 0.5 (Copyfree) license.
  */
-final class HdrHistogramSnapshot extends Snapshot {
+public final class HdrHistogramSnapshot extends Snapshot {
 
   private final Histogram histogram;
 
@@ -37,6 +37,38 @@ final class HdrHistogramSnapshot extends Snapshot {
     this.histogram = histogram;
   }
 
+  /**
+   * Returns a snapshot of the values recorded since the given snapshot was taken.
+   *
+   * <p>This is only meaningful if both snapshots were taken from the same {@link
+   * HdrHistogramReservoir}, since these reservoirs accumulate all the values ever recorded.
+   *
+   * @param previous a snapshot taken earlier from the same reservoir.
+   * @return a snapshot of the values recorded in the interval.
+   */
+  public HdrHistogramSnapshot since(HdrHistogramSnapshot previous) {
+    Histogram interval = histogram.copy();
+    interval.subtract(previous.histogram);
+    return new HdrHistogramSnapshot(interval);
+  }
+
+  /**
+   * Returns the number of recorded values that are lesser than or equal to the given value, within
+   * the precision of the underlying histogram.
+   *
+   * @param value the upper bound, inclusive.
+   * @return the number of recorded values lesser than or equal to the given value.
+   */
+  public long getCountAtOrBelow(long value) {
+    if (value < 0) {
+      return 0;
+    }
+    if (value >= histogram.getMaxValue()) {
+      return histogram.getTotalCount();
+    }
+    return histogram.getCountBetweenValues(0, value);
+  }
+
   @Override
   public double getValue(double quantile) {
     return histogram.getValueAtPercentile(quantile * 100.0);
@@ -19,16 +19,17 @@ import com.datastax.dse.driver.api.core.cql.continuous.ContinuousAsyncResultSet;
 import com.datastax.oss.driver.api.core.cql.Row;
 import com.datastax.oss.driver.api.core.cql.Statement;
 import com.datastax.oss.driver.shaded.guava.common.collect.AbstractIterator;
-import com.datastax.oss.driver.shaded.guava.common.util.concurrent.RateLimiter;
 import com.datastax.oss.dsbulk.executor.api.exception.BulkExecutionException;
 import com.datastax.oss.dsbulk.executor.api.listener.ExecutionContext;
 import com.datastax.oss.dsbulk.executor.api.listener.ExecutionListener;
 import com.datastax.oss.dsbulk.executor.api.result.DefaultReadResult;
 import com.datastax.oss.dsbulk.executor.api.result.ReadResult;
+import com.datastax.oss.dsbulk.executor.api.throttling.AsyncRateLimiter;
+import com.datastax.oss.dsbulk.executor.api.throttling.AsyncSemaphore;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.util.Iterator;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.CompletionStage;
 import org.reactivestreams.Subscriber;
 
 public class ContinuousReadResultSubscription
@@ -38,8 +39,8 @@ public class ContinuousReadResultSubscription
       @NonNull Subscriber<? super ReadResult> subscriber,
       @NonNull Statement<?> statement,
       @Nullable ExecutionListener listener,
-      @Nullable Semaphore maxConcurrentRequests,
-      @Nullable RateLimiter rateLimiter,
+      @Nullable AsyncSemaphore maxConcurrentRequests,
+      @Nullable AsyncRateLimiter rateLimiter,
       boolean failFast) {
     super(subscriber, statement, listener, maxConcurrentRequests, rateLimiter, failFast);
   }
@@ -97,10 +98,12 @@ public class ContinuousReadResultSubscription
   }
 
   @Override
-  void onBeforeResultEmitted(ReadResult result) {
-    if (rateLimiter != null) {
-      rateLimiter.acquire();
+  CompletionStage<Page> onPageReceived(Page page) {
+    // throttle reads one page at a time, rather than one row at a time
+    if (rateLimiter != null && page.rowCount > 0) {
+      return rateLimiter.acquire(page.rowCount).thenApply(v -> page);
     }
+    return super.onPageReceived(page);
   }
 
   @Override
@@ -113,7 +116,7 @@ public class ContinuousReadResultSubscription
     final ContinuousAsyncResultSet rs;
 
     private ContinuousPage(ContinuousAsyncResultSet rs, Iterator<ReadResult> rows) {
-      super(rows, rs.hasMorePages() ? rs::fetchNextPage : null);
+      super(rows, rs.remaining(), rs.hasMorePages() ? rs::fetchNextPage : null);
       this.rs = rs;
     }
   }
@@ -19,16 +19,17 @@ import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
 import com.datastax.oss.driver.api.core.cql.Row;
 import com.datastax.oss.driver.api.core.cql.Statement;
 import com.datastax.oss.driver.shaded.guava.common.collect.AbstractIterator;
-import com.datastax.oss.driver.shaded.guava.common.util.concurrent.RateLimiter;
 import com.datastax.oss.dsbulk.executor.api.exception.BulkExecutionException;
 import com.datastax.oss.dsbulk.executor.api.listener.ExecutionContext;
 import com.datastax.oss.dsbulk.executor.api.listener.ExecutionListener;
 import com.datastax.oss.dsbulk.executor.api.result.DefaultReadResult;
 import com.datastax.oss.dsbulk.executor.api.result.ReadResult;
+import com.datastax.oss.dsbulk.executor.api.throttling.AsyncRateLimiter;
+import com.datastax.oss.dsbulk.executor.api.throttling.AsyncSemaphore;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.util.Iterator;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.CompletionStage;
 import org.reactivestreams.Subscriber;
 
 public class ReadResultSubscription extends ResultSubscription<ReadResult, AsyncResultSet> {
@@ -37,8 +38,8 @@ public class ReadResultSubscription extends ResultSubscription<ReadResult, Async
       @NonNull Subscriber<? super ReadResult> subscriber,
       @NonNull Statement<?> statement,
       @Nullable ExecutionListener listener,
-      @Nullable Semaphore maxConcurrentRequests,
-      @Nullable RateLimiter rateLimiter,
+      @Nullable AsyncSemaphore maxConcurrentRequests,
+      @Nullable AsyncRateLimiter rateLimiter,
       boolean failFast) {
     super(subscriber, statement, listener, maxConcurrentRequests, rateLimiter, failFast);
   }
@@ -61,7 +62,7 @@ public class ReadResultSubscription extends ResultSubscription<ReadResult, Async
             return endOfData();
           }
         };
-    return new Page(results, rs.hasMorePages() ? rs::fetchNextPage : null);
+    return new Page(results, rs.remaining(), rs.hasMorePages() ? rs::fetchNextPage : null);
   }
 
   @Override
@@ -91,9 +92,11 @@ public class ReadResultSubscription extends ResultSubscription<ReadResult, Async
   }
 
   @Override
-  void onBeforeResultEmitted(ReadResult result) {
-    if (rateLimiter != null) {
-      rateLimiter.acquire();
+  CompletionStage<Page> onPageReceived(Page page) {
+    // throttle reads one page at a time, rather than one row at a time
+    if (rateLimiter != null && page.rowCount > 0) {
+      return rateLimiter.acquire(page.rowCount).thenApply(v -> page);
     }
+    return super.onPageReceived(page);
   }
 }
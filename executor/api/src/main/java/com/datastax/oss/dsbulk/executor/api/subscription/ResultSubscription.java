@@ -20,7 +20,6 @@ import com.datastax.oss.driver.api.core.CqlSession;
 import com.datastax.oss.driver.api.core.cql.BatchStatement;
 import com.datastax.oss.driver.api.core.cql.Row;
 import com.datastax.oss.driver.api.core.cql.Statement;
-import com.datastax.oss.driver.shaded.guava.common.util.concurrent.RateLimiter;
 import com.datastax.oss.dsbulk.executor.api.exception.BulkExecutionException;
 import com.datastax.oss.dsbulk.executor.api.listener.DefaultExecutionContext;
 import com.datastax.oss.dsbulk.executor.api.listener.ExecutionContext;
@@ -28,6 +27,8 @@ import com.datastax.oss.dsbulk.executor.api.listener.ExecutionListener;
 import com.datastax.oss.dsbulk.executor.api.result.ReadResult;
 import com.datastax.oss.dsbulk.executor.api.result.Result;
 import com.datastax.oss.dsbulk.executor.api.result.WriteResult;
+import com.datastax.oss.dsbulk.executor.api.throttling.AsyncRateLimiter;
+import com.datastax.oss.dsbulk.executor.api.throttling.AsyncSemaphore;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.util.Collections;
@@ -37,7 +38,6 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import org.jctools.queues.SpscArrayQueue;
@@ -63,6 +63,8 @@ public abstract class ResultSubscription<R extends Result, P extends AsyncPaging
 
   private static final int MAX_ENQUEUED_PAGES = 4;
 
+  private static final CompletionStage<Void> ADMITTED = CompletableFuture.completedFuture(null);
+
   /*
   The following are specific to the present query execution.
    */
@@ -76,8 +78,8 @@ public abstract class ResultSubscription<R extends Result, P extends AsyncPaging
    */
 
   final @Nullable ExecutionListener listener;
-  private final @Nullable Semaphore maxConcurrentRequests;
-  final @Nullable RateLimiter rateLimiter;
+  private final @Nullable AsyncSemaphore maxConcurrentRequests;
+  final @Nullable AsyncRateLimiter rateLimiter;
   private final boolean failFast;
 
   /** The number of writes in the batch. 1 for other types of statement. */
@@ -145,8 +147,8 @@ public abstract class ResultSubscription<R extends Result, P extends AsyncPaging
       @NonNull Subscriber<? super R> subscriber,
       @NonNull Statement<?> statement,
       @Nullable ExecutionListener listener,
-      @Nullable Semaphore maxConcurrentRequests,
-      @Nullable RateLimiter rateLimiter,
+      @Nullable AsyncSemaphore maxConcurrentRequests,
+      @Nullable AsyncRateLimiter rateLimiter,
       boolean failFast) {
     this.statement = statement;
     this.subscriber = subscriber;
@@ -339,11 +341,15 @@ public abstract class ResultSubscription<R extends Result, P extends AsyncPaging
   private void fetchNextPage(Page current) {
     // A local execution context to record metrics for this specific request-response cycle.
     DefaultExecutionContext local = new DefaultExecutionContext();
-    onBeforeRequestStarted();
-    local.start();
-    onRequestStarted(local);
-    current
-        .nextPage()
+    onBeforeRequestStarted()
+        // wait until the request is admitted, without blocking the current thread;
+        // if it was admitted immediately, this continues synchronously
+        .thenCompose(
+            v -> {
+              local.start();
+              onRequestStarted(local);
+              return current.nextPage();
+            })
         // as soon as the response arrives, notify our listener and
         // update maxConcurrentRequests.
         .whenComplete(
@@ -373,6 +379,8 @@ public abstract class ResultSubscription<R extends Result, P extends AsyncPaging
               }
               return page;
             })
+        // wait until the page can be emitted, without blocking the current thread
+        .thenCompose(this::onPageReceived)
         // wait until there is free space in the queue
         // before enqueueing the new page
         .thenCombine(current.fullyConsumed, (rs, v) -> rs)
@@ -388,10 +396,13 @@ public abstract class ResultSubscription<R extends Result, P extends AsyncPaging
             });
   }
 
-  void onBeforeRequestStarted() {
-    if (maxConcurrentRequests != null) {
-      maxConcurrentRequests.acquireUninterruptibly();
-    }
+  /**
+   * Invoked before each request; the request is started when the returned future completes.
+   *
+   * @return a future that completes when the request is admitted.
+   */
+  CompletionStage<Void> onBeforeRequestStarted() {
+    return maxConcurrentRequests == null ? ADMITTED : maxConcurrentRequests.acquire();
   }
 
   /*
@@ -461,6 +472,17 @@ public abstract class ResultSubscription<R extends Result, P extends AsyncPaging
     // nothing to do by default
   }
 
+  /**
+   * Invoked when a page is received, before it is enqueued; the page is enqueued, and the next page
+   * is fetched, when the returned future completes.
+   *
+   * @param page the page received.
+   * @return a future that completes with the given page when it can be enqueued.
+   */
+  CompletionStage<Page> onPageReceived(Page page) {
+    return CompletableFuture.completedFuture(page);
+  }
+
   private void stop(@Nullable BulkExecutionException error) {
     global.stop();
     if (listener != null) {
@@ -553,6 +575,7 @@ public abstract class ResultSubscription<R extends Result, P extends AsyncPaging
   class Page {
 
     final Iterator<R> rows;
+    final int rowCount;
     final Callable<CompletionStage<? extends P>> nextPage;
     final CompletableFuture<Void> fullyConsumed;
 
@@ -560,12 +583,23 @@ public abstract class ResultSubscription<R extends Result, P extends AsyncPaging
     private Page(Callable<CompletionStage<? extends P>> nextPage) {
       this.nextPage = nextPage;
       this.rows = Collections.emptyIterator();
+      this.rowCount = 0;
       fullyConsumed = initial;
     }
 
     Page(Iterator<R> rows, Callable<CompletionStage<? extends P>> nextPage) {
+      this(rows, 0, nextPage);
+    }
+
+    /**
+     * @param rows the page's results.
+     * @param rowCount the number of rows in the page, as returned by the server.
+     * @param nextPage the next page, or {@code null} if this is the last page.
+     */
+    Page(Iterator<R> rows, int rowCount, Callable<CompletionStage<? extends P>> nextPage) {
       this.nextPage = nextPage;
       this.rows = rows;
+      this.rowCount = rowCount;
       fullyConsumed = new CompletableFuture<>();
     }
 
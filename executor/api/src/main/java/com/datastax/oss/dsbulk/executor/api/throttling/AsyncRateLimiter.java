@@ -0,0 +1,141 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.executor.api.throttling;
+
+import com.datastax.oss.driver.shaded.guava.common.util.concurrent.ThreadFactoryBuilder;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token-bucket rate limiter that never blocks: acquiring permits returns a future that completes
+ * when the permits are granted.
+ *
+ * <p>Permits are granted with the same policy as Guava's {@code RateLimiter.create(double)}: the
+ * bucket can store up to one second worth of unused permits, and a request for permits only waits
+ * for the permits granted to previous requests, its own cost being paid by the next request.
+ * Instead of sleeping, the caller's future is completed by a timer thread once the waiting time has
+ * elapsed.
+ *
+ * <p>This class is thread-safe.
+ */
+public final class AsyncRateLimiter implements AutoCloseable {
+
+  private static final CompletionStage<Void> GRANTED = CompletableFuture.completedFuture(null);
+
+  private final double permitsPerSecond;
+  private final double nanosPerPermit;
+  private final double maxStoredPermits;
+  private final ScheduledExecutorService timer;
+  private final Set<CompletableFuture<Void>> pending = ConcurrentHashMap.newKeySet();
+
+  // guarded by this
+  private double storedPermits;
+  private long nextFreeNanos;
+
+  /**
+   * Creates a new rate limiter.
+   *
+   * @param permitsPerSecond the rate at which permits are granted; must be strictly positive.
+   */
+  public AsyncRateLimiter(double permitsPerSecond) {
+    if (!(permitsPerSecond > 0)) {
+      throw new IllegalArgumentException("Rate must be strictly positive: " + permitsPerSecond);
+    }
+    this.permitsPerSecond = permitsPerSecond;
+    this.nanosPerPermit = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+    this.maxStoredPermits = permitsPerSecond;
+    this.nextFreeNanos = System.nanoTime();
+    this.timer =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("rate-limiter-%d").build());
+  }
+
+  /** Returns the rate at which permits are granted, in permits per second. */
+  public double getRate() {
+    return permitsPerSecond;
+  }
+
+  /**
+   * Acquires the given number of permits.
+   *
+   * @param permits the number of permits to acquire.
+   * @return a future that completes when the permits are granted; already completed if they were
+   *     granted immediately.
+   */
+  @NonNull
+  public CompletionStage<Void> acquire(int permits) {
+    long waitNanos = reserve(permits);
+    if (waitNanos <= 0) {
+      return GRANTED;
+    }
+    CompletableFuture<Void> granted = new CompletableFuture<>();
+    pending.add(granted);
+    try {
+      // the task cannot fail, and pending waits are completed by close() rather than by cancelling
+      // their task: its future is not needed
+      @SuppressWarnings("unused")
+      Future<?> unused = timer.schedule(() -> grant(granted), waitNanos, TimeUnit.NANOSECONDS);
+    } catch (RejectedExecutionException e) {
+      // the limiter was closed: stop throttling
+      grant(granted);
+    }
+    return granted;
+  }
+
+  private void grant(@NonNull CompletableFuture<Void> granted) {
+    pending.remove(granted);
+    granted.complete(null);
+  }
+
+  /**
+   * Reserves the given number of permits, and returns how long the caller must wait before using
+   * them.
+   *
+   * @param permits the number of permits to reserve.
+   * @return the time to wait, in nanoseconds; zero if the permits can be used immediately.
+   */
+  public synchronized long reserve(int permits) {
+    long now = System.nanoTime();
+    if (now - nextFreeNanos > 0) {
+      // refill the bucket with the permits that were not used since the last grant
+      storedPermits =
+          Math.min(maxStoredPermits, storedPermits + (now - nextFreeNanos) / nanosPerPermit);
+      nextFreeNanos = now;
+    }
+    long waitNanos = Math.max(0, nextFreeNanos - now);
+    double fromBucket = Math.min(permits, storedPermits);
+    storedPermits -= fromBucket;
+    nextFreeNanos += (long) ((permits - fromBucket) * nanosPerPermit);
+    return waitNanos;
+  }
+
+  @Override
+  public void close() {
+    timer.shutdownNow();
+    // waits that were scheduled are not granted anymore by the timer: stop throttling them
+    for (CompletableFuture<Void> granted : pending) {
+      grant(granted);
+    }
+  }
+}
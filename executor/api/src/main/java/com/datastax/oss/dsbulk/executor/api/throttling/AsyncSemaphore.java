@@ -0,0 +1,144 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.executor.api.throttling;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A semaphore that never blocks: acquiring a permit returns a future that completes as soon as a
+ * permit is available.
+ *
+ * <p>When no permit is available, the future is queued, and completed by the thread that releases
+ * the next permit; waiters are served in FIFO order. This allows request executions to wait for
+ * capacity without parking the threads that issue them.
+ *
+ * <p>This class is thread-safe.
+ */
+public final class AsyncSemaphore {
+
+  private static final CompletionStage<Void> ACQUIRED = CompletableFuture.completedFuture(null);
+
+  private final Queue<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+
+  private int totalPermits;
+  private int availablePermits;
+
+  /**
+   * Creates a new semaphore.
+   *
+   * @param permits the number of permits; must be strictly positive.
+   */
+  public AsyncSemaphore(int permits) {
+    if (permits <= 0) {
+      throw new IllegalArgumentException("Number of permits must be strictly positive: " + permits);
+    }
+    this.totalPermits = permits;
+    this.availablePermits = permits;
+  }
+
+  /**
+   * Acquires one permit.
+   *
+   * @return a future that completes when the permit is acquired; already completed if a permit was
+   *     readily available.
+   */
+  @NonNull
+  public CompletionStage<Void> acquire() {
+    synchronized (this) {
+      if (availablePermits > 0) {
+        availablePermits--;
+        return ACQUIRED;
+      }
+      CompletableFuture<Void> waiter = new CompletableFuture<>();
+      waiters.add(waiter);
+      return waiter;
+    }
+  }
+
+  /**
+   * Releases one permit, handing it over directly to the oldest waiter, if any. The waiter's future
+   * is completed by the calling thread, outside of any lock. Waiters whose future was cancelled are
+   * skipped.
+   */
+  public void release() {
+    CompletableFuture<Void> waiter;
+    do {
+      synchronized (this) {
+        // if the number of permits was reduced, the permit is withheld instead
+        waiter = availablePermits < 0 ? null : waiters.poll();
+        if (waiter == null) {
+          availablePermits++;
+          return;
+        }
+      }
+      // if the waiter was cancelled, hand the permit over to the next one
+    } while (!waiter.complete(null));
+  }
+
+  /**
+   * Changes the total number of permits.
+   *
+   * <p>When the number of permits is increased, the additional permits are handed over to the
+   * oldest waiters, if any; their futures are completed by the calling thread, outside of any lock.
+   * When it is decreased, permits already acquired are not revoked: the number of available permits
+   * may then become negative, and acquisitions will wait until enough permits are released.
+   *
+   * @param permits the new number of permits; must be strictly positive.
+   */
+  public void setPermits(int permits) {
+    if (permits <= 0) {
+      throw new IllegalArgumentException("Number of permits must be strictly positive: " + permits);
+    }
+    List<CompletableFuture<Void>> granted = new ArrayList<>();
+    synchronized (this) {
+      availablePermits += permits - totalPermits;
+      totalPermits = permits;
+      while (availablePermits > 0 && !waiters.isEmpty()) {
+        availablePermits--;
+        granted.add(waiters.poll());
+      }
+    }
+    for (CompletableFuture<Void> waiter : granted) {
+      if (!waiter.complete(null)) {
+        release();
+      }
+    }
+  }
+
+  /** Returns the total number of permits, acquired or not. */
+  public synchronized int getPermits() {
+    return totalPermits;
+  }
+
+  /**
+   * Returns the number of permits currently available; this number may be negative if the number of
+   * permits was reduced while they were acquired.
+   */
+  public synchronized int availablePermits() {
+    return availablePermits;
+  }
+
+  /** Returns the number of acquisitions currently waiting for a permit. */
+  public synchronized int getQueueLength() {
+    return waiters.size();
+  }
+}
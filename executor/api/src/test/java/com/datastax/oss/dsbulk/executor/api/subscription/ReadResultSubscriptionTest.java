@@ -0,0 +1,70 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.executor.api.subscription;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.AsyncResultSet;
+import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.dsbulk.executor.api.publisher.ReadResultPublisher;
+import com.datastax.oss.dsbulk.executor.api.result.ReadResult;
+import com.datastax.oss.dsbulk.executor.api.throttling.AsyncRateLimiter;
+import com.datastax.oss.dsbulk.tests.driver.MockAsyncResultSet;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+class ReadResultSubscriptionTest {
+
+  @Test
+  void should_throttle_reads_one_page_at_a_time_without_blocking() {
+    // 3 pages of 5 rows at 10 rows per second: the first page is emitted immediately, the next ones
+    // wait for the rows of the previous page, i.e. about 500 milliseconds each
+    CompletionStage<AsyncResultSet> pages = mockPage(mockPage(mockPage(null, 5), 5), 5);
+    CqlSession session = mock(CqlSession.class);
+    when(session.executeAsync(any(SimpleStatement.class))).thenReturn(pages);
+    Statement<?> statement = SimpleStatement.newInstance("irrelevant");
+    try (AsyncRateLimiter rateLimiter = new AsyncRateLimiter(10)) {
+      ReadResultPublisher publisher =
+          new ReadResultPublisher(statement, session, true, null, null, rateLimiter);
+      long start = System.nanoTime();
+      CompletableFuture<List<ReadResult>> results = Flux.from(publisher).collectList().toFuture();
+      // subscribing did not block the caller until all pages were allowed
+      assertThat(results).isNotDone();
+      assertThat(results).succeedsWithin(Duration.ofSeconds(5)).asList().hasSize(15);
+      assertThat(System.nanoTime() - start).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(900));
+    }
+  }
+
+  private static CompletionStage<AsyncResultSet> mockPage(
+      CompletionStage<AsyncResultSet> next, int size) {
+    ExecutionInfo executionInfo = mock(ExecutionInfo.class);
+    when(executionInfo.getPagingState())
+        .thenReturn(next == null ? null : ByteBuffer.wrap(new byte[] {1}));
+    return CompletableFuture.completedFuture(new MockAsyncResultSet(size, executionInfo, next));
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.executor.api.throttling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AsyncRateLimiterTest {
+
+  @Test
+  void should_grant_first_permits_immediately() {
+    try (AsyncRateLimiter limiter = new AsyncRateLimiter(10)) {
+      assertThat(limiter.getRate()).isEqualTo(10);
+      assertThat(limiter.acquire(5).toCompletableFuture()).isDone();
+    }
+  }
+
+  @Test
+  void should_make_next_request_pay_for_previous_permits() {
+    try (AsyncRateLimiter limiter = new AsyncRateLimiter(10)) {
+      assertThat(limiter.reserve(5)).isZero();
+      // 5 permits at 10 permits per second: the next request should wait about 500 ms
+      long waitNanos = limiter.reserve(1);
+      assertThat(waitNanos)
+          .isGreaterThan(TimeUnit.MILLISECONDS.toNanos(400))
+          .isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+    }
+  }
+
+  @Test
+  void should_complete_throttled_acquisitions_without_blocking_caller() throws Exception {
+    try (AsyncRateLimiter limiter = new AsyncRateLimiter(20)) {
+      limiter.acquire(2);
+      long start = System.nanoTime();
+      CompletableFuture<Void> granted = limiter.acquire(1).toCompletableFuture();
+      // the caller was not blocked
+      assertThat(System.nanoTime() - start).isLessThan(TimeUnit.MILLISECONDS.toNanos(50));
+      assertThat(granted).isNotDone();
+      granted.get(1, TimeUnit.SECONDS);
+      assertThat(System.nanoTime() - start).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+  }
+
+  @Test
+  void should_stop_throttling_when_closed() {
+    AsyncRateLimiter limiter = new AsyncRateLimiter(1);
+    limiter.acquire(10);
+    limiter.close();
+    assertThat(limiter.acquire(1).toCompletableFuture()).isDone();
+  }
+
+  @Test
+  void should_grant_pending_acquisitions_when_closed() {
+    AsyncRateLimiter limiter = new AsyncRateLimiter(1);
+    limiter.acquire(10);
+    CompletableFuture<Void> granted = limiter.acquire(1).toCompletableFuture();
+    assertThat(granted).isNotDone();
+    limiter.close();
+    assertThat(granted).isDone();
+  }
+}
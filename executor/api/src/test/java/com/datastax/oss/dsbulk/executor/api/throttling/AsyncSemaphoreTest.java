@@ -0,0 +1,113 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.executor.api.throttling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+class AsyncSemaphoreTest {
+
+  @Test
+  void should_grant_permits_immediately_when_available() {
+    AsyncSemaphore semaphore = new AsyncSemaphore(2);
+    assertThat(semaphore.acquire().toCompletableFuture()).isDone();
+    assertThat(semaphore.acquire().toCompletableFuture()).isDone();
+    assertThat(semaphore.availablePermits()).isZero();
+  }
+
+  @Test
+  void should_queue_acquisitions_and_hand_over_released_permits_in_order() {
+    AsyncSemaphore semaphore = new AsyncSemaphore(1);
+    semaphore.acquire();
+    CompletableFuture<Void> waiter1 = semaphore.acquire().toCompletableFuture();
+    CompletableFuture<Void> waiter2 = semaphore.acquire().toCompletableFuture();
+    assertThat(waiter1).isNotDone();
+    assertThat(waiter2).isNotDone();
+    assertThat(semaphore.getQueueLength()).isEqualTo(2);
+    semaphore.release();
+    assertThat(waiter1).isDone();
+    assertThat(waiter2).isNotDone();
+    // the permit was handed over directly
+    assertThat(semaphore.availablePermits()).isZero();
+    semaphore.release();
+    assertThat(waiter2).isDone();
+    semaphore.release();
+    assertThat(semaphore.availablePermits()).isOne();
+    assertThat(semaphore.getQueueLength()).isZero();
+  }
+
+  @Test
+  void should_skip_cancelled_waiters() {
+    AsyncSemaphore semaphore = new AsyncSemaphore(1);
+    semaphore.acquire();
+    CompletableFuture<Void> waiter1 = semaphore.acquire().toCompletableFuture();
+    CompletableFuture<Void> waiter2 = semaphore.acquire().toCompletableFuture();
+    waiter1.cancel(false);
+    semaphore.release();
+    assertThat(waiter2).isDone();
+    assertThat(waiter2).isNotCancelled();
+    semaphore.release();
+    assertThat(semaphore.availablePermits()).isOne();
+  }
+
+  @Test
+  void should_hand_over_additional_permits_when_increased() {
+    AsyncSemaphore semaphore = new AsyncSemaphore(1);
+    semaphore.acquire();
+    CompletableFuture<Void> waiter1 = semaphore.acquire().toCompletableFuture();
+    CompletableFuture<Void> waiter2 = semaphore.acquire().toCompletableFuture();
+    semaphore.setPermits(2);
+    assertThat(waiter1).isDone();
+    assertThat(waiter2).isNotDone();
+    semaphore.setPermits(4);
+    assertThat(waiter2).isDone();
+    assertThat(semaphore.getPermits()).isEqualTo(4);
+    assertThat(semaphore.availablePermits()).isOne();
+    assertThat(semaphore.getQueueLength()).isZero();
+  }
+
+  @Test
+  void should_withhold_released_permits_when_decreased() {
+    AsyncSemaphore semaphore = new AsyncSemaphore(3);
+    semaphore.acquire();
+    semaphore.acquire();
+    semaphore.acquire();
+    CompletableFuture<Void> waiter = semaphore.acquire().toCompletableFuture();
+    semaphore.setPermits(1);
+    assertThat(semaphore.availablePermits()).isEqualTo(-2);
+    semaphore.release();
+    semaphore.release();
+    // 1 permit still acquired
+    assertThat(waiter).isNotDone();
+    assertThat(semaphore.availablePermits()).isZero();
+    semaphore.release();
+    assertThat(waiter).isDone();
+    assertThat(semaphore.availablePermits()).isZero();
+  }
+
+  @Test
+  void should_reject_invalid_number_of_permits() {
+    assertThatThrownBy(() -> new AsyncSemaphore(0))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Number of permits must be strictly positive: 0");
+    assertThatThrownBy(() -> new AsyncSemaphore(1).setPermits(-1))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage("Number of permits must be strictly positive: -1");
+  }
+}
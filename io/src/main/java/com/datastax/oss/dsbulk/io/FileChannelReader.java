@@ -0,0 +1,171 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.io;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+
+/**
+ * A {@link Reader} for local files that reads bytes from a {@link FileChannel} into a direct
+ * buffer, and decodes them in bulk directly into the caller's array.
+ *
+ * <p>Compared to an {@link java.io.InputStreamReader} over a {@link java.io.BufferedInputStream},
+ * this avoids copying bytes through intermediary heap buffers. Malformed input is replaced, as
+ * {@link java.io.InputStreamReader} does.
+ */
+final class FileChannelReader extends Reader {
+
+  private final FileChannel channel;
+  private final long end;
+  private final CharsetDecoder decoder;
+  private final ByteBuffer bytes;
+
+  // a char decoded but not returned yet, when the caller asked for one char only
+  private final char[] pair = new char[2];
+  private boolean hasLeftover;
+
+  private boolean endOfInput;
+  private boolean flushed;
+  private boolean closed;
+
+  FileChannelReader(@NonNull Path file, @NonNull Charset charset, int bufferSize)
+      throws IOException {
+    this(file, charset, bufferSize, 0, Long.MAX_VALUE);
+  }
+
+  /**
+   * Creates a reader for the given byte range of the given file; the range should start at a
+   * character boundary.
+   */
+  FileChannelReader(
+      @NonNull Path file, @NonNull Charset charset, int bufferSize, long start, long end)
+      throws IOException {
+    channel = FileChannel.open(file, READ);
+    channel.position(start);
+    this.end = end;
+    decoder =
+        charset
+            .newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    bytes = ByteBuffer.allocateDirect(bufferSize);
+    bytes.flip();
+  }
+
+  @Override
+  public int read(@NonNull char[] cbuf, int off, int len) throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+    if (off < 0 || len < 0 || len > cbuf.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+    int n = 0;
+    if (hasLeftover) {
+      cbuf[off] = pair[1];
+      hasLeftover = false;
+      n = 1;
+      if (len == 1) {
+        return 1;
+      }
+    }
+    if (len - n == 1) {
+      // the decoder cannot make progress with room for one char only, if the next code point
+      // is a surrogate pair: decode two chars, and keep the second one for later.
+      int read = decode(pair, 0, 2);
+      if (read == -1) {
+        return n == 0 ? -1 : n;
+      }
+      cbuf[off + n] = pair[0];
+      hasLeftover = read == 2;
+      return n + 1;
+    }
+    int read = decode(cbuf, off + n, len - n);
+    if (read == -1) {
+      return n == 0 ? -1 : n;
+    }
+    return n + read;
+  }
+
+  private int decode(char[] cbuf, int off, int len) throws IOException {
+    if (flushed) {
+      return -1;
+    }
+    CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+    while (true) {
+      CoderResult result = decoder.decode(bytes, out, endOfInput);
+      if (result.isOverflow()) {
+        break;
+      }
+      if (result.isError()) {
+        // cannot happen with CodingErrorAction.REPLACE
+        result.throwException();
+      }
+      if (endOfInput) {
+        if (decoder.flush(out).isUnderflow()) {
+          flushed = true;
+        }
+        break;
+      }
+      if (out.position() > off) {
+        // do not block if some chars were decoded already
+        break;
+      }
+      bytes.compact();
+      int read = -1;
+      long remaining = end - channel.position();
+      if (remaining > 0) {
+        if (bytes.remaining() > remaining) {
+          bytes.limit(bytes.position() + (int) remaining);
+        }
+        read = channel.read(bytes);
+      }
+      bytes.flip();
+      if (read == -1) {
+        endOfInput = true;
+      }
+    }
+    int n = out.position() - off;
+    return n == 0 && flushed ? -1 : n;
+  }
+
+  @Override
+  public boolean ready() {
+    return !closed && (hasLeftover || bytes.hasRemaining());
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      channel.close();
+    }
+  }
+}
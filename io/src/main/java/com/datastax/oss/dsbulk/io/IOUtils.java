@@ -18,6 +18,7 @@ package com.datastax.oss.dsbulk.io;
 import static java.nio.file.StandardOpenOption.CREATE_NEW;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
@@ -27,11 +28,13 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Reader;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.nio.charset.Charset;
 import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -41,6 +44,8 @@ public final class IOUtils {
 
   private static final int BUFFER_SIZE = 8192 * 2;
 
+  private static final int DIRECT_BUFFER_SIZE = 8192 * 8;
+
   /**
    * The protocol for standard input and standard output URLs. The only supported URL with such
    * scheme is {@code std:/}.
@@ -82,8 +87,28 @@ public final class IOUtils {
   }
 
   public static BufferedReader newBufferedReader(URL url, Charset charset) throws IOException {
+    Path file = getLocalFile(url);
+    Reader reader =
+        file == null
+            ? new InputStreamReader(newBufferedInputStream(url), charset)
+            : new FileChannelReader(file, charset, DIRECT_BUFFER_SIZE);
+    return new BufferedReader(reader, BUFFER_SIZE);
+  }
+
+  /**
+   * Returns a reader for the given byte range of the given local file.
+   *
+   * @param file The file to read; must not be null.
+   * @param charset The file charset; must not be null.
+   * @param start The position of the first byte to read; it should be at a character boundary.
+   * @param end The position of the byte following the last byte to read.
+   * @return a reader for the given byte range.
+   * @throws IOException If the file cannot be opened.
+   */
+  public static BufferedReader newBufferedReader(
+      @NonNull Path file, @NonNull Charset charset, long start, long end) throws IOException {
     return new BufferedReader(
-        new InputStreamReader(newBufferedInputStream(url), charset), BUFFER_SIZE);
+        new FileChannelReader(file, charset, DIRECT_BUFFER_SIZE, start, end), BUFFER_SIZE);
   }
 
   public static BufferedWriter newBufferedWriter(URL url, Charset charset) throws IOException {
@@ -91,6 +116,28 @@ public final class IOUtils {
         new OutputStreamWriter(newBufferedOutputStream(url), charset), BUFFER_SIZE);
   }
 
+  /**
+   * Returns the local file the given URL points to, if it has the {@code file} protocol and points
+   * to an existing regular file; such files can be read directly through NIO channels instead of
+   * {@link URL#openStream()}.
+   *
+   * @param url The url to check; must not be null.
+   * @return the local file, or null if the url does not point to a local regular file.
+   */
+  @Nullable
+  public static Path getLocalFile(@NonNull URL url) {
+    if (!url.getProtocol().equals("file")) {
+      return null;
+    }
+    try {
+      Path file = Paths.get(url.toURI());
+      return Files.isRegularFile(file) ? file : null;
+    } catch (URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e) {
+      // e.g. URLs with a host component, or with illegal characters
+      return null;
+    }
+  }
+
   public static boolean isDirectoryNonEmpty(Path path) {
     try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(path)) {
       return dirStream.iterator().hasNext();
@@ -15,11 +15,20 @@
  */
 package com.datastax.oss.dsbulk.io;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.datastax.oss.dsbulk.url.BulkLoaderURLStreamHandlerFactory;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 class IOUtilsTest {
@@ -28,9 +37,82 @@ class IOUtilsTest {
     BulkLoaderURLStreamHandlerFactory.install();
   }
 
+  // one, two, three and four bytes per code point in UTF-8
+  private static final String CONTENTS = "abc,d\u00e9f,\u20ac\u4e2d,\ud83d\ude00\n";
+
+  private Path dir;
+
+  @BeforeEach
+  void createDir() throws IOException {
+    dir = Files.createTempDirectory("test");
+  }
+
+  @AfterEach
+  void deleteDir() throws IOException {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+      for (Path file : files) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(dir);
+  }
+
   @Test
   void should_detect_standard_stream_url() throws MalformedURLException {
     assertThat(IOUtils.isStandardStream(new URL("http://acme.com"))).isFalse();
     assertThat(IOUtils.isStandardStream(new URL("std:/"))).isTrue();
   }
+
+  @Test
+  void should_detect_local_file() throws IOException {
+    Path file = Files.createFile(dir.resolve("data.csv"));
+    assertThat(IOUtils.getLocalFile(file.toUri().toURL())).isEqualTo(file);
+    assertThat(IOUtils.getLocalFile(dir.toUri().toURL())).isNull();
+    assertThat(IOUtils.getLocalFile(dir.resolve("missing.csv").toUri().toURL())).isNull();
+    assertThat(IOUtils.getLocalFile(new URL("http://acme.com/data.csv"))).isNull();
+    assertThat(IOUtils.getLocalFile(new URL("std:/"))).isNull();
+  }
+
+  @Test
+  void should_read_local_file() throws IOException {
+    StringBuilder expected = new StringBuilder();
+    for (int i = 0; i < 10_000; i++) {
+      expected.append(CONTENTS);
+    }
+    Path file = Files.write(dir.resolve("data.csv"), expected.toString().getBytes(UTF_8));
+    try (BufferedReader reader = IOUtils.newBufferedReader(file.toUri().toURL(), UTF_8)) {
+      assertThat(readFully(reader, 8192)).isEqualTo(expected.toString());
+    }
+  }
+
+  @Test
+  void should_decode_code_points_split_across_buffers() throws IOException {
+    Path file = Files.write(dir.resolve("data.csv"), CONTENTS.getBytes(UTF_8));
+    for (int bufferSize = 4; bufferSize <= 16; bufferSize++) {
+      for (int readSize = 1; readSize <= 3; readSize++) {
+        try (Reader reader = new FileChannelReader(file, UTF_8, bufferSize)) {
+          assertThat(readFully(reader, readSize)).isEqualTo(CONTENTS);
+        }
+      }
+    }
+  }
+
+  @Test
+  void should_replace_malformed_input() throws IOException {
+    Path file =
+        Files.write(dir.resolve("data.csv"), new byte[] {'a', (byte) 0xC3, 'b', (byte) 0xE2});
+    try (Reader reader = new FileChannelReader(file, UTF_8, 8)) {
+      assertThat(readFully(reader, 8)).isEqualTo("a\ufffdb\ufffd");
+    }
+  }
+
+  private static String readFully(Reader reader, int readSize) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    char[] buffer = new char[readSize];
+    int read;
+    while ((read = reader.read(buffer, 0, readSize)) != -1) {
+      sb.append(buffer, 0, read);
+    }
+    return sb.toString();
+  }
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.partitioner;
+
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.metadata.token.Token;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sorts statements into buckets according to the token range their partition key belongs to.
+ *
+ * <p>The ring is split into a given number of ranges of equal size, one per bucket; the token of
+ * each statement is computed client-side from its {@linkplain Statement#getRoutingKey() routing
+ * key}, unless its {@linkplain Statement#getRoutingToken() routing token} is set. Statements having
+ * neither go to an additional bucket.
+ *
+ * <p>When a bucket is full, it is returned by {@link #add(Statement)} and emptied; the statements
+ * remaining in the buckets can be retrieved at the end with {@link #drain()}. Since all the
+ * statements in a bucket belong to a narrow range of tokens, statements for the same partition tend
+ * to end up in the same bucket even when the input is not sorted, which makes them good candidates
+ * for batching. At most {@code (bucketCount + 1) * bucketSize} statements are held at any time.
+ *
+ * <p>This class is not thread-safe.
+ */
+public class TokenRangeBucketer<T extends Statement<?>> {
+
+  private final BulkTokenFactory tokenFactory;
+  private final int bucketSize;
+
+  // The end tokens of the ranges, except the last one, which wraps around the ring.
+  private final Token[] rangeEnds;
+  private final List<List<T>> buckets;
+
+  /**
+   * Creates a new bucketer.
+   *
+   * @param tokenFactory the token factory of the cluster's partitioner.
+   * @param bucketCount the number of token ranges to split the ring into; must be strictly
+   *     positive.
+   * @param bucketSize the number of statements a bucket must hold to be full; must be strictly
+   *     positive.
+   */
+  public TokenRangeBucketer(
+      @NonNull BulkTokenFactory tokenFactory, int bucketCount, int bucketSize) {
+    if (bucketCount <= 0 || bucketSize <= 0) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Invalid bucket limits: bucketCount=%d, bucketSize=%d", bucketCount, bucketSize));
+    }
+    this.tokenFactory = tokenFactory;
+    this.bucketSize = bucketSize;
+    Token minToken = tokenFactory.minToken();
+    BulkTokenRange ring = tokenFactory.range(minToken, minToken, Collections.emptySet());
+    List<BulkTokenRange> ranges = tokenFactory.splitter().split(ring, bucketCount);
+    rangeEnds = new Token[ranges.size() - 1];
+    for (int i = 0; i < rangeEnds.length; i++) {
+      rangeEnds[i] = ranges.get(i).getEnd();
+    }
+    // one bucket per range, plus one for statements without token
+    buckets = new ArrayList<>(ranges.size() + 1);
+    for (int i = 0; i <= ranges.size(); i++) {
+      buckets.add(new ArrayList<>());
+    }
+  }
+
+  /**
+   * Adds the given statement to its bucket.
+   *
+   * @param statement the statement to add.
+   * @return the contents of the statement's bucket if it is now full, or {@code null} otherwise.
+   */
+  @Nullable
+  public List<T> add(@NonNull T statement) {
+    int index = bucketIndex(statement);
+    List<T> bucket = buckets.get(index);
+    bucket.add(statement);
+    if (bucket.size() < bucketSize) {
+      return null;
+    }
+    buckets.set(index, new ArrayList<>(bucketSize));
+    return bucket;
+  }
+
+  /**
+   * Empties all the buckets.
+   *
+   * @return the contents of the buckets that were not empty, in token order.
+   */
+  @NonNull
+  public List<List<T>> drain() {
+    List<List<T>> remaining = new ArrayList<>();
+    for (int i = 0; i < buckets.size(); i++) {
+      List<T> bucket = buckets.get(i);
+      if (!bucket.isEmpty()) {
+        remaining.add(bucket);
+        buckets.set(i, new ArrayList<>());
+      }
+    }
+    return remaining;
+  }
+
+  private int bucketIndex(@NonNull T statement) {
+    Token token = statement.getRoutingToken();
+    if (token == null) {
+      ByteBuffer routingKey = statement.getRoutingKey();
+      if (routingKey == null) {
+        return buckets.size() - 1;
+      }
+      token = tokenFactory.hash(routingKey);
+    }
+    // ranges are start-exclusive and end-inclusive
+    int index = Arrays.binarySearch(rangeEnds, token);
+    return index >= 0 ? index : -index - 1;
+  }
+}
@@ -27,6 +27,7 @@ import com.datastax.oss.driver.api.core.metadata.token.TokenRange;
 import com.datastax.oss.driver.internal.core.metadata.token.DefaultTokenMap;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -101,8 +102,27 @@ public class TokenRangeReadStatementGenerator {
     PartitionGenerator generator =
         new PartitionGenerator(table.getKeyspace(), tokenMap, tokenFactory);
     List<BulkTokenRange> partitions = generator.partition(splitCount);
-    List<Statement<?>> statements = new ArrayList<>();
-    for (TokenRange range : partitions) {
+    return generate(partitions, statementFactory);
+  }
+
+  /**
+   * Generates SELECT statements to read the given token ranges, using the given factory to generate
+   * statements.
+   *
+   * <p>This method does not split the given ranges further: exactly one statement is generated per
+   * range. It is typically used to read again ranges obtained from a previous invocation of {@link
+   * #generate(int, Function)}, e.g. when resuming an interrupted operation.
+   *
+   * @param ranges The token ranges to read.
+   * @param statementFactory The factory to use to generate statements for each range.
+   * @return A list of SELECT statements to read the given ranges.
+   */
+  @NonNull
+  public List<Statement<?>> generate(
+      @NonNull Collection<? extends TokenRange> ranges,
+      @NonNull Function<TokenRange, Statement<?>> statementFactory) {
+    List<Statement<?>> statements = new ArrayList<>(ranges.size());
+    for (TokenRange range : ranges) {
       Statement<?> stmt = statementFactory.apply(range);
       if (stmt.getKeyspace() != null) {
         if (!stmt.getKeyspace().equals(table.getKeyspace())) {
@@ -0,0 +1,82 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.partitioner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.data.ByteUtils;
+import com.datastax.oss.driver.internal.core.metadata.token.Murmur3Token;
+import com.datastax.oss.dsbulk.partitioner.murmur3.Murmur3BulkTokenFactory;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class TokenRangeBucketerTest {
+
+  private final Murmur3BulkTokenFactory tokenFactory = new Murmur3BulkTokenFactory();
+
+  @Test
+  void should_return_full_buckets() {
+    TokenRangeBucketer<SimpleStatement> bucketer = new TokenRangeBucketer<>(tokenFactory, 4, 2);
+    SimpleStatement stmt1 = statement(-5_000_000_000_000_000_000L);
+    SimpleStatement stmt2 = statement(-100L);
+    SimpleStatement stmt3 = statement(100L);
+    SimpleStatement stmt4 = statement(-1L);
+    SimpleStatement stmt5 = statement(-200L);
+    assertThat(bucketer.add(stmt1)).isNull();
+    assertThat(bucketer.add(stmt2)).isNull();
+    assertThat(bucketer.add(stmt3)).isNull();
+    // the second range is (-4611686018427387905,-1], its end is inclusive
+    assertThat(bucketer.add(stmt4)).containsExactly(stmt2, stmt4);
+    assertThat(bucketer.add(stmt5)).isNull();
+    assertThat(bucketer.drain())
+        .containsExactly(
+            Collections.singletonList(stmt1),
+            Collections.singletonList(stmt5),
+            Collections.singletonList(stmt3));
+    assertThat(bucketer.drain()).isEmpty();
+  }
+
+  @Test
+  void should_compute_tokens_from_routing_keys() {
+    TokenRangeBucketer<SimpleStatement> bucketer = new TokenRangeBucketer<>(tokenFactory, 8, 2);
+    ByteBuffer key = ByteUtils.fromHexString("0x1234");
+    SimpleStatement stmt1 = SimpleStatement.newInstance("INSERT 1").setRoutingKey(key);
+    SimpleStatement stmt2 =
+        SimpleStatement.newInstance("INSERT 2").setRoutingToken(tokenFactory.hash(key));
+    assertThat(bucketer.add(stmt1)).isNull();
+    assertThat(bucketer.add(stmt2)).containsExactly(stmt1, stmt2);
+  }
+
+  @Test
+  void should_bucket_statements_without_token_together() {
+    TokenRangeBucketer<SimpleStatement> bucketer = new TokenRangeBucketer<>(tokenFactory, 4, 3);
+    SimpleStatement stmt1 = SimpleStatement.newInstance("INSERT 1");
+    SimpleStatement stmt2 = statement(Long.MAX_VALUE);
+    SimpleStatement stmt3 = SimpleStatement.newInstance("INSERT 3");
+    bucketer.add(stmt1);
+    bucketer.add(stmt2);
+    bucketer.add(stmt3);
+    assertThat(bucketer.drain())
+        .containsExactly(Collections.singletonList(stmt2), Arrays.asList(stmt1, stmt3));
+  }
+
+  private static SimpleStatement statement(long token) {
+    return SimpleStatement.newInstance("INSERT " + token).setRoutingToken(new Murmur3Token(token));
+  }
+}
@@ -51,6 +51,9 @@ public class DataSizes {
    * the mutation size server-side, whereas the latter attempts to guess the size of the encoded
    * statement, protocol-wise. These can be very different, especially for batch statements.
    *
+   * <p>If the statement is a {@link SizedStatement}, its own data size is returned without
+   * inspecting its bound values.
+   *
    * @param stmt The statement to inspect; cannot be {@code null}.
    * @param version The protocol version to use; cannot be {@code null}.
    * @param registry The codec registry to use; cannot be {@code null}.
@@ -61,7 +64,9 @@ public class DataSizes {
       @NonNull ProtocolVersion version,
       @NonNull CodecRegistry registry) {
     long dataSize = 0;
-    if (stmt instanceof BoundStatement) {
+    if (stmt instanceof SizedStatement) {
+      dataSize = ((SizedStatement) stmt).getDataSize();
+    } else if (stmt instanceof BoundStatement) {
       BoundStatement bs = (BoundStatement) stmt;
       dataSize = getDataSize(bs, bs.getPreparedStatement().getVariableDefinitions());
     } else if (stmt instanceof SimpleStatement) {
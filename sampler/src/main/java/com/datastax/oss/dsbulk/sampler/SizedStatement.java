@@ -0,0 +1,36 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.sampler;
+
+import com.datastax.oss.driver.api.core.cql.Statement;
+
+/**
+ * A statement that knows its own data size, as defined by {@link DataSizes#getDataSize(Statement,
+ * com.datastax.oss.driver.api.core.ProtocolVersion,
+ * com.datastax.oss.driver.api.core.type.codec.registry.CodecRegistry)}.
+ *
+ * <p>Statements implementing this interface typically compute their data size once, when their
+ * values are bound; {@link DataSizes} then returns that size instead of inspecting all the bound
+ * values each time the statement's size is requested.
+ */
+public interface SizedStatement {
+
+  /**
+   * @return The total number of bytes required to encode all the bound variables contained in this
+   *     statement.
+   */
+  long getDataSize();
+}
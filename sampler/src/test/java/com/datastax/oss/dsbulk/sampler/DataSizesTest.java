@@ -110,6 +110,18 @@ class DataSizesTest {
     verify(bs, never()).getCustomPayload();
   }
 
+  @Test
+  void should_use_size_of_sized_statement() {
+    BoundStatement bs =
+        Mockito.mock(
+            BoundStatement.class, Mockito.withSettings().extraInterfaces(SizedStatement.class));
+    when(((SizedStatement) bs).getDataSize()).thenReturn(42L);
+    assertThat(DataSizes.getDataSize(bs, DseProtocolVersion.DSE_V2, DefaultCodecRegistry.DEFAULT))
+        .isEqualTo(42);
+    verify(bs, never()).getBytesUnsafe(0);
+    verify(bs, never()).getPreparedStatement();
+  }
+
   @Test
   void should_measure_size_of_batch_statement() {
 
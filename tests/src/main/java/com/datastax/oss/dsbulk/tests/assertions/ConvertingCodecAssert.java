@@ -18,7 +18,10 @@ package com.datastax.oss.dsbulk.tests.assertions;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
 
+import com.datastax.oss.driver.api.core.DefaultProtocolVersion;
+import com.datastax.oss.driver.api.core.ProtocolVersion;
 import com.datastax.oss.dsbulk.codecs.api.ConvertingCodec;
+import java.nio.ByteBuffer;
 import org.assertj.core.api.AbstractObjectAssert;
 
 public class ConvertingCodecAssert<EXTERNAL, INTERNAL>
@@ -81,6 +84,70 @@ public class ConvertingCodecAssert<EXTERNAL, INTERNAL>
     return this;
   }
 
+  /**
+   * Verifies that the codec encodes the given external value to the same bytes as converting it to
+   * its internal value first, then encoding that value with the internal codec would.
+   */
+  public ConvertingCodecAssert<EXTERNAL, INTERNAL> encodesFromExternal(EXTERNAL external) {
+    ProtocolVersion protocolVersion = DefaultProtocolVersion.V4;
+    ByteBuffer expected =
+        actual.getInternalCodec().encode(actual.externalToInternal(external), protocolVersion);
+    ByteBuffer bytes = null;
+    try {
+      bytes = actual.encode(external, protocolVersion);
+    } catch (Exception e) {
+      fail(
+          String.format(
+              "Expecting codec to encode external %s but it threw %s instead",
+              external, e.getClass().getName()),
+          e);
+    }
+    assertThat(bytes)
+        .overridingErrorMessage(
+            "Expecting codec to encode external %s to %s but it encoded it to %s",
+            external, expected, bytes)
+        .isEqualTo(expected);
+    return this;
+  }
+
+  /**
+   * Verifies that the codec decodes the wire format of the given internal value to the same
+   * external value as converting that internal value directly would.
+   */
+  public ConvertingCodecAssert<EXTERNAL, INTERNAL> decodesFromInternal(INTERNAL internal) {
+    ProtocolVersion protocolVersion = DefaultProtocolVersion.V4;
+    EXTERNAL expected = actual.internalToExternal(internal);
+    ByteBuffer bytes = actual.getInternalCodec().encode(internal, protocolVersion);
+    EXTERNAL external = null;
+    try {
+      external = actual.decode(bytes, protocolVersion);
+    } catch (Exception e) {
+      fail(
+          String.format(
+              "Expecting codec to decode internal %s but it threw %s instead",
+              internal, e.getClass().getName()),
+          e);
+    }
+    assertThat(external)
+        .overridingErrorMessage(
+            "Expecting codec to decode internal %s to %s but it decoded it to %s",
+            internal, expected, external)
+        .isEqualTo(expected);
+    return this;
+  }
+
+  public ConvertingCodecAssert<EXTERNAL, INTERNAL> cannotEncodeFromExternal(EXTERNAL external) {
+    try {
+      ByteBuffer bytes = actual.encode(external, DefaultProtocolVersion.V4);
+      fail(
+          String.format(
+              "Expecting codec to not encode external %s but it encoded it to %s",
+              external, bytes));
+    } catch (Exception ignored) {
+    }
+    return this;
+  }
+
   @SuppressWarnings("ClassCanBeStatic")
   public class ConvertsToInternalAssert extends ConvertingCodecAssert<EXTERNAL, INTERNAL> {
 
@@ -0,0 +1,226 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.workflow.commons.dispatch;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.datastax.oss.driver.api.core.AllNodesFailedException;
+import com.datastax.oss.driver.api.core.DriverTimeoutException;
+import com.datastax.oss.driver.api.core.RequestThrottlingException;
+import com.datastax.oss.driver.api.core.connection.BusyConnectionException;
+import com.datastax.oss.driver.api.core.servererrors.OverloadedException;
+import com.datastax.oss.driver.api.core.servererrors.WriteTimeoutException;
+import com.datastax.oss.driver.shaded.guava.common.util.concurrent.ThreadFactoryBuilder;
+import com.datastax.oss.dsbulk.executor.api.histogram.HdrHistogramSnapshot;
+import com.datastax.oss.dsbulk.executor.api.result.WriteResult;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adjusts the write concurrency of a load operation according to the cluster's responsiveness.
+ *
+ * <p>Every second, this controller compares the 99th percentile of the latencies of the writes
+ * completed during the last interval to the lowest value observed so far, which approximates the
+ * latency of an unloaded cluster. The concurrency limit is then adjusted following an
+ * additive-increase, multiplicative-decrease policy:
+ *
+ * <ul>
+ *   <li>if writes timed out or were rejected because of overload, the limit is halved;
+ *   <li>else, if the latency grew beyond twice the lowest value, the limit is reduced by 10%;
+ *   <li>else, if most of the allowed requests are in flight, i.e. the limit is actually holding
+ *       back writes, the limit is increased by its square root.
+ * </ul>
+ *
+ * <p>The limit always stays between the given minimum and maximum. Each new limit is handed to a
+ * listener, which is responsible for applying it.
+ *
+ * <p>When a metric registry is provided, the current limit is reported by the {@code
+ * executor/concurrency-limit} gauge.
+ *
+ * <p>This class is thread-safe.
+ */
+public class AdaptiveConcurrencyController implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveConcurrencyController.class);
+
+  private static final long INTERVAL_MILLIS = 1000;
+
+  /** The minimum number of writes in an interval for its latency to be meaningful. */
+  private static final int MIN_SAMPLES = 20;
+
+  private static final double ERROR_DECREASE_FACTOR = 0.5;
+  private static final double LATENCY_DECREASE_FACTOR = 0.9;
+  private static final double LATENCY_TOLERANCE = 2.0;
+  private static final double MIN_UTILIZATION = 0.75;
+
+  private final Timer writesTimer;
+  private final Counter inFlightCounter;
+  private final int minLimit;
+  private final int maxLimit;
+  private final IntConsumer listener;
+  private final LongAdder overloadErrors = new LongAdder();
+
+  private volatile int limit;
+
+  // The state below is only accessed by adjust(), which is synchronized.
+  private Snapshot previous;
+  private double baseline = Double.MAX_VALUE;
+
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * Creates a new controller.
+   *
+   * @param writesTimer the timer recording the latency of writes.
+   * @param inFlightCounter the counter of requests in flight.
+   * @param initialLimit the initial concurrency limit.
+   * @param minLimit the minimum concurrency limit.
+   * @param maxLimit the maximum concurrency limit.
+   * @param listener the listener to notify of each new limit.
+   * @param registry the registry where the limit gauge should be registered, or {@code null} to
+   *     disable metrics.
+   */
+  public AdaptiveConcurrencyController(
+      @NonNull Timer writesTimer,
+      @NonNull Counter inFlightCounter,
+      int initialLimit,
+      int minLimit,
+      int maxLimit,
+      @NonNull IntConsumer listener,
+      @Nullable MetricRegistry registry) {
+    if (minLimit <= 0 || initialLimit < minLimit || maxLimit < initialLimit) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Invalid concurrency limits: initial=%d, min=%d, max=%d",
+              initialLimit, minLimit, maxLimit));
+    }
+    this.writesTimer = Objects.requireNonNull(writesTimer);
+    this.inFlightCounter = Objects.requireNonNull(inFlightCounter);
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.listener = Objects.requireNonNull(listener);
+    this.limit = initialLimit;
+    this.previous = writesTimer.getSnapshot();
+    if (registry != null) {
+      registry.register("executor/concurrency-limit", (Gauge<Integer>) () -> limit);
+    }
+  }
+
+  /** Starts adjusting the limit periodically. */
+  public void start() {
+    scheduler =
+        Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("concurrency-%d").build());
+    Future<?> unused =
+        scheduler.scheduleWithFixedDelay(
+            this::adjust, INTERVAL_MILLIS, INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /** Returns the current concurrency limit. */
+  public int getLimit() {
+    return limit;
+  }
+
+  /**
+   * Inspects the result of a write; results that indicate that the cluster is overloaded cause the
+   * limit to be halved at the end of the current interval.
+   *
+   * @param result the write result.
+   */
+  public void onResult(@NonNull WriteResult result) {
+    result
+        .getError()
+        .ifPresent(
+            error -> {
+              if (isOverloaded(error.getCause())) {
+                overloadErrors.increment();
+              }
+            });
+  }
+
+  /** Adjusts the limit according to the writes completed since the last call. */
+  synchronized void adjust() {
+    Snapshot current = writesTimer.getSnapshot();
+    Snapshot interval = since(current, previous);
+    previous = current;
+    int oldLimit = limit;
+    int newLimit = oldLimit;
+    if (overloadErrors.sumThenReset() > 0) {
+      newLimit = (int) (oldLimit * ERROR_DECREASE_FACTOR);
+    } else if (interval.size() >= MIN_SAMPLES) {
+      double p99 = interval.get99thPercentile();
+      baseline = Math.min(baseline, p99);
+      if (p99 > baseline * LATENCY_TOLERANCE) {
+        newLimit = (int) (oldLimit * LATENCY_DECREASE_FACTOR);
+      } else if (inFlightCounter.getCount() >= oldLimit * MIN_UTILIZATION) {
+        newLimit = oldLimit + (int) Math.max(1, Math.sqrt(oldLimit));
+      }
+    }
+    newLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    if (newLimit != oldLimit) {
+      LOGGER.debug("Adjusting write concurrency: {} -> {}", oldLimit, newLimit);
+      limit = newLimit;
+      listener.accept(newLimit);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  @NonNull
+  private static Snapshot since(@NonNull Snapshot current, @NonNull Snapshot previous) {
+    if (current instanceof HdrHistogramSnapshot && previous instanceof HdrHistogramSnapshot) {
+      return ((HdrHistogramSnapshot) current).since((HdrHistogramSnapshot) previous);
+    }
+    // other reservoirs already favor recent values
+    return current;
+  }
+
+  private static boolean isOverloaded(@Nullable Throwable error) {
+    if (error instanceof AllNodesFailedException) {
+      for (List<Throwable> errors : ((AllNodesFailedException) error).getAllErrors().values()) {
+        for (Throwable child : errors) {
+          if (isOverloaded(child)) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+    return error instanceof WriteTimeoutException
+        || error instanceof OverloadedException
+        || error instanceof DriverTimeoutException
+        || error instanceof RequestThrottlingException
+        || error instanceof BusyConnectionException;
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.workflow.commons.dispatch;
+
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.metadata.token.Token;
+import com.datastax.oss.dsbulk.executor.api.reader.BulkReader;
+import com.datastax.oss.dsbulk.executor.api.result.ReadResult;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import reactor.core.publisher.Flux;
+
+/**
+ * A token range scan executed by a {@link ReplicaAwareReadScheduler}.
+ *
+ * <p>When the scheduler was given a {@link ReadStatementSplitter}, the scan keeps track of the last
+ * row read, which allows the scheduler to split the part of the range that was not read yet, and to
+ * hand it over to idle workers; the scan then stops at the first row beyond the part it kept. Since
+ * rows are returned in token order, no row is read twice.
+ *
+ * <p>A range may thus be read by many scans; it is read entirely once all of them completed without
+ * being {@linkplain #markFailed() marked as failed}.
+ */
+public final class RangeScan {
+
+  private final Statement<?> statement;
+  private final BulkReader executor;
+  private final ReadStatementSplitter splitter;
+  private final Origin origin;
+
+  // The last row read, and the token beyond which rows belong to other scans. Rows are accepted
+  // on the reading thread and scans are split on the scheduler's thread: both update the position
+  // atomically, so that no row beyond a new stop token can be accepted once a split was handed
+  // over, without taking a lock for each row read.
+  private final AtomicReference<Position> position = new AtomicReference<>(Position.START);
+
+  RangeScan(
+      @NonNull Statement<?> statement,
+      @NonNull BulkReader executor,
+      @Nullable ReadStatementSplitter splitter,
+      @NonNull Origin origin) {
+    this.statement = statement;
+    this.executor = executor;
+    this.splitter = splitter;
+    this.origin = origin;
+  }
+
+  /** Returns the statement executed by this scan. */
+  @NonNull
+  public Statement<?> getStatement() {
+    return statement;
+  }
+
+  /** Executes the statement of this scan, and returns its results. */
+  @NonNull
+  public Flux<ReadResult> read() {
+    Flux<ReadResult> results = Flux.from(executor.readReactive(statement));
+    if (splitter == null) {
+      return results;
+    }
+    return results.handle(
+        (result, sink) -> {
+          if (accept(result)) {
+            sink.next(result);
+          } else {
+            sink.complete();
+          }
+        });
+  }
+
+  /**
+   * Marks this scan as failed; the range it belongs to will then never be reported as read
+   * entirely.
+   */
+  public void markFailed() {
+    origin.failed = true;
+  }
+
+  /**
+   * Splits the part of the range that this scan did not read yet; this scan keeps the first split,
+   * and the others are returned.
+   *
+   * @param splitCount the desired number of splits, including the one kept by this scan.
+   * @return the statements reading the splits given away, or an empty list if this scan cannot be
+   *     split.
+   */
+  @NonNull
+  List<Statement<?>> split(int splitCount) {
+    Position current = position.get();
+    if (splitter == null || current.lastRow == null) {
+      return Collections.emptyList();
+    }
+    Token from = splitter.getToken(current.lastRow);
+    if (from == null) {
+      return Collections.emptyList();
+    }
+    List<Statement<?>> splits = splitter.split(statement, from, current.stop, splitCount);
+    if (splits.size() < 2) {
+      return Collections.emptyList();
+    }
+    Token newStop = splits.get(0).getRoutingToken();
+    // the scan can only stop early if its rows beyond the new stop come after it in token order
+    if (newStop == null || newStop.compareTo(from) <= 0) {
+      return Collections.emptyList();
+    }
+    // rows may have been read meanwhile: the splits can only be handed over if none of them is
+    // beyond the new stop
+    while (!position.compareAndSet(current, new Position(current.lastRow, newStop))) {
+      Position latest = position.get();
+      Token last = splitter.getToken(latest.lastRow);
+      if (latest.stop != current.stop || last == null || last.compareTo(newStop) > 0) {
+        return Collections.emptyList();
+      }
+      current = latest;
+    }
+    origin.pending.addAndGet(splits.size() - 1);
+    return splits.subList(1, splits.size());
+  }
+
+  /** Returns the range this scan belongs to. */
+  @NonNull
+  Origin getOrigin() {
+    return origin;
+  }
+
+  /**
+   * Records the completion of this scan.
+   *
+   * @return true if this was the last scan of its range, and the range was read entirely.
+   */
+  boolean complete() {
+    return origin.pending.decrementAndGet() == 0 && !origin.failed;
+  }
+
+  private boolean accept(@NonNull ReadResult result) {
+    Row row = result.getRow().orElse(null);
+    if (row == null) {
+      return true;
+    }
+    Token token = null;
+    while (true) {
+      Position current = position.get();
+      if (current.stop != null) {
+        if (token == null) {
+          token = splitter.getToken(row);
+        }
+        if (token != null && token.compareTo(current.stop) > 0) {
+          return false;
+        }
+      }
+      if (position.compareAndSet(current, new Position(row, current.stop))) {
+        return true;
+      }
+    }
+  }
+
+  /** The position of a scan: the last row read, and the token where the scan stops, if any. */
+  private static final class Position {
+
+    private static final Position START = new Position(null, null);
+
+    private final Row lastRow;
+    private final Token stop;
+
+    private Position(@Nullable Row lastRow, @Nullable Token stop) {
+      this.lastRow = lastRow;
+      this.stop = stop;
+    }
+  }
+
+  /** A range to read, as initially scheduled; it is read by one scan, plus one per split. */
+  static final class Origin {
+
+    private final Statement<?> statement;
+    private final AtomicInteger pending = new AtomicInteger(1);
+    private volatile boolean failed;
+
+    Origin(@NonNull Statement<?> statement) {
+      this.statement = statement;
+    }
+
+    @NonNull
+    Statement<?> getStatement() {
+      return statement;
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.workflow.commons.dispatch;
+
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.metadata.token.Token;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.util.List;
+
+/**
+ * Splits token range read statements while they are being read, so that the part of a range that
+ * was not read yet can be handed over to other workers.
+ *
+ * <p>Implementations must be thread-safe.
+ */
+public interface ReadStatementSplitter {
+
+  /**
+   * Returns the token of the partition the given row belongs to.
+   *
+   * @param row the row.
+   * @return the token of the row's partition, or {@code null} if it cannot be determined, e.g.
+   *     because the row does not contain all the partition key columns.
+   */
+  @Nullable
+  Token getToken(@NonNull Row row);
+
+  /**
+   * Splits part of the token range read by the given statement.
+   *
+   * @param statement the statement to split.
+   * @param start the start of the part to split, exclusive.
+   * @param end the end of the part to split, inclusive, or {@code null} to split up to the end of
+   *     the statement's range.
+   * @param splitCount the desired number of statements.
+   * @return the split statements, in token order, or an empty list if the part cannot be split; the
+   *     routing token of each statement is the end token of the range it reads.
+   */
+  @NonNull
+  List<Statement<?>> split(
+      @NonNull Statement<?> statement, @NonNull Token start, @Nullable Token end, int splitCount);
+}
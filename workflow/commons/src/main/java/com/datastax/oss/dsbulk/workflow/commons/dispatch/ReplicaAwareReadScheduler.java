@@ -0,0 +1,514 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.workflow.commons.dispatch;
+
+import com.codahale.metrics.MetricRegistry;
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.loadbalancing.NodeDistance;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.metadata.NodeState;
+import com.datastax.oss.driver.api.core.metadata.TokenMap;
+import com.datastax.oss.driver.api.core.metadata.token.Token;
+import com.datastax.oss.driver.shaded.guava.common.annotations.VisibleForTesting;
+import com.datastax.oss.dsbulk.executor.api.reader.BulkReader;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.reactivestreams.Publisher;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+/**
+ * Schedules token range scans, optionally so that no node carries more than {@code maxScansPerNode}
+ * scans at a time.
+ *
+ * <p>Statements are grouped by replica set, using the cluster's {@link TokenMap} and the routing
+ * token of each statement, i.e. the end token of the range it reads. Replica set queues are served
+ * in a round-robin fashion: each time a scan completes, the next queue whose replicas can accept
+ * one more scan gets its next statement executed, and the scan is accounted against the least busy
+ * of its replicas. Only replicas in the local datacenter are considered, if any. Statements whose
+ * replicas cannot be determined, and all statements when per-node limits are disabled, are only
+ * subject to the global limit.
+ *
+ * <p>Statements are not {@linkplain Statement#setNode(Node) pinned} to the replica they are
+ * accounted against: they keep their routing token, and the driver's load balancing policy routes
+ * them to one of their replicas. This way, if a replica goes down or times out, the driver can
+ * still retry the scan on, or speculatively send it to, another replica. The driver usually picks
+ * the least busy replica as well, so per-node accounting closely follows the actual load.
+ *
+ * <p>When a {@link ReadStatementSplitter} is provided, the scheduler also re-splits long-running
+ * scans: whenever all statements were scheduled and some scan slots are idle, the scan that has
+ * been running the longest gives away the part of its range that it did not read yet, split in as
+ * many pieces as there are idle slots; see {@link RangeScan}. This way, a few large or slow ranges
+ * cannot delay the end of the operation while most workers sit idle.
+ *
+ * <p>When a metric registry is provided, this scheduler registers, for each node, a gauge of its
+ * scans in flight ({@code executor/nodes/<node>/in-flight}).
+ *
+ * <p>This class is thread-safe. Each invocation of {@link #schedule(Function, int, int, Consumer)}
+ * executes all the statements again; per-node limits then apply to all invocations together.
+ */
+public class ReplicaAwareReadScheduler {
+
+  /** How often to look for scans to split, and for how long a scan must run before being split. */
+  private static final Duration SPLIT_INTERVAL = Duration.ofSeconds(1);
+
+  private final CqlSession session;
+  private final BulkReader executor;
+  private final List<Statement<?>> statements;
+  private final int maxScansPerNode;
+  private final ReadStatementSplitter splitter;
+  private final MetricRegistry registry;
+  private final Duration splitInterval;
+
+  // Guards the state of all executions, so that per-node limits apply to all of them.
+  private final Object lock = new Object();
+  private final Map<Node, NodeScans> nodes = new HashMap<>();
+
+  /**
+   * Creates a new scheduler.
+   *
+   * @param session the session, used to locate the replicas of each statement.
+   * @param executor the executor to read with.
+   * @param statements the statements to execute, in the order in which they should preferably be
+   *     executed.
+   * @param maxScansPerNode the maximum number of scans in flight, per node, or zero to disable
+   *     per-node limits.
+   * @param splitter the splitter to split long-running scans with, or {@code null} to never split
+   *     scans.
+   * @param registry the registry where per-node metrics should be registered, or {@code null} to
+   *     disable metrics.
+   */
+  public ReplicaAwareReadScheduler(
+      @NonNull CqlSession session,
+      @NonNull BulkReader executor,
+      @NonNull List<Statement<?>> statements,
+      int maxScansPerNode,
+      @Nullable ReadStatementSplitter splitter,
+      @Nullable MetricRegistry registry) {
+    this(session, executor, statements, maxScansPerNode, splitter, registry, SPLIT_INTERVAL);
+  }
+
+  /**
+   * Creates a new scheduler that splits scans after the given interval; if the interval is zero,
+   * scans are only split when another scan completes.
+   */
+  @VisibleForTesting
+  ReplicaAwareReadScheduler(
+      @NonNull CqlSession session,
+      @NonNull BulkReader executor,
+      @NonNull List<Statement<?>> statements,
+      int maxScansPerNode,
+      @Nullable ReadStatementSplitter splitter,
+      @Nullable MetricRegistry registry,
+      @NonNull Duration splitInterval) {
+    if (maxScansPerNode < 0) {
+      throw new IllegalArgumentException(
+          "Invalid scheduler limits: maxScansPerNode=" + maxScansPerNode);
+    }
+    this.session = Objects.requireNonNull(session);
+    this.executor = Objects.requireNonNull(executor);
+    this.statements = Objects.requireNonNull(statements);
+    this.maxScansPerNode = maxScansPerNode;
+    this.splitter = splitter;
+    this.registry = registry;
+    this.splitInterval = splitInterval;
+  }
+
+  /**
+   * Executes all the statements with the given function, and merges the results.
+   *
+   * @param pipeline the function processing the results of a scan.
+   * @param maxConcurrentScans the maximum number of scans in flight, for all nodes.
+   * @param prefetch the number of results to prefetch from each scan.
+   * @return the merged results of all scans.
+   */
+  @NonNull
+  public <T> Flux<T> schedule(
+      @NonNull Function<? super RangeScan, ? extends Publisher<T>> pipeline,
+      int maxConcurrentScans,
+      int prefetch) {
+    return schedule(pipeline, maxConcurrentScans, prefetch, null);
+  }
+
+  /**
+   * Executes all the statements with the given function, and merges the results.
+   *
+   * @param pipeline the function processing the results of a scan.
+   * @param maxConcurrentScans the maximum number of scans in flight, for all nodes.
+   * @param prefetch the number of results to prefetch from each scan.
+   * @param onRangeComplete a callback invoked with each statement whose range was read entirely,
+   *     i.e. once the pipelines of all the scans of the range completed, and none of them was
+   *     marked as failed; or {@code null} if not needed.
+   * @return the merged results of all scans.
+   */
+  @NonNull
+  public <T> Flux<T> schedule(
+      @NonNull Function<? super RangeScan, ? extends Publisher<T>> pipeline,
+      int maxConcurrentScans,
+      int prefetch,
+      @Nullable Consumer<? super Statement<?>> onRangeComplete) {
+    if (maxConcurrentScans <= 0) {
+      throw new IllegalArgumentException(
+          "Invalid scheduler limits: maxConcurrentScans=" + maxConcurrentScans);
+    }
+    return Flux.defer(
+        () -> {
+          Schedule schedule = new Schedule(maxConcurrentScans);
+          return Flux.<PendingScan>create(schedule::start)
+              .flatMap(
+                  pending ->
+                      Flux.from(pipeline.apply(pending.scan))
+                          .doOnComplete(
+                              () -> {
+                                if (pending.scan.complete() && onRangeComplete != null) {
+                                  onRangeComplete.accept(pending.scan.getOrigin().getStatement());
+                                }
+                              })
+                          .doFinally(signal -> schedule.release(pending)),
+                  maxConcurrentScans,
+                  prefetch);
+        });
+  }
+
+  /** The state of one execution of all the statements. */
+  private final class Schedule {
+
+    private final int maxConcurrentScans;
+
+    // The state below is guarded by the scheduler's lock.
+    private final Map<Set<Node>, ReplicaQueue> queues = new HashMap<>();
+    private final ReplicaQueue unrouted = new ReplicaQueue(Collections.emptyList());
+    // Non-empty queues, in the order in which they should be served.
+    private final Deque<ReplicaQueue> blocked = new ArrayDeque<>();
+    // Scans in flight, in the order in which they started.
+    private final Set<PendingScan> running = new LinkedHashSet<>();
+    private int remaining;
+    private int inFlight;
+    private boolean cancelled;
+    private boolean completed;
+
+    // Scans ready to be emitted; emitting them outside of the lock, and from one thread at a time,
+    // avoids unbounded recursion when scans complete synchronously.
+    private final Queue<PendingScan> ready = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private FluxSink<PendingScan> sink;
+
+    private Schedule(int maxConcurrentScans) {
+      this.maxConcurrentScans = maxConcurrentScans;
+    }
+
+    private void start(@NonNull FluxSink<PendingScan> sink) {
+      this.sink = sink;
+      Disposable ticker =
+          splitter == null || splitInterval.isZero()
+              ? Disposables.disposed()
+              : Flux.interval(splitInterval).onBackpressureDrop().subscribe(tick -> trySplit());
+      sink.onDispose(
+          () -> {
+            ticker.dispose();
+            cancel();
+          });
+      synchronized (lock) {
+        for (Statement<?> statement : statements) {
+          enqueue(statement, new RangeScan.Origin(statement));
+        }
+        drain();
+      }
+      emitReady();
+    }
+
+    private void release(@NonNull PendingScan scan) {
+      synchronized (lock) {
+        inFlight--;
+        running.remove(scan);
+        if (scan.node != null) {
+          scan.node.inFlight--;
+        }
+        drain();
+        split();
+      }
+      emitReady();
+    }
+
+    private void trySplit() {
+      synchronized (lock) {
+        split();
+      }
+      emitReady();
+    }
+
+    private void cancel() {
+      synchronized (lock) {
+        cancelled = true;
+        blocked.clear();
+        running.clear();
+      }
+    }
+
+    /** Must be called while holding the lock. */
+    private void enqueue(@NonNull Statement<?> statement, @NonNull RangeScan.Origin origin) {
+      Set<Node> replicas = getReplicas(statement);
+      ReplicaQueue queue =
+          replicas.isEmpty() ? unrouted : queues.computeIfAbsent(replicas, this::newQueue);
+      queue.waiters.add(new QueuedScan(statement, origin));
+      if (!queue.blocked) {
+        queue.blocked = true;
+        blocked.add(queue);
+      }
+      remaining++;
+    }
+
+    /**
+     * If all statements were scheduled and some scan slots are idle, splits the remaining part of
+     * the longest-running scan that can be split, and schedules the splits.
+     *
+     * <p>Must be called while holding the lock.
+     */
+    private void split() {
+      int idle = maxConcurrentScans - inFlight;
+      if (splitter == null || cancelled || idle <= 0 || !blocked.isEmpty()) {
+        return;
+      }
+      long now = System.nanoTime();
+      for (PendingScan pending : running) {
+        if (now - pending.startNanos < splitInterval.toNanos()) {
+          // scans are sorted by start time, the next ones are even younger
+          break;
+        }
+        List<Statement<?>> splits = pending.scan.split(idle + 1);
+        if (!splits.isEmpty()) {
+          for (Statement<?> statement : splits) {
+            enqueue(statement, pending.scan.getOrigin());
+          }
+          drain();
+          return;
+        }
+      }
+    }
+
+    /**
+     * Moves as many queued statements as the current limits allow to the ready queue, taking at
+     * most one statement from each replica queue at a time, so that all queues are served fairly.
+     *
+     * <p>Must be called while holding the lock.
+     */
+    private void drain() {
+      boolean progress = true;
+      while (progress && !cancelled && inFlight < maxConcurrentScans && !blocked.isEmpty()) {
+        progress = false;
+        for (int i = blocked.size(); i > 0 && inFlight < maxConcurrentScans; i--) {
+          ReplicaQueue queue = blocked.poll();
+          NodeScans node = leastBusyReplica(queue);
+          // if all replicas are down, let the driver deal with it
+          if (node != null || !hasLiveReplica(queue)) {
+            QueuedScan queued = queue.waiters.poll();
+            inFlight++;
+            remaining--;
+            if (node != null) {
+              node.inFlight++;
+            }
+            PendingScan pending =
+                new PendingScan(
+                    new RangeScan(queued.statement, executor, splitter, queued.origin), node);
+            running.add(pending);
+            ready.add(pending);
+            progress = true;
+          }
+          if (queue.waiters.isEmpty()) {
+            queue.blocked = false;
+          } else {
+            blocked.add(queue);
+          }
+        }
+      }
+    }
+
+    private void emitReady() {
+      if (wip.getAndIncrement() != 0) {
+        return;
+      }
+      do {
+        PendingScan scan;
+        while ((scan = ready.poll()) != null) {
+          sink.next(scan);
+        }
+        boolean done = false;
+        synchronized (lock) {
+          // statements are moved to the ready queue while holding the lock; scans in flight may
+          // still be split, so the schedule only completes once all of them are done
+          if (remaining == 0 && inFlight == 0 && ready.isEmpty() && !cancelled && !completed) {
+            completed = true;
+            done = true;
+          }
+        }
+        if (done) {
+          sink.complete();
+        }
+      } while (wip.decrementAndGet() != 0);
+    }
+
+    /** Must be called while holding the lock. */
+    @Nullable
+    private NodeScans leastBusyReplica(@NonNull ReplicaQueue queue) {
+      NodeScans best = null;
+      for (NodeScans node : queue.replicas) {
+        if (node.inFlight < maxScansPerNode
+            && node.node.getState() != NodeState.DOWN
+            && (best == null || node.inFlight < best.inFlight)) {
+          best = node;
+        }
+      }
+      return best;
+    }
+
+    /** Must be called while holding the lock. */
+    private boolean hasLiveReplica(@NonNull ReplicaQueue queue) {
+      for (NodeScans node : queue.replicas) {
+        if (node.node.getState() != NodeState.DOWN) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @NonNull
+    private ReplicaQueue newQueue(@NonNull Set<Node> replicas) {
+      List<NodeScans> eligible = new ArrayList<>(replicas.size());
+      for (Node node : replicas) {
+        if (node.getDistance() == NodeDistance.LOCAL) {
+          eligible.add(nodeScans(node));
+        }
+      }
+      if (eligible.isEmpty()) {
+        for (Node node : replicas) {
+          if (node.getDistance() != NodeDistance.IGNORED) {
+            eligible.add(nodeScans(node));
+          }
+        }
+      }
+      return eligible.isEmpty() ? unrouted : new ReplicaQueue(eligible);
+    }
+  }
+
+  /** Must be called while holding the lock. */
+  @NonNull
+  private NodeScans nodeScans(@NonNull Node node) {
+    return nodes.computeIfAbsent(node, NodeScans::new);
+  }
+
+  @NonNull
+  private Set<Node> getReplicas(@NonNull Statement<?> statement) {
+    if (maxScansPerNode == 0) {
+      return Collections.emptySet();
+    }
+    CqlIdentifier keyspace = getKeyspace(statement);
+    Token routingToken = statement.getRoutingToken();
+    if (keyspace != null && routingToken != null) {
+      TokenMap tokenMap = session.getMetadata().getTokenMap().orElse(null);
+      if (tokenMap != null) {
+        return tokenMap.getReplicas(keyspace, routingToken);
+      }
+    }
+    return Collections.emptySet();
+  }
+
+  @Nullable
+  private CqlIdentifier getKeyspace(@NonNull Statement<?> statement) {
+    if (statement.getKeyspace() != null) {
+      return statement.getKeyspace();
+    }
+    if (statement.getRoutingKeyspace() != null) {
+      return statement.getRoutingKeyspace();
+    }
+    return session.getKeyspace().orElse(null);
+  }
+
+  private final class NodeScans {
+
+    private final Node node;
+    // Guarded by the scheduler's lock.
+    private int inFlight;
+
+    private NodeScans(@NonNull Node node) {
+      this.node = node;
+      if (registry != null) {
+        // strip the leading slash of socket addresses
+        String name = node.getEndPoint().toString().replaceFirst("^/", "");
+        registry.gauge("executor/nodes/" + name + "/in-flight", () -> this::getInFlight);
+      }
+    }
+
+    private int getInFlight() {
+      synchronized (lock) {
+        return inFlight;
+      }
+    }
+  }
+
+  private static final class ReplicaQueue {
+
+    private final List<NodeScans> replicas;
+    private final Deque<QueuedScan> waiters = new ArrayDeque<>();
+    private boolean blocked;
+
+    private ReplicaQueue(@NonNull List<NodeScans> replicas) {
+      this.replicas = replicas;
+    }
+  }
+
+  private static final class QueuedScan {
+
+    private final Statement<?> statement;
+    private final RangeScan.Origin origin;
+
+    private QueuedScan(@NonNull Statement<?> statement, @NonNull RangeScan.Origin origin) {
+      this.statement = statement;
+      this.origin = origin;
+    }
+  }
+
+  private static final class PendingScan {
+
+    private final RangeScan scan;
+    private final NodeScans node;
+    private final long startNanos = System.nanoTime();
+
+    private PendingScan(@NonNull RangeScan scan, @Nullable NodeScans node) {
+      this.scan = scan;
+      this.node = node;
+    }
+  }
+}
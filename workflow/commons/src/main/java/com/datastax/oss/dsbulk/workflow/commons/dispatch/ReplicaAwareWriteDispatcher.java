@@ -0,0 +1,410 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.workflow.commons.dispatch;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.loadbalancing.NodeDistance;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.metadata.TokenMap;
+import com.datastax.oss.driver.api.core.metadata.token.Token;
+import com.datastax.oss.dsbulk.executor.api.histogram.HdrHistogramReservoir;
+import com.datastax.oss.dsbulk.executor.api.result.WriteResult;
+import com.datastax.oss.dsbulk.executor.api.writer.BulkWriter;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * Dispatches writes to the cluster while enforcing a separate in-flight budget for each node.
+ *
+ * <p>Statements are routed by replica set, using the cluster's {@link TokenMap}; statements sharing
+ * the same replicas wait in the same queue. A statement is executed as soon as one of its replicas
+ * has fewer than {@code maxConcurrentQueriesPerNode} requests in flight, and the total number of
+ * requests in flight is lower than {@code maxConcurrentQueries}; the request is then accounted
+ * against the least busy of those replicas. Only replicas in the local datacenter are considered,
+ * if any. This way, a slow node can only hold its own share of the global concurrency, and
+ * statements for healthy nodes keep flowing while statements for the slow node wait in their queue.
+ * Statements whose replicas cannot be determined are only subject to the global limit.
+ *
+ * <p>Queued statements do not hold any request permit, but they still count towards {@code
+ * maxPendingQueries}, the maximum number of statements requested from upstream and not yet
+ * completed; when that number is reached, upstream is not requested more statements until some
+ * writes complete.
+ *
+ * <p>When a metric registry is provided, this dispatcher registers, for each node, a gauge of its
+ * in-flight requests ({@code executor/nodes/<node>/in-flight}) and a timer of the requests
+ * accounted against it ({@code executor/nodes/<node>/writes}), plus a gauge of the number of queued
+ * statements ({@code executor/queued}).
+ *
+ * <p>This class is thread-safe.
+ */
+public class ReplicaAwareWriteDispatcher {
+
+  private final CqlSession session;
+  private final BulkWriter executor;
+  private final int maxConcurrentQueriesPerNode;
+  private final int maxPendingQueries;
+  private final MetricRegistry registry;
+
+  // The state below is guarded by this lock.
+  private final Object lock = new Object();
+  private final Map<Set<Node>, ReplicaQueue> queues = new HashMap<>();
+  private final Map<Node, NodeState> nodes = new HashMap<>();
+  private final ReplicaQueue unrouted = new ReplicaQueue(Collections.emptyList());
+  // Non-empty queues, in the order in which they should be drained.
+  private final Deque<ReplicaQueue> blocked = new ArrayDeque<>();
+  private int maxConcurrentQueries;
+  private int inFlight;
+  private int queued;
+
+  // Writes ready to be executed; executing them outside of the lock, and from one thread at a
+  // time, avoids unbounded recursion when writes complete synchronously.
+  private final Queue<PendingWrite> ready = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger wip = new AtomicInteger();
+
+  /**
+   * Creates a new dispatcher.
+   *
+   * @param session the session, used to locate the replicas of each statement.
+   * @param executor the executor to use to execute the writes.
+   * @param maxConcurrentQueries the maximum number of requests in flight, for all nodes.
+   * @param maxConcurrentQueriesPerNode the maximum number of requests in flight, per node.
+   * @param maxPendingQueries the maximum number of statements being either queued or executed.
+   * @param registry the registry where per-node metrics should be registered, or {@code null} to
+   *     disable metrics.
+   */
+  public ReplicaAwareWriteDispatcher(
+      @NonNull CqlSession session,
+      @NonNull BulkWriter executor,
+      int maxConcurrentQueries,
+      int maxConcurrentQueriesPerNode,
+      int maxPendingQueries,
+      @Nullable MetricRegistry registry) {
+    if (maxConcurrentQueries <= 0
+        || maxConcurrentQueriesPerNode <= 0
+        || maxPendingQueries < maxConcurrentQueries) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Invalid dispatcher limits: maxConcurrentQueries=%d, maxConcurrentQueriesPerNode=%d, maxPendingQueries=%d",
+              maxConcurrentQueries, maxConcurrentQueriesPerNode, maxPendingQueries));
+    }
+    this.session = Objects.requireNonNull(session);
+    this.executor = Objects.requireNonNull(executor);
+    this.maxConcurrentQueries = maxConcurrentQueries;
+    this.maxConcurrentQueriesPerNode = maxConcurrentQueriesPerNode;
+    this.maxPendingQueries = maxPendingQueries;
+    this.registry = registry;
+    if (registry != null) {
+      registry.gauge("executor/queued", () -> this::getQueued);
+    }
+  }
+
+  /**
+   * Changes the maximum number of requests in flight, for all nodes. When the limit is increased,
+   * queued statements are executed immediately if possible; when it is decreased, requests already
+   * in flight are not affected, and queued statements wait until enough requests complete.
+   *
+   * @param maxConcurrentQueries the new limit; it is capped to the maximum number of pending
+   *     statements.
+   */
+  public void setMaxConcurrentQueries(int maxConcurrentQueries) {
+    if (maxConcurrentQueries <= 0) {
+      throw new IllegalArgumentException(
+          "Invalid dispatcher limits: maxConcurrentQueries=" + maxConcurrentQueries);
+    }
+    synchronized (lock) {
+      this.maxConcurrentQueries = Math.min(maxConcurrentQueries, maxPendingQueries);
+      drain();
+    }
+    executeReady();
+  }
+
+  /**
+   * Executes the given statements.
+   *
+   * @param statements the statements to execute.
+   * @return a flow of write results, in no particular order.
+   */
+  @NonNull
+  public Flux<WriteResult> dispatch(@NonNull Flux<? extends Statement<?>> statements) {
+    return statements.flatMap(this::write, maxPendingQueries);
+  }
+
+  private int getQueued() {
+    synchronized (lock) {
+      return queued;
+    }
+  }
+
+  @NonNull
+  private Mono<WriteResult> write(@NonNull Statement<?> statement) {
+    return Mono.create(
+        sink -> {
+          PendingWrite write = new PendingWrite(statement, sink);
+          sink.onCancel(() -> cancel(write));
+          submit(write);
+        });
+  }
+
+  private void submit(@NonNull PendingWrite write) {
+    Set<Node> replicas = getReplicas(write.statement);
+    synchronized (lock) {
+      write.queue =
+          replicas.isEmpty() ? unrouted : queues.computeIfAbsent(replicas, this::newQueue);
+      // don't overtake statements already waiting for the same replicas
+      if (write.queue.waiters.isEmpty() && tryAcquire(write)) {
+        ready.add(write);
+      } else {
+        write.queue.waiters.add(write);
+        queued++;
+        if (!write.queue.blocked) {
+          write.queue.blocked = true;
+          blocked.add(write.queue);
+        }
+      }
+    }
+    executeReady();
+  }
+
+  private void release(@NonNull PendingWrite write, long start) {
+    NodeState node = write.node;
+    if (node != null && node.timer != null) {
+      node.timer.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+    synchronized (lock) {
+      inFlight--;
+      if (node != null) {
+        node.inFlight--;
+      }
+      drain();
+    }
+    executeReady();
+  }
+
+  private void cancel(@NonNull PendingWrite write) {
+    write.cancelled = true;
+    Disposable execution = write.execution;
+    if (execution != null) {
+      execution.dispose();
+    } else {
+      synchronized (lock) {
+        if (write.queue != null && write.queue.waiters.remove(write)) {
+          queued--;
+        }
+      }
+    }
+  }
+
+  /** Must be called while holding the lock. */
+  private boolean tryAcquire(@NonNull PendingWrite write) {
+    if (inFlight >= maxConcurrentQueries) {
+      return false;
+    }
+    NodeState best = null;
+    for (NodeState node : write.queue.replicas) {
+      if (node.inFlight < maxConcurrentQueriesPerNode
+          && (best == null || node.inFlight < best.inFlight)) {
+        best = node;
+      }
+    }
+    if (best == null && !write.queue.replicas.isEmpty()) {
+      return false;
+    }
+    inFlight++;
+    if (best != null) {
+      best.inFlight++;
+    }
+    write.node = best;
+    return true;
+  }
+
+  /**
+   * Moves as many queued writes as the current limits allow to the ready queue, taking at most one
+   * write from each replica queue at a time, so that all queues are drained fairly.
+   *
+   * <p>Must be called while holding the lock.
+   */
+  private void drain() {
+    boolean progress = true;
+    while (progress && inFlight < maxConcurrentQueries && !blocked.isEmpty()) {
+      progress = false;
+      for (int i = blocked.size(); i > 0 && inFlight < maxConcurrentQueries; i--) {
+        ReplicaQueue queue = blocked.poll();
+        PendingWrite next = queue.waiters.peek();
+        if (next != null && tryAcquire(next)) {
+          queue.waiters.poll();
+          queued--;
+          ready.add(next);
+          progress = true;
+        }
+        if (queue.waiters.isEmpty()) {
+          queue.blocked = false;
+        } else {
+          blocked.add(queue);
+        }
+      }
+    }
+  }
+
+  private void executeReady() {
+    if (wip.getAndIncrement() != 0) {
+      return;
+    }
+    do {
+      PendingWrite write;
+      while ((write = ready.poll()) != null) {
+        execute(write);
+      }
+    } while (wip.decrementAndGet() != 0);
+  }
+
+  private void execute(@NonNull PendingWrite write) {
+    long start = System.nanoTime();
+    if (write.cancelled) {
+      release(write, start);
+      return;
+    }
+    MonoSink<WriteResult> sink = write.sink;
+    write.execution =
+        Mono.from(executor.writeReactive(write.statement))
+            .doFinally(signal -> release(write, start))
+            .subscribe(sink::success, sink::error, sink::success);
+    if (write.cancelled) {
+      write.execution.dispose();
+    }
+  }
+
+  @NonNull
+  private ReplicaQueue newQueue(@NonNull Set<Node> replicas) {
+    List<NodeState> eligible = new ArrayList<>(replicas.size());
+    for (Node node : replicas) {
+      if (node.getDistance() == NodeDistance.LOCAL) {
+        eligible.add(nodes.computeIfAbsent(node, NodeState::new));
+      }
+    }
+    if (eligible.isEmpty()) {
+      for (Node node : replicas) {
+        if (node.getDistance() != NodeDistance.IGNORED) {
+          eligible.add(nodes.computeIfAbsent(node, NodeState::new));
+        }
+      }
+    }
+    return eligible.isEmpty() ? unrouted : new ReplicaQueue(eligible);
+  }
+
+  @NonNull
+  private Set<Node> getReplicas(@NonNull Statement<?> statement) {
+    CqlIdentifier keyspace = getKeyspace(statement);
+    if (keyspace != null) {
+      TokenMap tokenMap = session.getMetadata().getTokenMap().orElse(null);
+      if (tokenMap != null) {
+        ByteBuffer routingKey = statement.getRoutingKey();
+        if (routingKey != null) {
+          return tokenMap.getReplicas(keyspace, routingKey);
+        }
+        Token routingToken = statement.getRoutingToken();
+        if (routingToken != null) {
+          return tokenMap.getReplicas(keyspace, routingToken);
+        }
+      }
+    }
+    return Collections.emptySet();
+  }
+
+  @Nullable
+  private CqlIdentifier getKeyspace(@NonNull Statement<?> statement) {
+    if (statement.getKeyspace() != null) {
+      return statement.getKeyspace();
+    }
+    if (statement.getRoutingKeyspace() != null) {
+      return statement.getRoutingKeyspace();
+    }
+    return session.getKeyspace().orElse(null);
+  }
+
+  private final class NodeState {
+
+    // Guarded by the dispatcher's lock.
+    private int inFlight;
+    private final Timer timer;
+
+    private NodeState(@NonNull Node node) {
+      if (registry != null) {
+        // strip the leading slash of socket addresses
+        String name = node.getEndPoint().toString().replaceFirst("^/", "");
+        registry.gauge("executor/nodes/" + name + "/in-flight", () -> this::getInFlight);
+        timer =
+            registry.timer(
+                "executor/nodes/" + name + "/writes", () -> new Timer(new HdrHistogramReservoir()));
+      } else {
+        timer = null;
+      }
+    }
+
+    private int getInFlight() {
+      synchronized (lock) {
+        return inFlight;
+      }
+    }
+  }
+
+  private static final class ReplicaQueue {
+
+    private final List<NodeState> replicas;
+    private final Deque<PendingWrite> waiters = new ArrayDeque<>();
+    private boolean blocked;
+
+    private ReplicaQueue(@NonNull List<NodeState> replicas) {
+      this.replicas = replicas;
+    }
+  }
+
+  private static final class PendingWrite {
+
+    private final Statement<?> statement;
+    private final MonoSink<WriteResult> sink;
+    private ReplicaQueue queue;
+    private NodeState node;
+    private volatile Disposable execution;
+    private volatile boolean cancelled;
+
+    private PendingWrite(@NonNull Statement<?> statement, @NonNull MonoSink<WriteResult> sink) {
+      this.statement = statement;
+      this.sink = sink;
+    }
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.workflow.commons.log;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.datastax.oss.driver.shaded.guava.common.base.Splitter;
+import com.datastax.oss.dsbulk.connectors.api.ReadCheckpoint;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The checkpoint of a load operation: the positions processed so far in each resource, and which
+ * resources were processed entirely.
+ *
+ * <p>Checkpoints are periodically written by the {@link LogManager} to the operation directory, and
+ * can be read back to resume an interrupted operation. The checkpoint file contains one line per
+ * resource, in the form {@code <resource>;<status>;<ranges>}, where status is either {@code
+ * COMPLETE} or {@code PARTIAL}, and ranges is a comma-separated list of processed positions, e.g.
+ * {@code file:///data.csv;PARTIAL;1:1500,1502:2000}.
+ */
+public final class Checkpoint implements ReadCheckpoint {
+
+  public static final String CHECKPOINT_FILE = "checkpoint.txt";
+
+  private static final Splitter RANGES_SPLITTER = Splitter.on(',');
+
+  private static final String COMPLETE = "COMPLETE";
+  private static final String PARTIAL = "PARTIAL";
+
+  private final Map<URI, List<Range>> positions;
+  private final Set<URI> completeResources;
+
+  /**
+   * Creates a new checkpoint.
+   *
+   * @param positions the processed positions, per resource; ranges must be sorted and must not
+   *     overlap, as produced by {@link PositionsTracker}.
+   * @param completeResources the resources that were processed entirely.
+   */
+  public Checkpoint(@NonNull Map<URI, List<Range>> positions, @NonNull Set<URI> completeResources) {
+    this.positions = positions;
+    this.completeResources = completeResources;
+  }
+
+  /**
+   * Reads a checkpoint file previously written with {@link #write(Path)}.
+   *
+   * @param file the file to read.
+   * @return the checkpoint.
+   * @throws IOException if the file cannot be read.
+   * @throws IllegalArgumentException if the file is not a valid checkpoint file.
+   */
+  @NonNull
+  public static Checkpoint read(@NonNull Path file) throws IOException {
+    Map<URI, List<Range>> positions = new HashMap<>();
+    Set<URI> completeResources = new HashSet<>();
+    try (BufferedReader reader = Files.newBufferedReader(file, UTF_8)) {
+      int lineNumber = 0;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        if (line.isEmpty()) {
+          continue;
+        }
+        try {
+          // parse from the right, since resource URIs may contain semicolons
+          int rangesStart = line.lastIndexOf(';');
+          int statusStart = line.lastIndexOf(';', rangesStart - 1);
+          URI resource = URI.create(line.substring(0, statusStart));
+          String status = line.substring(statusStart + 1, rangesStart);
+          if (status.equals(COMPLETE)) {
+            completeResources.add(resource);
+          } else if (!status.equals(PARTIAL)) {
+            throw new IllegalArgumentException("unknown status: " + status);
+          }
+          positions.put(resource, parseRanges(line.substring(rangesStart + 1)));
+        } catch (RuntimeException e) {
+          throw new IllegalArgumentException(
+              String.format("Invalid checkpoint file %s, line %d: %s", file, lineNumber, line), e);
+        }
+      }
+    }
+    return new Checkpoint(positions, completeResources);
+  }
+
+  /**
+   * Writes this checkpoint to the given file, replacing it if it exists.
+   *
+   * <p>The previous checkpoint is left untouched if the operation is interrupted while the
+   * checkpoint is being written.
+   *
+   * @param file the file to write.
+   * @throws IOException if the file cannot be written.
+   */
+  public void write(@NonNull Path file) throws IOException {
+    CheckpointFiles.write(
+        file,
+        writer -> {
+          // sort resources by URI; complete resources may have no positions, e.g. empty files
+          Set<URI> resources = new TreeSet<>(positions.keySet());
+          resources.addAll(completeResources);
+          for (URI resource : resources) {
+            writer.print(resource);
+            writer.print(';');
+            writer.print(completeResources.contains(resource) ? COMPLETE : PARTIAL);
+            writer.print(';');
+            boolean first = true;
+            List<Range> ranges = positions.get(resource);
+            if (ranges != null) {
+              for (Range range : ranges) {
+                if (!first) {
+                  writer.print(',');
+                }
+                writer.print(range.getLower());
+                writer.print(':');
+                writer.print(range.getUpper());
+                first = false;
+              }
+            }
+            writer.println();
+          }
+        });
+  }
+
+  /** Returns the processed positions, per resource. */
+  @NonNull
+  public Map<URI, List<Range>> getPositions() {
+    return positions;
+  }
+
+  /** Returns the resources that were processed entirely. */
+  @NonNull
+  public Set<URI> getCompleteResources() {
+    return completeResources;
+  }
+
+  @Override
+  public boolean isComplete(@NonNull URI resource) {
+    return completeResources.contains(resource);
+  }
+
+  @Override
+  public boolean isProcessed(@NonNull URI resource, long position) {
+    List<Range> ranges = positions.get(resource);
+    if (ranges == null) {
+      return false;
+    }
+    // ranges are sorted and do not overlap: binary search for a range containing the position
+    int low = 0;
+    int high = ranges.size() - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      Range range = ranges.get(mid);
+      if (range.getLower() > position) {
+        high = mid - 1;
+      } else if (range.getUpper() < position) {
+        low = mid + 1;
+      } else {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @NonNull
+  private static List<Range> parseRanges(@NonNull String ranges) {
+    List<Range> result = new ArrayList<>();
+    if (ranges.isEmpty()) {
+      return result;
+    }
+    for (String token : RANGES_SPLITTER.split(ranges)) {
+      int colon = token.indexOf(':');
+      long lower = Long.parseLong(token.substring(0, colon));
+      long upper = Long.parseLong(token.substring(colon + 1));
+      if (lower > upper
+          || (!result.isEmpty() && result.get(result.size() - 1).getUpper() >= lower)) {
+        throw new IllegalArgumentException("ranges must be sorted and must not overlap");
+      }
+      result.add(new Range(lower, upper));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.workflow.commons.log;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Consumer;
+
+/** Utilities shared by the checkpoint implementations. */
+final class CheckpointFiles {
+
+  private CheckpointFiles() {}
+
+  /**
+   * Writes a checkpoint file, replacing it if it exists.
+   *
+   * <p>The checkpoint is first written to a temporary file, which is then moved to its final
+   * destination; this way, if the operation is interrupted while the checkpoint is being written,
+   * the previous checkpoint is left untouched.
+   *
+   * @param file the file to write.
+   * @param contents prints the contents of the checkpoint to the given writer.
+   * @throws IOException if the file cannot be written.
+   */
+  static void write(@NonNull Path file, @NonNull Consumer<PrintWriter> contents)
+      throws IOException {
+    Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+    try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(tempFile, UTF_8))) {
+      contents.accept(writer);
+      if (writer.checkError()) {
+        throw new IOException("Could not write checkpoint file " + tempFile);
+      }
+    }
+    try {
+      Files.move(
+          tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+}
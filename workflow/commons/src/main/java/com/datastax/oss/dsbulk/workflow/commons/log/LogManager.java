@@ -39,7 +39,10 @@ import com.datastax.oss.driver.api.core.servererrors.QueryExecutionException;
 import com.datastax.oss.driver.api.core.servererrors.ServerError;
 import com.datastax.oss.driver.api.core.type.codec.registry.CodecRegistry;
 import com.datastax.oss.driver.shaded.guava.common.base.Joiner;
+import com.datastax.oss.driver.shaded.guava.common.util.concurrent.ThreadFactoryBuilder;
+import com.datastax.oss.dsbulk.connectors.api.CommonConnectorFeature;
 import com.datastax.oss.dsbulk.connectors.api.ErrorRecord;
+import com.datastax.oss.dsbulk.connectors.api.ReadCheckpoint;
 import com.datastax.oss.dsbulk.connectors.api.Record;
 import com.datastax.oss.dsbulk.executor.api.result.ReadResult;
 import com.datastax.oss.dsbulk.executor.api.result.Result;
@@ -66,11 +69,19 @@ import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -111,6 +122,10 @@ public class LogManager implements AutoCloseable {
   private final StatementFormatter statementFormatter;
   private final StatementFormatVerbosity statementFormatVerbosity;
   private final RowFormatter rowFormatter;
+  private final boolean checkpointEnabled;
+  private final Duration checkpointInterval;
+  @Nullable private final Checkpoint resumedCheckpoint;
+  @Nullable private final TokenRangeCheckpoint tokenRangeCheckpoint;
 
   private final AtomicInteger errors = new AtomicInteger(0);
   private final LongAdder totalItems = new LongAdder();
@@ -130,6 +145,10 @@ public class LogManager implements AutoCloseable {
   private PositionsTracker positionsTracker;
   private PrintWriter positionsPrinter;
 
+  private final Set<URI> completeResources = ConcurrentHashMap.newKeySet();
+  private final Map<URI, Range> fullyReadResources = new ConcurrentHashMap<>();
+  private ScheduledExecutorService checkpointScheduler;
+
   private FluxSink<ErrorRecord> failedRecordSink;
   private FluxSink<ErrorRecord> unmappableRecordSink;
   private FluxSink<UnmappableStatement> unmappableStatementSink;
@@ -152,6 +171,45 @@ public class LogManager implements AutoCloseable {
       StatementFormatter statementFormatter,
       StatementFormatVerbosity statementFormatVerbosity,
       RowFormatter rowFormatter) {
+    this(
+        session,
+        operationDirectory,
+        errorThreshold,
+        queryWarningsThreshold,
+        trackPositions,
+        statementFormatter,
+        statementFormatVerbosity,
+        rowFormatter,
+        false,
+        Duration.ZERO,
+        null,
+        null);
+  }
+
+  /**
+   * Creates a new log manager.
+   *
+   * @param checkpointEnabled whether to write checkpoints to the operation directory; only
+   *     applicable if positions are being tracked, or if a token range checkpoint is provided.
+   * @param checkpointInterval the interval between two checkpoints.
+   * @param resumedCheckpoint the checkpoint of the load operation being resumed, or null if none.
+   * @param tokenRangeCheckpoint the checkpoint of the current unload or count operation, or null if
+   *     none; it is updated by the workflow as token ranges are read, and written by this log
+   *     manager.
+   */
+  public LogManager(
+      CqlSession session,
+      Path operationDirectory,
+      ErrorThreshold errorThreshold,
+      ErrorThreshold queryWarningsThreshold,
+      boolean trackPositions,
+      StatementFormatter statementFormatter,
+      StatementFormatVerbosity statementFormatVerbosity,
+      RowFormatter rowFormatter,
+      boolean checkpointEnabled,
+      Duration checkpointInterval,
+      @Nullable Checkpoint resumedCheckpoint,
+      @Nullable TokenRangeCheckpoint tokenRangeCheckpoint) {
     this.session = session;
     this.operationDirectory = operationDirectory;
     this.errorThreshold = errorThreshold;
@@ -160,6 +218,10 @@ public class LogManager implements AutoCloseable {
     this.statementFormatter = statementFormatter;
     this.statementFormatVerbosity = statementFormatVerbosity;
     this.rowFormatter = rowFormatter;
+    this.checkpointEnabled = (trackPositions || tokenRangeCheckpoint != null) && checkpointEnabled;
+    this.checkpointInterval = checkpointInterval;
+    this.resumedCheckpoint = resumedCheckpoint;
+    this.tokenRangeCheckpoint = tokenRangeCheckpoint;
   }
 
   public void init() {
@@ -168,7 +230,12 @@ public class LogManager implements AutoCloseable {
     stackTracePrinter = new StackTracePrinter();
     stackTracePrinter.setOptionList(LogSettings.STACK_TRACE_PRINTER_OPTIONS);
     stackTracePrinter.start();
-    positionsTracker = new PositionsTracker();
+    if (resumedCheckpoint == null) {
+      positionsTracker = new PositionsTracker();
+    } else {
+      positionsTracker = new PositionsTracker(resumedCheckpoint.getPositions());
+      completeResources.addAll(resumedCheckpoint.getCompleteResources());
+    }
     failedRecordSink = newFailedRecordSink();
     unmappableRecordSink = newUnmappableRecordSink();
     unmappableStatementSink = newUnmappableStatementSink();
@@ -186,6 +253,15 @@ public class LogManager implements AutoCloseable {
     // workflow will receive these error signals and stop as expected.
     Hooks.onErrorDropped(t -> uncaughtExceptionSink.error(t));
     Thread.setDefaultUncaughtExceptionHandler((thread, t) -> uncaughtExceptionSink.error(t));
+    if (checkpointEnabled) {
+      checkpointScheduler =
+          Executors.newSingleThreadScheduledExecutor(
+              new ThreadFactoryBuilder().setDaemon(true).setNameFormat("checkpoint-%d").build());
+      long intervalMillis = checkpointInterval.toMillis();
+      Future<?> unused =
+          checkpointScheduler.scheduleWithFixedDelay(
+              this::writePeriodicCheckpoint, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
   }
 
   public Path getOperationDirectory() {
@@ -218,13 +294,32 @@ public class LogManager implements AutoCloseable {
               pw.close();
             });
     positionsSink.complete();
+    if (checkpointScheduler != null) {
+      checkpointScheduler.shutdown();
+      try {
+        checkpointScheduler.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      try {
+        // write a final checkpoint with all the positions or token ranges processed so far
+        writeCheckpoint();
+      } finally {
+        writePositions();
+      }
+    } else {
+      writePositions();
+    }
+  }
+
+  private void writePositions() throws IOException {
     if (trackPositions && !positionsTracker.isEmpty()) {
       positionsPrinter =
           new PrintWriter(
               Files.newBufferedWriter(
                   operationDirectory.resolve(POSITIONS_FILE), UTF_8, CREATE_NEW, WRITE));
       // sort positions by URI
-      new TreeMap<>(positionsTracker.getPositions())
+      new TreeMap<>(positionsTracker.snapshot())
           .forEach((resource, ranges) -> appendToPositionsFile(resource, ranges, positionsPrinter));
       positionsPrinter.flush();
       positionsPrinter.close();
@@ -253,6 +348,23 @@ public class LogManager implements AutoCloseable {
     if (positionsTracker != null) {
       LOGGER.info("Last processed positions can be found in {}", POSITIONS_FILE);
     }
+    if (checkpointScheduler != null) {
+      if (trackPositions) {
+        LOGGER.info("Operation checkpoint can be found in {}", Checkpoint.CHECKPOINT_FILE);
+        if (!completeResources.containsAll(positionsTracker.getPositions().keySet())) {
+          LOGGER.info(
+              "To resume this operation and skip the records already processed, use: -resumeFrom {}",
+              operationDirectory);
+        }
+      } else if (tokenRangeCheckpoint != null && !tokenRangeCheckpoint.isEmpty()) {
+        LOGGER.info("Operation checkpoint can be found in {}", Checkpoint.CHECKPOINT_FILE);
+        if (!tokenRangeCheckpoint.isComplete()) {
+          LOGGER.info(
+              "To resume this operation and skip the token ranges already read, use: -resumeFrom {}",
+              operationDirectory);
+        }
+      }
+    }
   }
 
   /**
@@ -480,6 +592,108 @@ public class LogManager implements AutoCloseable {
             .flux();
   }
 
+  /**
+   * Handler for resources being read.
+   *
+   * <p>Used only in the load workflow, and meant to be applied to each flow of records emitted by
+   * the connector for a single resource.
+   *
+   * <p>Records the span of positions emitted by the connector for the resource, once the resource
+   * has been fully read; a resource whose span of positions has been entirely processed is then
+   * reported as complete in the operation {@linkplain Checkpoint checkpoint}.
+   *
+   * <p>Connectors supporting {@link CommonConnectorFeature#RESUMABLE_READS} report the resources
+   * they have entirely read to the {@linkplain #newReadCheckpoint() read checkpoint} themselves,
+   * including resources that emit no records; this handler is then only a safety net for other
+   * connectors. When resuming an operation, it also filters out the records that were already
+   * processed, should the connector emit them anyway.
+   *
+   * @return A handler for resources being read.
+   */
+  public Function<Flux<Record>, Flux<Record>> newResourceCompletionHandler() {
+    return upstream ->
+        Flux.defer(
+            () -> {
+              AtomicReference<Range> span = new AtomicReference<>();
+              AtomicReference<URI> resource = new AtomicReference<>();
+              return upstream
+                  .doOnNext(
+                      record -> {
+                        Range current = span.get();
+                        if (current == null) {
+                          resource.set(record.getResource());
+                          span.set(new Range(record.getPosition()));
+                        } else {
+                          // records are not necessarily emitted in order, e.g. when a file is
+                          // split and its ranges are parsed concurrently
+                          current.setLower(Math.min(current.getLower(), record.getPosition()));
+                          current.setUpper(Math.max(current.getUpper(), record.getPosition()));
+                        }
+                      })
+                  .doOnComplete(
+                      () -> {
+                        if (resource.get() != null) {
+                          markFullyRead(resource.get(), span.get());
+                        }
+                      })
+                  .transform(this::skipProcessedRecords);
+            });
+  }
+
+  /**
+   * Returns the checkpoint to hand over to the connector when reading; it reports the records
+   * processed by the operation being resumed, if any, and accounts for the resources that the
+   * connector has entirely read.
+   *
+   * <p>Used only in the load workflow.
+   *
+   * @return The read checkpoint of this operation.
+   */
+  @NonNull
+  public ReadCheckpoint newReadCheckpoint() {
+    return new ReadCheckpoint() {
+
+      @Override
+      public boolean isComplete(@NonNull URI resource) {
+        return resumedCheckpoint != null && resumedCheckpoint.isComplete(resource);
+      }
+
+      @Override
+      public boolean isProcessed(@NonNull URI resource, long position) {
+        return resumedCheckpoint != null && resumedCheckpoint.isProcessed(resource, position);
+      }
+
+      @Override
+      public void resourceRead(@NonNull URI resource, long firstPosition, long lastPosition) {
+        if (firstPosition == -1) {
+          // the resource contains no records at all
+          completeResources.add(resource);
+        } else {
+          markFullyRead(resource, new Range(firstPosition, lastPosition));
+        }
+      }
+    };
+  }
+
+  private void markFullyRead(@NonNull URI resource, @NonNull Range span) {
+    fullyReadResources.merge(
+        resource,
+        span,
+        (previous, current) ->
+            new Range(
+                Math.min(previous.getLower(), current.getLower()),
+                Math.max(previous.getUpper(), current.getUpper())));
+  }
+
+  @NonNull
+  private Flux<Record> skipProcessedRecords(@NonNull Flux<Record> records) {
+    if (resumedCheckpoint == null) {
+      return records;
+    }
+    return records.filter(
+        record -> !resumedCheckpoint.isProcessed(record.getResource(), record.getPosition()));
+  }
+
   public <T> Function<Flux<T>, Flux<T>> newTotalItemsCounter() {
     return upstream -> upstream.doOnNext(r -> totalItems.increment());
   }
@@ -820,6 +1034,41 @@ public class LogManager implements AutoCloseable {
     }
   }
 
+  // Checkpoints
+
+  private void writePeriodicCheckpoint() {
+    try {
+      writeCheckpoint();
+    } catch (IOException | RuntimeException e) {
+      // an uncaught exception would cancel subsequent checkpoints
+      LOGGER.warn("Could not write checkpoint file: " + e.getMessage(), e);
+    }
+  }
+
+  private synchronized void writeCheckpoint() throws IOException {
+    if (!trackPositions) {
+      if (tokenRangeCheckpoint != null && !tokenRangeCheckpoint.isEmpty()) {
+        tokenRangeCheckpoint.write(operationDirectory.resolve(Checkpoint.CHECKPOINT_FILE));
+      }
+      return;
+    }
+    Map<URI, List<Range>> positions = positionsTracker.snapshot();
+    fullyReadResources.forEach(
+        (resource, span) -> {
+          List<Range> ranges = positions.get(resource);
+          if (ranges != null) {
+            for (Range range : ranges) {
+              if (range.getLower() <= span.getLower() && range.getUpper() >= span.getUpper()) {
+                completeResources.add(resource);
+                break;
+              }
+            }
+          }
+        });
+    new Checkpoint(positions, completeResources)
+        .write(operationDirectory.resolve(Checkpoint.CHECKPOINT_FILE));
+  }
+
   // Utility methods
 
   private static void appendToPositionsFile(
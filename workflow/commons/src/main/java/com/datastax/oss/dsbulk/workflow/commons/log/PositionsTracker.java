@@ -22,10 +22,28 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Tracks processed positions per resource, as sorted lists of non-overlapping {@link Range}s.
+ *
+ * <p>Positions may be updated concurrently, and {@linkplain #snapshot() snapshots} may be taken
+ * while positions are being updated, e.g. when writing checkpoints. Each resource has its own lock,
+ * so that updates to different resources never contend with one another.
+ */
 public class PositionsTracker {
 
-  private final Map<URI, List<Range>> positions = new HashMap<>();
+  private final Map<URI, List<Range>> positions = new ConcurrentHashMap<>();
+
+  public PositionsTracker() {}
+
+  /**
+   * Creates a new tracker that already contains the given positions, e.g. the positions processed
+   * by a previous operation that is being resumed.
+   */
+  public PositionsTracker(@NonNull Map<URI, List<Range>> initialPositions) {
+    positions.putAll(copy(initialPositions));
+  }
 
   public Map<URI, List<Range>> getPositions() {
     return positions;
@@ -35,22 +53,37 @@ public class PositionsTracker {
     return positions.isEmpty();
   }
 
+  /** Returns a deep copy of the positions currently tracked. */
+  @NonNull
+  public Map<URI, List<Range>> snapshot() {
+    return copy(positions);
+  }
+
   public void update(URI resource, long position) {
     if (position > 0) {
-      positions.compute(
-          resource,
-          (res, positions) -> {
-            if (positions == null) {
-              positions = new ArrayList<>(100);
-              positions.add(new Range(position));
-              return positions;
-            } else {
-              return addPosition(positions, position);
-            }
-          });
+      List<Range> ranges = positions.computeIfAbsent(resource, res -> new ArrayList<>(100));
+      synchronized (ranges) {
+        addPosition(ranges, position);
+      }
     }
   }
 
+  @NonNull
+  private static Map<URI, List<Range>> copy(@NonNull Map<URI, List<Range>> positions) {
+    Map<URI, List<Range>> copy = new HashMap<>(positions.size());
+    positions.forEach(
+        (resource, ranges) -> {
+          synchronized (ranges) {
+            List<Range> rangesCopy = new ArrayList<>(ranges.size());
+            for (Range range : ranges) {
+              rangesCopy.add(new Range(range.getLower(), range.getUpper()));
+            }
+            copy.put(resource, rangesCopy);
+          }
+        });
+    return copy;
+  }
+
   @NonNull
   private static List<Range> addPosition(@NonNull List<Range> positions, long position) {
     ListIterator<Range> iterator = positions.listIterator();
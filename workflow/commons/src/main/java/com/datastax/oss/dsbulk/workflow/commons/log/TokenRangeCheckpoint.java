@@ -0,0 +1,298 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.workflow.commons.log;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.datastax.oss.driver.api.core.metadata.token.Token;
+import com.datastax.oss.driver.api.core.metadata.token.TokenRange;
+import com.datastax.oss.driver.internal.core.metadata.token.TokenFactory;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The checkpoint of an unload or count operation: the token ranges to read, and which ones were
+ * read entirely. When counting rows, the checkpoint also holds the totals of the ranges read so
+ * far.
+ *
+ * <p>Checkpoints are periodically written by the {@link LogManager} to the operation directory, and
+ * can be read back to resume an interrupted operation; the resumed operation then only reads the
+ * pending ranges. The checkpoint file contains one line per token range, in the form {@code
+ * range;<start>;<end>;<status>}, where status is either {@code COMPLETE} or {@code PENDING},
+ * followed by the totals, if any: {@code total;<rows>} for the global total, {@code
+ * range-total;<start>;<end>;<rows>} for the totals per ring range, and {@code
+ * node-total;<node>;<rows>} for the totals per node.
+ *
+ * <p>This class is thread-safe.
+ */
+public final class TokenRangeCheckpoint {
+
+  private static final String COMPLETE = "COMPLETE";
+  private static final String PENDING = "PENDING";
+
+  private static final String RANGE = "range";
+  private static final String TOTAL = "total";
+  private static final String RANGE_TOTAL = "range-total";
+  private static final String NODE_TOTAL = "node-total";
+
+  private final TokenFactory tokenFactory;
+
+  // ranges indexed by end token, since ranges to read never overlap
+  private final Map<Token, TokenRange> ranges = new LinkedHashMap<>();
+  private final Set<Token> completeRanges = new HashSet<>();
+
+  private boolean hasTotals;
+  private long totalRows;
+  private final Map<TokenRange, Long> totalsByRange = new HashMap<>();
+  private final Map<String, Long> totalsByNode = new HashMap<>();
+
+  /**
+   * Creates a new, empty checkpoint.
+   *
+   * @param tokenFactory the token factory of the cluster, used to format and parse tokens.
+   */
+  public TokenRangeCheckpoint(@NonNull TokenFactory tokenFactory) {
+    this.tokenFactory = tokenFactory;
+  }
+
+  /**
+   * Reads a checkpoint file previously written with {@link #write(Path)}.
+   *
+   * @param file the file to read.
+   * @param tokenFactory the token factory of the cluster, used to parse tokens.
+   * @return the checkpoint.
+   * @throws IOException if the file cannot be read.
+   * @throws IllegalArgumentException if the file is not a valid token range checkpoint file.
+   */
+  @NonNull
+  public static TokenRangeCheckpoint read(@NonNull Path file, @NonNull TokenFactory tokenFactory)
+      throws IOException {
+    TokenRangeCheckpoint checkpoint = new TokenRangeCheckpoint(tokenFactory);
+    try (BufferedReader reader = Files.newBufferedReader(file, UTF_8)) {
+      int lineNumber = 0;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        if (line.isEmpty()) {
+          continue;
+        }
+        try {
+          checkpoint.parseLine(line);
+        } catch (RuntimeException e) {
+          throw new IllegalArgumentException(
+              String.format("Invalid checkpoint file %s, line %d: %s", file, lineNumber, line), e);
+        }
+      }
+    }
+    return checkpoint;
+  }
+
+  /**
+   * Writes this checkpoint to the given file, replacing it if it exists.
+   *
+   * <p>The previous checkpoint is left untouched if the operation is interrupted while the
+   * checkpoint is being written.
+   *
+   * @param file the file to write.
+   * @throws IOException if the file cannot be written.
+   */
+  public synchronized void write(@NonNull Path file) throws IOException {
+    CheckpointFiles.write(
+        file,
+        writer -> {
+          for (TokenRange range : ranges.values()) {
+            writer.print(RANGE);
+            writer.print(';');
+            printRange(writer, range);
+            writer.print(';');
+            writer.println(completeRanges.contains(range.getEnd()) ? COMPLETE : PENDING);
+          }
+          if (hasTotals) {
+            writer.print(TOTAL);
+            writer.print(';');
+            writer.println(totalRows);
+            for (Map.Entry<TokenRange, Long> entry : totalsByRange.entrySet()) {
+              writer.print(RANGE_TOTAL);
+              writer.print(';');
+              printRange(writer, entry.getKey());
+              writer.print(';');
+              writer.println(entry.getValue());
+            }
+            // sort nodes by address
+            for (Map.Entry<String, Long> entry : new TreeMap<>(totalsByNode).entrySet()) {
+              writer.print(NODE_TOTAL);
+              writer.print(';');
+              writer.print(entry.getKey());
+              writer.print(';');
+              writer.println(entry.getValue());
+            }
+          }
+        });
+  }
+
+  /** Whether this checkpoint contains no token range at all. */
+  public synchronized boolean isEmpty() {
+    return ranges.isEmpty();
+  }
+
+  /** Whether all the token ranges in this checkpoint were read entirely. */
+  public synchronized boolean isComplete() {
+    return completeRanges.size() == ranges.size();
+  }
+
+  /**
+   * Adds a token range to read.
+   *
+   * @param range the range to add; it must not overlap with the ranges already added.
+   */
+  public synchronized void addRange(@NonNull TokenRange range) {
+    ranges.put(range.getEnd(), range);
+  }
+
+  /** Returns the token ranges that were not read entirely yet. */
+  @NonNull
+  public synchronized List<TokenRange> getPendingRanges() {
+    List<TokenRange> pending = new ArrayList<>();
+    for (TokenRange range : ranges.values()) {
+      if (!completeRanges.contains(range.getEnd())) {
+        pending.add(range);
+      }
+    }
+    return pending;
+  }
+
+  /**
+   * Marks the token range ending with the given token as read entirely.
+   *
+   * @param rangeEnd the end token of the range; this is also the routing token of the statement
+   *     reading the range.
+   */
+  public synchronized void markComplete(@NonNull Token rangeEnd) {
+    if (ranges.containsKey(rangeEnd)) {
+      completeRanges.add(rangeEnd);
+    }
+  }
+
+  /**
+   * Marks the token range ending with the given token as read entirely, and adds the rows counted
+   * in that range to the totals of this checkpoint. This is done atomically, so that a checkpoint
+   * never contains totals for ranges that are not complete, and vice versa.
+   *
+   * @param rangeEnd the end token of the range; this is also the routing token of the statement
+   *     reading the range.
+   * @param rows the number of rows counted in the range.
+   * @param rowsByRange the number of rows counted in the range, per ring range.
+   * @param rowsByNode the number of rows counted in the range, per node.
+   */
+  public synchronized void markComplete(
+      @NonNull Token rangeEnd,
+      long rows,
+      @NonNull Map<TokenRange, Long> rowsByRange,
+      @NonNull Map<String, Long> rowsByNode) {
+    if (ranges.containsKey(rangeEnd) && !completeRanges.contains(rangeEnd)) {
+      completeRanges.add(rangeEnd);
+      hasTotals = true;
+      totalRows += rows;
+      rowsByRange.forEach((range, count) -> totalsByRange.merge(range, count, Long::sum));
+      rowsByNode.forEach((node, count) -> totalsByNode.merge(node, count, Long::sum));
+    }
+  }
+
+  /** Returns the total number of rows counted in the complete ranges. */
+  public synchronized long getTotalRows() {
+    return totalRows;
+  }
+
+  /** Returns the number of rows counted in the complete ranges, per ring range. */
+  @NonNull
+  public synchronized Map<TokenRange, Long> getTotalsByRange() {
+    return new HashMap<>(totalsByRange);
+  }
+
+  /**
+   * Returns the number of rows counted in the complete ranges, per node; nodes are identified by
+   * the string representation of their endpoint.
+   */
+  @NonNull
+  public synchronized Map<String, Long> getTotalsByNode() {
+    return new HashMap<>(totalsByNode);
+  }
+
+  private void parseLine(@NonNull String line) {
+    String[] tokens = line.split(";");
+    switch (tokens[0]) {
+      case RANGE:
+        checkLength(tokens, 4);
+        TokenRange range = parseRange(tokens[1], tokens[2]);
+        ranges.put(range.getEnd(), range);
+        if (tokens[3].equals(COMPLETE)) {
+          completeRanges.add(range.getEnd());
+        } else if (!tokens[3].equals(PENDING)) {
+          throw new IllegalArgumentException("unknown status: " + tokens[3]);
+        }
+        break;
+      case TOTAL:
+        checkLength(tokens, 2);
+        hasTotals = true;
+        totalRows = Long.parseLong(tokens[1]);
+        break;
+      case RANGE_TOTAL:
+        checkLength(tokens, 4);
+        totalsByRange.put(parseRange(tokens[1], tokens[2]), Long.parseLong(tokens[3]));
+        break;
+      case NODE_TOTAL:
+        {
+          // parse from the right, in case the node address contains semicolons
+          int countStart = line.lastIndexOf(';');
+          String node = line.substring(NODE_TOTAL.length() + 1, countStart);
+          totalsByNode.put(node, Long.parseLong(line.substring(countStart + 1)));
+          break;
+        }
+      default:
+        throw new IllegalArgumentException("unknown entry: " + tokens[0]);
+    }
+  }
+
+  private void printRange(@NonNull PrintWriter writer, @NonNull TokenRange range) {
+    writer.print(tokenFactory.format(range.getStart()));
+    writer.print(';');
+    writer.print(tokenFactory.format(range.getEnd()));
+  }
+
+  @NonNull
+  private TokenRange parseRange(@NonNull String start, @NonNull String end) {
+    return tokenFactory.range(tokenFactory.parse(start), tokenFactory.parse(end));
+  }
+
+  private static void checkLength(@NonNull String[] tokens, int expected) {
+    if (tokens.length != expected) {
+      throw new IllegalArgumentException(
+          String.format("expecting %d fields, got %d", expected, tokens.length));
+    }
+  }
+}
@@ -77,6 +77,7 @@ public class MetricsManager implements AutoCloseable {
   private final boolean jmx;
   private final boolean csv;
   private final boolean console;
+  private final int prometheusPort;
   private final Path operationDirectory;
   private final Duration reportInterval;
   private final boolean batchingEnabled;
@@ -94,6 +95,7 @@ public class MetricsManager implements AutoCloseable {
   private JmxReporter jmxReporter;
   private CsvReporter csvReporter;
   private ConsoleReporter consoleReporter;
+  private PrometheusExporter prometheusExporter;
   private LogSink logSink;
 
   private final AtomicBoolean running = new AtomicBoolean(false);
@@ -111,6 +113,7 @@ public class MetricsManager implements AutoCloseable {
       boolean jmx,
       boolean csv,
       boolean console,
+      int prometheusPort,
       Path operationDirectory,
       Verbosity verbosity,
       Duration reportInterval,
@@ -135,6 +138,7 @@ public class MetricsManager implements AutoCloseable {
     this.jmx = jmx;
     this.csv = csv;
     this.console = console;
+    this.prometheusPort = prometheusPort;
     this.operationDirectory = operationDirectory;
     this.verbosity = verbosity;
     this.reportInterval = reportInterval;
@@ -174,6 +178,9 @@ public class MetricsManager implements AutoCloseable {
     if (csv) {
       startCSVReporter();
     }
+    if (prometheusPort >= 0) {
+      startPrometheusExporter();
+    }
     if (verbosity.compareTo(Verbosity.quiet) > 0) {
       if (console) {
         startConsoleReporter();
@@ -304,6 +311,14 @@ public class MetricsManager implements AutoCloseable {
     csvReporter.start(reportInterval.getSeconds(), SECONDS);
   }
 
+  private void startPrometheusExporter() {
+    prometheusExporter = new PrometheusExporter(registry, executionId, prometheusPort);
+    prometheusExporter.start();
+    LOGGER.info(
+        "Prometheus metrics available on port {} at /metrics",
+        prometheusExporter.getAddress().getPort());
+  }
+
   private void startRecordReporter() {
     recordReporter = new RecordReporter(registry, logSink, rateUnit, scheduler, expectedWrites);
     // periodic reporting is only enabled in verbose mode
@@ -423,6 +438,9 @@ public class MetricsManager implements AutoCloseable {
     if (csvReporter != null) {
       csvReporter.close();
     }
+    if (prometheusExporter != null) {
+      prometheusExporter.close();
+    }
     if (recordReporter != null) {
       recordReporter.close();
     }
@@ -497,4 +515,8 @@ public class MetricsManager implements AutoCloseable {
   public MetricsCollectingExecutionListener getExecutionListener() {
     return listener;
   }
+
+  public MetricRegistry getRegistry() {
+    return registry;
+  }
 }
@@ -0,0 +1,382 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.workflow.commons.metrics;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.datastax.oss.dsbulk.executor.api.histogram.HdrHistogramSnapshot;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An embedded HTTP endpoint exposing the metrics of a {@link MetricRegistry} in the Prometheus text
+ * exposition format (version 0.0.4), at {@code /metrics}.
+ *
+ * <p>Metric names are prefixed with {@code dsbulk_} and sanitized; all samples are labelled with
+ * the execution id. Node-specific metrics, such as {@code executor/nodes/<node>/writes} or the
+ * driver's {@code <session>.nodes.<node>.<metric>}, are exposed as one family labelled by node,
+ * rather than as one family per node. Durations are exposed in seconds. Timers backed by an {@link
+ * HdrHistogramSnapshot} are exposed as histograms with fixed buckets; other timers and histograms
+ * are exposed as summaries.
+ *
+ * <p>Metrics are read from the registry each time the endpoint is scraped, so metrics registered
+ * after the exporter was started are exposed as well.
+ */
+public class PrometheusExporter implements AutoCloseable {
+
+  static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  private static final String PREFIX = "dsbulk_";
+
+  private static final String[] BUCKETS = {
+    "0.0001", "0.00025", "0.0005", "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05", "0.1",
+    "0.25", "0.5", "1", "2.5", "5", "10"
+  };
+
+  private static final long[] BUCKET_NANOS = new long[BUCKETS.length];
+
+  static {
+    for (int i = 0; i < BUCKETS.length; i++) {
+      BUCKET_NANOS[i] = (long) (Double.parseDouble(BUCKETS[i]) * TimeUnit.SECONDS.toNanos(1));
+    }
+  }
+
+  private static final double[] QUANTILES = {0.5, 0.75, 0.95, 0.98, 0.99, 0.999};
+
+  private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final MetricRegistry registry;
+  private final String executionId;
+  private final HttpServer server;
+
+  /**
+   * Creates a new exporter; the exporter does not accept connections until {@link #start()} is
+   * called.
+   *
+   * @param registry the registry to expose.
+   * @param executionId the execution id, added as a label to all samples.
+   * @param port the port to listen to, on all interfaces; 0 selects an ephemeral port.
+   */
+  PrometheusExporter(@NonNull MetricRegistry registry, @NonNull String executionId, int port) {
+    this.registry = registry;
+    this.executionId = executionId;
+    try {
+      server = HttpServer.create(new InetSocketAddress(port), 0);
+    } catch (IOException e) {
+      throw new UncheckedIOException(
+          String.format("Could not start Prometheus exporter on port %d", port), e);
+    }
+    server.createContext("/metrics", this::handle);
+  }
+
+  public void start() {
+    server.start();
+  }
+
+  /** Returns the address this exporter listens to. */
+  @NonNull
+  public InetSocketAddress getAddress() {
+    return server.getAddress();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try {
+      String method = exchange.getRequestMethod();
+      if (!method.equals("GET") && !method.equals("HEAD")) {
+        exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+      byte[] body = scrape().getBytes(UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+      if (method.equals("HEAD")) {
+        exchange.sendResponseHeaders(200, -1);
+      } else {
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(body);
+        }
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /** Renders all the metrics in the registry in the Prometheus text exposition format. */
+  @NonNull
+  String scrape() {
+    Map<String, Family> families = new TreeMap<>();
+    for (Map.Entry<String, Metric> entry : registry.getMetrics().entrySet()) {
+      MetricName name = MetricName.parse(entry.getKey());
+      Metric metric = entry.getValue();
+      if (metric instanceof Counter) {
+        Family family = family(families, counterName(name.family), "counter", name.help);
+        if (family != null) {
+          family.sample(family.name, labels(name), ((Counter) metric).getCount());
+        }
+      } else if (metric instanceof Meter) {
+        Family family = family(families, counterName(name.family), "counter", name.help);
+        if (family != null) {
+          family.sample(family.name, labels(name), ((Meter) metric).getCount());
+        }
+      } else if (metric instanceof Gauge) {
+        Object value = ((Gauge<?>) metric).getValue();
+        double number;
+        if (value instanceof Number) {
+          number = ((Number) value).doubleValue();
+        } else if (value instanceof Boolean) {
+          number = (Boolean) value ? 1 : 0;
+        } else {
+          // not a numeric gauge
+          continue;
+        }
+        Family family = family(families, name.family, "gauge", name.help);
+        if (family != null) {
+          family.sample(family.name, labels(name), number);
+        }
+      } else if (metric instanceof Timer) {
+        Timer timer = (Timer) metric;
+        Snapshot snapshot = timer.getSnapshot();
+        String familyName = name.family + "_seconds";
+        if (snapshot instanceof HdrHistogramSnapshot) {
+          Family family = family(families, familyName, "histogram", name.help);
+          if (family != null) {
+            histogram(family, labels(name), (HdrHistogramSnapshot) snapshot);
+          }
+        } else {
+          Family family = family(families, familyName, "summary", name.help);
+          if (family != null) {
+            summary(family, labels(name), snapshot, timer.getCount(), NANOS_PER_SECOND);
+          }
+        }
+      } else if (metric instanceof Histogram) {
+        Histogram histogram = (Histogram) metric;
+        Family family = family(families, name.family, "summary", name.help);
+        if (family != null) {
+          summary(family, labels(name), histogram.getSnapshot(), histogram.getCount(), 1);
+        }
+      }
+    }
+    StringBuilder sb = new StringBuilder();
+    for (Family family : families.values()) {
+      sb.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+      sb.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+      for (String sample : family.samples) {
+        sb.append(sample).append('\n');
+      }
+    }
+    return sb.toString();
+  }
+
+  private static Family family(
+      Map<String, Family> families, String name, String type, String help) {
+    Family family = families.computeIfAbsent(name, n -> new Family(n, type, help));
+    // two metrics of different types may end up with the same name after sanitization;
+    // only expose the first one
+    return family.type.equals(type) ? family : null;
+  }
+
+  private static void histogram(Family family, String labels, HdrHistogramSnapshot snapshot) {
+    // use the snapshot's count rather than the timer's, so that the +Inf bucket and the count
+    // always agree
+    long count = snapshot.size();
+    for (int i = 0; i < BUCKETS.length; i++) {
+      family.sample(
+          family.name + "_bucket",
+          withLabel(labels, "le", BUCKETS[i]),
+          snapshot.getCountAtOrBelow(BUCKET_NANOS[i]));
+    }
+    family.sample(family.name + "_bucket", withLabel(labels, "le", "+Inf"), count);
+    // HdrHistogram does not keep track of the sum of the recorded values
+    family.sample(family.name + "_sum", labels, snapshot.getMean() * count / NANOS_PER_SECOND);
+    family.sample(family.name + "_count", labels, count);
+  }
+
+  private static void summary(
+      Family family, String labels, Snapshot snapshot, long count, double scale) {
+    for (double quantile : QUANTILES) {
+      family.sample(
+          family.name,
+          withLabel(labels, "quantile", Double.toString(quantile)),
+          snapshot.getValue(quantile) / scale);
+    }
+    family.sample(family.name + "_sum", labels, snapshot.getMean() * count / scale);
+    family.sample(family.name + "_count", labels, count);
+  }
+
+  private String labels(MetricName name) {
+    StringBuilder sb = new StringBuilder();
+    appendLabel(sb, "execution_id", executionId);
+    for (Map.Entry<String, String> label : name.labels.entrySet()) {
+      sb.append(',');
+      appendLabel(sb, label.getKey(), label.getValue());
+    }
+    return sb.toString();
+  }
+
+  private static String withLabel(String labels, String name, String value) {
+    StringBuilder sb = new StringBuilder(labels).append(',');
+    appendLabel(sb, name, value);
+    return sb.toString();
+  }
+
+  private static void appendLabel(StringBuilder sb, String name, String value) {
+    sb.append(name).append("=\"");
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '"':
+          sb.append("\\\"");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        default:
+          sb.append(c);
+      }
+    }
+    sb.append('"');
+  }
+
+  private static String counterName(String name) {
+    return name.endsWith("_total") ? name : name + "_total";
+  }
+
+  private static String sanitize(String name) {
+    StringBuilder sb = new StringBuilder(PREFIX);
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_') {
+        sb.append(c);
+      } else if (sb.charAt(sb.length() - 1) != '_') {
+        // collapse separators such as '/', '.' and '-' into a single underscore
+        sb.append('_');
+      }
+    }
+    return sb.toString();
+  }
+
+  /** A metric name, split into a family name and labels. */
+  private static final class MetricName {
+
+    private final String family;
+    private final Map<String, String> labels;
+    // the original name, with label values replaced by placeholders
+    private final String help;
+
+    private MetricName(String family, Map<String, String> labels, String help) {
+      this.family = family;
+      this.labels = labels;
+      this.help = help;
+    }
+
+    private static MetricName parse(String name) {
+      Map<String, String> labels = new LinkedHashMap<>();
+      if (name.startsWith("executor/nodes/")) {
+        // executor/nodes/<node>/<metric>
+        int nodeStart = "executor/nodes/".length();
+        int nodeEnd = name.lastIndexOf('/');
+        if (nodeEnd > nodeStart) {
+          labels.put("node", name.substring(nodeStart, nodeEnd));
+          String metric = name.substring(nodeEnd + 1);
+          return new MetricName(
+              sanitize("executor/nodes/" + metric), labels, "executor/nodes/<node>/" + metric);
+        }
+      } else if (name.startsWith("driver/")) {
+        // driver/<session>.<metric> or driver/<session>.nodes.<node>.<metric>
+        String driverName = name.substring("driver/".length());
+        int sessionEnd = driverName.indexOf('.');
+        if (sessionEnd > 0) {
+          labels.put("session", driverName.substring(0, sessionEnd));
+          String metric = driverName.substring(sessionEnd + 1);
+          if (metric.startsWith("nodes.")) {
+            int nodeStart = "nodes.".length();
+            int nodeEnd = metric.indexOf('.', nodeStart);
+            if (nodeEnd > nodeStart) {
+              labels.put("node", metric.substring(nodeStart, nodeEnd));
+              metric = metric.substring(nodeEnd + 1);
+              return new MetricName(
+                  sanitize("driver/nodes/" + metric),
+                  labels,
+                  "driver/<session>.nodes.<node>." + metric);
+            }
+          }
+          return new MetricName(sanitize("driver/" + metric), labels, "driver/<session>." + metric);
+        }
+      }
+      return new MetricName(sanitize(name), labels, name);
+    }
+  }
+
+  /** A metric family: all the samples sharing the same name, type and help. */
+  private static final class Family {
+
+    private final String name;
+    private final String type;
+    private final String help;
+    private final List<String> samples = new ArrayList<>();
+
+    private Family(String name, String type, String help) {
+      this.name = name;
+      this.type = type;
+      this.help = help.replace("\\", "\\\\").replace("\n", "\\n");
+    }
+
+    private void sample(String name, String labels, double value) {
+      samples.add(name + '{' + labels + "} " + formatValue(value));
+    }
+
+    private static String formatValue(double value) {
+      if (Double.isNaN(value)) {
+        return "NaN";
+      }
+      if (Double.isInfinite(value)) {
+        return value > 0 ? "+Inf" : "-Inf";
+      }
+      if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+        return Long.toString((long) value);
+      }
+      return Double.toString(value);
+    }
+  }
+}
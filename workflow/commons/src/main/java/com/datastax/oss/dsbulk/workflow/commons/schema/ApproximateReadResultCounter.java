@@ -0,0 +1,307 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.workflow.commons.schema;
+
+import static com.datastax.oss.dsbulk.workflow.commons.utils.TokenUtils.getTokenMap;
+import static com.datastax.oss.dsbulk.workflow.commons.utils.TokenUtils.newBulkTokenFactory;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.loadbalancing.NodeDistance;
+import com.datastax.oss.driver.api.core.metadata.Metadata;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.metadata.NodeState;
+import com.datastax.oss.driver.api.core.metadata.TokenMap;
+import com.datastax.oss.driver.api.core.metadata.schema.RelationMetadata;
+import com.datastax.oss.driver.api.core.metadata.token.Token;
+import com.datastax.oss.driver.shaded.guava.common.annotations.VisibleForTesting;
+import com.datastax.oss.dsbulk.executor.api.result.ReadResult;
+import com.datastax.oss.dsbulk.partitioner.BulkTokenFactory;
+import com.datastax.oss.dsbulk.partitioner.BulkTokenRange;
+import com.datastax.oss.dsbulk.workflow.commons.log.TokenRangeCheckpoint;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.PrintStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link ReadResultCounter} that estimates the total number of rows and partitions in a table,
+ * instead of counting them exactly.
+ *
+ * <p>When a sample of token ranges is read, totals are extrapolated from the rows and partitions
+ * counted in the sampled ranges, and reported with the margin of error of a 95% confidence
+ * interval.
+ *
+ * <p>When no range is sampled, the number of partitions is estimated from the size estimates that
+ * each node periodically records in the {@code system.size_estimates} table; the number of rows is
+ * then only reported for tables without clustering columns, where each partition contains exactly
+ * one row.
+ */
+public class ApproximateReadResultCounter implements ReadResultCounter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ApproximateReadResultCounter.class);
+
+  /** The z-score of a 95% confidence interval. */
+  private static final double Z_95 = 1.96;
+
+  private static final String SIZE_ESTIMATES_QUERY =
+      "SELECT range_start, range_end, partitions_count FROM system.size_estimates "
+          + "WHERE keyspace_name = ? AND table_name = ?";
+
+  private final boolean clustered;
+
+  // the ring fraction covered by each sampled range, indexed by end token
+  private final Map<Token, Double> sampledFractions = new LinkedHashMap<>();
+
+  private final CopyOnWriteArrayList<ApproximateCountingUnit> units = new CopyOnWriteArrayList<>();
+
+  private final long estimatedPartitions;
+
+  @VisibleForTesting Estimate totalRows;
+  @VisibleForTesting Estimate totalPartitions;
+
+  /**
+   * Creates a new counter.
+   *
+   * @param session the session; only used to read size estimates, when no range is sampled.
+   * @param table the table to count.
+   * @param sampledRanges the token ranges that will be read to estimate totals; if empty, totals
+   *     are estimated from size estimates.
+   */
+  public ApproximateReadResultCounter(
+      @NonNull CqlSession session,
+      @NonNull RelationMetadata table,
+      @NonNull List<BulkTokenRange> sampledRanges) {
+    clustered = !table.getClusteringColumns().isEmpty();
+    for (BulkTokenRange range : sampledRanges) {
+      sampledFractions.put(range.getEnd(), range.fraction());
+    }
+    if (sampledRanges.isEmpty()) {
+      estimatedPartitions = readSizeEstimates(session, table);
+      if (clustered) {
+        LOGGER.warn(
+            "Table {} has clustering columns, the number of rows cannot be estimated "
+                + "from size estimates; set stats.sampleRatio to estimate it by sampling.",
+            table.getName().asCql(true));
+      }
+    } else {
+      estimatedPartitions = -1;
+      LOGGER.debug(
+          "Estimating totals from {} sampled token ranges covering {}% of the ring",
+          sampledRanges.size(),
+          String.format(
+              "%.2f", sampledFractions.values().stream().mapToDouble(f -> f).sum() * 100));
+    }
+  }
+
+  @Override
+  public ApproximateCountingUnit newCountingUnit() {
+    ApproximateCountingUnit unit = new ApproximateCountingUnit();
+    units.add(unit);
+    return unit;
+  }
+
+  @Override
+  public void restore(@NonNull TokenRangeCheckpoint checkpoint) {
+    throw new IllegalArgumentException(
+        "Cannot resume the operation: resuming is not supported when estimating totals.");
+  }
+
+  @Override
+  public void close() {
+    consolidateUnitCounts();
+  }
+
+  @VisibleForTesting
+  void consolidateUnitCounts() {
+    if (sampledFractions.isEmpty()) {
+      totalPartitions = new Estimate(estimatedPartitions, Double.NaN);
+      // without clustering columns, there is exactly one row per partition
+      totalRows = clustered ? null : totalPartitions;
+      return;
+    }
+    // totals per sampled range, including ranges that did not contain any row
+    Map<Token, long[]> totalsByRange = new HashMap<>();
+    for (Token rangeEnd : sampledFractions.keySet()) {
+      totalsByRange.put(rangeEnd, new long[2]);
+    }
+    for (ApproximateCountingUnit unit : units) {
+      long[] totals = unit.rangeEnd == null ? null : totalsByRange.get(unit.rangeEnd);
+      if (totals != null) {
+        totals[0] += unit.rows;
+        totals[1] += unit.partitions;
+      }
+    }
+    totalRows = estimate(totalsByRange, 0);
+    totalPartitions = estimate(totalsByRange, 1);
+  }
+
+  /**
+   * Extrapolates the total of the given sampled values to the entire ring, using a ratio estimator:
+   * the total is the sum of the values divided by the ring fraction covered by the sampled ranges,
+   * and its margin of error is derived from the variance of each value around its expected value
+   * given the fraction of its range.
+   */
+  private Estimate estimate(Map<Token, long[]> totalsByRange, int index) {
+    int n = sampledFractions.size();
+    double sampledFraction = 0;
+    double sum = 0;
+    for (Map.Entry<Token, Double> entry : sampledFractions.entrySet()) {
+      sampledFraction += entry.getValue();
+      sum += totalsByRange.get(entry.getKey())[index];
+    }
+    double ratio = sum / sampledFraction;
+    if (n < 2) {
+      return new Estimate(Math.round(ratio), sampledFraction >= 1 ? 0 : Double.NaN);
+    }
+    double variance = 0;
+    for (Map.Entry<Token, Double> entry : sampledFractions.entrySet()) {
+      double deviation = totalsByRange.get(entry.getKey())[index] - ratio * entry.getValue();
+      variance += deviation * deviation;
+    }
+    variance /= n - 1;
+    // apply the finite population correction, since ranges are sampled without replacement
+    double standardError =
+        Math.sqrt(Math.max(0, 1 - sampledFraction) * variance / n) / (sampledFraction / n);
+    double margin = ratio == 0 ? 0 : Z_95 * standardError / ratio;
+    return new Estimate(Math.round(ratio), margin);
+  }
+
+  @Override
+  public void reportTotals() {
+    PrintStream out = System.out;
+    if (totalRows != null) {
+      out.println("Estimated rows: " + totalRows);
+    }
+    out.println("Estimated partitions: " + totalPartitions);
+  }
+
+  private static long readSizeEstimates(
+      @NonNull CqlSession session, @NonNull RelationMetadata table) {
+    Metadata metadata = session.getMetadata();
+    TokenMap tokenMap = getTokenMap(metadata);
+    BulkTokenFactory tokenFactory = newBulkTokenFactory(tokenMap);
+    // each node reports estimates for its own primary ranges; ranges reported by more than one node
+    // are only counted once
+    Map<BulkTokenRange, Long> partitionsByRange = new HashMap<>();
+    for (Node node : metadata.getNodes().values()) {
+      if (node.getState() != NodeState.UP || node.getDistance() == NodeDistance.IGNORED) {
+        continue;
+      }
+      Statement<?> statement =
+          SimpleStatement.newInstance(
+                  SIZE_ESTIMATES_QUERY,
+                  table.getKeyspace().asInternal(),
+                  table.getName().asInternal())
+              .setNode(node);
+      for (Row row : session.execute(statement)) {
+        BulkTokenRange range =
+            tokenFactory.range(
+                tokenMap.parse(row.getString(0)),
+                tokenMap.parse(row.getString(1)),
+                Collections.emptySet());
+        partitionsByRange.merge(range, row.getLong(2), Math::max);
+      }
+    }
+    if (partitionsByRange.isEmpty()) {
+      throw new IllegalStateException(
+          String.format(
+              "No size estimates available for table %s.%s; size estimates are computed "
+                  + "periodically by each node, please try again later, "
+                  + "or set stats.sampleRatio to estimate totals by sampling.",
+              table.getKeyspace().asCql(true), table.getName().asCql(true)));
+    }
+    double coveredFraction = 0;
+    long partitions = 0;
+    for (Map.Entry<BulkTokenRange, Long> entry : partitionsByRange.entrySet()) {
+      coveredFraction += entry.getKey().fraction();
+      partitions += entry.getValue();
+    }
+    // nodes that are down or ignored did not report their ranges: extrapolate to the entire ring
+    coveredFraction = Math.min(1, coveredFraction);
+    LOGGER.debug(
+        "Size estimates cover {}% of the ring", String.format("%.2f", coveredFraction * 100));
+    return Math.round(partitions / coveredFraction);
+  }
+
+  /**
+   * A counting unit.
+   *
+   * <p>Each counting unit counts the rows and partitions of one sampled token range; since rows are
+   * returned in token order, the partitions of a range are counted by detecting token changes.
+   */
+  @VisibleForTesting
+  static class ApproximateCountingUnit implements CountingUnit {
+
+    Token rangeEnd;
+    long rows;
+    long partitions;
+    Token currentToken;
+
+    @Override
+    public void update(ReadResult result) {
+      if (rangeEnd == null) {
+        rangeEnd = result.getStatement().getRoutingToken();
+      }
+      Row row = result.getRow().orElseThrow(IllegalStateException::new);
+      // the result set is expected to contain one single column containing the partition key's
+      // token
+      Token token = row.getToken(0);
+      rows++;
+      if (!token.equals(currentToken)) {
+        partitions++;
+        currentToken = token;
+      }
+    }
+
+    @Override
+    public void close() {}
+
+    @Override
+    public void checkpoint(@NonNull TokenRangeCheckpoint checkpoint, @NonNull Token rangeEnd) {
+      throw new IllegalStateException("Checkpoints are not supported when estimating totals");
+    }
+  }
+
+  /** An estimated total, with its relative margin of error, if known. */
+  @VisibleForTesting
+  static class Estimate {
+
+    final long value;
+    final double margin;
+
+    Estimate(long value, double margin) {
+      this.value = value;
+      this.margin = margin;
+    }
+
+    @Override
+    public String toString() {
+      if (Double.isNaN(margin)) {
+        return String.valueOf(value);
+      }
+      return String.format("%d (+/- %.2f%%)", value, margin * 100);
+    }
+  }
+}
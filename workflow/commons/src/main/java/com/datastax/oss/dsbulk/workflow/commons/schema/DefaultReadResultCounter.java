@@ -34,6 +34,7 @@ import com.datastax.oss.driver.shaded.guava.common.annotations.VisibleForTesting
 import com.datastax.oss.dsbulk.codecs.api.ConvertingCodecFactory;
 import com.datastax.oss.dsbulk.executor.api.result.ReadResult;
 import com.datastax.oss.dsbulk.partitioner.utils.TokenUtils;
+import com.datastax.oss.dsbulk.workflow.commons.log.TokenRangeCheckpoint;
 import com.datastax.oss.dsbulk.workflow.commons.settings.StatsSettings.StatisticsMode;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.io.PrintStream;
@@ -72,6 +73,7 @@ public class DefaultReadResultCounter implements ReadResultCounter {
   private final boolean countRanges;
   private final boolean countPartitions;
   private final boolean multiCount;
+  private final boolean pushdown;
 
   @VisibleForTesting long totalRows;
   @VisibleForTesting Map<TokenRange, Long> totalsByRange;
@@ -85,6 +87,24 @@ public class DefaultReadResultCounter implements ReadResultCounter {
       int numPartitions,
       ProtocolVersion protocolVersion,
       ConvertingCodecFactory codecFactory) {
+    this(keyspace, metadata, modes, numPartitions, false, protocolVersion, codecFactory);
+  }
+
+  /**
+   * Creates a new counter.
+   *
+   * @param pushdown whether the count aggregation is pushed down to the server; if true, each row
+   *     read is expected to contain one single column, the number of rows counted server-side for a
+   *     token range. Only allowed when counting global rows.
+   */
+  public DefaultReadResultCounter(
+      CqlIdentifier keyspace,
+      Metadata metadata,
+      EnumSet<StatisticsMode> modes,
+      int numPartitions,
+      boolean pushdown,
+      ProtocolVersion protocolVersion,
+      ConvertingCodecFactory codecFactory) {
     this.tokenMap =
         metadata
             .getTokenMap()
@@ -97,6 +117,11 @@ public class DefaultReadResultCounter implements ReadResultCounter {
     countRanges = modes.contains(StatisticsMode.ranges);
     countPartitions = modes.contains(StatisticsMode.partitions);
     multiCount = modes.size() > 1;
+    this.pushdown = pushdown;
+    if (pushdown && (multiCount || !countGlobal)) {
+      throw new IllegalArgumentException(
+          "Count aggregations can only be pushed down when counting global rows");
+    }
     if (countNodes || countRanges) {
       // Store required metadata in two data structures that will speed up lookups by token:
       // 1) 'ring' stores the range start tokens of all ranges, contents are identical to
@@ -146,6 +171,37 @@ public class DefaultReadResultCounter implements ReadResultCounter {
     return unit;
   }
 
+  @Override
+  public void restore(@NonNull TokenRangeCheckpoint checkpoint) {
+    if (countPartitions) {
+      throw new IllegalArgumentException(
+          "Cannot resume the operation: resuming is not supported when counting partitions.");
+    }
+    DefaultCountingUnit unit = newCountingUnit();
+    unit.total = checkpoint.getTotalRows();
+    if (countRanges) {
+      // match ranges by equality, since checkpoint ranges were parsed from the checkpoint file
+      checkpoint
+          .getTotalsByRange()
+          .forEach(
+              (range, count) -> {
+                if (allTokenRanges.contains(range)) {
+                  unit.totalsByRange.put(range, count);
+                }
+              });
+    }
+    if (countNodes) {
+      // match nodes by address, since endpoints are recorded as strings in checkpoints
+      Map<String, Long> totalsByNode = checkpoint.getTotalsByNode();
+      for (EndPoint address : allAddresses) {
+        Long count = totalsByNode.get(address.toString());
+        if (count != null) {
+          unit.totalsByNode.put(address, count);
+        }
+      }
+    }
+  }
+
   @Override
   public void close() {
     consolidateUnitCounts();
@@ -241,6 +297,11 @@ public class DefaultReadResultCounter implements ReadResultCounter {
     @Override
     public void update(ReadResult result) {
       Row row = result.getRow().orElseThrow(IllegalStateException::new);
+      if (pushdown) {
+        // the row contains the number of rows counted server-side for an entire token range
+        total += row.getLong(0);
+        return;
+      }
       // First compute the partition key and the token for this row.
       Token token = null;
       PartitionKey pk = null;
@@ -301,6 +362,13 @@ public class DefaultReadResultCounter implements ReadResultCounter {
       rotatePk();
     }
 
+    @Override
+    public void checkpoint(@NonNull TokenRangeCheckpoint checkpoint, @NonNull Token rangeEnd) {
+      Map<String, Long> totalsByNodeAddress = new HashMap<>();
+      totalsByNode.forEach((address, count) -> totalsByNodeAddress.put(address.toString(), count));
+      checkpoint.markComplete(rangeEnd, total, totalsByRange, totalsByNodeAddress);
+    }
+
     /**
      * Locate the end token of the range containing the given token then use it to lookup the entire
      * range and its replicas. This search is identical to the search performed by
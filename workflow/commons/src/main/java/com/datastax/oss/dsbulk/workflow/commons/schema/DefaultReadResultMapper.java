@@ -32,8 +32,17 @@ import com.datastax.oss.dsbulk.mapping.CQLWord;
 import com.datastax.oss.dsbulk.mapping.Mapping;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
+/**
+ * A {@link ReadResultMapper} that maps each column of a row to its mapped fields.
+ *
+ * <p>Which fields a column maps to, and the codec to decode it with, only depend on the column
+ * definitions of the row. They are therefore resolved once into a {@link DecodingPlan}, which is
+ * reused for all the rows sharing the same column definitions.
+ */
 public class DefaultReadResultMapper implements ReadResultMapper {
 
   private final Mapping mapping;
@@ -41,6 +50,8 @@ public class DefaultReadResultMapper implements ReadResultMapper {
   private final URI resource;
   private final boolean retainRecordSources;
 
+  private volatile DecodingPlan plan;
+
   public DefaultReadResultMapper(
       Mapping mapping, RecordMetadata recordMetadata, URI resource, boolean retainRecordSources) {
     this.mapping = mapping;
@@ -55,32 +66,119 @@ public class DefaultReadResultMapper implements ReadResultMapper {
     Object source = retainRecordSources ? result : null;
     try {
       Row row = result.getRow().orElseThrow(IllegalStateException::new);
-      ColumnDefinitions columnDefinitions = row.getColumnDefinitions();
+      DecodingPlan plan = getPlan(row.getColumnDefinitions());
       DefaultRecord record = new DefaultRecord(source, resource, -1);
-      for (ColumnDefinition def : columnDefinitions) {
+      for (FieldDecoder decoder : plan.decoders) {
+        record.setFieldValue(decoder.field, decoder.decode(row));
+      }
+      return record;
+    } catch (Exception e) {
+      return new DefaultErrorRecord(source, resource, -1, e);
+    }
+  }
+
+  @NonNull
+  private DecodingPlan getPlan(@NonNull ColumnDefinitions columnDefinitions) {
+    DecodingPlan plan = this.plan;
+    // rows of prepared statements share the result set definitions of the statement; other rows
+    // get new definitions with each page, but usually for the same columns.
+    if (plan == null || plan.columnDefinitions != columnDefinitions) {
+      plan =
+          plan != null && plan.appliesTo(columnDefinitions)
+              ? new DecodingPlan(columnDefinitions, plan.decoders)
+              : new DecodingPlan(columnDefinitions);
+      this.plan = plan;
+    }
+    return plan;
+  }
+
+  /** The decoders of all the mapped fields of rows with the given column definitions. */
+  private final class DecodingPlan {
+
+    private final ColumnDefinitions columnDefinitions;
+    private final FieldDecoder[] decoders;
+
+    private DecodingPlan(@NonNull ColumnDefinitions columnDefinitions) {
+      this.columnDefinitions = columnDefinitions;
+      List<FieldDecoder> decoders = new ArrayList<>();
+      for (int i = 0; i < columnDefinitions.size(); i++) {
+        ColumnDefinition def = columnDefinitions.get(i);
         CQLWord variable = CQLWord.fromInternal(def.getName().asInternal());
-        CqlIdentifier name = variable.asIdentifier();
         DataType cqlType = def.getType();
         Set<Field> fields = mapping.variableToFields(variable);
         for (Field field : fields) {
-          GenericType<?> fieldType = null;
-          try {
-            fieldType = recordMetadata.getFieldType(field, cqlType);
-            TypeCodec<?> codec = mapping.codec(variable, cqlType, fieldType);
-            Object value = row.get(name, codec);
-            record.setFieldValue(field, value);
-          } catch (Exception e) {
-            String msg =
-                String.format(
-                    "Could not deserialize column %s of type %s as %s",
-                    name.asCql(true), cqlType, fieldType);
-            throw new IllegalArgumentException(msg, e);
-          }
+          decoders.add(new FieldDecoder(i, variable, cqlType, field));
         }
       }
-      return record;
-    } catch (Exception e) {
-      return new DefaultErrorRecord(source, resource, -1, e);
+      this.decoders = decoders.toArray(new FieldDecoder[0]);
+    }
+
+    private DecodingPlan(
+        @NonNull ColumnDefinitions columnDefinitions, @NonNull FieldDecoder[] decoders) {
+      this.columnDefinitions = columnDefinitions;
+      this.decoders = decoders;
+    }
+
+    private boolean appliesTo(@NonNull ColumnDefinitions other) {
+      if (other.size() != columnDefinitions.size()) {
+        return false;
+      }
+      for (int i = 0; i < other.size(); i++) {
+        ColumnDefinition def = columnDefinitions.get(i);
+        ColumnDefinition otherDef = other.get(i);
+        if (!def.getName().equals(otherDef.getName())
+            || !def.getType().equals(otherDef.getType())) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /** Decodes a column to one of the fields it is mapped to. */
+  private final class FieldDecoder {
+
+    private final int index;
+    private final CqlIdentifier name;
+    private final DataType cqlType;
+    private final Field field;
+    private final GenericType<?> fieldType;
+    private final TypeCodec<?> codec;
+    private final Exception error;
+
+    private FieldDecoder(int index, CQLWord variable, DataType cqlType, Field field) {
+      this.index = index;
+      this.name = variable.asIdentifier();
+      this.cqlType = cqlType;
+      this.field = field;
+      GenericType<?> fieldType = null;
+      TypeCodec<?> codec = null;
+      Exception error = null;
+      try {
+        fieldType = recordMetadata.getFieldType(field, cqlType);
+        codec = mapping.codec(variable, cqlType, fieldType);
+      } catch (Exception e) {
+        // not thrown right away: like decoding errors, this is reported for each row
+        error = e;
+      }
+      this.fieldType = fieldType;
+      this.codec = codec;
+      this.error = error;
+    }
+
+    private Object decode(@NonNull Row row) throws Exception {
+      try {
+        if (error != null) {
+          throw error;
+        }
+        return row.get(index, codec);
+      } catch (Exception e) {
+        String msg =
+            String.format(
+                "Could not deserialize column %s of type %s as %s",
+                name.asCql(true), cqlType, fieldType);
+        throw new IllegalArgumentException(msg, e);
+      }
     }
   }
 }
@@ -33,9 +33,11 @@ import com.datastax.oss.driver.api.core.type.reflect.GenericType;
 import com.datastax.oss.driver.shaded.guava.common.annotations.VisibleForTesting;
 import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableMap;
 import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableSet;
+import com.datastax.oss.dsbulk.connectors.api.ArrayBackedRecord;
 import com.datastax.oss.dsbulk.connectors.api.Field;
 import com.datastax.oss.dsbulk.connectors.api.Record;
 import com.datastax.oss.dsbulk.connectors.api.RecordMetadata;
+import com.datastax.oss.dsbulk.connectors.api.RecordSchema;
 import com.datastax.oss.dsbulk.mapping.CQLWord;
 import com.datastax.oss.dsbulk.mapping.Mapping;
 import com.datastax.oss.dsbulk.workflow.commons.statement.MappedBoundStatement;
@@ -49,10 +51,15 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
 
 public class DefaultRecordMapper implements RecordMapper {
 
+  // marker for schemas that have no binding plan, compared by identity
+  private static final Binding[] NO_PLAN = new Binding[0];
+
   private final PreparedStatement insertStatement;
   private final ImmutableSet<CQLWord> partitionKeyVariables;
   private final ImmutableSet<CQLWord> clusteringColumnVariables;
@@ -65,6 +72,9 @@ public class DefaultRecordMapper implements RecordMapper {
   private final Function<PreparedStatement, BoundStatementBuilder> boundStatementBuilderFactory;
   private final ImmutableMap<CQLWord, List<Integer>> variablesToIndices;
 
+  // binding plans per record schema
+  private final ConcurrentMap<RecordSchema, Binding[]> plans = new ConcurrentHashMap<>();
+
   public DefaultRecordMapper(
       PreparedStatement insertStatement,
       Set<CQLWord> partitionKeyVariables,
@@ -117,24 +127,76 @@ public class DefaultRecordMapper implements RecordMapper {
   @Override
   public BatchableStatement<?> map(@NonNull Record record) {
     try {
-      if (!allowMissingFields) {
+      Binding[] plan = null;
+      if (record instanceof ArrayBackedRecord) {
+        plan = plans.computeIfAbsent(((ArrayBackedRecord) record).getSchema(), this::buildPlan);
+        if (plan == NO_PLAN) {
+          plan = null;
+        }
+      }
+      if (plan == null && !allowMissingFields) {
         ensureAllFieldsPresent(record.fields());
       }
       BoundStatementBuilder builder = boundStatementBuilderFactory.apply(insertStatement);
-      ColumnDefinitions variableDefinitions = insertStatement.getVariableDefinitions();
-      for (Field field : record.fields()) {
-        Set<CQLWord> variables = mapping.fieldToVariables(field);
-        if (!variables.isEmpty()) {
-          for (CQLWord variable : variables) {
-            CqlIdentifier name = variable.asIdentifier();
-            DataType cqlType = variableDefinitions.get(name).getType();
-            GenericType<?> fieldType = recordMetadata.getFieldType(field, cqlType);
-            Object raw = record.getFieldValue(field);
-            builder = bindColumn(builder, field, variable, raw, cqlType, fieldType);
+      // the data size of the statement, as computed by DataSizes, is accumulated while binding
+      // values, to avoid walking all the bound values again downstream.
+      long dataSize = 0;
+      if (plan != null) {
+        ArrayBackedRecord arrayBacked = (ArrayBackedRecord) record;
+        for (Binding binding : plan) {
+          Object raw = arrayBacked.getValue(binding.valueIndex);
+          ByteBuffer bb =
+              encodeColumn(
+                  binding.field,
+                  binding.variable,
+                  raw,
+                  binding.cqlType,
+                  binding.fieldType,
+                  binding.codec,
+                  builder.protocolVersion());
+          if (nullToUnset && isNull(bb, binding.cqlType)) {
+            continue;
+          }
+          for (int index : binding.indices) {
+            builder = builder.setBytesUnsafe(index, bb);
+            if (bb != null) {
+              dataSize += bb.remaining();
+            }
+          }
+        }
+      } else {
+        ColumnDefinitions variableDefinitions = insertStatement.getVariableDefinitions();
+        for (Field field : record.fields()) {
+          Set<CQLWord> variables = mapping.fieldToVariables(field);
+          if (!variables.isEmpty()) {
+            for (CQLWord variable : variables) {
+              CqlIdentifier name = variable.asIdentifier();
+              DataType cqlType = variableDefinitions.get(name).getType();
+              GenericType<?> fieldType = recordMetadata.getFieldType(field, cqlType);
+              Object raw = record.getFieldValue(field);
+              ByteBuffer bb =
+                  encodeColumn(
+                      field,
+                      variable,
+                      raw,
+                      cqlType,
+                      fieldType,
+                      mapping.codec(variable, cqlType, fieldType),
+                      builder.protocolVersion());
+              if (nullToUnset && isNull(bb, cqlType)) {
+                continue;
+              }
+              for (int index : variablesToIndices.get(variable)) {
+                builder = builder.setBytesUnsafe(index, bb);
+                if (bb != null) {
+                  dataSize += bb.remaining();
+                }
+              }
+            }
+          } else if (!allowExtraFields) {
+            // the field wasn't mapped to any known variable
+            throw InvalidMappingException.extraneousField(field);
           }
-        } else if (!allowExtraFields) {
-          // the field wasn't mapped to any known variable
-          throw InvalidMappingException.extraneousField(field);
         }
       }
       ensurePrimaryKeySet(builder);
@@ -143,23 +205,63 @@ public class DefaultRecordMapper implements RecordMapper {
       }
       record.clear();
       BoundStatement bs = builder.build();
-      return new MappedBoundStatement(record, bs);
+      return new MappedBoundStatement(record, bs, dataSize);
     } catch (Exception e) {
       return new UnmappableStatement(record, e);
     }
   }
 
-  private <T> BoundStatementBuilder bindColumn(
-      BoundStatementBuilder builder,
+  /**
+   * Resolves, once per record schema, which value goes to which bound variable, and with which
+   * codec.
+   *
+   * <p>If records with the given schema cannot be mapped, e.g. because of an extraneous or missing
+   * field, or because a codec cannot be found, no plan is created: such records are then mapped
+   * field by field, and the error is reported for each one of them.
+   */
+  @NonNull
+  private Binding[] buildPlan(@NonNull RecordSchema schema) {
+    try {
+      if (!allowMissingFields) {
+        ensureAllFieldsPresent(schema.getFields());
+      }
+      ColumnDefinitions variableDefinitions = insertStatement.getVariableDefinitions();
+      List<Binding> plan = new ArrayList<>();
+      for (int i = 0; i < schema.getFieldCount(); i++) {
+        Field field = schema.getField(i);
+        Set<CQLWord> variables = mapping.fieldToVariables(field);
+        if (variables.isEmpty() && !allowExtraFields) {
+          return NO_PLAN;
+        }
+        for (CQLWord variable : variables) {
+          DataType cqlType = variableDefinitions.get(variable.asIdentifier()).getType();
+          GenericType<?> fieldType = recordMetadata.getFieldType(field, cqlType);
+          TypeCodec<Object> codec = mapping.codec(variable, cqlType, fieldType);
+          int[] indices =
+              variablesToIndices.get(variable).stream().mapToInt(Integer::intValue).toArray();
+          plan.add(
+              new Binding(
+                  field, variable, cqlType, fieldType, codec, indices, schema.getValueIndex(i)));
+        }
+      }
+      return plan.toArray(new Binding[0]);
+    } catch (Exception e) {
+      return NO_PLAN;
+    }
+  }
+
+  @Nullable
+  private <T> ByteBuffer encodeColumn(
       Field field,
       CQLWord variable,
       @Nullable T raw,
       DataType cqlType,
-      GenericType<? extends T> javaType) {
-    TypeCodec<T> codec = mapping.codec(variable, cqlType, javaType);
+      GenericType<? extends T> javaType,
+      TypeCodec<T> codec,
+      ProtocolVersion protocolVersion) {
     ByteBuffer bb;
     try {
-      bb = codec.encode(raw, builder.protocolVersion());
+      bb = codec.encode(raw, protocolVersion);
     } catch (Exception e) {
       throw InvalidMappingException.encodeFailed(field, variable, javaType, cqlType, raw, e);
     }
@@ -171,18 +273,10 @@ public class DefaultRecordMapper implements RecordMapper {
             : InvalidMappingException.emptyPrimaryKey(variable);
       }
     }
-    if (isNull) {
-      if (clusteringColumnVariables.contains(variable)) {
-        throw InvalidMappingException.nullPrimaryKey(variable);
-      }
-      if (nullToUnset) {
-        return builder;
-      }
-    }
-    for (int index : variablesToIndices.get(variable)) {
-      builder = builder.setBytesUnsafe(index, bb);
+    if (isNull && clusteringColumnVariables.contains(variable)) {
+      throw InvalidMappingException.nullPrimaryKey(variable);
     }
-    return builder;
+    return bb;
   }
 
   private boolean isNull(ByteBuffer bb, DataType cqlType) {
@@ -255,4 +349,33 @@ public class DefaultRecordMapper implements RecordMapper {
     }
     return ImmutableMap.copyOf(variablesToIndices);
   }
+
+  /** How to bind one value of an {@link ArrayBackedRecord} to a bound variable. */
+  private static final class Binding {
+
+    private final Field field;
+    private final CQLWord variable;
+    private final DataType cqlType;
+    private final GenericType<?> fieldType;
+    private final TypeCodec<Object> codec;
+    private final int[] indices;
+    private final int valueIndex;
+
+    private Binding(
+        Field field,
+        CQLWord variable,
+        DataType cqlType,
+        GenericType<?> fieldType,
+        TypeCodec<Object> codec,
+        int[] indices,
+        int valueIndex) {
+      this.field = field;
+      this.variable = variable;
+      this.cqlType = cqlType;
+      this.fieldType = fieldType;
+      this.codec = codec;
+      this.indices = indices;
+      this.valueIndex = valueIndex;
+    }
+  }
 }
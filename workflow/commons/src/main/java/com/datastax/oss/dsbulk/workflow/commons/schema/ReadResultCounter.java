@@ -15,7 +15,10 @@
  */
 package com.datastax.oss.dsbulk.workflow.commons.schema;
 
+import com.datastax.oss.driver.api.core.metadata.token.Token;
 import com.datastax.oss.dsbulk.executor.api.result.ReadResult;
+import com.datastax.oss.dsbulk.workflow.commons.log.TokenRangeCheckpoint;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import java.io.IOException;
 
 public interface ReadResultCounter extends AutoCloseable {
@@ -24,8 +27,25 @@ public interface ReadResultCounter extends AutoCloseable {
 
   void reportTotals() throws IOException;
 
+  /**
+   * Adds the totals recorded in the given checkpoint to this counter; this is used when resuming an
+   * interrupted operation, and must be invoked before any counting unit is created.
+   *
+   * @param checkpoint the checkpoint of the operation being resumed.
+   */
+  void restore(@NonNull TokenRangeCheckpoint checkpoint);
+
   interface CountingUnit extends AutoCloseable {
 
     void update(ReadResult result);
+
+    /**
+     * Marks the token range counted by this unit as complete in the given checkpoint, and adds the
+     * totals of this unit to it. The unit must not be updated afterwards.
+     *
+     * @param checkpoint the checkpoint of the current operation.
+     * @param rangeEnd the end token of the range counted by this unit.
+     */
+    void checkpoint(@NonNull TokenRangeCheckpoint checkpoint, @NonNull Token rangeEnd);
   }
 }
@@ -23,6 +23,7 @@ import com.datastax.oss.dsbulk.batcher.api.ReactiveStatementBatcherFactory;
 import com.datastax.oss.dsbulk.config.ConfigUtils;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigException;
+import java.time.Duration;
 import java.util.ServiceLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,6 +60,9 @@ public class BatchSettings {
   private static final String MAX_SIZE_IN_BYTES = "maxSizeInBytes";
   private static final String MAX_BATCH_STATEMENTS = "maxBatchStatements";
   private static final String BUFFER_SIZE = "bufferSize";
+  private static final String TOKEN_BUCKETS = "tokenBuckets";
+  private static final String MAX_OPEN_GROUPS = "maxOpenGroups";
+  private static final String MAX_BATCH_DELAY = "maxBatchDelay";
 
   private final Config config;
 
@@ -66,6 +70,9 @@ public class BatchSettings {
   private long maxSizeInBytes;
   private int maxBatchStatements;
   private int bufferSize;
+  private int tokenBuckets;
+  private int maxOpenGroups;
+  private Duration maxBatchDelay;
 
   public BatchSettings(Config config) {
     this.config = config;
@@ -129,6 +136,30 @@ public class BatchSettings {
                     + "See settings.md for more information.",
                 bufferSize, maxBatchStatements));
       }
+
+      tokenBuckets = config.getInt(TOKEN_BUCKETS);
+      if (tokenBuckets < 0) {
+        throw new IllegalArgumentException(
+            String.format(
+                "Invalid value for dsbulk.batch.%s, expecting a positive integer or zero, got: %d",
+                TOKEN_BUCKETS, tokenBuckets));
+      }
+
+      maxOpenGroups = config.getInt(MAX_OPEN_GROUPS);
+      if (maxOpenGroups <= 0) {
+        throw new IllegalArgumentException(
+            String.format(
+                "Invalid value for dsbulk.batch.%s, expecting a strictly positive integer, got: %d",
+                MAX_OPEN_GROUPS, maxOpenGroups));
+      }
+
+      maxBatchDelay = config.getDuration(MAX_BATCH_DELAY);
+      if (maxBatchDelay.isNegative()) {
+        throw new IllegalArgumentException(
+            String.format(
+                "Invalid value for dsbulk.batch.%s, expecting a positive duration or zero, got '%s'",
+                MAX_BATCH_DELAY, maxBatchDelay));
+      }
     } catch (ConfigException e) {
       throw ConfigUtils.convertConfigException(e, "dsbulk.batch");
     }
@@ -142,6 +173,14 @@ public class BatchSettings {
     return bufferSize;
   }
 
+  /**
+   * Returns the number of token range buckets into which statements should be sorted before being
+   * batched, or zero if statements should not be sorted.
+   */
+  public int getTokenBuckets() {
+    return isBatchingEnabled() ? tokenBuckets : 0;
+  }
+
   public ReactiveStatementBatcher newStatementBatcher(CqlSession session) {
     ServiceLoader<ReactiveStatementBatcherFactory> loader =
         ServiceLoader.load(ReactiveStatementBatcherFactory.class);
@@ -151,6 +190,8 @@ public class BatchSettings {
         mode.asStatementBatcherMode(),
         DefaultBatchType.UNLOGGED,
         maxBatchStatements,
-        maxSizeInBytes);
+        maxSizeInBytes,
+        maxOpenGroups,
+        maxBatchDelay);
   }
 }
@@ -26,6 +26,8 @@ public class EngineSettings {
   private static final String DRY_RUN = "dryRun";
   private static final String EXECUTION_ID = "executionId";
   private static final String MAX_CONCURRENT_QUERIES = "maxConcurrentQueries";
+  private static final String MAX_CONCURRENT_QUERIES_PER_NODE = "maxConcurrentQueriesPerNode";
+  private static final String ADAPTIVE_CONCURRENCY = "adaptiveConcurrency";
   private static final String DATA_SIZE_SAMPLING_ENABLED = "dataSizeSamplingEnabled";
 
   private final Config config;
@@ -33,6 +35,8 @@ public class EngineSettings {
   private boolean dryRun;
   private String executionId;
   private int maxConcurrentQueries;
+  private int maxConcurrentQueriesPerNode;
+  private boolean adaptiveConcurrency;
   private boolean dataSizeSamplingEnabled;
 
   EngineSettings(Config config) {
@@ -47,6 +51,18 @@ public class EngineSettings {
           config.getString(MAX_CONCURRENT_QUERIES).equalsIgnoreCase("AUTO")
               ? -1
               : ConfigUtils.getThreads(config, MAX_CONCURRENT_QUERIES);
+      if (config.getString(MAX_CONCURRENT_QUERIES_PER_NODE).equalsIgnoreCase("AUTO")) {
+        maxConcurrentQueriesPerNode = -1;
+      } else {
+        maxConcurrentQueriesPerNode = config.getInt(MAX_CONCURRENT_QUERIES_PER_NODE);
+        if (maxConcurrentQueriesPerNode < 0) {
+          throw new IllegalArgumentException(
+              String.format(
+                  "Invalid value for dsbulk.engine.%s, expecting AUTO or a positive integer or zero, got '%s'",
+                  MAX_CONCURRENT_QUERIES_PER_NODE, maxConcurrentQueriesPerNode));
+        }
+      }
+      adaptiveConcurrency = config.getBoolean(ADAPTIVE_CONCURRENCY);
       dataSizeSamplingEnabled = config.getBoolean(DATA_SIZE_SAMPLING_ENABLED);
     } catch (ConfigException e) {
       throw ConfigUtils.convertConfigException(e, "dsbulk.engine");
@@ -65,6 +81,24 @@ public class EngineSettings {
     return maxConcurrentQueries == -1 ? OptionalInt.empty() : OptionalInt.of(maxConcurrentQueries);
   }
 
+  /**
+   * Returns the maximum number of concurrent queries per node, or empty if it should be determined
+   * automatically. Zero means that per-node limits are disabled.
+   */
+  public OptionalInt getMaxConcurrentQueriesPerNode() {
+    return maxConcurrentQueriesPerNode == -1
+        ? OptionalInt.empty()
+        : OptionalInt.of(maxConcurrentQueriesPerNode);
+  }
+
+  /**
+   * Whether the number of concurrent queries should be adjusted at runtime; only applicable when
+   * the maximum number of concurrent queries is determined automatically.
+   */
+  public boolean isAdaptiveConcurrency() {
+    return adaptiveConcurrency && maxConcurrentQueries == -1;
+  }
+
   public boolean isDataSizeSamplingEnabled() {
     return dataSizeSamplingEnabled;
   }
@@ -24,7 +24,10 @@ import ch.qos.logback.core.Appender;
 import ch.qos.logback.core.FileAppender;
 import ch.qos.logback.core.filter.Filter;
 import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.metadata.TokenMap;
 import com.datastax.oss.driver.api.core.session.Session;
+import com.datastax.oss.driver.internal.core.metadata.token.DefaultTokenMap;
+import com.datastax.oss.driver.internal.core.metadata.token.TokenFactory;
 import com.datastax.oss.driver.shaded.guava.common.annotations.VisibleForTesting;
 import com.datastax.oss.driver.shaded.guava.common.base.Joiner;
 import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableList;
@@ -38,18 +41,24 @@ import com.datastax.oss.dsbulk.workflow.api.log.OperationDirectory;
 import com.datastax.oss.dsbulk.workflow.api.log.OperationDirectoryResolver;
 import com.datastax.oss.dsbulk.workflow.api.utils.WorkflowUtils;
 import com.datastax.oss.dsbulk.workflow.commons.format.statement.MappedBoundStatementPrinter;
+import com.datastax.oss.dsbulk.workflow.commons.log.Checkpoint;
 import com.datastax.oss.dsbulk.workflow.commons.log.LogManager;
+import com.datastax.oss.dsbulk.workflow.commons.log.TokenRangeCheckpoint;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigException;
 import com.typesafe.config.ConfigRenderOptions;
 import com.typesafe.config.ConfigValue;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
 import org.slf4j.Logger;
@@ -124,6 +133,10 @@ public class LogSettings {
   private static final String MAX_QUERY_WARNINGS = "maxQueryWarnings";
   private static final String VERBOSITY = "verbosity";
   private static final String SOURCES = "sources";
+  private static final String CHECKPOINT = "checkpoint";
+  private static final String CHECKPOINT_ENABLED = CHECKPOINT + '.' + "enabled";
+  private static final String CHECKPOINT_INTERVAL = CHECKPOINT + '.' + "interval";
+  private static final String CHECKPOINT_RESUME_FROM = CHECKPOINT + '.' + "resumeFrom";
 
   private final Config config;
   private final String executionId;
@@ -140,6 +153,10 @@ public class LogSettings {
   @VisibleForTesting ErrorThreshold queryWarningsThreshold;
   private Verbosity verbosity;
   private boolean sources;
+  private boolean checkpointEnabled;
+  private Duration checkpointInterval;
+  private Path resumedCheckpointFile;
+  private Checkpoint resumedCheckpoint;
 
   public LogSettings(Config config, String executionId) {
     this.config = config;
@@ -195,6 +212,24 @@ public class LogSettings {
       }
       this.verbosity = Verbosity.values()[verbosity];
       sources = config.getBoolean(SOURCES);
+      checkpointEnabled = config.getBoolean(CHECKPOINT_ENABLED);
+      checkpointInterval = config.getDuration(CHECKPOINT_INTERVAL);
+      if (checkpointInterval.isNegative() || checkpointInterval.isZero()) {
+        throw new IllegalArgumentException(
+            String.format(
+                "Invalid value for dsbulk.log.%s, expecting positive duration, got '%s'",
+                CHECKPOINT_INTERVAL, checkpointInterval));
+      }
+      if (ConfigUtils.isPathPresentAndNotEmpty(config, CHECKPOINT_RESUME_FROM)) {
+        resumedCheckpointFile =
+            ConfigUtils.getPath(config, CHECKPOINT_RESUME_FROM).resolve(Checkpoint.CHECKPOINT_FILE);
+        if (!Files.isRegularFile(resumedCheckpointFile)) {
+          throw new IllegalArgumentException(
+              String.format(
+                  "Invalid value for dsbulk.log.%s, checkpoint file %s does not exist",
+                  CHECKPOINT_RESUME_FROM, resumedCheckpointFile));
+        }
+      }
     } catch (ConfigException e) {
       throw ConfigUtils.convertConfigException(e, "dsbulk.log");
     }
@@ -230,7 +265,37 @@ public class LogSettings {
     }
   }
 
-  public LogManager newLogManager(CqlSession session, boolean trackPositions) {
+  /**
+   * Creates a new log manager for a load operation, if {@code trackPositions} is true, or for an
+   * unload or count operation without token range checkpoints otherwise.
+   *
+   * <p>When resuming a load operation, the checkpoint of the operation being resumed is read by
+   * this method; it is available afterwards through {@link #getResumedCheckpoint()}.
+   */
+  public LogManager newLogManager(CqlSession session, boolean trackPositions) throws IOException {
+    if (trackPositions && resumedCheckpointFile != null) {
+      resumedCheckpoint = Checkpoint.read(resumedCheckpointFile);
+    }
+    return newLogManager(session, trackPositions, null);
+  }
+
+  /**
+   * Creates a new log manager for an unload or count operation.
+   *
+   * @param session the session.
+   * @param tokenRangeCheckpoint the checkpoint of the operation, as returned by {@link
+   *     #newTokenRangeCheckpoint(CqlSession, boolean)}, or null if the operation does not support
+   *     checkpoints.
+   */
+  public LogManager newLogManager(
+      CqlSession session, @Nullable TokenRangeCheckpoint tokenRangeCheckpoint) {
+    return newLogManager(session, false, tokenRangeCheckpoint);
+  }
+
+  private LogManager newLogManager(
+      CqlSession session,
+      boolean trackPositions,
+      @Nullable TokenRangeCheckpoint tokenRangeCheckpoint) {
     StatementFormatter statementFormatter =
         StatementFormatter.builder()
             .withMaxQueryStringLength(maxQueryStringLength)
@@ -248,7 +313,60 @@ public class LogSettings {
         trackPositions,
         statementFormatter,
         level,
-        rowFormatter);
+        rowFormatter,
+        checkpointEnabled,
+        checkpointInterval,
+        resumedCheckpoint,
+        tokenRangeCheckpoint);
+  }
+
+  /**
+   * Returns the token range checkpoint of an unload or count operation: if {@code
+   * log.checkpoint.resumeFrom} was set, this is the checkpoint of the operation being resumed,
+   * otherwise this is a new, empty checkpoint, or empty if checkpoints are disabled.
+   *
+   * <p>Checkpoints are also disabled when the operation does not read token ranges, or when token
+   * metadata is not available; resuming such an operation is not possible.
+   *
+   * @param session the session; its token metadata is used to parse and format tokens.
+   * @param tokenRangeReads whether the read statements are split by token range.
+   * @throws IOException if the checkpoint file of the operation being resumed cannot be read.
+   */
+  public Optional<TokenRangeCheckpoint> newTokenRangeCheckpoint(
+      CqlSession session, boolean tokenRangeReads) throws IOException {
+    if (resumedCheckpointFile == null && !checkpointEnabled) {
+      return Optional.empty();
+    }
+    if (!tokenRangeReads) {
+      if (resumedCheckpointFile != null) {
+        throw new IllegalArgumentException(
+            "Cannot resume the operation: the provided statement (schema.query) "
+                + "does not contain a token range restriction.");
+      }
+      LOGGER.debug("Read statements are not split by token range, disabling checkpoints");
+      return Optional.empty();
+    }
+    TokenMap tokenMap = session.getMetadata().getTokenMap().orElse(null);
+    if (tokenMap == null) {
+      if (resumedCheckpointFile != null) {
+        throw new IllegalStateException("Cannot resume the operation: token metadata not present.");
+      }
+      LOGGER.debug("Token metadata not present, disabling checkpoints");
+      return Optional.empty();
+    }
+    TokenFactory tokenFactory = ((DefaultTokenMap) tokenMap).getTokenFactory();
+    if (resumedCheckpointFile == null) {
+      return Optional.of(new TokenRangeCheckpoint(tokenFactory));
+    }
+    return Optional.of(TokenRangeCheckpoint.read(resumedCheckpointFile, tokenFactory));
+  }
+
+  /**
+   * Returns the checkpoint of the load operation being resumed, if {@code
+   * log.checkpoint.resumeFrom} was set, or empty otherwise.
+   */
+  public Optional<Checkpoint> getResumedCheckpoint() {
+    return Optional.ofNullable(resumedCheckpoint);
   }
 
   public Verbosity getVerbosity() {
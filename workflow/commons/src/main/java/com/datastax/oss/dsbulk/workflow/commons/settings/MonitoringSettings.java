@@ -45,6 +45,7 @@ public class MonitoringSettings {
   private static final String JMX = "jmx";
   private static final String CSV = "csv";
   private static final String CONSOLE = "console";
+  private static final String PROMETHEUS_PORT = "prometheus.port";
 
   private final Config config;
   private final String executionId;
@@ -58,6 +59,7 @@ public class MonitoringSettings {
   private boolean jmx;
   private boolean csv;
   private boolean console;
+  private int prometheusPort;
 
   public MonitoringSettings(Config config, String executionId) {
     this.config = config;
@@ -82,9 +84,17 @@ public class MonitoringSettings {
       jmx = config.getBoolean(JMX);
       csv = config.getBoolean(CSV);
       console = config.getBoolean(CONSOLE);
+      prometheusPort = config.hasPath(PROMETHEUS_PORT) ? config.getInt(PROMETHEUS_PORT) : -1;
     } catch (ConfigException e) {
       throw ConfigUtils.convertConfigException(e, "dsbulk.monitoring");
     }
+    if (config.hasPath(PROMETHEUS_PORT) && (prometheusPort < 0 || prometheusPort > 65535)) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Invalid value for dsbulk.monitoring.%s: "
+                  + "expecting a port number between 0 and 65535, got %s",
+              PROMETHEUS_PORT, prometheusPort));
+    }
   }
 
   public MetricsManager newMetricsManager(
@@ -116,6 +126,7 @@ public class MonitoringSettings {
         jmx,
         csv,
         console,
+        prometheusPort,
         operationDirectory,
         verbosity,
         reportRate,
@@ -26,6 +26,8 @@ import static com.datastax.oss.dsbulk.mapping.MappingInspector.WRITETIME;
 import static com.datastax.oss.dsbulk.mapping.MappingPreference.INDEXED_ONLY;
 import static com.datastax.oss.dsbulk.mapping.MappingPreference.MAPPED_ONLY;
 import static com.datastax.oss.dsbulk.mapping.MappingPreference.MAPPED_OR_INDEXED;
+import static com.datastax.oss.dsbulk.workflow.commons.utils.TokenUtils.getTokenMap;
+import static com.datastax.oss.dsbulk.workflow.commons.utils.TokenUtils.newBulkTokenFactory;
 import static java.time.Instant.EPOCH;
 import static java.util.concurrent.TimeUnit.MICROSECONDS;
 
@@ -38,20 +40,26 @@ import com.datastax.oss.driver.api.core.CqlIdentifier;
 import com.datastax.oss.driver.api.core.CqlSession;
 import com.datastax.oss.driver.api.core.DefaultProtocolVersion;
 import com.datastax.oss.driver.api.core.ProtocolVersion;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
 import com.datastax.oss.driver.api.core.cql.ColumnDefinitions;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
 import com.datastax.oss.driver.api.core.cql.Statement;
 import com.datastax.oss.driver.api.core.metadata.Metadata;
+import com.datastax.oss.driver.api.core.metadata.TokenMap;
 import com.datastax.oss.driver.api.core.metadata.schema.ColumnMetadata;
 import com.datastax.oss.driver.api.core.metadata.schema.IndexMetadata;
 import com.datastax.oss.driver.api.core.metadata.schema.KeyspaceMetadata;
 import com.datastax.oss.driver.api.core.metadata.schema.RelationMetadata;
 import com.datastax.oss.driver.api.core.metadata.schema.TableMetadata;
 import com.datastax.oss.driver.api.core.metadata.schema.ViewMetadata;
+import com.datastax.oss.driver.api.core.metadata.token.Token;
+import com.datastax.oss.driver.api.core.metadata.token.TokenRange;
 import com.datastax.oss.driver.api.core.type.DataTypes;
 import com.datastax.oss.driver.shaded.guava.common.annotations.VisibleForTesting;
 import com.datastax.oss.driver.shaded.guava.common.base.Preconditions;
 import com.datastax.oss.driver.shaded.guava.common.base.Predicates;
+import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableList;
 import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableMultimap;
 import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableSet;
 import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableSetMultimap;
@@ -73,7 +81,13 @@ import com.datastax.oss.dsbulk.mapping.Mapping;
 import com.datastax.oss.dsbulk.mapping.MappingField;
 import com.datastax.oss.dsbulk.mapping.MappingInspector;
 import com.datastax.oss.dsbulk.mapping.MappingPreference;
+import com.datastax.oss.dsbulk.partitioner.BulkTokenFactory;
+import com.datastax.oss.dsbulk.partitioner.BulkTokenRange;
+import com.datastax.oss.dsbulk.partitioner.PartitionGenerator;
 import com.datastax.oss.dsbulk.partitioner.TokenRangeReadStatementGenerator;
+import com.datastax.oss.dsbulk.workflow.commons.dispatch.ReadStatementSplitter;
+import com.datastax.oss.dsbulk.workflow.commons.log.TokenRangeCheckpoint;
+import com.datastax.oss.dsbulk.workflow.commons.schema.ApproximateReadResultCounter;
 import com.datastax.oss.dsbulk.workflow.commons.schema.DefaultReadResultCounter;
 import com.datastax.oss.dsbulk.workflow.commons.schema.DefaultReadResultMapper;
 import com.datastax.oss.dsbulk.workflow.commons.schema.DefaultRecordMapper;
@@ -88,6 +102,7 @@ import com.typesafe.config.ConfigException;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
@@ -104,6 +119,7 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -134,6 +150,10 @@ public class SchemaSettings {
   private static final String PRESERVE_TTL = "preserveTtl";
   private static final String CORE = "Core";
   private static final String SPLITS = "splits";
+  private static final String DYNAMIC_SPLITS = "dynamicSplits";
+
+  /** The minimum number of token ranges to read when estimating totals by sampling. */
+  private static final int MIN_SAMPLED_RANGES = 32;
 
   private static final Predicate<FunctionCall> WRITETIME_OR_TTL =
       fc -> fc.getFunctionName().equals(WRITETIME) || fc.getFunctionName().equals(TTL);
@@ -145,6 +165,8 @@ public class SchemaSettings {
   private boolean allowExtraFields;
   private boolean allowMissingFields;
   private int splits;
+  private boolean dynamicSplits;
+  private List<BulkTokenRange> sampledRanges;
   private MappingInspector mapping;
   private int ttlSeconds;
   private long timestampMicros;
@@ -402,6 +424,7 @@ public class SchemaSettings {
       allowExtraFields = config.getBoolean(ALLOW_EXTRA_FIELDS);
       allowMissingFields = config.getBoolean(ALLOW_MISSING_FIELDS);
       splits = ConfigUtils.getThreads(config, SPLITS);
+      dynamicSplits = config.getBoolean(DYNAMIC_SPLITS);
 
       // Final checks related to graph operations
 
@@ -456,7 +479,7 @@ public class SchemaSettings {
     }
     Mapping mapping =
         prepareStatementAndCreateMapping(
-            session, codecFactory, EnumSet.noneOf(StatisticsMode.class));
+            session, codecFactory, EnumSet.noneOf(StatisticsMode.class), false);
     ProtocolVersion protocolVersion = session.getContext().getProtocolVersion();
     if (protocolVersion.getCode() < DefaultProtocolVersion.V4.getCode() && nullToUnset) {
       LOGGER.warn(
@@ -503,7 +526,7 @@ public class SchemaSettings {
     // is the order in which fields appear in the record.
     Mapping mapping =
         prepareStatementAndCreateMapping(
-            session, codecFactory, EnumSet.noneOf(StatisticsMode.class));
+            session, codecFactory, EnumSet.noneOf(StatisticsMode.class), false);
     return new DefaultReadResultMapper(
         mapping, recordMetadata, getTargetTableURI(), retainRecordSources);
   }
@@ -513,12 +536,47 @@ public class SchemaSettings {
       ConvertingCodecFactory codecFactory,
       EnumSet<StatsSettings.StatisticsMode> modes,
       int numPartitions) {
+    return createReadResultCounter(session, codecFactory, modes, numPartitions, false, 0);
+  }
+
+  /**
+   * Creates the counter for the count workflow, and prepares the count query.
+   *
+   * @param session the session.
+   * @param codecFactory the codec factory.
+   * @param modes the statistics to compute.
+   * @param numPartitions the number of partitions to count rows for, when counting partitions.
+   * @param pushdown whether to push the count aggregation down to the server; if true, the count
+   *     query selects {@code count(*)} for each token range, instead of selecting one column per
+   *     row. Only allowed when counting global rows with a generated query.
+   * @param sampleRatio the fraction of the ring to read when estimating totals; only used when
+   *     modes contain {@link StatisticsMode#approximate approximate}. The sampled token ranges are
+   *     the ones subsequently read by the statements returned by {@link
+   *     #createReadStatements(CqlSession, TokenRangeCheckpoint)}.
+   * @return the counter.
+   */
+  public ReadResultCounter createReadResultCounter(
+      CqlSession session,
+      ConvertingCodecFactory codecFactory,
+      EnumSet<StatsSettings.StatisticsMode> modes,
+      int numPartitions,
+      boolean pushdown,
+      double sampleRatio) {
     if (!schemaGenerationStrategy.isReading() || !schemaGenerationStrategy.isCounting()) {
       throw new IllegalStateException(
           "Cannot create read result counter when schema generation strategy is "
               + schemaGenerationStrategy);
     }
-    prepareStatementAndCreateMapping(session, null, modes);
+    if (pushdown && config.hasPath(QUERY)) {
+      throw new IllegalArgumentException(
+          "Cannot push down count aggregations when schema.query is provided; "
+              + "please disable stats.pushdown.");
+    }
+    prepareStatementAndCreateMapping(session, null, modes, pushdown);
+    if (modes.contains(StatisticsMode.approximate)) {
+      sampledRanges = sampleTokenRanges(session, sampleRatio);
+      return new ApproximateReadResultCounter(session, table, sampledRanges);
+    }
     if (modes.contains(StatisticsMode.partitions) && table.getClusteringColumns().isEmpty()) {
       throw new IllegalArgumentException(
           String.format(
@@ -530,13 +588,36 @@ public class SchemaSettings {
         session.getMetadata(),
         modes,
         numPartitions,
+        pushdown,
         session.getContext().getProtocolVersion(),
         codecFactory);
   }
 
   public List<Statement<?>> createReadStatements(CqlSession session) {
+    return createReadStatements(session, null);
+  }
+
+  /**
+   * Creates the statements to read the table, one per token range.
+   *
+   * <p>If a checkpoint is provided and it is empty, the generated token ranges are added to it; if
+   * it is not empty, i.e. if the operation is being resumed, only the ranges that are still pending
+   * in the checkpoint are read.
+   *
+   * @param session the session.
+   * @param checkpoint the checkpoint of the operation, or null if checkpoints are disabled.
+   * @return the read statements; the routing token of each statement is the end token of the range
+   *     it reads.
+   */
+  public List<Statement<?>> createReadStatements(
+      CqlSession session, @Nullable TokenRangeCheckpoint checkpoint) {
     ColumnDefinitions variables = preparedStatement.getVariableDefinitions();
     if (variables.size() == 0) {
+      if (checkpoint != null && !checkpoint.isEmpty()) {
+        throw new IllegalArgumentException(
+            "Cannot resume the operation: the provided statement (schema.query) "
+                + "does not contain a token range restriction.");
+      }
       return Collections.singletonList(preparedStatement.bind());
     }
     boolean ok = true;
@@ -563,17 +644,25 @@ public class SchemaSettings {
     Metadata metadata = session.getMetadata();
     TokenRangeReadStatementGenerator generator =
         new TokenRangeReadStatementGenerator(table, metadata);
-    List<Statement<?>> statements =
-        generator.generate(
-            splits,
-            range ->
-                preparedStatement
-                    .bind()
-                    .setToken(
-                        queryInspector.getTokenRangeRestrictionStartVariableIndex(),
-                        range.getStart())
-                    .setToken(
-                        queryInspector.getTokenRangeRestrictionEndVariableIndex(), range.getEnd()));
+    Function<TokenRange, Statement<?>> statementFactory = this::bindTokenRange;
+    List<Statement<?>> statements;
+    if (sampledRanges != null) {
+      statements = generator.generate(sampledRanges, statementFactory);
+    } else if (checkpoint == null) {
+      statements = generator.generate(splits, statementFactory);
+    } else if (checkpoint.isEmpty()) {
+      statements =
+          generator.generate(
+              splits,
+              range -> {
+                checkpoint.addRange(range);
+                return statementFactory.apply(range);
+              });
+    } else {
+      List<TokenRange> pendingRanges = checkpoint.getPendingRanges();
+      LOGGER.debug("Resuming operation, {} token ranges left to read", pendingRanges.size());
+      statements = generator.generate(pendingRanges, statementFactory);
+    }
 
     LOGGER.debug("Generated {} bound statements", statements.size());
     // Shuffle the statements to avoid hitting the same replicas sequentially when
@@ -582,6 +671,204 @@ public class SchemaSettings {
     return statements;
   }
 
+  /**
+   * Splits a statement created by {@link #createReadStatements(CqlSession, TokenRangeCheckpoint)}
+   * into statements reading smaller token ranges; together, the returned statements read exactly
+   * the same token range as the original statement.
+   *
+   * @param session the session.
+   * @param statement the statement to split.
+   * @param splitCount the desired number of statements; the actual number may be lower if the range
+   *     is too small.
+   * @return the split statements, or an empty list if the statement does not read a token range, or
+   *     if its range cannot be split further.
+   */
+  @NonNull
+  public List<Statement<?>> splitReadStatement(
+      CqlSession session, Statement<?> statement, int splitCount) {
+    return splitReadStatement(session, statement, null, null, splitCount);
+  }
+
+  /**
+   * Splits part of the token range read by a statement created by {@link
+   * #createReadStatements(CqlSession, TokenRangeCheckpoint)}; together, the returned statements
+   * read exactly the given part of the range.
+   *
+   * @param session the session.
+   * @param statement the statement to split.
+   * @param start the start of the part to split, exclusive, or null to split from the start of the
+   *     statement's range.
+   * @param end the end of the part to split, inclusive, or null to split up to the end of the
+   *     statement's range.
+   * @param splitCount the desired number of statements; the actual number may be lower if the part
+   *     is too small.
+   * @return the split statements, in token order, or an empty list if the statement does not read a
+   *     token range, or if the part cannot be split further.
+   */
+  @NonNull
+  public List<Statement<?>> splitReadStatement(
+      CqlSession session,
+      Statement<?> statement,
+      @Nullable Token start,
+      @Nullable Token end,
+      int splitCount) {
+    int startIndex = queryInspector.getTokenRangeRestrictionStartVariableIndex();
+    int endIndex = queryInspector.getTokenRangeRestrictionEndVariableIndex();
+    if (!(statement instanceof BoundStatement) || startIndex == -1 || endIndex == -1) {
+      return Collections.emptyList();
+    }
+    BoundStatement bs = (BoundStatement) statement;
+    if (start == null) {
+      start = bs.getToken(startIndex);
+    }
+    if (end == null) {
+      end = bs.getToken(endIndex);
+    }
+    if (start == null || end == null) {
+      return Collections.emptyList();
+    }
+    Metadata metadata = session.getMetadata();
+    BulkTokenFactory tokenFactory = newBulkTokenFactory(getTokenMap(metadata));
+    List<BulkTokenRange> splits =
+        tokenFactory
+            .splitter()
+            .split(tokenFactory.range(start, end, Collections.emptySet()), splitCount);
+    if (splits.size() < 2) {
+      return Collections.emptyList();
+    }
+    TokenRangeReadStatementGenerator generator =
+        new TokenRangeReadStatementGenerator(table, metadata);
+    return generator.generate(splits, this::bindTokenRange);
+  }
+
+  /**
+   * Creates a splitter allowing the statements created by {@link #createReadStatements(CqlSession,
+   * TokenRangeCheckpoint)} to be split while they are being read.
+   *
+   * @param session the session.
+   * @return the splitter, or empty if dynamic splits are disabled, or if the read statements cannot
+   *     be split: this is the case for search queries, which do not return rows in token order, and
+   *     for queries without a token range restriction.
+   */
+  @NonNull
+  public Optional<ReadStatementSplitter> createReadStatementSplitter(CqlSession session) {
+    if (!dynamicSplits
+        || table == null
+        || isSearchQuery()
+        || queryInspector.getTokenRangeRestrictionStartVariableIndex() == -1
+        || queryInspector.getTokenRangeRestrictionEndVariableIndex() == -1
+        || !selectsPartitionKeyUnaliased()) {
+      return Optional.empty();
+    }
+    return session
+        .getMetadata()
+        .getTokenMap()
+        .map(tokenMap -> new TokenRangeReadStatementSplitter(session, tokenMap));
+  }
+
+  /**
+   * Whether the read query selects all the partition key columns directly, and no other selector is
+   * aliased after one of them: only then are the tokens of rows computed from their partition key
+   * columns correct. An aliased selector could otherwise make a scan stop too early, and lose rows.
+   */
+  private boolean selectsPartitionKeyUnaliased() {
+    if (queryInspector.isSelectStar()) {
+      return true;
+    }
+    // unsupported selectors are not tracked, even if aliased after a partition key column
+    if (queryInspector.hasUnsupportedSelectors()) {
+      return false;
+    }
+    Map<CQLFragment, CQLFragment> variables = queryInspector.getResultSetVariables();
+    for (ColumnMetadata column : table.getPartitionKey()) {
+      CQLWord name = CQLWord.fromCqlIdentifier(column.getName());
+      if (!name.equals(variables.get(name))) {
+        return false;
+      }
+      for (Entry<CQLFragment, CQLFragment> entry : variables.entrySet()) {
+        if (!entry.getKey().equals(name) && entry.getValue().equals(name)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Splits the part of a range past the last row read. The token of a row is computed from its
+   * partition key columns, when the query selects all of them.
+   */
+  private class TokenRangeReadStatementSplitter implements ReadStatementSplitter {
+
+    private final CqlSession session;
+    private final TokenMap tokenMap;
+    private final List<CqlIdentifier> partitionKey;
+
+    private TokenRangeReadStatementSplitter(CqlSession session, TokenMap tokenMap) {
+      this.session = session;
+      this.tokenMap = tokenMap;
+      partitionKey =
+          table.getPartitionKey().stream()
+              .map(ColumnMetadata::getName)
+              .collect(Collectors.toList());
+    }
+
+    @Nullable
+    @Override
+    public Token getToken(@NonNull Row row) {
+      ColumnDefinitions definitions = row.getColumnDefinitions();
+      ByteBuffer[] components = new ByteBuffer[partitionKey.size()];
+      for (int i = 0; i < components.length; i++) {
+        int index = definitions.firstIndexOf(partitionKey.get(i));
+        ByteBuffer bytes = index == -1 ? null : row.getBytesUnsafe(index);
+        if (bytes == null) {
+          return null;
+        }
+        components[i] = bytes.duplicate();
+      }
+      return tokenMap.newToken(components);
+    }
+
+    @NonNull
+    @Override
+    public List<Statement<?>> split(
+        @NonNull Statement<?> statement, @NonNull Token start, @Nullable Token end, int count) {
+      return splitReadStatement(session, statement, start, end, count);
+    }
+  }
+
+  /**
+   * Splits the ring in many small token ranges, and picks the given fraction of them at random.
+   * Enough ranges are generated for the sample to contain at least {@value #MIN_SAMPLED_RANGES}
+   * ranges, so that estimates can be given a margin of error.
+   */
+  @NonNull
+  private List<BulkTokenRange> sampleTokenRanges(CqlSession session, double sampleRatio) {
+    if (sampleRatio <= 0) {
+      return ImmutableList.of();
+    }
+    TokenMap tokenMap = getTokenMap(session.getMetadata());
+    int splitCount =
+        (int)
+            Math.min(
+                Integer.MAX_VALUE, Math.max(splits, Math.ceil(MIN_SAMPLED_RANGES / sampleRatio)));
+    PartitionGenerator generator =
+        new PartitionGenerator(keyspace.getName(), tokenMap, newBulkTokenFactory(tokenMap));
+    List<BulkTokenRange> ranges = new ArrayList<>(generator.partition(splitCount));
+    Collections.shuffle(ranges);
+    int sampleSize = (int) Math.max(1, Math.round(ranges.size() * sampleRatio));
+    LOGGER.debug("Sampling {} token ranges out of {}", sampleSize, ranges.size());
+    return ImmutableList.copyOf(ranges.subList(0, sampleSize));
+  }
+
+  @NonNull
+  private Statement<?> bindTokenRange(@NonNull TokenRange range) {
+    return preparedStatement
+        .bind()
+        .setToken(queryInspector.getTokenRangeRestrictionStartVariableIndex(), range.getStart())
+        .setToken(queryInspector.getTokenRangeRestrictionEndVariableIndex(), range.getEnd());
+  }
+
   @NonNull
   public RowType getRowType() {
     boolean isTable = table instanceof DseTableMetadata;
@@ -629,9 +916,24 @@ public class SchemaSettings {
     return queryInspector.isBatch();
   }
 
+  /**
+   * Whether the read query contains a token range restriction, i.e. reads one range at a time.
+   * Generated queries are only known once the read result mapper or counter has been created.
+   */
+  public boolean isTokenRangeQuery() {
+    if (queryInspector == null) {
+      throw new IllegalStateException("Read query has not been prepared yet");
+    }
+    return queryInspector.getTokenRangeRestrictionStartVariableIndex() != -1
+        && queryInspector.getTokenRangeRestrictionEndVariableIndex() != -1;
+  }
+
   @NonNull
   private Mapping prepareStatementAndCreateMapping(
-      CqlSession session, ConvertingCodecFactory codecFactory, EnumSet<StatisticsMode> modes) {
+      CqlSession session,
+      ConvertingCodecFactory codecFactory,
+      EnumSet<StatisticsMode> modes,
+      boolean pushdown) {
     ImmutableMultimap<MappingField, CQLFragment> fieldsToVariables = null;
     if (!config.hasPath(QUERY)) {
       // in the absence of user-provided queries, create the mapping *before* query generation and
@@ -669,7 +971,7 @@ public class SchemaSettings {
       } else if (schemaGenerationStrategy.isReading() && schemaGenerationStrategy.isMapping()) {
         query = inferReadQuery(fieldsToVariables);
       } else if (schemaGenerationStrategy.isReading() && schemaGenerationStrategy.isCounting()) {
-        query = inferCountQuery(modes);
+        query = inferCountQuery(modes, pushdown);
       } else {
         throw new IllegalStateException(
             "Unsupported schema generation strategy: " + schemaGenerationStrategy);
@@ -697,7 +999,8 @@ public class SchemaSettings {
       if (schemaGenerationStrategy.isCounting()) {
         if (modes.contains(StatisticsMode.partitions)
             || modes.contains(StatisticsMode.ranges)
-            || modes.contains(StatisticsMode.hosts)) {
+            || modes.contains(StatisticsMode.hosts)
+            || modes.contains(StatisticsMode.approximate)) {
           throw new IllegalArgumentException(
               String.format(
                   "Cannot count with stats.modes = %s when schema.query is provided; "
@@ -1415,12 +1718,13 @@ public class SchemaSettings {
     sb.append(":end");
   }
 
-  private String inferCountQuery(EnumSet<StatisticsMode> modes) {
+  private String inferCountQuery(EnumSet<StatisticsMode> modes, boolean pushdown) {
     StringBuilder sb = new StringBuilder("SELECT ");
     List<ColumnMetadata> partitionKey = table.getPartitionKey();
     if (modes.contains(StatisticsMode.ranges)
         || modes.contains(StatisticsMode.hosts)
-        || modes.contains(StatisticsMode.partitions)) {
+        || modes.contains(StatisticsMode.partitions)
+        || modes.contains(StatisticsMode.approximate)) {
       if (modes.contains(StatisticsMode.partitions)) {
         // we need to select the entire partition key, column by column
         Iterator<ColumnMetadata> it = partitionKey.iterator();
@@ -1435,6 +1739,9 @@ public class SchemaSettings {
         // we only need the row's token
         appendTokenFunction(sb);
       }
+    } else if (pushdown) {
+      // let the server count the rows in each token range
+      sb.append("count(*)");
     } else {
       String selector = getGlobalCountSelector();
       sb.append(selector);
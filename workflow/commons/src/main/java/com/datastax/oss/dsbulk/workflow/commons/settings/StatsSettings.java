@@ -27,16 +27,21 @@ public class StatsSettings {
     global,
     ranges,
     hosts,
-    partitions
+    partitions,
+    approximate
   }
 
   private static final String MODES = "modes";
   private static final String NUM_PARTITIONS = "numPartitions";
+  private static final String PUSHDOWN = "pushdown";
+  private static final String SAMPLE_RATIO = "sampleRatio";
 
   private final Config config;
 
   private List<StatisticsMode> statisticsModes;
   private int numPartitions;
+  private boolean pushdown;
+  private double sampleRatio;
 
   public StatsSettings(Config config) {
     this.config = config;
@@ -46,9 +51,33 @@ public class StatsSettings {
     try {
       statisticsModes = config.getEnumList(StatisticsMode.class, MODES);
       numPartitions = config.getInt(NUM_PARTITIONS);
+      pushdown = config.getBoolean(PUSHDOWN);
+      sampleRatio = config.getDouble(SAMPLE_RATIO);
     } catch (ConfigException e) {
       throw ConfigUtils.convertConfigException(e, "dsbulk.stats");
     }
+    if (statisticsModes.contains(StatisticsMode.approximate) && statisticsModes.size() > 1) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Invalid value for dsbulk.stats.modes: "
+                  + "approximate cannot be combined with other modes, got %s",
+              statisticsModes));
+    }
+    if (sampleRatio < 0 || sampleRatio > 1) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Invalid value for dsbulk.stats.sampleRatio: "
+                  + "expecting a number between 0 and 1, got %s",
+              sampleRatio));
+    }
+    if (pushdown
+        && (statisticsModes.size() != 1 || statisticsModes.get(0) != StatisticsMode.global)) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Invalid value for dsbulk.stats.pushdown: "
+                  + "count aggregations can only be pushed down when stats.modes = [global], got %s",
+              statisticsModes));
+    }
   }
 
   public EnumSet<StatisticsMode> getStatisticsModes() {
@@ -58,4 +87,12 @@ public class StatsSettings {
   public int getNumPartitions() {
     return numPartitions;
   }
+
+  public boolean isPushdown() {
+    return pushdown;
+  }
+
+  public double getSampleRatio() {
+    return sampleRatio;
+  }
 }
@@ -27,6 +27,7 @@ import com.datastax.oss.driver.api.core.metadata.token.Token;
 import com.datastax.oss.driver.api.core.type.DataType;
 import com.datastax.oss.driver.api.core.type.codec.registry.CodecRegistry;
 import com.datastax.oss.dsbulk.connectors.api.Record;
+import com.datastax.oss.dsbulk.sampler.SizedStatement;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import java.nio.ByteBuffer;
@@ -34,14 +35,26 @@ import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 
-public class MappedBoundStatement implements BoundStatement, MappedStatement {
+public class MappedBoundStatement implements BoundStatement, MappedStatement, SizedStatement {
 
   private final Record source;
   private BoundStatement delegate;
+  private long dataSize;
 
   public MappedBoundStatement(Record source, BoundStatement delegate) {
+    this(source, delegate, -1);
+  }
+
+  /**
+   * @param source The record this statement was mapped from.
+   * @param delegate The actual bound statement.
+   * @param dataSize The data size of the bound statement, as computed when binding its values, or
+   *     -1 if unknown, in which case it will be computed on demand.
+   */
+  public MappedBoundStatement(Record source, BoundStatement delegate, long dataSize) {
     this.source = source;
     this.delegate = delegate;
+    this.dataSize = dataSize;
   }
 
   @Override
@@ -49,6 +62,21 @@ public class MappedBoundStatement implements BoundStatement, MappedStatement {
     return source;
   }
 
+  @Override
+  public long getDataSize() {
+    if (dataSize < 0) {
+      long size = 0;
+      for (int i = 0; i < delegate.size(); i++) {
+        ByteBuffer bb = delegate.getBytesUnsafe(i);
+        if (bb != null) {
+          size += bb.remaining();
+        }
+      }
+      dataSize = size;
+    }
+    return dataSize;
+  }
+
   @NonNull
   @Override
   public PreparedStatement getPreparedStatement() {
@@ -254,6 +282,8 @@ public class MappedBoundStatement implements BoundStatement, MappedStatement {
   @Override
   public BoundStatement setBytesUnsafe(int i, ByteBuffer v) {
     delegate = delegate.setBytesUnsafe(i, v);
+    // the data size must be computed again
+    dataSize = -1;
     return this;
   }
 
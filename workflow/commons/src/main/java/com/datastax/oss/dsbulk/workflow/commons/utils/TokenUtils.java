@@ -0,0 +1,44 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.workflow.commons.utils;
+
+import com.datastax.oss.driver.api.core.metadata.Metadata;
+import com.datastax.oss.driver.api.core.metadata.TokenMap;
+import com.datastax.oss.driver.internal.core.metadata.token.DefaultTokenMap;
+import com.datastax.oss.dsbulk.partitioner.BulkTokenFactory;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+public class TokenUtils {
+
+  /**
+   * Returns the token map of the cluster.
+   *
+   * @throws IllegalStateException if token metadata is not present.
+   */
+  @NonNull
+  public static TokenMap getTokenMap(@NonNull Metadata metadata) {
+    return metadata
+        .getTokenMap()
+        .orElseThrow(() -> new IllegalStateException("Token metadata not present"));
+  }
+
+  /** Returns a {@link BulkTokenFactory} for the partitioner of the given token map. */
+  @NonNull
+  public static BulkTokenFactory newBulkTokenFactory(@NonNull TokenMap tokenMap) {
+    return BulkTokenFactory.forPartitioner(
+        ((DefaultTokenMap) tokenMap).getTokenFactory().getPartitionerName());
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.workflow.commons.dispatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.servererrors.OverloadedException;
+import com.datastax.oss.dsbulk.executor.api.exception.BulkExecutionException;
+import com.datastax.oss.dsbulk.executor.api.histogram.HdrHistogramReservoir;
+import com.datastax.oss.dsbulk.executor.api.result.DefaultWriteResult;
+import com.datastax.oss.dsbulk.executor.api.result.EmptyWriteResult;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyControllerTest {
+
+  private final Timer writesTimer = new Timer(new HdrHistogramReservoir());
+  private final Counter inFlightCounter = new Counter();
+  private final MetricRegistry registry = new MetricRegistry();
+  private final List<Integer> limits = new CopyOnWriteArrayList<>();
+
+  @Test
+  void should_increase_limit_while_latency_is_flat_and_limit_is_reached() {
+    AdaptiveConcurrencyController controller = newController(16, 4, 100);
+    recordWrites(100, 10);
+    inFlightCounter.inc(16);
+    controller.adjust();
+    assertThat(controller.getLimit()).isEqualTo(20);
+    recordWrites(100, 10);
+    controller.adjust();
+    assertThat(controller.getLimit()).isEqualTo(24);
+    assertThat(limits).containsExactly(20, 24);
+    assertThat(registry.getGauges().get("executor/concurrency-limit").getValue()).isEqualTo(24);
+  }
+
+  @Test
+  void should_not_increase_limit_when_limit_is_not_reached() {
+    AdaptiveConcurrencyController controller = newController(16, 4, 100);
+    recordWrites(100, 10);
+    inFlightCounter.inc(4);
+    controller.adjust();
+    assertThat(controller.getLimit()).isEqualTo(16);
+    assertThat(limits).isEmpty();
+  }
+
+  @Test
+  void should_not_adjust_limit_when_too_few_writes_completed() {
+    AdaptiveConcurrencyController controller = newController(16, 4, 100);
+    recordWrites(5, 10);
+    inFlightCounter.inc(16);
+    controller.adjust();
+    assertThat(controller.getLimit()).isEqualTo(16);
+  }
+
+  @Test
+  void should_decrease_limit_when_latency_grows() {
+    AdaptiveConcurrencyController controller = newController(20, 4, 100);
+    recordWrites(100, 10);
+    controller.adjust();
+    assertThat(controller.getLimit()).isEqualTo(20);
+    // only the writes of the last interval should be considered
+    recordWrites(100, 50);
+    controller.adjust();
+    assertThat(controller.getLimit()).isEqualTo(18);
+    recordWrites(100, 10);
+    controller.adjust();
+    assertThat(controller.getLimit()).isEqualTo(18);
+  }
+
+  @Test
+  void should_halve_limit_on_overload_errors_down_to_minimum() {
+    AdaptiveConcurrencyController controller = newController(20, 8, 100);
+    controller.onResult(new EmptyWriteResult(SimpleStatement.newInstance("INSERT")));
+    controller.adjust();
+    assertThat(controller.getLimit()).isEqualTo(20);
+    controller.onResult(overloaded());
+    controller.onResult(overloaded());
+    controller.adjust();
+    assertThat(controller.getLimit()).isEqualTo(10);
+    controller.onResult(overloaded());
+    controller.adjust();
+    assertThat(controller.getLimit()).isEqualTo(8);
+    assertThat(limits).containsExactly(10, 8);
+  }
+
+  @Test
+  void should_not_increase_limit_beyond_maximum() {
+    AdaptiveConcurrencyController controller = newController(16, 4, 18);
+    recordWrites(100, 10);
+    inFlightCounter.inc(16);
+    controller.adjust();
+    assertThat(controller.getLimit()).isEqualTo(18);
+  }
+
+  private AdaptiveConcurrencyController newController(int initial, int min, int max) {
+    return new AdaptiveConcurrencyController(
+        writesTimer, inFlightCounter, initial, min, max, limits::add, registry);
+  }
+
+  private void recordWrites(int count, long latencyMillis) {
+    for (int i = 0; i < count; i++) {
+      writesTimer.update(latencyMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private static DefaultWriteResult overloaded() {
+    SimpleStatement statement = SimpleStatement.newInstance("INSERT");
+    return new DefaultWriteResult(
+        new BulkExecutionException(new OverloadedException(mock(Node.class)), statement));
+  }
+}
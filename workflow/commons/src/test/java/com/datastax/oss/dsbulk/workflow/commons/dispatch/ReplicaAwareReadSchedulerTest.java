@@ -0,0 +1,326 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.workflow.commons.dispatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.loadbalancing.NodeDistance;
+import com.datastax.oss.driver.api.core.metadata.Metadata;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.metadata.NodeState;
+import com.datastax.oss.driver.api.core.metadata.TokenMap;
+import com.datastax.oss.driver.api.core.metadata.token.Token;
+import com.datastax.oss.driver.internal.core.metadata.DefaultEndPoint;
+import com.datastax.oss.driver.internal.core.metadata.token.Murmur3Token;
+import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableSet;
+import com.datastax.oss.dsbulk.executor.api.reader.BulkReader;
+import com.datastax.oss.dsbulk.executor.api.result.DefaultReadResult;
+import com.datastax.oss.dsbulk.executor.api.result.ReadResult;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+class ReplicaAwareReadSchedulerTest {
+
+  private final CqlIdentifier ks = CqlIdentifier.fromInternal("ks");
+
+  private final Token token1 = new Murmur3Token(-100);
+  private final Token token2 = new Murmur3Token(100);
+
+  private final Node node1 = mockNode("127.0.0.1");
+  private final Node node2 = mockNode("127.0.0.2");
+  private final Node node3 = mockNode("127.0.0.3");
+
+  private final MetricRegistry registry = new MetricRegistry();
+
+  private final List<Statement<?>> executed = new CopyOnWriteArrayList<>();
+  private final List<Sinks.Many<ReadResult>> pending = new CopyOnWriteArrayList<>();
+
+  private CqlSession session;
+  private TokenMap tokenMap;
+  private BulkReader executor;
+
+  @BeforeEach
+  void setUp() {
+    session = mock(CqlSession.class);
+    Metadata metadata = mock(Metadata.class);
+    tokenMap = mock(TokenMap.class);
+    when(session.getMetadata()).thenReturn(metadata);
+    when(metadata.getTokenMap()).thenReturn(Optional.of(tokenMap));
+    when(tokenMap.getReplicas(ks, token1)).thenReturn(ImmutableSet.of(node1, node2));
+    when(tokenMap.getReplicas(ks, token2)).thenReturn(Collections.singleton(node3));
+    executor = mock(BulkReader.class);
+    when(executor.readReactive(any(Statement.class)))
+        .thenAnswer(
+            invocation -> {
+              executed.add(invocation.getArgument(0));
+              Sinks.Many<ReadResult> sink = Sinks.many().unicast().onBackpressureBuffer();
+              pending.add(sink);
+              return sink.asFlux();
+            });
+  }
+
+  @Test
+  void should_cap_scans_per_node_and_account_least_busy_replica() {
+    List<Statement<?>> statements = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      statements.add(statement(i, token1));
+    }
+    statements.add(statement(6, token2));
+    statements.add(statement(7, token2));
+    ReplicaAwareReadScheduler scheduler =
+        new ReplicaAwareReadScheduler(session, executor, statements, 1, null, registry);
+    List<ReadResult> results = new CopyOnWriteArrayList<>();
+    AtomicBoolean completed = new AtomicBoolean();
+    scheduler
+        .schedule(RangeScan::read, 10, 16)
+        .doOnComplete(() -> completed.set(true))
+        .subscribe(results::add);
+    // one scan per node, replica sets served in turn; statements are not pinned to any node
+    assertThat(executed).hasSize(3).extracting(Statement::getNode).containsOnlyNulls();
+    assertThat(inFlight(node1)).isEqualTo(1);
+    assertThat(inFlight(node2)).isEqualTo(1);
+    assertThat(inFlight(node3)).isEqualTo(1);
+    // completing a scan on node3 lets the next statement for node3 through
+    complete(1);
+    assertThat(executed).hasSize(4);
+    assertThat(executed.get(3).getRoutingToken()).isEqualTo(token2);
+    assertThat(inFlight(node3)).isEqualTo(1);
+    for (int i = 0; i < 8; i++) {
+      complete(i);
+    }
+    assertThat(executed).hasSize(8);
+    assertThat(results).hasSize(8);
+    assertThat(completed).isTrue();
+    assertThat(inFlight(node1)).isEqualTo(0);
+  }
+
+  @Test
+  void should_enforce_global_limit_for_statements_without_replicas() {
+    List<Statement<?>> statements = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      statements.add(SimpleStatement.newInstance("SELECT " + i));
+    }
+    ReplicaAwareReadScheduler scheduler =
+        new ReplicaAwareReadScheduler(session, executor, statements, 1, null, null);
+    scheduler.schedule(RangeScan::read, 2, 16).subscribe();
+    assertThat(executed).hasSize(2).extracting(Statement::getNode).containsOnlyNulls();
+    complete(0);
+    assertThat(executed).hasSize(3);
+  }
+
+  @Test
+  void should_not_account_scans_against_nodes_that_are_down() {
+    when(node1.getState()).thenReturn(NodeState.DOWN);
+    when(node3.getState()).thenReturn(NodeState.DOWN);
+    List<Statement<?>> statements = new ArrayList<>();
+    statements.add(statement(0, token1));
+    statements.add(statement(1, token1));
+    statements.add(statement(2, token2));
+    ReplicaAwareReadScheduler scheduler =
+        new ReplicaAwareReadScheduler(session, executor, statements, 1, null, registry);
+    scheduler.schedule(RangeScan::read, 10, 16).subscribe();
+    // node1 is down: token1 ranges are accounted against node2 only; all the replicas of the
+    // token2 range are down: it is read anyway, without being accounted against any node
+    assertThat(executed)
+        .extracting(Statement::getRoutingToken)
+        .containsExactlyInAnyOrder(token1, token2);
+    assertThat(inFlight(node1)).isEqualTo(0);
+    assertThat(inFlight(node2)).isEqualTo(1);
+    assertThat(inFlight(node3)).isEqualTo(0);
+    complete(executed.get(0).getRoutingToken().equals(token1) ? 0 : 1);
+    assertThat(executed).hasSize(3);
+    assertThat(executed.get(2).getRoutingToken()).isEqualTo(token1);
+    assertThat(inFlight(node2)).isEqualTo(1);
+  }
+
+  @Test
+  void should_let_driver_fail_over_when_replica_goes_down() {
+    // emulates the driver: a statement pinned to a node that is down fails, otherwise it is
+    // routed to the first live replica of its routing token
+    List<Node> coordinators = new CopyOnWriteArrayList<>();
+    BulkReader driver = mock(BulkReader.class);
+    when(driver.readReactive(any(Statement.class)))
+        .thenAnswer(
+            invocation -> {
+              Statement<?> statement = invocation.getArgument(0);
+              // the replica the scan was accounted against goes down just before execution
+              when(node1.getState()).thenReturn(NodeState.DOWN);
+              if (statement.getNode() != null) {
+                if (statement.getNode().getState() == NodeState.DOWN) {
+                  return Flux.error(new IllegalStateException("node down"));
+                }
+                coordinators.add(statement.getNode());
+              } else {
+                tokenMap.getReplicas(ks, statement.getRoutingToken()).stream()
+                    .filter(node -> node.getState() != NodeState.DOWN)
+                    .findFirst()
+                    .ifPresent(coordinators::add);
+              }
+              return Flux.just(
+                  new DefaultReadResult(statement, mock(ExecutionInfo.class), mock(Row.class)));
+            });
+    ReplicaAwareReadScheduler scheduler =
+        new ReplicaAwareReadScheduler(
+            session, driver, Collections.singletonList(statement(0, token1)), 1, null, null);
+    List<ReadResult> results = scheduler.schedule(RangeScan::read, 10, 16).collectList().block();
+    assertThat(results).hasSize(1);
+    assertThat(coordinators).containsExactly(node2);
+  }
+
+  @Test
+  void should_stop_scheduling_when_cancelled() {
+    List<Statement<?>> statements = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      statements.add(statement(i, token2));
+    }
+    ReplicaAwareReadScheduler scheduler =
+        new ReplicaAwareReadScheduler(session, executor, statements, 1, null, registry);
+    scheduler.schedule(RangeScan::read, 10, 16).take(1).subscribe();
+    assertThat(executed).hasSize(1);
+    complete(0);
+    assertThat(executed).hasSize(1);
+    assertThat(registry.getGauges().get("executor/nodes/127.0.0.3:9042/in-flight").getValue())
+        .isEqualTo(0);
+  }
+
+  @Test
+  void should_split_long_running_scan_when_slots_are_idle() {
+    Map<Row, Token> tokens = new IdentityHashMap<>();
+    ReadStatementSplitter splitter = new EvenSplitter(tokens);
+    List<Statement<?>> statements = new ArrayList<>();
+    statements.add(statement(0, new Murmur3Token(1000)));
+    statements.add(statement(1, new Murmur3Token(2000)));
+    ReplicaAwareReadScheduler scheduler =
+        new ReplicaAwareReadScheduler(
+            session, executor, statements, 0, splitter, null, Duration.ZERO);
+    List<ReadResult> results = new CopyOnWriteArrayList<>();
+    List<Statement<?>> completeRanges = new CopyOnWriteArrayList<>();
+    AtomicBoolean completed = new AtomicBoolean();
+    scheduler
+        .schedule(RangeScan::read, 3, 16, completeRanges::add)
+        .doOnComplete(() -> completed.set(true))
+        .subscribe(results::add);
+    // per-node limits are disabled: statements are not targeted at any node
+    assertThat(executed).hasSize(2).extracting(Statement::getNode).containsOnlyNulls();
+    emit(0, row(tokens, 100));
+    // the second scan completes: the remaining part of the first range, (100,1000], is split in
+    // three, and the last two splits are given to the idle slots
+    complete(1);
+    assertThat(executed).hasSize(4);
+    assertThat(executed.subList(2, 4))
+        .extracting(Statement::getRoutingToken)
+        .containsExactly(new Murmur3Token(700), new Murmur3Token(1000));
+    assertThat(completeRanges).containsExactly(statements.get(1));
+    // the first scan stops at the first row beyond its split
+    emit(0, row(tokens, 300));
+    emit(0, row(tokens, 500));
+    assertThat(results).hasSize(3);
+    assertThat(completeRanges).containsExactly(statements.get(1));
+    complete(2);
+    assertThat(completeRanges).containsExactly(statements.get(1));
+    complete(3);
+    // the first range is complete once all of its splits are
+    assertThat(completeRanges).containsExactly(statements.get(1), statements.get(0));
+    assertThat(completed).isTrue();
+  }
+
+  private Object inFlight(Node node) {
+    String name = node.getEndPoint().toString().replaceFirst("^/", "");
+    return registry.getGauges().get("executor/nodes/" + name + "/in-flight").getValue();
+  }
+
+  private void emit(int i, Row row) {
+    Statement<?> statement = executed.get(i);
+    pending.get(i).tryEmitNext(new DefaultReadResult(statement, mock(ExecutionInfo.class), row));
+  }
+
+  private void complete(int i) {
+    emit(i, mock(Row.class));
+    pending.get(i).tryEmitComplete();
+  }
+
+  private static Row row(Map<Row, Token> tokens, long token) {
+    Row row = mock(Row.class);
+    tokens.put(row, new Murmur3Token(token));
+    return row;
+  }
+
+  private SimpleStatement statement(int i, Token token) {
+    return SimpleStatement.newInstance("SELECT " + i).setRoutingKeyspace(ks).setRoutingToken(token);
+  }
+
+  /** Splits ranges in equal parts; statements only carry the end of their range. */
+  private static class EvenSplitter implements ReadStatementSplitter {
+
+    private final Map<Row, Token> tokens;
+
+    private EvenSplitter(Map<Row, Token> tokens) {
+      this.tokens = tokens;
+    }
+
+    @Nullable
+    @Override
+    public Token getToken(@NonNull Row row) {
+      return tokens.get(row);
+    }
+
+    @NonNull
+    @Override
+    public List<Statement<?>> split(
+        @NonNull Statement<?> statement, @NonNull Token start, @Nullable Token end, int count) {
+      long from = ((Murmur3Token) start).getValue();
+      long to = ((Murmur3Token) (end == null ? statement.getRoutingToken() : end)).getValue();
+      List<Statement<?>> splits = new ArrayList<>();
+      for (int i = 1; i <= count; i++) {
+        Token splitEnd = new Murmur3Token(from + (to - from) * i / count);
+        splits.add(statement.setRoutingToken(splitEnd));
+      }
+      return splits;
+    }
+  }
+
+  private static Node mockNode(String address) {
+    Node node = mock(Node.class);
+    when(node.getDistance()).thenReturn(NodeDistance.LOCAL);
+    when(node.getState()).thenReturn(NodeState.UP);
+    when(node.getEndPoint()).thenReturn(new DefaultEndPoint(new InetSocketAddress(address, 9042)));
+    return node;
+  }
+}
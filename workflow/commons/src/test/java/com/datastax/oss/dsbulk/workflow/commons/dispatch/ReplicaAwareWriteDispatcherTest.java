@@ -0,0 +1,193 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.workflow.commons.dispatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.SimpleStatement;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.data.ByteUtils;
+import com.datastax.oss.driver.api.core.loadbalancing.NodeDistance;
+import com.datastax.oss.driver.api.core.metadata.Metadata;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.metadata.TokenMap;
+import com.datastax.oss.driver.internal.core.metadata.DefaultEndPoint;
+import com.datastax.oss.dsbulk.executor.api.result.EmptyWriteResult;
+import com.datastax.oss.dsbulk.executor.api.result.WriteResult;
+import com.datastax.oss.dsbulk.executor.api.writer.BulkWriter;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class ReplicaAwareWriteDispatcherTest {
+
+  private final CqlIdentifier ks = CqlIdentifier.fromInternal("ks");
+
+  private final ByteBuffer key1 = ByteUtils.fromHexString("0x1234");
+  private final ByteBuffer key2 = ByteUtils.fromHexString("0x5678");
+
+  private final Node node1 = mockNode("127.0.0.1");
+  private final Node node2 = mockNode("127.0.0.2");
+
+  private final MetricRegistry registry = new MetricRegistry();
+
+  private final List<Statement<?>> executed = new CopyOnWriteArrayList<>();
+  private final List<Sinks.One<WriteResult>> pending = new CopyOnWriteArrayList<>();
+
+  private CqlSession session;
+  private BulkWriter executor;
+
+  @BeforeEach
+  void setUp() {
+    session = mock(CqlSession.class);
+    Metadata metadata = mock(Metadata.class);
+    TokenMap tokenMap = mock(TokenMap.class);
+    when(session.getMetadata()).thenReturn(metadata);
+    when(metadata.getTokenMap()).thenReturn(Optional.of(tokenMap));
+    when(tokenMap.getReplicas(ks, key1)).thenReturn(Collections.singleton(node1));
+    when(tokenMap.getReplicas(ks, key2)).thenReturn(Collections.singleton(node2));
+    executor = mock(BulkWriter.class);
+    // writes to node1 hang until completed by the test, writes to node2 complete immediately
+    when(executor.writeReactive(any(Statement.class)))
+        .thenAnswer(
+            invocation -> {
+              Statement<?> statement = invocation.getArgument(0);
+              executed.add(statement);
+              if (key2.equals(statement.getRoutingKey())) {
+                return Mono.just(new EmptyWriteResult(statement));
+              }
+              Sinks.One<WriteResult> sink = Sinks.one();
+              pending.add(sink);
+              return sink.asMono();
+            });
+  }
+
+  @Test
+  void should_not_let_slow_node_stall_writes_to_other_nodes() {
+    ReplicaAwareWriteDispatcher dispatcher =
+        new ReplicaAwareWriteDispatcher(session, executor, 4, 2, 100, registry);
+    List<Statement<?>> statements = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      statements.add(statement(key1));
+      statements.add(statement(key2));
+    }
+    List<WriteResult> results = new CopyOnWriteArrayList<>();
+    dispatcher.dispatch(Flux.fromIterable(statements)).subscribe(results::add);
+    // all writes to node2 went through, node1 only got its own budget
+    assertThat(results).hasSize(10);
+    assertThat(pending).hasSize(2);
+    assertThat(registry.getGauges().get("executor/nodes/127.0.0.1:9042/in-flight").getValue())
+        .isEqualTo(2);
+    assertThat(registry.getGauges().get("executor/nodes/127.0.0.2:9042/in-flight").getValue())
+        .isEqualTo(0);
+    assertThat(registry.getGauges().get("executor/queued").getValue()).isEqualTo(8);
+    assertThat(registry.getTimers().get("executor/nodes/127.0.0.2:9042/writes").getCount())
+        .isEqualTo(10);
+    // completing writes to node1 lets the queued ones through, in order
+    for (int i = 0; i < pending.size(); i++) {
+      Sinks.One<WriteResult> sink = pending.get(i);
+      sink.tryEmitValue(new EmptyWriteResult(statements.get(0)));
+    }
+    assertThat(results).hasSize(20);
+    assertThat(pending).hasSize(10);
+    assertThat(executed).containsExactlyInAnyOrderElementsOf(statements);
+    assertThat(registry.getGauges().get("executor/queued").getValue()).isEqualTo(0);
+    assertThat(registry.getGauges().get("executor/nodes/127.0.0.1:9042/in-flight").getValue())
+        .isEqualTo(0);
+  }
+
+  @Test
+  void should_enforce_global_limit_for_statements_without_replicas() {
+    ReplicaAwareWriteDispatcher dispatcher =
+        new ReplicaAwareWriteDispatcher(session, executor, 3, 1, 10, null);
+    List<Statement<?>> statements = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      statements.add(SimpleStatement.newInstance("INSERT " + i));
+    }
+    List<WriteResult> results = new CopyOnWriteArrayList<>();
+    dispatcher.dispatch(Flux.fromIterable(statements)).subscribe(results::add);
+    assertThat(executed).containsExactlyElementsOf(statements.subList(0, 3));
+    pending.get(0).tryEmitValue(new EmptyWriteResult(statements.get(0)));
+    assertThat(results).hasSize(1);
+    assertThat(executed).containsExactlyElementsOf(statements.subList(0, 4));
+  }
+
+  @Test
+  void should_apply_new_global_limit() {
+    ReplicaAwareWriteDispatcher dispatcher =
+        new ReplicaAwareWriteDispatcher(session, executor, 2, 1, 10, null);
+    List<Statement<?>> statements = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      statements.add(SimpleStatement.newInstance("INSERT " + i));
+    }
+    dispatcher.dispatch(Flux.fromIterable(statements)).subscribe();
+    assertThat(executed).hasSize(2);
+    // queued statements are executed immediately
+    dispatcher.setMaxConcurrentQueries(4);
+    assertThat(executed).hasSize(4);
+    // in-flight requests are not affected, but must complete before queued statements can run
+    dispatcher.setMaxConcurrentQueries(2);
+    pending.get(0).tryEmitValue(new EmptyWriteResult(statements.get(0)));
+    pending.get(1).tryEmitValue(new EmptyWriteResult(statements.get(1)));
+    assertThat(executed).hasSize(4);
+    pending.get(2).tryEmitValue(new EmptyWriteResult(statements.get(2)));
+    assertThat(executed).hasSize(5);
+  }
+
+  @Test
+  void should_remove_queued_statements_when_cancelled() {
+    ReplicaAwareWriteDispatcher dispatcher =
+        new ReplicaAwareWriteDispatcher(session, executor, 4, 1, 10, registry);
+    List<Statement<?>> statements = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      statements.add(statement(key1));
+    }
+    Disposable subscription = dispatcher.dispatch(Flux.fromIterable(statements)).subscribe();
+    assertThat(executed).hasSize(1);
+    assertThat(registry.getGauges().get("executor/queued").getValue()).isEqualTo(4);
+    subscription.dispose();
+    assertThat(registry.getGauges().get("executor/queued").getValue()).isEqualTo(0);
+    assertThat(registry.getGauges().get("executor/nodes/127.0.0.1:9042/in-flight").getValue())
+        .isEqualTo(0);
+  }
+
+  private SimpleStatement statement(ByteBuffer routingKey) {
+    return SimpleStatement.newInstance("INSERT").setKeyspace(ks).setRoutingKey(routingKey);
+  }
+
+  private static Node mockNode(String address) {
+    Node node = mock(Node.class);
+    when(node.getDistance()).thenReturn(NodeDistance.LOCAL);
+    when(node.getEndPoint()).thenReturn(new DefaultEndPoint(new InetSocketAddress(address, 9042)));
+    return node;
+  }
+}
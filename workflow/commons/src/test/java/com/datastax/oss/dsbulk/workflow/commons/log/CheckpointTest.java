@@ -0,0 +1,133 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.workflow.commons.log;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableMap;
+import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableSet;
+import com.datastax.oss.dsbulk.tests.utils.FileUtils;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CheckpointTest {
+
+  private static final URI RESOURCE1 = URI.create("file:///data1.csv");
+  private static final URI RESOURCE2 = URI.create("file:///data2.csv");
+  private static final URI RESOURCE3 = URI.create("http://host/data3.csv;jsessionid=1");
+
+  private Path dir;
+
+  @BeforeEach
+  void createDir() throws Exception {
+    dir = Files.createTempDirectory("test");
+  }
+
+  @AfterEach
+  void deleteDir() {
+    FileUtils.deleteDirectory(dir);
+  }
+
+  @Test
+  void should_write_and_read_checkpoint() throws Exception {
+    Checkpoint checkpoint =
+        new Checkpoint(
+            ImmutableMap.of(
+                RESOURCE1,
+                Collections.singletonList(new Range(1, 100)),
+                RESOURCE2,
+                Arrays.asList(new Range(1, 3), new Range(5, 5), new Range(7, 10)),
+                RESOURCE3,
+                Collections.singletonList(new Range(2, 2))),
+            ImmutableSet.of(RESOURCE1));
+    Path file = dir.resolve(Checkpoint.CHECKPOINT_FILE);
+    checkpoint.write(file);
+    assertThat(Files.readAllLines(file, UTF_8))
+        .containsExactly(
+            "file:///data1.csv;COMPLETE;1:100",
+            "file:///data2.csv;PARTIAL;1:3,5:5,7:10",
+            "http://host/data3.csv;jsessionid=1;PARTIAL;2:2");
+    // the temporary file should have been moved
+    assertThat(FileUtils.listAllFilesInDirectory(dir)).containsOnly(file);
+    Checkpoint read = Checkpoint.read(file);
+    assertThat(read.getPositions()).isEqualTo(checkpoint.getPositions());
+    assertThat(read.getCompleteResources()).containsOnly(RESOURCE1);
+  }
+
+  @Test
+  void should_write_and_read_complete_resource_without_positions() throws Exception {
+    Checkpoint checkpoint =
+        new Checkpoint(
+            ImmutableMap.of(RESOURCE2, Collections.singletonList(new Range(1, 3))),
+            ImmutableSet.of(RESOURCE1));
+    Path file = dir.resolve(Checkpoint.CHECKPOINT_FILE);
+    checkpoint.write(file);
+    assertThat(Files.readAllLines(file, UTF_8))
+        .containsExactly("file:///data1.csv;COMPLETE;", "file:///data2.csv;PARTIAL;1:3");
+    Checkpoint read = Checkpoint.read(file);
+    assertThat(read.getPositions())
+        .containsEntry(RESOURCE1, Collections.emptyList())
+        .containsEntry(RESOURCE2, Collections.singletonList(new Range(1, 3)));
+    assertThat(read.getCompleteResources()).containsOnly(RESOURCE1);
+    assertThat(read.isComplete(RESOURCE1)).isTrue();
+    assertThat(read.isProcessed(RESOURCE1, 1)).isFalse();
+  }
+
+  @Test
+  void should_report_complete_resources_and_processed_positions() {
+    Checkpoint checkpoint =
+        new Checkpoint(
+            ImmutableMap.of(
+                RESOURCE1,
+                Collections.singletonList(new Range(1, 100)),
+                RESOURCE2,
+                Arrays.asList(new Range(1, 3), new Range(5, 5), new Range(7, 10))),
+            ImmutableSet.of(RESOURCE1));
+    assertThat(checkpoint.isComplete(RESOURCE1)).isTrue();
+    assertThat(checkpoint.isComplete(RESOURCE2)).isFalse();
+    assertThat(checkpoint.isComplete(RESOURCE3)).isFalse();
+    assertThat(checkpoint.isProcessed(RESOURCE2, 1)).isTrue();
+    assertThat(checkpoint.isProcessed(RESOURCE2, 3)).isTrue();
+    assertThat(checkpoint.isProcessed(RESOURCE2, 4)).isFalse();
+    assertThat(checkpoint.isProcessed(RESOURCE2, 5)).isTrue();
+    assertThat(checkpoint.isProcessed(RESOURCE2, 6)).isFalse();
+    assertThat(checkpoint.isProcessed(RESOURCE2, 8)).isTrue();
+    assertThat(checkpoint.isProcessed(RESOURCE2, 11)).isFalse();
+    assertThat(checkpoint.isProcessed(RESOURCE3, 1)).isFalse();
+  }
+
+  @Test
+  void should_throw_IAE_when_checkpoint_file_invalid() throws Exception {
+    Path file = dir.resolve(Checkpoint.CHECKPOINT_FILE);
+    Files.write(file, Arrays.asList("file:///data1.csv;COMPLETE;1:100", "file:///data2.csv;1:3"));
+    assertThatThrownBy(() -> Checkpoint.read(file))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Invalid checkpoint file")
+        .hasMessageContaining("line 2");
+    Files.write(file, Collections.singletonList("file:///data1.csv;PARTIAL;5:10,1:3"));
+    assertThatThrownBy(() -> Checkpoint.read(file))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("line 1");
+  }
+}
@@ -38,9 +38,12 @@ import com.datastax.oss.driver.api.core.cql.ExecutionInfo;
 import com.datastax.oss.driver.api.core.cql.Row;
 import com.datastax.oss.driver.api.core.cql.SimpleStatement;
 import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.internal.core.metadata.token.Murmur3TokenFactory;
+import com.datastax.oss.driver.internal.core.metadata.token.TokenFactory;
 import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableList;
 import com.datastax.oss.dsbulk.connectors.api.DefaultErrorRecord;
 import com.datastax.oss.dsbulk.connectors.api.DefaultRecord;
+import com.datastax.oss.dsbulk.connectors.api.ReadCheckpoint;
 import com.datastax.oss.dsbulk.connectors.api.Record;
 import com.datastax.oss.dsbulk.executor.api.exception.BulkExecutionException;
 import com.datastax.oss.dsbulk.executor.api.result.DefaultReadResult;
@@ -64,6 +67,8 @@ import java.net.URI;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
 import java.util.List;
 import org.assertj.core.api.Assertions;
 import org.assertj.core.util.Lists;
@@ -338,6 +343,149 @@ class LogManagerTest {
         .containsOnlyOnce("java.lang.RuntimeException: error 3");
   }
 
+  @Test
+  void should_write_checkpoint_when_closed() throws Exception {
+    Path outputDir = Files.createTempDirectory("test");
+    Checkpoint resumed =
+        new Checkpoint(
+            Collections.singletonMap(resource1, Lists.newArrayList(new Range(5, 10))),
+            Collections.emptySet());
+    LogManager logManager =
+        new LogManager(
+            session,
+            outputDir,
+            ErrorThreshold.unlimited(),
+            ErrorThreshold.forAbsoluteValue(0),
+            true,
+            statementFormatter,
+            EXTENDED,
+            rowFormatter,
+            true,
+            Duration.ofMinutes(1),
+            resumed,
+            null);
+    logManager.init();
+    Flux.<Record>just(csvRecord1).transform(logManager.newFailedRecordsHandler()).blockLast();
+    // only resource 2 is fully read
+    Flux.<Record>just(csvRecord2)
+        .transform(logManager.newResourceCompletionHandler())
+        .transform(logManager.newFailedRecordsHandler())
+        .blockLast();
+    Flux.<Record>just(csvRecord3).transform(logManager.newFailedRecordsHandler()).blockLast();
+    logManager.close();
+    Path checkpoint = logManager.getOperationDirectory().resolve("checkpoint.txt");
+    assertThat(checkpoint.toFile()).exists();
+    assertThat(Files.readAllLines(checkpoint, UTF_8))
+        .containsExactly(
+            "file:///file1.csv;PARTIAL;1:1,5:10",
+            "file:///file2.csv;COMPLETE;2:2",
+            "file:///file3.csv;PARTIAL;3:3");
+    Path positions = logManager.getOperationDirectory().resolve("positions.txt");
+    assertThat(Files.readAllLines(positions, UTF_8))
+        .containsExactly("file:///file1.csv:1", "file:///file2.csv:2", "file:///file3.csv:3");
+  }
+
+  @Test
+  void should_complete_resumed_resource_already_fully_processed() throws Exception {
+    Path outputDir = Files.createTempDirectory("test");
+    // resource 1 was entirely processed, but was not known to be complete yet
+    Checkpoint resumed =
+        new Checkpoint(
+            Collections.singletonMap(resource1, Lists.newArrayList(new Range(1, 1))),
+            Collections.emptySet());
+    LogManager logManager =
+        new LogManager(
+            session,
+            outputDir,
+            ErrorThreshold.unlimited(),
+            ErrorThreshold.forAbsoluteValue(0),
+            true,
+            statementFormatter,
+            EXTENDED,
+            rowFormatter,
+            true,
+            Duration.ofMinutes(1),
+            resumed,
+            null);
+    logManager.init();
+    List<Record> records =
+        Flux.<Record>just(csvRecord1)
+            .transform(logManager.newResourceCompletionHandler())
+            .collectList()
+            .block();
+    assertThat(records).isEmpty();
+    logManager.close();
+    Path checkpoint = logManager.getOperationDirectory().resolve("checkpoint.txt");
+    assertThat(Files.readAllLines(checkpoint, UTF_8))
+        .containsExactly("file:///file1.csv;COMPLETE;1:1");
+  }
+
+  @Test
+  void should_complete_resources_read_by_connector() throws Exception {
+    Path outputDir = Files.createTempDirectory("test");
+    URI empty = URI.create("file:///empty.csv");
+    // resource 1 was entirely processed by the previous operation, and all its records skipped
+    Checkpoint resumed =
+        new Checkpoint(
+            Collections.singletonMap(resource1, Lists.newArrayList(new Range(1, 1))),
+            Collections.emptySet());
+    LogManager logManager =
+        new LogManager(
+            session,
+            outputDir,
+            ErrorThreshold.unlimited(),
+            ErrorThreshold.forAbsoluteValue(0),
+            true,
+            statementFormatter,
+            EXTENDED,
+            rowFormatter,
+            true,
+            Duration.ofMinutes(1),
+            resumed,
+            null);
+    logManager.init();
+    ReadCheckpoint readCheckpoint = logManager.newReadCheckpoint();
+    assertThat(readCheckpoint.isComplete(resource1)).isFalse();
+    assertThat(readCheckpoint.isProcessed(resource1, 1)).isTrue();
+    assertThat(readCheckpoint.isProcessed(resource1, 2)).isFalse();
+    readCheckpoint.resourceRead(resource1, 1, 1);
+    readCheckpoint.resourceRead(empty, -1, -1);
+    logManager.close();
+    Path checkpoint = logManager.getOperationDirectory().resolve("checkpoint.txt");
+    assertThat(Files.readAllLines(checkpoint, UTF_8))
+        .containsExactly("file:///empty.csv;COMPLETE;", "file:///file1.csv;COMPLETE;1:1");
+  }
+
+  @Test
+  void should_write_token_range_checkpoint_when_closed() throws Exception {
+    Path outputDir = Files.createTempDirectory("test");
+    TokenFactory tokenFactory = new Murmur3TokenFactory();
+    TokenRangeCheckpoint checkpoint = new TokenRangeCheckpoint(tokenFactory);
+    checkpoint.addRange(tokenFactory.range(tokenFactory.parse("1"), tokenFactory.parse("2")));
+    checkpoint.addRange(tokenFactory.range(tokenFactory.parse("2"), tokenFactory.parse("3")));
+    LogManager logManager =
+        new LogManager(
+            session,
+            outputDir,
+            ErrorThreshold.unlimited(),
+            ErrorThreshold.forAbsoluteValue(0),
+            false,
+            statementFormatter,
+            EXTENDED,
+            rowFormatter,
+            true,
+            Duration.ofMinutes(1),
+            null,
+            checkpoint);
+    logManager.init();
+    checkpoint.markComplete(tokenFactory.parse("3"));
+    logManager.close();
+    Path checkpointFile = logManager.getOperationDirectory().resolve("checkpoint.txt");
+    assertThat(Files.readAllLines(checkpointFile, UTF_8))
+        .containsExactly("range;1;2;PENDING", "range;2;3;COMPLETE");
+    assertThat(logManager.getOperationDirectory().resolve("positions.txt")).doesNotExist();
+  }
+
   @Test
   void should_stop_when_max_connector_errors_reached() throws Exception {
     Path outputDir = Files.createTempDirectory("test");
@@ -21,7 +21,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
 
 import java.net.URI;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import org.assertj.core.util.Lists;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -53,6 +55,20 @@ class PositionsTrackerTest {
     assertThat(tracker.getPositions().get(RESOURCE)).containsExactly(new Range(1L, 6L));
   }
 
+  @Test
+  void should_update_initial_positions() {
+    PositionsTracker tracker =
+        new PositionsTracker(
+            Collections.singletonMap(RESOURCE, ranges(new Range(1L, 3L), new Range(5L, 6L))));
+    Map<URI, List<Range>> snapshot = tracker.snapshot();
+    tracker.update(RESOURCE, 4);
+    tracker.update(RESOURCE, 8);
+    assertThat(tracker.getPositions().get(RESOURCE))
+        .containsExactly(new Range(1L, 6L), new Range(8L));
+    // snapshots are not affected by subsequent updates
+    assertThat(snapshot.get(RESOURCE)).containsExactly(new Range(1L, 3L), new Range(5L, 6L));
+  }
+
   @SuppressWarnings("unused")
   static List<Arguments> should_update_positions() {
     return Lists.newArrayList(
@@ -0,0 +1,138 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.workflow.commons.log;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+import com.datastax.oss.driver.api.core.metadata.token.TokenRange;
+import com.datastax.oss.driver.internal.core.metadata.token.Murmur3TokenFactory;
+import com.datastax.oss.driver.internal.core.metadata.token.TokenFactory;
+import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableMap;
+import com.datastax.oss.dsbulk.tests.utils.FileUtils;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TokenRangeCheckpointTest {
+
+  private final TokenFactory tokenFactory = new Murmur3TokenFactory();
+
+  private final TokenRange range1 = range("-9223372036854775808", "-100");
+  private final TokenRange range2 = range("-100", "100");
+  private final TokenRange range3 = range("100", "-9223372036854775808");
+
+  private Path dir;
+
+  @BeforeEach
+  void createDir() throws Exception {
+    dir = Files.createTempDirectory("test");
+  }
+
+  @AfterEach
+  void deleteDir() {
+    FileUtils.deleteDirectory(dir);
+  }
+
+  @Test
+  void should_write_and_read_checkpoint() throws Exception {
+    TokenRangeCheckpoint checkpoint = new TokenRangeCheckpoint(tokenFactory);
+    checkpoint.addRange(range1);
+    checkpoint.addRange(range2);
+    checkpoint.addRange(range3);
+    checkpoint.markComplete(range2.getEnd());
+    assertThat(checkpoint.isComplete()).isFalse();
+    Path file = dir.resolve(Checkpoint.CHECKPOINT_FILE);
+    checkpoint.write(file);
+    assertThat(Files.readAllLines(file, UTF_8))
+        .containsExactly(
+            "range;-9223372036854775808;-100;PENDING",
+            "range;-100;100;COMPLETE",
+            "range;100;-9223372036854775808;PENDING");
+    // the temporary file should have been moved
+    assertThat(FileUtils.listAllFilesInDirectory(dir)).containsOnly(file);
+    TokenRangeCheckpoint read = TokenRangeCheckpoint.read(file, tokenFactory);
+    assertThat(read.isEmpty()).isFalse();
+    assertThat(read.getPendingRanges()).containsExactly(range1, range3);
+  }
+
+  @Test
+  void should_write_and_read_checkpoint_with_totals() throws Exception {
+    TokenRangeCheckpoint checkpoint = new TokenRangeCheckpoint(tokenFactory);
+    checkpoint.addRange(range1);
+    checkpoint.addRange(range2);
+    checkpoint.markComplete(
+        range1.getEnd(),
+        10,
+        ImmutableMap.of(range1, 10L),
+        ImmutableMap.of("/127.0.0.1:9042", 10L, "/127.0.0.2:9042", 10L));
+    checkpoint.markComplete(
+        range2.getEnd(), 5, ImmutableMap.of(range2, 5L), ImmutableMap.of("/127.0.0.1:9042", 5L));
+    // should not count the same range twice
+    checkpoint.markComplete(
+        range2.getEnd(), 5, ImmutableMap.of(range2, 5L), ImmutableMap.of("/127.0.0.1:9042", 5L));
+    assertThat(checkpoint.isComplete()).isTrue();
+    Path file = dir.resolve(Checkpoint.CHECKPOINT_FILE);
+    checkpoint.write(file);
+    assertThat(Files.readAllLines(file, UTF_8))
+        .contains(
+            "total;15",
+            "range-total;-9223372036854775808;-100;10",
+            "range-total;-100;100;5",
+            "node-total;/127.0.0.1:9042;15",
+            "node-total;/127.0.0.2:9042;10");
+    TokenRangeCheckpoint read = TokenRangeCheckpoint.read(file, tokenFactory);
+    assertThat(read.getPendingRanges()).isEmpty();
+    assertThat(read.getTotalRows()).isEqualTo(15);
+    assertThat(read.getTotalsByRange()).containsOnly(entry(range1, 10L), entry(range2, 5L));
+    assertThat(read.getTotalsByNode())
+        .isEqualTo(ImmutableMap.of("/127.0.0.1:9042", 15L, "/127.0.0.2:9042", 10L));
+  }
+
+  @Test
+  void should_ignore_unknown_ranges() {
+    TokenRangeCheckpoint checkpoint = new TokenRangeCheckpoint(tokenFactory);
+    checkpoint.addRange(range1);
+    checkpoint.markComplete(range2.getEnd(), 5, Collections.emptyMap(), Collections.emptyMap());
+    assertThat(checkpoint.getPendingRanges()).containsExactly(range1);
+    assertThat(checkpoint.getTotalRows()).isZero();
+  }
+
+  @Test
+  void should_throw_IAE_when_checkpoint_file_invalid() throws Exception {
+    Path file = dir.resolve(Checkpoint.CHECKPOINT_FILE);
+    Files.write(file, Arrays.asList("range;1;2;COMPLETE", "range;2;3;UNKNOWN"));
+    assertThatThrownBy(() -> TokenRangeCheckpoint.read(file, tokenFactory))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Invalid checkpoint file")
+        .hasMessageContaining("line 2");
+    // a load checkpoint
+    Files.write(file, Collections.singletonList("file:///data1.csv;COMPLETE;1:100"));
+    assertThatThrownBy(() -> TokenRangeCheckpoint.read(file, tokenFactory))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("line 1");
+  }
+
+  private TokenRange range(String start, String end) {
+    return tokenFactory.range(tokenFactory.parse(start), tokenFactory.parse(end));
+  }
+}
@@ -111,6 +111,7 @@ class MetricsManagerTest {
             false,
             false,
             true,
+            -1,
             null,
             LogSettings.Verbosity.normal,
             Duration.ofSeconds(5),
@@ -154,6 +155,7 @@ class MetricsManagerTest {
             false,
             false,
             true,
+            -1,
             null,
             LogSettings.Verbosity.normal,
             Duration.ofSeconds(5),
@@ -199,6 +201,7 @@ class MetricsManagerTest {
             false,
             false,
             true,
+            -1,
             executionDirectory,
             LogSettings.Verbosity.normal,
             Duration.ofSeconds(5),
@@ -255,6 +258,7 @@ class MetricsManagerTest {
             false,
             false,
             false,
+            -1,
             executionDirectory,
             LogSettings.Verbosity.quiet,
             Duration.ofSeconds(5),
@@ -300,6 +304,7 @@ class MetricsManagerTest {
             false,
             false,
             false,
+            -1,
             executionDirectory,
             LogSettings.Verbosity.verbose,
             Duration.ofSeconds(5),
@@ -344,6 +349,7 @@ class MetricsManagerTest {
             false,
             false,
             true,
+            -1,
             executionDirectory,
             LogSettings.Verbosity.verbose,
             Duration.ofSeconds(5),
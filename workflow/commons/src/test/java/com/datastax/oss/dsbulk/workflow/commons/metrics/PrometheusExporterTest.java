@@ -0,0 +1,119 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.workflow.commons.metrics;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.UniformReservoir;
+import com.datastax.oss.dsbulk.executor.api.histogram.HdrHistogramReservoir;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class PrometheusExporterTest {
+
+  @Test
+  void should_expose_metrics_over_http() throws Exception {
+    MetricRegistry registry = new MetricRegistry();
+    registry.counter("records/total").inc(3);
+    registry.meter("executor/bytes/sent").mark(42);
+    registry.gauge("memory/used", () -> () -> 128L);
+    registry.gauge("driver/s0.connected-nodes", () -> () -> 2);
+    registry.gauge("driver/s0.nodes.127_0_0_1:9042.pool.open-connections", () -> () -> 1);
+    Timer writes =
+        registry.timer("executor/writes/total", () -> new Timer(new HdrHistogramReservoir()));
+    writes.update(2, TimeUnit.MILLISECONDS);
+    writes.update(20, TimeUnit.MILLISECONDS);
+    writes.update(20, TimeUnit.SECONDS);
+    registry
+        .timer("executor/nodes/127.0.0.1:9042/writes", () -> new Timer(new HdrHistogramReservoir()))
+        .update(1, TimeUnit.MILLISECONDS);
+    Histogram batchSize =
+        registry.histogram("batches/size", () -> new Histogram(new UniformReservoir()));
+    batchSize.update(10);
+    batchSize.update(30);
+    try (PrometheusExporter exporter = new PrometheusExporter(registry, "my \"execution\"", 0)) {
+      exporter.start();
+      URL url = new URL("http://localhost:" + exporter.getAddress().getPort() + "/metrics");
+      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+      assertThat(connection.getResponseCode()).isEqualTo(200);
+      assertThat(connection.getContentType()).isEqualTo(PrometheusExporter.CONTENT_TYPE);
+      List<String> lines;
+      try (BufferedReader reader =
+          new BufferedReader(new InputStreamReader(connection.getInputStream(), UTF_8))) {
+        lines = reader.lines().collect(Collectors.toList());
+      }
+      String labels = "execution_id=\"my \\\"execution\\\"\"";
+      assertThat(lines)
+          .contains(
+              "# TYPE dsbulk_records_total counter",
+              "dsbulk_records_total{" + labels + "} 3",
+              "# TYPE dsbulk_executor_bytes_sent_total counter",
+              "dsbulk_executor_bytes_sent_total{" + labels + "} 42",
+              "# TYPE dsbulk_memory_used gauge",
+              "dsbulk_memory_used{" + labels + "} 128",
+              "dsbulk_driver_connected_nodes{" + labels + ",session=\"s0\"} 2",
+              "# HELP dsbulk_driver_nodes_pool_open_connections "
+                  + "driver/<session>.nodes.<node>.pool.open-connections",
+              "dsbulk_driver_nodes_pool_open_connections{"
+                  + labels
+                  + ",session=\"s0\",node=\"127_0_0_1:9042\"} 1",
+              "# TYPE dsbulk_executor_writes_total_seconds histogram",
+              "dsbulk_executor_writes_total_seconds_bucket{" + labels + ",le=\"0.001\"} 0",
+              "dsbulk_executor_writes_total_seconds_bucket{" + labels + ",le=\"0.0025\"} 1",
+              "dsbulk_executor_writes_total_seconds_bucket{" + labels + ",le=\"0.025\"} 2",
+              "dsbulk_executor_writes_total_seconds_bucket{" + labels + ",le=\"10\"} 2",
+              "dsbulk_executor_writes_total_seconds_bucket{" + labels + ",le=\"+Inf\"} 3",
+              "dsbulk_executor_writes_total_seconds_count{" + labels + "} 3",
+              "# TYPE dsbulk_executor_nodes_writes_seconds histogram",
+              "dsbulk_executor_nodes_writes_seconds_count{"
+                  + labels
+                  + ",node=\"127.0.0.1:9042\"} 1",
+              "# TYPE dsbulk_batches_size summary",
+              "dsbulk_batches_size{" + labels + ",quantile=\"0.75\"} 30",
+              "dsbulk_batches_size_sum{" + labels + "} 40",
+              "dsbulk_batches_size_count{" + labels + "} 2");
+      assertThat(lines)
+          .anySatisfy(
+              line ->
+                  assertThat(line)
+                      .startsWith("dsbulk_executor_writes_total_seconds_sum{" + labels + "} 20.0"));
+      // each family is declared once
+      assertThat(lines.stream().filter(line -> line.startsWith("# TYPE")).count())
+          .isEqualTo(lines.stream().filter(line -> line.startsWith("# TYPE")).distinct().count());
+    }
+  }
+
+  @Test
+  void should_reject_unsupported_methods() throws Exception {
+    try (PrometheusExporter exporter = new PrometheusExporter(new MetricRegistry(), "test", 0)) {
+      exporter.start();
+      URL url = new URL("http://localhost:" + exporter.getAddress().getPort() + "/metrics");
+      HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+      connection.setRequestMethod("DELETE");
+      assertThat(connection.getResponseCode()).isEqualTo(405);
+    }
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright DataStax, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datastax.oss.dsbulk.workflow.commons.schema;
+
+import static com.datastax.oss.dsbulk.tests.driver.DriverUtils.newToken;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.datastax.oss.driver.api.core.CqlIdentifier;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.loadbalancing.NodeDistance;
+import com.datastax.oss.driver.api.core.metadata.Metadata;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.metadata.NodeState;
+import com.datastax.oss.driver.api.core.metadata.schema.ClusteringOrder;
+import com.datastax.oss.driver.api.core.metadata.schema.ColumnMetadata;
+import com.datastax.oss.driver.api.core.metadata.schema.TableMetadata;
+import com.datastax.oss.driver.api.core.metadata.token.Token;
+import com.datastax.oss.driver.internal.core.metadata.token.DefaultTokenMap;
+import com.datastax.oss.driver.internal.core.metadata.token.Murmur3Token;
+import com.datastax.oss.driver.internal.core.metadata.token.Murmur3TokenFactory;
+import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableMap;
+import com.datastax.oss.dsbulk.executor.api.result.ReadResult;
+import com.datastax.oss.dsbulk.partitioner.BulkTokenRange;
+import com.datastax.oss.dsbulk.partitioner.murmur3.Murmur3BulkTokenFactory;
+import com.datastax.oss.dsbulk.tests.logging.StreamInterceptingExtension;
+import com.datastax.oss.dsbulk.tests.logging.StreamInterceptor;
+import com.datastax.oss.dsbulk.workflow.commons.log.TokenRangeCheckpoint;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(StreamInterceptingExtension.class)
+class ApproximateReadResultCounterTest {
+
+  // 5% of the ring
+  private static final long RANGE_SIZE = 922337203685477580L;
+
+  private final Murmur3BulkTokenFactory tokenFactory = new Murmur3BulkTokenFactory();
+
+  private final CqlSession session = mock(CqlSession.class);
+  private final Metadata metadata = mock(Metadata.class);
+  private final DefaultTokenMap tokenMap = mock(DefaultTokenMap.class);
+  private final TableMetadata table = mock(TableMetadata.class);
+  private final Node node1 = mock(Node.class);
+  private final Node node2 = mock(Node.class);
+
+  @BeforeEach
+  void setUp() {
+    when(session.getMetadata()).thenReturn(metadata);
+    when(metadata.getTokenMap()).thenReturn(Optional.of(tokenMap));
+    when(metadata.getNodes())
+        .thenReturn(ImmutableMap.of(UUID.randomUUID(), node1, UUID.randomUUID(), node2));
+    when(tokenMap.getTokenFactory()).thenReturn(new Murmur3TokenFactory());
+    when(tokenMap.parse(any(String.class)))
+        .thenAnswer(invocation -> newToken(Long.parseLong(invocation.getArgument(0))));
+    when(table.getKeyspace()).thenReturn(CqlIdentifier.fromInternal("ks"));
+    when(table.getName()).thenReturn(CqlIdentifier.fromInternal("t1"));
+    when(table.getClusteringColumns()).thenReturn(Collections.emptyMap());
+    when(node1.getState()).thenReturn(NodeState.UP);
+    when(node1.getDistance()).thenReturn(NodeDistance.LOCAL);
+    when(node2.getState()).thenReturn(NodeState.UP);
+    when(node2.getDistance()).thenReturn(NodeDistance.LOCAL);
+  }
+
+  @Test
+  void should_estimate_totals_from_size_estimates(StreamInterceptor stdout) {
+    ResultSet rs1 = mockSizeEstimates(sizeEstimate(Long.MIN_VALUE, 0, 100));
+    ResultSet rs2 = mockSizeEstimates(sizeEstimate(0, Long.MIN_VALUE, 300));
+    when(session.execute(any(Statement.class))).thenReturn(rs1, rs2);
+    ApproximateReadResultCounter counter =
+        new ApproximateReadResultCounter(session, table, Collections.emptyList());
+    counter.close();
+    assertThat(counter.totalPartitions.value).isEqualTo(400);
+    assertThat(counter.totalRows.value).isEqualTo(400);
+    counter.reportTotals();
+    assertThat(stdout.getStreamLines())
+        .containsExactly("Estimated rows: 400", "Estimated partitions: 400");
+  }
+
+  @Test
+  void should_extrapolate_size_estimates_when_nodes_are_down(StreamInterceptor stdout) {
+    when(node2.getState()).thenReturn(NodeState.DOWN);
+    when(table.getClusteringColumns())
+        .thenReturn(ImmutableMap.of(mock(ColumnMetadata.class), ClusteringOrder.ASC));
+    ResultSet rs1 = mockSizeEstimates(sizeEstimate(Long.MIN_VALUE, 0, 100));
+    when(session.execute(any(Statement.class))).thenReturn(rs1);
+    ApproximateReadResultCounter counter =
+        new ApproximateReadResultCounter(session, table, Collections.emptyList());
+    counter.close();
+    assertThat(counter.totalPartitions.value).isEqualTo(200);
+    // rows cannot be estimated for tables with clustering columns
+    assertThat(counter.totalRows).isNull();
+    counter.reportTotals();
+    assertThat(stdout.getStreamLines()).containsExactly("Estimated partitions: 200");
+  }
+
+  @Test
+  void should_throw_ISE_when_no_size_estimates() {
+    ResultSet rs = mockSizeEstimates();
+    when(session.execute(any(Statement.class))).thenReturn(rs);
+    assertThatThrownBy(
+            () -> new ApproximateReadResultCounter(session, table, Collections.emptyList()))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("No size estimates available for table ks.t1");
+  }
+
+  @Test
+  void should_estimate_totals_from_sampled_ranges(StreamInterceptor stdout) {
+    List<BulkTokenRange> ranges = sampledRanges();
+    ApproximateReadResultCounter counter = new ApproximateReadResultCounter(session, table, ranges);
+    verify(session, never()).execute(any(Statement.class));
+    // each range contains 10 rows in 5 partitions
+    for (BulkTokenRange range : ranges) {
+      count(counter, range, 10, 5);
+    }
+    counter.close();
+    // 20% of the ring was sampled
+    assertThat(counter.totalRows.value).isEqualTo(200);
+    assertThat(counter.totalRows.margin).isCloseTo(0, within(0.01));
+    assertThat(counter.totalPartitions.value).isEqualTo(100);
+    assertThat(counter.totalPartitions.margin).isCloseTo(0, within(0.01));
+    counter.reportTotals();
+    assertThat(stdout.getStreamLines())
+        .containsExactly(
+            "Estimated rows: 200 (+/- 0.00%)", "Estimated partitions: 100 (+/- 0.00%)");
+  }
+
+  @Test
+  void should_estimate_margin_of_error_from_sampled_ranges() {
+    List<BulkTokenRange> ranges = sampledRanges();
+    ApproximateReadResultCounter counter = new ApproximateReadResultCounter(session, table, ranges);
+    // the last range is empty
+    for (BulkTokenRange range : ranges.subList(0, 3)) {
+      count(counter, range, 10, 10);
+    }
+    counter.newCountingUnit();
+    counter.close();
+    assertThat(counter.totalRows.value).isEqualTo(150);
+    // expected count per range: 7.5, variance: 25, standard error: sqrt(0.8 * 25 / 4) / 0.05
+    assertThat(counter.totalRows.margin).isCloseTo(1.96 * Math.sqrt(5) / 0.05 / 150, within(0.01));
+    assertThat(counter.totalPartitions.value).isEqualTo(150);
+  }
+
+  @Test
+  void should_throw_IAE_when_resuming() {
+    ApproximateReadResultCounter counter =
+        new ApproximateReadResultCounter(session, table, sampledRanges());
+    assertThatThrownBy(() -> counter.restore(new TokenRangeCheckpoint(tokenFactory)))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage(
+            "Cannot resume the operation: resuming is not supported when estimating totals.");
+  }
+
+  private List<BulkTokenRange> sampledRanges() {
+    List<BulkTokenRange> ranges = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      // sample every other range
+      long start = Long.MIN_VALUE + 2 * i * RANGE_SIZE;
+      ranges.add(
+          tokenFactory.range(
+              newToken(start), newToken(start + RANGE_SIZE), Collections.emptySet()));
+    }
+    return ranges;
+  }
+
+  private static void count(
+      ApproximateReadResultCounter counter, BulkTokenRange range, int rows, int partitions) {
+    ReadResultCounter.CountingUnit unit = counter.newCountingUnit();
+    Statement<?> statement = mock(Statement.class);
+    when(statement.getRoutingToken()).thenReturn(range.getEnd());
+    long start = ((Murmur3Token) range.getStart()).getValue();
+    for (int i = 0; i < rows; i++) {
+      // rows are returned in token order
+      Token token = newToken(start + 1 + i * partitions / rows);
+      Row row = mock(Row.class);
+      when(row.getToken(0)).thenReturn(token);
+      ReadResult result = mock(ReadResult.class);
+      doReturn(statement).when(result).getStatement();
+      when(result.getRow()).thenReturn(Optional.of(row));
+      unit.update(result);
+    }
+  }
+
+  private static Row sizeEstimate(long start, long end, long partitions) {
+    Row row = mock(Row.class);
+    when(row.getString(0)).thenReturn(String.valueOf(start));
+    when(row.getString(1)).thenReturn(String.valueOf(end));
+    when(row.getLong(2)).thenReturn(partitions);
+    return row;
+  }
+
+  private static ResultSet mockSizeEstimates(Row... rows) {
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.iterator()).thenAnswer(invocation -> Arrays.asList(rows).iterator());
+    return rs;
+  }
+}
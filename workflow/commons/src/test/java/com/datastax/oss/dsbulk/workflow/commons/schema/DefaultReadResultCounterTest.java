@@ -222,6 +222,25 @@ class DefaultReadResultCounterTest {
     assertThat(stdout.getStreamLines()).contains("2");
   }
 
+  @Test
+  void should_count_total_rows_pushed_down(StreamInterceptor stdout) {
+    DefaultReadResultCounter counter =
+        new DefaultReadResultCounter(ks, metadata, EnumSet.of(global), 10, true, V4, codecFactory);
+    when(row1.getLong(0)).thenReturn(1000L);
+    when(row2.getLong(0)).thenReturn(234L);
+
+    counter.newCountingUnit().update(result1);
+    counter.consolidateUnitCounts();
+    assertThat(counter.totalRows).isEqualTo(1000);
+
+    counter.newCountingUnit().update(result2);
+    counter.consolidateUnitCounts();
+    assertThat(counter.totalRows).isEqualTo(1234);
+
+    counter.reportTotals();
+    assertThat(stdout.getStreamLines()).contains("1234");
+  }
+
   @Test
   void should_count_nodes(StreamInterceptor stdout) {
     DefaultReadResultCounter counter =
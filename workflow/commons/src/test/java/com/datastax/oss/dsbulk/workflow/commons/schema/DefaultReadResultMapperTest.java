@@ -21,6 +21,8 @@ import static java.util.Collections.singleton;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.util.Sets.newLinkedHashSet;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.datastax.oss.driver.api.core.CqlIdentifier;
@@ -47,6 +49,7 @@ import java.nio.ByteBuffer;
 import java.util.Optional;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
@@ -101,9 +104,9 @@ class DefaultReadResultMapperTest {
     when(mapping.codec(C1, DataTypes.INT, GenericType.of(Integer.class))).thenReturn(codec1);
     when(mapping.codec(C2, DataTypes.TEXT, GenericType.of(String.class))).thenReturn(codec2);
     when(mapping.codec(C3, DataTypes.TEXT, GenericType.of(String.class))).thenReturn(codec2);
-    when(row.get(C1.asIdentifier(), codec1)).thenReturn(42);
-    when(row.get(C2.asIdentifier(), codec2)).thenReturn("foo");
-    when(row.get(C3.asIdentifier(), codec2)).thenReturn("bar");
+    when(row.get(0, codec1)).thenReturn(42);
+    when(row.get(1, codec2)).thenReturn("foo");
+    when(row.get(2, codec2)).thenReturn("bar");
 
     // to generate locations
     BoundStatement boundStatement = mock(BoundStatement.class);
@@ -170,7 +173,7 @@ class DefaultReadResultMapperTest {
     // emulate bad byte buffer contents when deserializing a 4-byte integer
     String msg = "Invalid 32-bits integer value, expecting 4 bytes but got 5";
     IllegalArgumentException error = new IllegalArgumentException(msg);
-    when(row.get(C1.asIdentifier(), codec1)).thenThrow(error);
+    when(row.get(0, codec1)).thenThrow(error);
     byte[] array = {1, 2, 3, 4, 5};
     when(row.getBytesUnsafe(C1.asIdentifier())).thenReturn(ByteBuffer.wrap(array));
     DefaultReadResultMapper mapper =
@@ -189,4 +192,30 @@ class DefaultReadResultMapperTest {
     }
     assertThat(record.getResource()).isEqualTo(URI.create("cql://ks1/table1"));
   }
+
+  @Test
+  void should_resolve_codecs_once_per_column_definitions() {
+    DefaultReadResultMapper mapper =
+        new DefaultReadResultMapper(mapping, recordMetadata, RESOURCE, false);
+    mapper.map(result);
+    mapper.map(result);
+    // same columns, different definitions instance, as with unprepared statements
+    ColumnDefinitions sameColumns =
+        mockColumnDefinitions(
+            mockColumnDefinition(C1.asIdentifier(), DataTypes.INT),
+            mockColumnDefinition(C2.asIdentifier(), DataTypes.TEXT),
+            mockColumnDefinition(C3.asIdentifier(), DataTypes.TEXT));
+    when(row.getColumnDefinitions()).thenReturn(sameColumns);
+    assertThat(mapper.map(result).getFieldValue(F2)).isEqualTo("bar");
+    verify(mapping, times(1)).codec(C1, DataTypes.INT, GenericType.of(Integer.class));
+    verify(mapping, times(1)).variableToFields(C1);
+    // other columns
+    ColumnDefinitions otherColumns =
+        mockColumnDefinitions(mockColumnDefinition(C3.asIdentifier(), DataTypes.TEXT));
+    when(row.getColumnDefinitions()).thenReturn(otherColumns);
+    when(row.get(0, TypeCodecs.TEXT)).thenReturn("qix");
+    Record record = mapper.map(result);
+    Assertions.assertThat(record.fields()).containsOnly(F2);
+    assertThat(record.getFieldValue(F2)).isEqualTo("qix");
+  }
 }
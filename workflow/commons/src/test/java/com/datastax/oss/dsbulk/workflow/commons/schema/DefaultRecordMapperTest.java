@@ -56,16 +56,19 @@ import com.datastax.oss.dsbulk.codecs.api.util.OverflowStrategy;
 import com.datastax.oss.dsbulk.codecs.text.string.StringToIntegerCodec;
 import com.datastax.oss.dsbulk.codecs.text.string.StringToLongCodec;
 import com.datastax.oss.dsbulk.codecs.text.string.StringToStringCodec;
+import com.datastax.oss.dsbulk.connectors.api.ArrayBackedRecord;
 import com.datastax.oss.dsbulk.connectors.api.DefaultMappedField;
 import com.datastax.oss.dsbulk.connectors.api.Field;
 import com.datastax.oss.dsbulk.connectors.api.Record;
 import com.datastax.oss.dsbulk.connectors.api.RecordMetadata;
+import com.datastax.oss.dsbulk.connectors.api.RecordSchema;
 import com.datastax.oss.dsbulk.mapping.CQLWord;
 import com.datastax.oss.dsbulk.mapping.Mapping;
 import com.datastax.oss.dsbulk.tests.utils.ReflectionUtils;
 import com.datastax.oss.dsbulk.workflow.commons.statement.MappedBoundStatement;
 import com.datastax.oss.dsbulk.workflow.commons.statement.UnmappableStatement;
 import io.netty.util.concurrent.FastThreadLocal;
+import java.net.URI;
 import java.nio.ByteBuffer;
 import java.text.NumberFormat;
 import java.time.Instant;
@@ -234,6 +237,81 @@ class DefaultRecordMapperTest {
     assertParameter(0, 0, TypeCodecs.INT.encode(42, V4));
     assertParameter(1, 1, TypeCodecs.BIGINT.encode(4242L, V4));
     assertParameter(2, 2, TypeCodecs.TEXT.encode("foo", V4));
+    // int (4 bytes) + bigint (8 bytes) + "foo" (3 bytes)
+    assertThat(((MappedBoundStatement) result).getDataSize()).isEqualTo(15);
+  }
+
+  @Test
+  void should_map_array_backed_records_with_binding_plan() {
+    RecordSchema schema = RecordSchema.mapped(F1, F2, F3);
+    RecordMapper mapper =
+        new DefaultRecordMapper(
+            insertStatement,
+            set(C1),
+            set(C2, C3),
+            V4,
+            mapping,
+            recordMetadata,
+            true,
+            true,
+            false,
+            statement -> boundStatementBuilder);
+    Statement<?> result1 =
+        mapper.map(
+            new ArrayBackedRecord(
+                "source",
+                URI.create("file://file1"),
+                1,
+                schema,
+                new Object[] {"42", "4242", "foo"}));
+    Statement<?> result2 =
+        mapper.map(
+            new ArrayBackedRecord(
+                "source", URI.create("file://file2"), 1, schema, new Object[] {"1", "2", "bar"}));
+    assertThat(result1).isInstanceOf(MappedBoundStatement.class);
+    assertThat(result2).isInstanceOf(MappedBoundStatement.class);
+    verify(boundStatementBuilder, times(6))
+        .setBytesUnsafe(variableCaptor.capture(), valueCaptor.capture());
+    assertParameter(0, 0, TypeCodecs.INT.encode(42, V4));
+    assertParameter(1, 1, TypeCodecs.BIGINT.encode(4242L, V4));
+    assertParameter(2, 2, TypeCodecs.TEXT.encode("foo", V4));
+    assertParameter(3, 0, TypeCodecs.INT.encode(1, V4));
+    assertParameter(4, 1, TypeCodecs.BIGINT.encode(2L, V4));
+    assertParameter(5, 2, TypeCodecs.TEXT.encode("bar", V4));
+    assertThat(((MappedBoundStatement) result1).getDataSize()).isEqualTo(15);
+    // codecs should have been resolved only once for both records
+    verify(mapping).codec(C1, DataTypes.INT, GenericType.STRING);
+    verify(mapping).codec(C2, DataTypes.BIGINT, GenericType.STRING);
+    verify(mapping).codec(C3, DataTypes.TEXT, GenericType.STRING);
+  }
+
+  @Test
+  void should_report_extra_field_of_array_backed_record() {
+    RecordMapper mapper =
+        new DefaultRecordMapper(
+            insertStatement,
+            set(C1),
+            set(C2, C3),
+            V4,
+            mapping,
+            recordMetadata,
+            true,
+            false,
+            false,
+            statement -> boundStatementBuilder);
+    // indexed fields are not mapped
+    Statement<?> result =
+        mapper.map(
+            new ArrayBackedRecord(
+                "source",
+                URI.create("file://file1"),
+                1,
+                RecordSchema.mapped(F1, F2, F3),
+                new Object[] {"42", "4242", "foo"}));
+    assertThat(result).isInstanceOf(UnmappableStatement.class);
+    assertThat(((UnmappableStatement) result).getError())
+        .isInstanceOf(InvalidMappingException.class)
+        .hasMessageContaining("Extraneous field 0 was found in record");
   }
 
   @Test
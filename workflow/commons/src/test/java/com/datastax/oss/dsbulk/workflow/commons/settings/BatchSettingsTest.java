@@ -29,6 +29,7 @@ import com.datastax.oss.dsbulk.tests.logging.LogInterceptor;
 import com.datastax.oss.dsbulk.tests.utils.ReflectionUtils;
 import com.datastax.oss.dsbulk.tests.utils.TestConfigUtils;
 import com.typesafe.config.Config;
+import java.time.Duration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -231,6 +232,29 @@ class BatchSettingsTest {
             "Invalid value for dsbulk.batch.bufferSize, expecting NUMBER, got STRING");
   }
 
+  @Test
+  void should_report_token_buckets() {
+    Config config = TestConfigUtils.createTestConfig("dsbulk.batch", "tokenBuckets", 64);
+    BatchSettings settings = new BatchSettings(config);
+    settings.init(false);
+    assertThat(settings.getTokenBuckets()).isEqualTo(64);
+    config =
+        TestConfigUtils.createTestConfig("dsbulk.batch", "tokenBuckets", 64, "mode", "DISABLED");
+    settings = new BatchSettings(config);
+    settings.init(false);
+    assertThat(settings.getTokenBuckets()).isZero();
+  }
+
+  @Test
+  void should_throw_exception_when_token_buckets_negative() {
+    Config config = TestConfigUtils.createTestConfig("dsbulk.batch", "tokenBuckets", -1);
+    BatchSettings settings = new BatchSettings(config);
+    assertThatThrownBy(() -> settings.init(false))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage(
+            "Invalid value for dsbulk.batch.tokenBuckets, expecting a positive integer or zero, got: -1");
+  }
+
   @Test
   void should_throw_exception_when_batch_mode_invalid() {
     Config config = TestConfigUtils.createTestConfig("dsbulk.batch", "mode", "NotAMode");
@@ -363,4 +387,28 @@ class BatchSettingsTest {
         .hasMessageContaining(
             "The prepared query for this operation is a BATCH statement: forcibly disabling batching");
   }
+
+  @Test
+  void should_create_batcher_with_max_open_groups_and_max_batch_delay() {
+    Config config =
+        TestConfigUtils.createTestConfig(
+            "dsbulk.batch", "maxOpenGroups", 10, "maxBatchDelay", "\"100 milliseconds\"");
+    BatchSettings settings = new BatchSettings(config);
+    settings.init(false);
+    ReactiveStatementBatcher batcher = settings.newStatementBatcher(session);
+    assertThat(batcher).isInstanceOf(ReactorStatementBatcher.class);
+    assertThat(ReflectionUtils.getInternalState(batcher, "maxOpenGroups")).isEqualTo(10);
+    assertThat(ReflectionUtils.getInternalState(batcher, "maxBatchDelay"))
+        .isEqualTo(Duration.ofMillis(100));
+  }
+
+  @Test
+  void should_throw_exception_when_max_open_groups_not_positive() {
+    Config config = TestConfigUtils.createTestConfig("dsbulk.batch", "maxOpenGroups", 0);
+    BatchSettings settings = new BatchSettings(config);
+    assertThatThrownBy(() -> settings.init(false))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage(
+            "Invalid value for dsbulk.batch.maxOpenGroups, expecting a strictly positive integer, got: 0");
+  }
 }
@@ -76,6 +76,50 @@ class EngineSettingsTest {
     assertThat(settings.getMaxConcurrentQueries()).isEmpty();
   }
 
+  @Test
+  void should_report_max_concurrent_queries_per_node() {
+    Config config =
+        TestConfigUtils.createTestConfig("dsbulk.engine", "maxConcurrentQueriesPerNode", "10");
+    EngineSettings settings = new EngineSettings(config);
+    settings.init();
+    assertThat(settings.getMaxConcurrentQueriesPerNode()).hasValue(10);
+  }
+
+  @Test
+  void should_report_empty_max_concurrent_queries_per_node_when_AUTO() {
+    Config config = TestConfigUtils.createTestConfig("dsbulk.engine");
+    EngineSettings settings = new EngineSettings(config);
+    settings.init();
+    assertThat(settings.getMaxConcurrentQueriesPerNode()).isEmpty();
+  }
+
+  @Test
+  void should_throw_when_max_concurrent_queries_per_node_invalid() {
+    Config config =
+        TestConfigUtils.createTestConfig("dsbulk.engine", "maxConcurrentQueriesPerNode", "-1");
+    EngineSettings settings = new EngineSettings(config);
+    assertThatThrownBy(settings::init)
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining(
+            "Invalid value for dsbulk.engine.maxConcurrentQueriesPerNode, expecting AUTO or a positive integer or zero, got '-1'");
+  }
+
+  @Test
+  void should_report_adaptive_concurrency_only_when_max_concurrent_queries_is_AUTO() {
+    Config config = TestConfigUtils.createTestConfig("dsbulk.engine");
+    EngineSettings settings = new EngineSettings(config);
+    settings.init();
+    assertThat(settings.isAdaptiveConcurrency()).isTrue();
+    config = TestConfigUtils.createTestConfig("dsbulk.engine", "adaptiveConcurrency", false);
+    settings = new EngineSettings(config);
+    settings.init();
+    assertThat(settings.isAdaptiveConcurrency()).isFalse();
+    config = TestConfigUtils.createTestConfig("dsbulk.engine", "maxConcurrentQueries", "10");
+    settings = new EngineSettings(config);
+    settings.init();
+    assertThat(settings.isAdaptiveConcurrency()).isFalse();
+  }
+
   @Test
   void should_create_data_size_sampling_enabled() {
     Config config =
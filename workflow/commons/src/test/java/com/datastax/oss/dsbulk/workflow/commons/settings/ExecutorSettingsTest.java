@@ -28,8 +28,9 @@ import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
 import com.datastax.oss.driver.api.core.config.DriverExecutionProfile;
 import com.datastax.oss.driver.api.core.metadata.Node;
 import com.datastax.oss.driver.shaded.guava.common.collect.ImmutableMap;
-import com.datastax.oss.driver.shaded.guava.common.util.concurrent.RateLimiter;
 import com.datastax.oss.dsbulk.executor.api.reader.ReactiveBulkReader;
+import com.datastax.oss.dsbulk.executor.api.throttling.AsyncRateLimiter;
+import com.datastax.oss.dsbulk.executor.api.throttling.AsyncSemaphore;
 import com.datastax.oss.dsbulk.executor.api.writer.ReactiveBulkWriter;
 import com.datastax.oss.dsbulk.executor.reactor.ContinuousReactorBulkExecutor;
 import com.datastax.oss.dsbulk.executor.reactor.DefaultReactorBulkExecutor;
@@ -41,7 +42,6 @@ import com.datastax.oss.dsbulk.tests.utils.TestConfigUtils;
 import com.typesafe.config.Config;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.Semaphore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -145,7 +145,8 @@ class ExecutorSettingsTest {
     when(profile.getString(DefaultDriverOption.REQUEST_CONSISTENCY)).thenReturn("ONE");
     settings.init();
     ReactiveBulkReader executor = settings.newReadExecutor(session, null, false);
-    assertThat(((RateLimiter) getInternalState(executor, "rateLimiter")).getRate()).isEqualTo(100);
+    assertThat(((AsyncRateLimiter) getInternalState(executor, "rateLimiter")).getRate())
+        .isEqualTo(100);
   }
 
   @Test
@@ -178,8 +179,8 @@ class ExecutorSettingsTest {
     when(profile.getString(DefaultDriverOption.REQUEST_CONSISTENCY)).thenReturn("ONE");
     settings.init();
     ReactiveBulkReader executor = settings.newReadExecutor(session, null, false);
-    Semaphore maxConcurrentRequests =
-        (Semaphore) getInternalState(executor, "maxConcurrentRequests");
+    AsyncSemaphore maxConcurrentRequests =
+        (AsyncSemaphore) getInternalState(executor, "maxConcurrentRequests");
     assertThat(maxConcurrentRequests.availablePermits()).isEqualTo(100);
   }
 
@@ -191,8 +192,8 @@ class ExecutorSettingsTest {
     when(profile.getString(DefaultDriverOption.REQUEST_CONSISTENCY)).thenReturn("ONE");
     settings.init();
     ReactiveBulkReader executor = settings.newReadExecutor(session, null, false);
-    Semaphore maxConcurrentRequests =
-        (Semaphore) getInternalState(executor, "maxConcurrentRequests");
+    AsyncSemaphore maxConcurrentRequests =
+        (AsyncSemaphore) getInternalState(executor, "maxConcurrentRequests");
     assertThat(maxConcurrentRequests).isNull();
   }
 
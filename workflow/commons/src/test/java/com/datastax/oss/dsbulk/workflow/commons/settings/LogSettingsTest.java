@@ -19,6 +19,7 @@ import static com.datastax.oss.dsbulk.tests.logging.StreamType.STDERR;
 import static com.datastax.oss.dsbulk.tests.utils.StringUtils.quoteJson;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.core.joran.spi.JoranException;
@@ -41,6 +42,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.Optional;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -98,6 +100,23 @@ class LogSettingsTest {
     }
   }
 
+  @Test
+  void should_not_create_token_range_checkpoint_when_token_metadata_absent() throws Exception {
+    when(session.getMetadata().getTokenMap()).thenReturn(Optional.empty());
+    Config config = TestConfigUtils.createTestConfig("dsbulk.log");
+    LogSettings settings = new LogSettings(config, executionId);
+    settings.init();
+    assertThat(settings.newTokenRangeCheckpoint(session, true)).isEmpty();
+  }
+
+  @Test
+  void should_not_create_token_range_checkpoint_without_token_range_reads() throws Exception {
+    Config config = TestConfigUtils.createTestConfig("dsbulk.log");
+    LogSettings settings = new LogSettings(config, executionId);
+    settings.init();
+    assertThat(settings.newTokenRangeCheckpoint(session, false)).isEmpty();
+  }
+
   @Test()
   void should_accept_maxErrors_as_absolute_number() throws IOException {
     Config config = TestConfigUtils.createTestConfig("dsbulk.log", "maxErrors", 20);
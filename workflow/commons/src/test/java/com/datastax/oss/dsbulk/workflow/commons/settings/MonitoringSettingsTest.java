@@ -67,6 +67,7 @@ class MonitoringSettingsTest {
     assertThat(ReflectionUtils.getInternalState(metricsManager, "expectedReads")).isEqualTo(-1L);
     assertThat(ReflectionUtils.getInternalState(metricsManager, "jmx")).isEqualTo(true);
     assertThat(ReflectionUtils.getInternalState(metricsManager, "csv")).isEqualTo(false);
+    assertThat(ReflectionUtils.getInternalState(metricsManager, "prometheusPort")).isEqualTo(-1);
   }
 
   @Test
@@ -90,7 +91,9 @@ class MonitoringSettingsTest {
             "jmx",
             false,
             "csv",
-            true);
+            true,
+            "prometheus.port",
+            9100);
     MonitoringSettings settings = new MonitoringSettings(config, "test");
     settings.init();
     MetricsManager metricsManager =
@@ -112,10 +115,22 @@ class MonitoringSettingsTest {
     assertThat(ReflectionUtils.getInternalState(metricsManager, "expectedReads")).isEqualTo(50L);
     assertThat(ReflectionUtils.getInternalState(metricsManager, "jmx")).isEqualTo(false);
     assertThat(ReflectionUtils.getInternalState(metricsManager, "csv")).isEqualTo(true);
+    assertThat(ReflectionUtils.getInternalState(metricsManager, "prometheusPort")).isEqualTo(9100);
     assertThat(ReflectionUtils.getInternalState(metricsManager, "operationDirectory"))
         .isEqualTo(tmpPath);
   }
 
+  @Test
+  void should_throw_exception_when_prometheus_port_invalid() {
+    Config config = TestConfigUtils.createTestConfig("dsbulk.monitoring", "prometheus.port", 70000);
+    MonitoringSettings settings = new MonitoringSettings(config, "test");
+    assertThatThrownBy(settings::init)
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining(
+            "Invalid value for dsbulk.monitoring.prometheus.port: "
+                + "expecting a port number between 0 and 65535, got 70000");
+  }
+
   @Test
   void should_throw_exception_when_expectedWrites_not_a_number() {
     Config config =
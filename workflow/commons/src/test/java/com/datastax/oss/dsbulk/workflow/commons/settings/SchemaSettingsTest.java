@@ -34,6 +34,7 @@ import static com.datastax.oss.dsbulk.workflow.commons.schema.QueryInspector.INT
 import static com.datastax.oss.dsbulk.workflow.commons.settings.SchemaGenerationStrategy.MAP_AND_WRITE;
 import static com.datastax.oss.dsbulk.workflow.commons.settings.SchemaGenerationStrategy.READ_AND_COUNT;
 import static com.datastax.oss.dsbulk.workflow.commons.settings.SchemaGenerationStrategy.READ_AND_MAP;
+import static com.datastax.oss.dsbulk.workflow.commons.settings.StatsSettings.StatisticsMode.approximate;
 import static com.datastax.oss.dsbulk.workflow.commons.settings.StatsSettings.StatisticsMode.global;
 import static com.datastax.oss.dsbulk.workflow.commons.settings.StatsSettings.StatisticsMode.hosts;
 import static com.datastax.oss.dsbulk.workflow.commons.settings.StatsSettings.StatisticsMode.partitions;
@@ -44,6 +45,7 @@ import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -64,6 +66,7 @@ import com.datastax.oss.driver.api.core.context.DriverContext;
 import com.datastax.oss.driver.api.core.cql.BoundStatement;
 import com.datastax.oss.driver.api.core.cql.ColumnDefinitions;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
 import com.datastax.oss.driver.api.core.cql.Statement;
 import com.datastax.oss.driver.api.core.metadata.Metadata;
 import com.datastax.oss.driver.api.core.metadata.Node;
@@ -95,6 +98,8 @@ import com.datastax.oss.dsbulk.tests.logging.LogCapture;
 import com.datastax.oss.dsbulk.tests.logging.LogInterceptingExtension;
 import com.datastax.oss.dsbulk.tests.logging.LogInterceptor;
 import com.datastax.oss.dsbulk.tests.utils.TestConfigUtils;
+import com.datastax.oss.dsbulk.workflow.commons.dispatch.ReadStatementSplitter;
+import com.datastax.oss.dsbulk.workflow.commons.schema.ApproximateReadResultCounter;
 import com.datastax.oss.dsbulk.workflow.commons.schema.ReadResultCounter;
 import com.datastax.oss.dsbulk.workflow.commons.schema.ReadResultMapper;
 import com.datastax.oss.dsbulk.workflow.commons.schema.RecordMapper;
@@ -117,6 +122,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.ArgumentCaptor;
 
 @ExtendWith(LogInterceptingExtension.class)
@@ -1104,6 +1110,173 @@ class SchemaSettingsTest {
         .isEqualTo("SELECT c1 FROM ks.t1 WHERE token(c1) > :start AND token(c1) <= :end");
   }
 
+  @Test
+  void should_create_row_counter_for_global_stats_pushed_down() {
+    Config config =
+        TestConfigUtils.createTestConfig("dsbulk.schema", "keyspace", "ks", "table", "t1");
+    SchemaSettings settings = new SchemaSettings(config, READ_AND_COUNT);
+    settings.init(session, false, true);
+    ReadResultCounter counter =
+        settings.createReadResultCounter(session, codecFactory, EnumSet.of(global), 10, true, 0);
+    assertThat(counter).isNotNull();
+    ArgumentCaptor<String> argument = ArgumentCaptor.forClass(String.class);
+    verify(session).prepare(argument.capture());
+    assertThat(argument.getValue())
+        .isEqualTo("SELECT count(*) FROM ks.t1 WHERE token(c1) > :start AND token(c1) <= :end");
+  }
+
+  @Test
+  void should_create_approximate_row_counter_and_sample_read_statements() {
+    ColumnDefinitions definitions =
+        mockColumnDefinitions(
+            mockColumnDefinition("start", BIGINT), mockColumnDefinition("end", BIGINT));
+    when(ps.getVariableDefinitions()).thenReturn(definitions);
+    when(ps.bind()).thenAnswer(invocation -> mock(BoundStatement.class, RETURNS_SELF));
+    Config config =
+        TestConfigUtils.createTestConfig("dsbulk.schema", "keyspace", "ks", "table", "t1");
+    SchemaSettings settings = new SchemaSettings(config, READ_AND_COUNT);
+    settings.init(session, false, true);
+    ReadResultCounter counter =
+        settings.createReadResultCounter(
+            session, codecFactory, EnumSet.of(approximate), 10, false, 0.5);
+    assertThat(counter).isInstanceOf(ApproximateReadResultCounter.class);
+    ArgumentCaptor<String> argument = ArgumentCaptor.forClass(String.class);
+    verify(session).prepare(argument.capture());
+    assertThat(argument.getValue())
+        .isEqualTo("SELECT token(c1) FROM ks.t1 WHERE token(c1) > :start AND token(c1) <= :end");
+    // at least 32 ranges should have been sampled
+    List<Statement<?>> statements = settings.createReadStatements(session);
+    assertThat(statements).hasSizeGreaterThanOrEqualTo(32);
+  }
+
+  @Test
+  void should_throw_when_custom_query_and_pushdown() {
+    Config config =
+        TestConfigUtils.createTestConfig(
+            "dsbulk.schema", "query", "\"SELECT c1, c3 FROM ks.t1 WHERE c1 = 0\"");
+    SchemaSettings settings = new SchemaSettings(config, READ_AND_COUNT);
+    settings.init(session, false, true);
+    assertThatThrownBy(
+            () ->
+                settings.createReadResultCounter(
+                    session, codecFactory, EnumSet.of(global), 10, true, 0))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Cannot push down count aggregations when schema.query is provided");
+  }
+
+  @Test
+  void should_split_read_statement() {
+    ColumnDefinitions definitions =
+        mockColumnDefinitions(
+            mockColumnDefinition("start", BIGINT), mockColumnDefinition("end", BIGINT));
+    when(ps.getVariableDefinitions()).thenReturn(definitions);
+    BoundStatement bs1 = mock(BoundStatement.class, RETURNS_SELF);
+    BoundStatement bs2 = mock(BoundStatement.class, RETURNS_SELF);
+    when(ps.bind()).thenReturn(bs1, bs2);
+    BoundStatement statement = mock(BoundStatement.class);
+    when(statement.getToken(0)).thenReturn(token1);
+    when(statement.getToken(1)).thenReturn(token2);
+    Config config =
+        TestConfigUtils.createTestConfig("dsbulk.schema", "keyspace", "ks", "table", "t1");
+    SchemaSettings settings = new SchemaSettings(config, READ_AND_COUNT);
+    settings.init(session, false, true);
+    settings.createReadResultCounter(session, codecFactory, EnumSet.of(global), 10, true, 0);
+    List<Statement<?>> splits = settings.splitReadStatement(session, statement, 2);
+    assertThat(splits).containsExactly(bs1, bs2);
+    Murmur3Token middle = newToken(-6148914691236517206L);
+    verify(bs1).setToken(0, token1);
+    verify(bs1).setToken(1, middle);
+    verify(bs1).setRoutingToken(middle);
+    verify(bs2).setToken(0, middle);
+    verify(bs2).setToken(1, token2);
+    verify(bs2).setRoutingToken(token2);
+  }
+
+  @Test
+  void should_not_split_read_statement_without_token_range_restriction() {
+    Config config =
+        TestConfigUtils.createTestConfig(
+            "dsbulk.schema", "query", "\"SELECT c1, c3 FROM ks.t1 WHERE c1 = 0\"");
+    SchemaSettings settings = new SchemaSettings(config, READ_AND_COUNT);
+    settings.init(session, false, true);
+    settings.createReadResultCounter(session, codecFactory, EnumSet.of(global), 10);
+    assertThat(settings.splitReadStatement(session, mock(BoundStatement.class), 2)).isEmpty();
+  }
+
+  @Test
+  void should_split_remaining_part_of_read_statement() {
+    ColumnDefinitions definitions =
+        mockColumnDefinitions(
+            mockColumnDefinition("start", BIGINT), mockColumnDefinition("end", BIGINT));
+    when(ps.getVariableDefinitions()).thenReturn(definitions);
+    BoundStatement bs1 = mock(BoundStatement.class, RETURNS_SELF);
+    BoundStatement bs2 = mock(BoundStatement.class, RETURNS_SELF);
+    when(ps.bind()).thenReturn(bs1, bs2);
+    BoundStatement statement = mock(BoundStatement.class);
+    when(statement.getToken(0)).thenReturn(token1);
+    when(statement.getToken(1)).thenReturn(token2);
+    Config config =
+        TestConfigUtils.createTestConfig("dsbulk.schema", "keyspace", "ks", "table", "t1");
+    SchemaSettings settings = new SchemaSettings(config, READ_AND_MAP);
+    settings.init(session, false, true);
+    settings.createReadResultMapper(session, recordMetadata, codecFactory, true);
+    ReadStatementSplitter splitter = settings.createReadStatementSplitter(session).orElse(null);
+    assertThat(splitter).isNotNull();
+    // the token of a row is computed from its partition key
+    Row row = mock(Row.class);
+    ByteBuffer key = ByteBuffer.wrap(new byte[] {0, 0, 0, 1});
+    ColumnDefinitions rowDefinitions =
+        mockColumnDefinitions(mockColumnDefinition("c1", DataTypes.INT));
+    when(row.getColumnDefinitions()).thenReturn(rowDefinitions);
+    when(row.getBytesUnsafe(0)).thenReturn(key);
+    Murmur3Token middle = newToken(-6148914691236517206L);
+    when(metadata.getTokenMap().get().newToken(key)).thenReturn(middle);
+    assertThat(splitter.getToken(row)).isEqualTo(middle);
+    // only the part of the range after that token is split
+    List<Statement<?>> splits = splitter.split(statement, middle, null, 2);
+    assertThat(splits).containsExactly(bs1, bs2);
+    Murmur3Token quarter = newToken(-4611686018427387905L);
+    verify(bs1).setToken(0, middle);
+    verify(bs1).setToken(1, quarter);
+    verify(bs2).setToken(0, quarter);
+    verify(bs2).setToken(1, token2);
+  }
+
+  @Test
+  void should_not_create_read_statement_splitter_when_disabled() {
+    ColumnDefinitions definitions =
+        mockColumnDefinitions(
+            mockColumnDefinition("start", BIGINT), mockColumnDefinition("end", BIGINT));
+    when(ps.getVariableDefinitions()).thenReturn(definitions);
+    Config config =
+        TestConfigUtils.createTestConfig(
+            "dsbulk.schema", "keyspace", "ks", "table", "t1", "dynamicSplits", false);
+    SchemaSettings settings = new SchemaSettings(config, READ_AND_MAP);
+    settings.init(session, false, true);
+    settings.createReadResultMapper(session, recordMetadata, codecFactory, true);
+    assertThat(settings.createReadStatementSplitter(session)).isEmpty();
+  }
+
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "SELECT c3 AS c1 FROM ks.t1 WHERE token(c1) > :start AND token(c1) <= :end",
+        "SELECT c1 AS c4, c3 FROM ks.t1 WHERE token(c1) > :start AND token(c1) <= :end",
+        "SELECT c1 AS c3, c3 AS c1 FROM ks.t1 WHERE token(c1) > :start AND token(c1) <= :end",
+        "SELECT c1, c3 AS c1 FROM ks.t1 WHERE token(c1) > :start AND token(c1) <= :end",
+        "SELECT c1, c3.f1 AS c1 FROM ks.t1 WHERE token(c1) > :start AND token(c1) <= :end"
+      })
+  void should_not_create_read_statement_splitter_when_partition_key_aliased(String query) {
+    ColumnDefinitions definitions =
+        mockColumnDefinitions(
+            mockColumnDefinition("start", BIGINT), mockColumnDefinition("end", BIGINT));
+    when(ps.getVariableDefinitions()).thenReturn(definitions);
+    Config config = TestConfigUtils.createTestConfig("dsbulk.schema", "query", quoteJson(query));
+    SchemaSettings settings = new SchemaSettings(config, READ_AND_MAP);
+    settings.init(session, false, true);
+    assertThat(settings.createReadStatementSplitter(session)).isEmpty();
+  }
+
   @Test
   void should_create_row_counter_for_partition_stats() {
     when(table.getClusteringColumns()).thenReturn(ImmutableMap.of(col2, ClusteringOrder.ASC));
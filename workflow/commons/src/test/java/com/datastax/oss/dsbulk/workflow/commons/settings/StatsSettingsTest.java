@@ -20,6 +20,7 @@ import static com.datastax.oss.dsbulk.workflow.commons.settings.StatsSettings.St
 import static com.datastax.oss.dsbulk.workflow.commons.settings.StatsSettings.StatisticsMode.partitions;
 import static com.datastax.oss.dsbulk.workflow.commons.settings.StatsSettings.StatisticsMode.ranges;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.datastax.oss.dsbulk.tests.utils.TestConfigUtils;
 import com.typesafe.config.Config;
@@ -44,4 +45,50 @@ class StatsSettingsTest {
     settings.init();
     assertThat(settings.getNumPartitions()).isEqualTo(20);
   }
+
+  @Test
+  void should_report_pushdown() {
+    StatsSettings settings = new StatsSettings(TestConfigUtils.createTestConfig("dsbulk.stats"));
+    settings.init();
+    assertThat(settings.isPushdown()).isFalse();
+    Config config = TestConfigUtils.createTestConfig("dsbulk.stats", "pushdown", true);
+    settings = new StatsSettings(config);
+    settings.init();
+    assertThat(settings.isPushdown()).isTrue();
+  }
+
+  @Test
+  void should_throw_IAE_when_pushdown_enabled_with_other_modes() {
+    Config config =
+        TestConfigUtils.createTestConfig(
+            "dsbulk.stats", "pushdown", true, "modes", "[global,partitions]");
+    StatsSettings settings = new StatsSettings(config);
+    assertThatThrownBy(settings::init)
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage(
+            "Invalid value for dsbulk.stats.pushdown: count aggregations can only be pushed down "
+                + "when stats.modes = [global], got [global, partitions]");
+  }
+
+  @Test
+  void should_throw_IAE_when_approximate_combined_with_other_modes() {
+    Config config =
+        TestConfigUtils.createTestConfig("dsbulk.stats", "modes", "[global,approximate]");
+    StatsSettings settings = new StatsSettings(config);
+    assertThatThrownBy(settings::init)
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage(
+            "Invalid value for dsbulk.stats.modes: approximate cannot be combined with other modes, "
+                + "got [global, approximate]");
+  }
+
+  @Test
+  void should_throw_IAE_when_sample_ratio_invalid() {
+    Config config = TestConfigUtils.createTestConfig("dsbulk.stats", "sampleRatio", 1.5);
+    StatsSettings settings = new StatsSettings(config);
+    assertThatThrownBy(settings::init)
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessage(
+            "Invalid value for dsbulk.stats.sampleRatio: expecting a number between 0 and 1, got 1.5");
+  }
 }
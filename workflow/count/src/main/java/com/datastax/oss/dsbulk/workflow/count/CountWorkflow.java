@@ -17,8 +17,10 @@ package com.datastax.oss.dsbulk.workflow.count;
 
 import com.codahale.metrics.MetricRegistry;
 import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.DriverTimeoutException;
 import com.datastax.oss.driver.api.core.cql.Statement;
 import com.datastax.oss.driver.api.core.metrics.Metrics;
+import com.datastax.oss.driver.api.core.servererrors.ReadTimeoutException;
 import com.datastax.oss.driver.shaded.guava.common.base.Stopwatch;
 import com.datastax.oss.dsbulk.codecs.api.ConvertingCodecFactory;
 import com.datastax.oss.dsbulk.executor.api.reader.BulkReader;
@@ -26,8 +28,10 @@ import com.datastax.oss.dsbulk.executor.api.result.ReadResult;
 import com.datastax.oss.dsbulk.workflow.api.Workflow;
 import com.datastax.oss.dsbulk.workflow.api.utils.DurationUtils;
 import com.datastax.oss.dsbulk.workflow.commons.log.LogManager;
+import com.datastax.oss.dsbulk.workflow.commons.log.TokenRangeCheckpoint;
 import com.datastax.oss.dsbulk.workflow.commons.metrics.MetricsManager;
 import com.datastax.oss.dsbulk.workflow.commons.schema.ReadResultCounter;
+import com.datastax.oss.dsbulk.workflow.commons.schema.ReadResultCounter.CountingUnit;
 import com.datastax.oss.dsbulk.workflow.commons.settings.CodecSettings;
 import com.datastax.oss.dsbulk.workflow.commons.settings.DriverSettings;
 import com.datastax.oss.dsbulk.workflow.commons.settings.EngineSettings;
@@ -59,6 +63,12 @@ public class CountWorkflow implements Workflow {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(CountWorkflow.class);
 
+  /** The number of sub-ranges to split a token range into, when counting it timed out. */
+  private static final int RESPLIT_COUNT = 4;
+
+  /** The maximum number of times a token range can be split after read timeouts. */
+  private static final int MAX_RESPLIT_DEPTH = 6;
+
   private final SettingsManager settingsManager;
   private final AtomicBoolean closed = new AtomicBoolean(false);
 
@@ -68,8 +78,10 @@ public class CountWorkflow implements Workflow {
   private MetricsManager metricsManager;
   private LogManager logManager;
   private CqlSession session;
+  private SchemaSettings schemaSettings;
   private BulkReader executor;
   private List<? extends Statement<?>> readStatements;
+  private TokenRangeCheckpoint checkpoint;
   private volatile boolean success;
   private Function<Flux<ReadResult>, Flux<ReadResult>> totalItemsMonitor;
   private Function<Flux<ReadResult>, Flux<ReadResult>> totalItemsCounter;
@@ -78,6 +90,7 @@ public class CountWorkflow implements Workflow {
   private Function<Flux<ReadResult>, Flux<ReadResult>> queryWarningsHandler;
   private Function<Flux<Void>, Flux<Void>> terminationHandler;
   private int readConcurrency;
+  private boolean pushdown;
 
   CountWorkflow(Config config) {
     settingsManager = new SettingsManager(config);
@@ -89,7 +102,7 @@ public class CountWorkflow implements Workflow {
     executionId = settingsManager.getExecutionId();
     LogSettings logSettings = settingsManager.getLogSettings();
     DriverSettings driverSettings = settingsManager.getDriverSettings();
-    SchemaSettings schemaSettings = settingsManager.getSchemaSettings();
+    schemaSettings = settingsManager.getSchemaSettings();
     ExecutorSettings executorSettings = settingsManager.getExecutorSettings();
     CodecSettings codecSettings = settingsManager.getCodecSettings();
     MonitoringSettings monitoringSettings = settingsManager.getMonitoringSettings();
@@ -114,7 +127,36 @@ public class CountWorkflow implements Workflow {
     session = driverSettings.newSession(executionId, codecFactory.getCodecRegistry());
     ClusterInformationUtils.printDebugInfoAboutCluster(session);
     schemaSettings.init(session, false, false);
-    logManager = logSettings.newLogManager(session, false);
+    EnumSet<StatsSettings.StatisticsMode> modes = statsSettings.getStatisticsModes();
+    // prepares the count query, which tells whether token ranges can be checkpointed
+    int numPartitions = statsSettings.getNumPartitions();
+    pushdown = statsSettings.isPushdown();
+    readResultCounter =
+        schemaSettings.createReadResultCounter(
+            session, codecFactory, modes, numPartitions, pushdown, statsSettings.getSampleRatio());
+    checkpoint =
+        logSettings
+            .newTokenRangeCheckpoint(session, schemaSettings.isTokenRangeQuery())
+            .orElse(null);
+    if (checkpoint != null && modes.contains(StatsSettings.StatisticsMode.partitions)) {
+      // partitions are ranked across token ranges, so partial totals cannot be merged
+      if (!checkpoint.isEmpty()) {
+        throw new IllegalArgumentException(
+            "Cannot resume the operation: resuming is not supported when counting partitions.");
+      }
+      LOGGER.debug("Checkpoints are not supported when counting partitions, disabling them");
+      checkpoint = null;
+    }
+    if (checkpoint != null && modes.contains(StatsSettings.StatisticsMode.approximate)) {
+      // sampled ranges are picked at random, and differ from one operation to another
+      if (!checkpoint.isEmpty()) {
+        throw new IllegalArgumentException(
+            "Cannot resume the operation: resuming is not supported when estimating totals.");
+      }
+      LOGGER.debug("Checkpoints are not supported when estimating totals, disabling them");
+      checkpoint = null;
+    }
+    logManager = logSettings.newLogManager(session, checkpoint);
     logManager.init();
     metricsManager =
         monitoringSettings.newMetricsManager(
@@ -129,11 +171,10 @@ public class CountWorkflow implements Workflow {
     metricsManager.init();
     executor =
         executorSettings.newReadExecutor(session, metricsManager.getExecutionListener(), false);
-    EnumSet<StatsSettings.StatisticsMode> modes = statsSettings.getStatisticsModes();
-    int numPartitions = statsSettings.getNumPartitions();
-    readResultCounter =
-        schemaSettings.createReadResultCounter(session, codecFactory, modes, numPartitions);
-    readStatements = schemaSettings.createReadStatements(session);
+    if (checkpoint != null) {
+      readResultCounter.restore(checkpoint);
+    }
+    readStatements = schemaSettings.createReadStatements(session, checkpoint);
     closed.set(false);
     success = false;
     totalItemsMonitor = metricsManager.newTotalItemsMonitor();
@@ -143,8 +184,11 @@ public class CountWorkflow implements Workflow {
     queryWarningsHandler = logManager.newQueryWarningsHandler();
     terminationHandler = logManager.newTerminationHandler();
     int numCores = Runtime.getRuntime().availableProcessors();
+    // when resuming, there might be no statements left to execute
     readConcurrency =
-        Math.min(readStatements.size(), engineSettings.getMaxConcurrentQueries().orElse(numCores));
+        Math.min(
+            Math.max(1, readStatements.size()),
+            engineSettings.getMaxConcurrentQueries().orElse(numCores));
     LOGGER.debug(
         "Using read concurrency: {} (user-supplied: {})",
         readConcurrency,
@@ -160,22 +204,40 @@ public class CountWorkflow implements Workflow {
     Stopwatch timer = Stopwatch.createStarted();
     Flux.fromIterable(readStatements)
         .flatMap(
-            statement ->
-                Flux.from(executor.readReactive(statement))
-                    .transform(queryWarningsHandler)
-                    .transform(totalItemsMonitor)
-                    .transform(totalItemsCounter)
-                    .transform(failedItemsMonitor)
-                    .transform(failedReadsHandler)
-                    // Important:
-                    // 1) there must be one counting unit per inner flow: this is guaranteed by
-                    // instantiating a new counting unit below for each inner flow.
-                    // 2) When counting partitions or ranges, a partition cannot be split in two
-                    // inner flows; this is guaranteed since statements are split by token range
-                    // (users cannot supply a custom query for these counting modes).
-                    .doOnNext(readResultCounter.newCountingUnit()::update)
-                    .then()
-                    .subscribeOn(scheduler),
+            statement -> {
+              CountingUnit unit = readResultCounter.newCountingUnit();
+              AtomicBoolean failed = new AtomicBoolean(false);
+              return readReactive(statement, 0)
+                  .transform(queryWarningsHandler)
+                  .transform(totalItemsMonitor)
+                  .transform(totalItemsCounter)
+                  .transform(failedItemsMonitor)
+                  .doOnNext(
+                      result -> {
+                        if (!result.isSuccess()) {
+                          failed.set(true);
+                        }
+                      })
+                  .transform(failedReadsHandler)
+                  // Important:
+                  // 1) there must be one counting unit per inner flow: this is guaranteed by
+                  // instantiating a new counting unit above for each inner flow.
+                  // 2) When counting partitions or ranges, a partition cannot be split in two
+                  // inner flows; this is guaranteed since statements are split by token range
+                  // (users cannot supply a custom query for these counting modes).
+                  .doOnNext(unit::update)
+                  .then()
+                  .doOnSuccess(
+                      v -> {
+                        // only ranges read without errors can be skipped when resuming
+                        if (checkpoint != null
+                            && !failed.get()
+                            && statement.getRoutingToken() != null) {
+                          unit.checkpoint(checkpoint, statement.getRoutingToken());
+                        }
+                      })
+                  .subscribeOn(scheduler);
+            },
             readConcurrency)
         .transform(terminationHandler)
         .blockLast();
@@ -194,6 +256,37 @@ public class CountWorkflow implements Workflow {
     return totalErrors == 0;
   }
 
+  /**
+   * Reads the given statement. When count aggregations are pushed down, token ranges that could not
+   * be counted because of a read timeout are split into smaller ranges, which are then counted one
+   * after the other, until they succeed or cannot be split anymore.
+   */
+  private Flux<ReadResult> readReactive(Statement<?> statement, int depth) {
+    Flux<ReadResult> results = Flux.from(executor.readReactive(statement));
+    if (!pushdown || depth >= MAX_RESPLIT_DEPTH) {
+      return results;
+    }
+    return results.concatMap(
+        result -> {
+          if (result.getError().map(e -> isReadTimeout(e.getCause())).orElse(false)) {
+            List<Statement<?>> splits =
+                schemaSettings.splitReadStatement(session, statement, RESPLIT_COUNT);
+            if (!splits.isEmpty()) {
+              LOGGER.debug(
+                  "Counting token range ending at {} timed out, splitting it in {} ranges",
+                  statement.getRoutingToken(),
+                  splits.size());
+              return Flux.fromIterable(splits).concatMap(split -> readReactive(split, depth + 1));
+            }
+          }
+          return Flux.just(result);
+        });
+  }
+
+  private static boolean isReadTimeout(Throwable error) {
+    return error instanceof ReadTimeoutException || error instanceof DriverTimeoutException;
+  }
+
   @Override
   public void close() throws Exception {
     if (closed.compareAndSet(false, true)) {
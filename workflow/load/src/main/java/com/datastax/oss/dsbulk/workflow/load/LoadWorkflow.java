@@ -22,19 +22,29 @@ import com.datastax.oss.driver.api.core.CqlSession;
 import com.datastax.oss.driver.api.core.cql.BatchableStatement;
 import com.datastax.oss.driver.api.core.cql.BoundStatement;
 import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.loadbalancing.NodeDistance;
+import com.datastax.oss.driver.api.core.metadata.Node;
+import com.datastax.oss.driver.api.core.metadata.TokenMap;
 import com.datastax.oss.driver.api.core.metrics.Metrics;
 import com.datastax.oss.driver.shaded.guava.common.base.Stopwatch;
+import com.datastax.oss.dsbulk.batcher.api.ReactiveStatementBatcher;
 import com.datastax.oss.dsbulk.codecs.api.ConvertingCodecFactory;
 import com.datastax.oss.dsbulk.connectors.api.CommonConnectorFeature;
 import com.datastax.oss.dsbulk.connectors.api.Connector;
 import com.datastax.oss.dsbulk.connectors.api.Record;
+import com.datastax.oss.dsbulk.executor.api.listener.MetricsCollectingExecutionListener;
 import com.datastax.oss.dsbulk.executor.api.result.EmptyWriteResult;
 import com.datastax.oss.dsbulk.executor.api.result.WriteResult;
+import com.datastax.oss.dsbulk.executor.api.throttling.AsyncSemaphore;
 import com.datastax.oss.dsbulk.executor.api.writer.BulkWriter;
+import com.datastax.oss.dsbulk.partitioner.BulkTokenFactory;
+import com.datastax.oss.dsbulk.partitioner.TokenRangeBucketer;
 import com.datastax.oss.dsbulk.sampler.DataSizeSampler;
 import com.datastax.oss.dsbulk.workflow.api.Workflow;
 import com.datastax.oss.dsbulk.workflow.api.utils.DurationUtils;
 import com.datastax.oss.dsbulk.workflow.api.utils.ThrowableUtils;
+import com.datastax.oss.dsbulk.workflow.commons.dispatch.AdaptiveConcurrencyController;
+import com.datastax.oss.dsbulk.workflow.commons.dispatch.ReplicaAwareWriteDispatcher;
 import com.datastax.oss.dsbulk.workflow.commons.log.LogManager;
 import com.datastax.oss.dsbulk.workflow.commons.metrics.MetricsManager;
 import com.datastax.oss.dsbulk.workflow.commons.schema.RecordMapper;
@@ -54,13 +64,19 @@ import com.datastax.oss.dsbulk.workflow.commons.utils.ClusterInformationUtils;
 import com.typesafe.config.Config;
 import io.netty.util.concurrent.DefaultThreadFactory;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 import reactor.util.concurrent.Queues;
@@ -73,6 +89,18 @@ public class LoadWorkflow implements Workflow {
   private static final int _1_KB = 1024;
   private static final int _10_KB = 10 * _1_KB;
 
+  /**
+   * How many statements, relative to the write concurrency, may be queued or executing when
+   * dispatching writes with per-node limits.
+   */
+  private static final int MAX_PENDING_QUERIES_FACTOR = 4;
+
+  /**
+   * How much the write concurrency may grow, relative to its initial value, when it is adjusted at
+   * runtime.
+   */
+  private static final int MAX_WRITE_CONCURRENCY_FACTOR = 4;
+
   private final SettingsManager settingsManager;
   private final AtomicBoolean closed = new AtomicBoolean(false);
 
@@ -86,14 +114,21 @@ public class LoadWorkflow implements Workflow {
   private boolean batchingEnabled;
   private boolean dryRun;
   private int batchBufferSize;
+  private int tokenBuckets;
+  private BulkTokenFactory tokenFactory;
   private Scheduler scheduler;
   private int numCores;
   private int readConcurrency;
   private int writeConcurrency;
   private boolean hasManyReaders;
+  private ReplicaAwareWriteDispatcher dispatcher;
+  private AdaptiveConcurrencyController concurrencyController;
+  private AsyncSemaphore writePermits;
 
   private Function<Record, BatchableStatement<?>> mapper;
+  private ReactiveStatementBatcher statementBatcher;
   private Function<Publisher<BatchableStatement<?>>, Publisher<Statement<?>>> batcher;
+  private Function<Flux<Record>, Flux<Record>> resourceCompletionHandler;
   private Function<Flux<Record>, Flux<Record>> totalItemsMonitor;
   private Function<Flux<Record>, Flux<Record>> totalItemsCounter;
   private Function<Flux<Record>, Flux<Record>> failedRecordsMonitor;
@@ -147,6 +182,10 @@ public class LoadWorkflow implements Workflow {
         connector.supports(CommonConnectorFeature.MAPPED_RECORDS));
     logManager = logSettings.newLogManager(session, true);
     logManager.init();
+    if (logSettings.getResumedCheckpoint().isPresent()) {
+      LOGGER.info("Resuming operation from checkpoint.");
+    }
+    connector.setReadCheckpoint(logManager.newReadCheckpoint());
     RecordMapper recordMapper =
         schemaSettings.createRecordMapper(session, connector.getRecordMetadata(), codecFactory);
     mapper = recordMapper::map;
@@ -154,7 +193,19 @@ public class LoadWorkflow implements Workflow {
     batchingEnabled = batchSettings.isBatchingEnabled();
     batchBufferSize = batchSettings.getBufferSize();
     if (batchingEnabled) {
-      batcher = batchSettings.newStatementBatcher(session)::batchByGroupingKey;
+      statementBatcher = batchSettings.newStatementBatcher(session);
+      batcher = statementBatcher::batchByGroupingKey;
+      tokenBuckets = batchSettings.getTokenBuckets();
+      if (tokenBuckets > 0) {
+        TokenMap tokenMap = session.getMetadata().getTokenMap().orElse(null);
+        if (tokenMap == null) {
+          LOGGER.warn(
+              "Token metadata is not available, statements will not be sorted into token range buckets");
+          tokenBuckets = 0;
+        } else {
+          tokenFactory = BulkTokenFactory.forPartitioner(tokenMap.getPartitionerName());
+        }
+      }
     }
     metricsManager =
         monitoringSettings.newMetricsManager(
@@ -167,12 +218,18 @@ public class LoadWorkflow implements Workflow {
             session.getContext().getCodecRegistry(),
             schemaSettings.getRowType());
     metricsManager.init();
+    if (batchingEnabled) {
+      metricsManager
+          .getRegistry()
+          .gauge("batches/open-groups", () -> statementBatcher::getOpenGroups);
+    }
     executor = executorSettings.newWriteExecutor(session, metricsManager.getExecutionListener());
     dryRun = engineSettings.isDryRun();
     if (dryRun) {
       LOGGER.info("Dry-run mode enabled.");
     }
     closed.set(false);
+    resourceCompletionHandler = logManager.newResourceCompletionHandler();
     totalItemsMonitor = metricsManager.newTotalItemsMonitor();
     failedRecordsMonitor = metricsManager.newFailedItemsMonitor();
     failedStatementsMonitor = metricsManager.newFailedItemsMonitor();
@@ -198,12 +255,59 @@ public class LoadWorkflow implements Workflow {
         "Using write concurrency: {} (user-supplied: {})",
         writeConcurrency,
         engineSettings.getMaxConcurrentQueries().isPresent());
+    if (!dryRun) {
+      boolean adaptiveConcurrency = engineSettings.isAdaptiveConcurrency();
+      int maxWriteConcurrency =
+          adaptiveConcurrency ? writeConcurrency * MAX_WRITE_CONCURRENCY_FACTOR : writeConcurrency;
+      int writeConcurrencyPerNode =
+          engineSettings
+              .getMaxConcurrentQueriesPerNode()
+              .orElseGet(this::determineWriteConcurrencyPerNode);
+      // a per-node limit equal to or greater than the global limit would never be reached
+      if (writeConcurrencyPerNode > 0 && writeConcurrencyPerNode < writeConcurrency) {
+        LOGGER.debug(
+            "Using write concurrency per node: {} (user-supplied: {})",
+            writeConcurrencyPerNode,
+            engineSettings.getMaxConcurrentQueriesPerNode().isPresent());
+        dispatcher =
+            new ReplicaAwareWriteDispatcher(
+                session,
+                executor,
+                writeConcurrency,
+                writeConcurrencyPerNode,
+                Math.max(writeConcurrency * MAX_PENDING_QUERIES_FACTOR, maxWriteConcurrency * 2),
+                metricsManager.getRegistry());
+      }
+      if (adaptiveConcurrency) {
+        int minWriteConcurrency = Math.min(numCores, writeConcurrency);
+        LOGGER.debug(
+            "Adjusting write concurrency at runtime, between {} and {}",
+            minWriteConcurrency,
+            maxWriteConcurrency);
+        MetricsCollectingExecutionListener listener = metricsManager.getExecutionListener();
+        if (dispatcher == null) {
+          writePermits = new AsyncSemaphore(writeConcurrency);
+        }
+        concurrencyController =
+            new AdaptiveConcurrencyController(
+                listener.getTotalWritesTimer(),
+                listener.getInFlightRequestsCounter(),
+                writeConcurrency,
+                minWriteConcurrency,
+                maxWriteConcurrency,
+                dispatcher == null ? writePermits::setPermits : dispatcher::setMaxConcurrentQueries,
+                metricsManager.getRegistry());
+      }
+    }
   }
 
   @Override
   public boolean execute() {
     LOGGER.debug("{} started.", this);
     metricsManager.start();
+    if (concurrencyController != null) {
+      concurrencyController.start();
+    }
     Stopwatch timer = Stopwatch.createStarted();
     Flux<Statement<?>> statements;
     if (hasManyReaders) {
@@ -211,6 +315,9 @@ public class LoadWorkflow implements Workflow {
     } else {
       statements = fewReaders();
     }
+    if (tokenBuckets > 0) {
+      statements = statements.transform(this::sortAndBatch);
+    }
     statements
         .transform(this::executeStatements)
         .transform(queryWarningsHandler)
@@ -245,6 +352,7 @@ public class LoadWorkflow implements Workflow {
         .flatMap(
             records ->
                 Flux.from(records)
+                    .transform(resourceCompletionHandler)
                     .transform(totalItemsMonitor)
                     .transform(totalItemsCounter)
                     .transform(failedRecordsMonitor)
@@ -271,6 +379,7 @@ public class LoadWorkflow implements Workflow {
         .flatMap(
             records ->
                 Flux.from(records)
+                    .transform(resourceCompletionHandler)
                     .window(batchingEnabled ? batchBufferSize : Queues.SMALL_BUFFER_SIZE),
             readConcurrency)
         .flatMap(
@@ -289,42 +398,119 @@ public class LoadWorkflow implements Workflow {
   }
 
   /**
-   * Batches the given statement flow, if batching is enabled; otherwise do nothing.
+   * Batches the given statement flow, if batching is enabled and statements are not sorted into
+   * token range buckets; otherwise do nothing.
    *
    * <p>The flow is expected to be unbuffered, so this method first applies buffering by {@code
    * batchBufferSize} before batching the resulting chunks.
    */
   private Flux<? extends Statement<?>> bufferAndBatch(Flux<BatchableStatement<?>> stmts) {
-    return batchingEnabled
+    return batchingEnabled && tokenBuckets == 0
         ? stmts.window(batchBufferSize).flatMap(batcher).transform(batcherMonitor)
         : stmts;
   }
 
   /**
-   * Batches the given statement flow, if batching is enabled; otherwise do nothing.
+   * Batches the given statement flow, if batching is enabled and statements are not sorted into
+   * token range buckets; otherwise do nothing.
    *
    * <p>The flow is expected to be already buffered by {@code batchBufferSize} so this method
    * applies batching immediately.
    */
   private Flux<? extends Statement<?>> batchBuffered(Flux<BatchableStatement<?>> stmts) {
-    return batchingEnabled ? stmts.transform(batcher).transform(batcherMonitor) : stmts;
+    return batchingEnabled && tokenBuckets == 0
+        ? stmts.transform(batcher).transform(batcherMonitor)
+        : stmts;
+  }
+
+  /**
+   * Sorts the statements of the whole operation into {@code tokenBuckets} token range buckets, then
+   * batches each bucket as soon as it contains {@code batchBufferSize} statements; the remaining
+   * buckets are batched when the flow completes.
+   *
+   * <p>The flow is expected to contain unbatched statements only.
+   */
+  private Flux<Statement<?>> sortAndBatch(Flux<Statement<?>> stmts) {
+    return Flux.defer(
+            () -> {
+              TokenRangeBucketer<BatchableStatement<?>> bucketer =
+                  new TokenRangeBucketer<>(tokenFactory, tokenBuckets, batchBufferSize);
+              return stmts
+                  .<List<BatchableStatement<?>>>handle(
+                      (stmt, sink) -> {
+                        List<BatchableStatement<?>> bucket =
+                            bucketer.add((BatchableStatement<?>) stmt);
+                        if (bucket != null) {
+                          sink.next(bucket);
+                        }
+                      })
+                  .concatWith(Flux.defer(() -> Flux.fromIterable(bucketer.drain())));
+            })
+        .flatMap(bucket -> batcher.apply(Flux.fromIterable(bucket)))
+        .transform(batcherMonitor);
   }
 
   /**
    * Executes the given statement flow, unless we are running in dry-run mode, in which case a
    * successful write is emulated.
+   *
+   * <p>When per-node limits are enabled, statements are executed by the replica-aware dispatcher;
+   * otherwise they are executed directly with {@code writeConcurrency} parallelism. When the write
+   * concurrency is adjusted at runtime, the current limit is enforced by the dispatcher, or by
+   * {@code writePermits} if there is no dispatcher, and write results are fed back to the
+   * concurrency controller.
    */
   private Flux<WriteResult> executeStatements(Flux<? extends Statement<?>> stmts) {
-    return dryRun
-        ? stmts.map(EmptyWriteResult::new)
-        : stmts.flatMap(executor::writeReactive, writeConcurrency);
+    Flux<WriteResult> results;
+    if (dryRun) {
+      return stmts.map(EmptyWriteResult::new);
+    } else if (dispatcher != null) {
+      results = dispatcher.dispatch(stmts);
+    } else if (writePermits != null) {
+      results =
+          stmts.flatMap(this::writeWithPermit, writeConcurrency * MAX_WRITE_CONCURRENCY_FACTOR);
+    } else {
+      results = stmts.flatMap(executor::writeReactive, writeConcurrency);
+    }
+    return concurrencyController == null
+        ? results
+        : results.doOnNext(concurrencyController::onResult);
+  }
+
+  /**
+   * Executes the given statement once a permit is acquired from {@code writePermits}; the permit is
+   * released when the write completes, or immediately if the write is cancelled while waiting.
+   */
+  private Mono<WriteResult> writeWithPermit(Statement<?> statement) {
+    return Mono.create(
+        sink -> {
+          CompletableFuture<Void> permit = writePermits.acquire().toCompletableFuture();
+          AtomicReference<Disposable> execution = new AtomicReference<>();
+          sink.onCancel(
+              () -> {
+                // a cancelled waiter is skipped by the semaphore
+                permit.cancel(false);
+                Disposable disposable = execution.get();
+                if (disposable != null) {
+                  disposable.dispose();
+                }
+              });
+          CompletableFuture<Void> unused =
+              permit.thenRun(
+                  () ->
+                      execution.set(
+                          Mono.from(executor.writeReactive(statement))
+                              .doFinally(signal -> writePermits.release())
+                              .subscribe(sink::success, sink::error, sink::success)));
+        });
   }
 
   @Override
   public void close() throws Exception {
     if (closed.compareAndSet(false, true)) {
       LOGGER.debug("{} closing.", this);
-      Exception e = CloseableUtils.closeQuietly(metricsManager, null);
+      Exception e = CloseableUtils.closeQuietly(concurrencyController, null);
+      e = CloseableUtils.closeQuietly(metricsManager, e);
       e = CloseableUtils.closeQuietly(logManager, e);
       e = CloseableUtils.closeQuietly(connector, e);
       e = CloseableUtils.closeQuietly(scheduler, e);
@@ -388,6 +574,23 @@ public class LoadWorkflow implements Workflow {
     return writeConcurrency;
   }
 
+  /**
+   * Allows each node in the local datacenter to carry twice its fair share of the write
+   * concurrency; returns zero, thus disabling per-node limits, if there is only one such node.
+   */
+  private int determineWriteConcurrencyPerNode() {
+    Collection<Node> nodes = session.getMetadata().getNodes().values();
+    long localNodes =
+        nodes.stream().filter(node -> node.getDistance() == NodeDistance.LOCAL).count();
+    if (localNodes == 0) {
+      localNodes = nodes.size();
+    }
+    if (localNodes <= 1) {
+      return 0;
+    }
+    return (int) Math.max(1, (2L * writeConcurrency + localNodes - 1) / localNodes);
+  }
+
   private double getMeanRowSize() {
     double meanSize;
     try {
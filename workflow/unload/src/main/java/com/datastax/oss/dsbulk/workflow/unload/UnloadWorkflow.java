@@ -18,18 +18,25 @@ package com.datastax.oss.dsbulk.workflow.unload;
 import com.codahale.metrics.MetricRegistry;
 import com.datastax.oss.driver.api.core.CqlSession;
 import com.datastax.oss.driver.api.core.cql.Statement;
+import com.datastax.oss.driver.api.core.loadbalancing.NodeDistance;
+import com.datastax.oss.driver.api.core.metadata.Node;
 import com.datastax.oss.driver.api.core.metrics.Metrics;
 import com.datastax.oss.driver.shaded.guava.common.base.Stopwatch;
 import com.datastax.oss.dsbulk.codecs.api.ConvertingCodecFactory;
 import com.datastax.oss.dsbulk.connectors.api.CommonConnectorFeature;
 import com.datastax.oss.dsbulk.connectors.api.Connector;
+import com.datastax.oss.dsbulk.connectors.api.ErrorRecord;
 import com.datastax.oss.dsbulk.connectors.api.Record;
 import com.datastax.oss.dsbulk.connectors.api.RecordMetadata;
 import com.datastax.oss.dsbulk.executor.api.reader.BulkReader;
 import com.datastax.oss.dsbulk.executor.api.result.ReadResult;
 import com.datastax.oss.dsbulk.workflow.api.Workflow;
 import com.datastax.oss.dsbulk.workflow.api.utils.DurationUtils;
+import com.datastax.oss.dsbulk.workflow.commons.dispatch.RangeScan;
+import com.datastax.oss.dsbulk.workflow.commons.dispatch.ReadStatementSplitter;
+import com.datastax.oss.dsbulk.workflow.commons.dispatch.ReplicaAwareReadScheduler;
 import com.datastax.oss.dsbulk.workflow.commons.log.LogManager;
+import com.datastax.oss.dsbulk.workflow.commons.log.TokenRangeCheckpoint;
 import com.datastax.oss.dsbulk.workflow.commons.metrics.MetricsManager;
 import com.datastax.oss.dsbulk.workflow.commons.schema.ReadResultMapper;
 import com.datastax.oss.dsbulk.workflow.commons.settings.CodecSettings;
@@ -47,11 +54,13 @@ import com.datastax.oss.dsbulk.workflow.commons.utils.ClusterInformationUtils;
 import com.typesafe.config.Config;
 import io.netty.util.concurrent.DefaultThreadFactory;
 import java.time.Duration;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
@@ -77,6 +86,8 @@ public class UnloadWorkflow implements Workflow {
   private CqlSession session;
   private BulkReader executor;
   private List<Statement<?>> readStatements;
+  private ReplicaAwareReadScheduler readScheduler;
+  private TokenRangeCheckpoint checkpoint;
   private Function<Publisher<Record>, Publisher<Record>> writer;
   private Function<Flux<ReadResult>, Flux<ReadResult>> totalItemsMonitor;
   private Function<Flux<Record>, Flux<Record>> failedRecordsMonitor;
@@ -132,7 +143,33 @@ public class UnloadWorkflow implements Workflow {
         session,
         connector.supports(CommonConnectorFeature.INDEXED_RECORDS),
         connector.supports(CommonConnectorFeature.MAPPED_RECORDS));
-    logManager = logSettings.newLogManager(session, false);
+    // prepares the read query, which tells whether token ranges can be checkpointed
+    RecordMetadata recordMetadata = connector.getRecordMetadata();
+    readResultMapper =
+        schemaSettings.createReadResultMapper(
+            session, recordMetadata, codecFactory, logSettings.isSources());
+    checkpoint =
+        logSettings
+            .newTokenRangeCheckpoint(session, schemaSettings.isTokenRangeQuery())
+            .orElse(null);
+    if (checkpoint != null && connector.writeConcurrency() < 2) {
+      // Token ranges are checkpointed once their records are flushed, which requires one writer
+      // invocation per range; this is only possible when writing to multiple destinations.
+      if (!checkpoint.isEmpty()) {
+        throw new IllegalArgumentException(
+            "Cannot resume the operation: resuming is only supported "
+                + "when the connector writes to multiple files.");
+      }
+      LOGGER.debug("Checkpoints require a write concurrency of 2 or more, disabling them");
+      checkpoint = null;
+    }
+    if (checkpoint != null && !checkpoint.isEmpty() && !checkpoint.isComplete()) {
+      LOGGER.warn(
+          "Resuming the operation: token ranges that were partially unloaded "
+              + "by the previous operation will be read again from their start; "
+              + "their rows already written by the previous operation will be written again.");
+    }
+    logManager = logSettings.newLogManager(session, checkpoint);
     logManager.init();
     metricsManager =
         monitoringSettings.newMetricsManager(
@@ -145,11 +182,7 @@ public class UnloadWorkflow implements Workflow {
             session.getContext().getCodecRegistry(),
             schemaSettings.getRowType());
     metricsManager.init();
-    RecordMetadata recordMetadata = connector.getRecordMetadata();
-    readResultMapper =
-        schemaSettings.createReadResultMapper(
-            session, recordMetadata, codecFactory, logSettings.isSources());
-    readStatements = schemaSettings.createReadStatements(session);
+    readStatements = schemaSettings.createReadStatements(session, checkpoint);
     executor =
         executorSettings.newReadExecutor(
             session, metricsManager.getExecutionListener(), schemaSettings.isSearchQuery());
@@ -171,9 +204,10 @@ public class UnloadWorkflow implements Workflow {
     }
     writeConcurrency = connector.writeConcurrency();
     LOGGER.debug("Using write concurrency: {}", writeConcurrency);
+    // when resuming, there might be no statements left to execute
     readConcurrency =
         Math.min(
-            readStatements.size(),
+            Math.max(1, readStatements.size()),
             // Most connectors have a default of numCores/2 for writeConcurrency;
             // a good readConcurrency is then numCores.
             engineSettings.getMaxConcurrentQueries().orElse(numCores));
@@ -181,6 +215,30 @@ public class UnloadWorkflow implements Workflow {
         "Using read concurrency: {} (user-supplied: {})",
         readConcurrency,
         engineSettings.getMaxConcurrentQueries().isPresent());
+    int readConcurrencyPerNode =
+        engineSettings
+            .getMaxConcurrentQueriesPerNode()
+            .orElseGet(this::determineReadConcurrencyPerNode);
+    // a per-node limit equal to or greater than the global limit would never be reached
+    if (readConcurrencyPerNode > 0 && readConcurrencyPerNode < readConcurrency) {
+      LOGGER.debug(
+          "Using read concurrency per node: {} (user-supplied: {})",
+          readConcurrencyPerNode,
+          engineSettings.getMaxConcurrentQueriesPerNode().isPresent());
+    } else {
+      readConcurrencyPerNode = 0;
+    }
+    ReadStatementSplitter splitter =
+        schemaSettings.createReadStatementSplitter(session).orElse(null);
+    LOGGER.debug("Dynamic splits enabled: {}", splitter != null);
+    readScheduler =
+        new ReplicaAwareReadScheduler(
+            session,
+            executor,
+            readStatements,
+            readConcurrencyPerNode,
+            splitter,
+            metricsManager.getRegistry());
     schedulers = new HashSet<>();
   }
 
@@ -189,7 +247,9 @@ public class UnloadWorkflow implements Workflow {
     LOGGER.debug("{} started.", this);
     metricsManager.start();
     Flux<Record> flux;
-    if (writeConcurrency == 1) {
+    if (checkpoint != null && !checkpoint.isEmpty()) {
+      flux = checkpointedWriters();
+    } else if (writeConcurrency == 1) {
       flux = oneWriter();
     } else if (writeConcurrency < numCores / 2 || readConcurrency < numCores / 2) {
       flux = fewWriters();
@@ -219,10 +279,9 @@ public class UnloadWorkflow implements Workflow {
             ? Schedulers.immediate()
             : Schedulers.newParallel(numThreads, new DefaultThreadFactory("workflow"));
     schedulers.add(scheduler);
-    return Flux.fromIterable(readStatements)
-        .flatMap(
-            results ->
-                Flux.from(executor.readReactive(results))
+    return readAll(
+            scan ->
+                scan.read()
                     .publishOn(scheduler, 500)
                     .transform(queryWarningsHandler)
                     .transform(totalItemsMonitor)
@@ -232,8 +291,7 @@ public class UnloadWorkflow implements Workflow {
                     .map(readResultMapper::map)
                     .transform(failedRecordsMonitor)
                     .transform(unmappableRecordsHandler),
-            readConcurrency,
-            500)
+            readConcurrency)
         .transform(writer)
         .transform(failedRecordsMonitor)
         .transform(failedRecordsHandler);
@@ -251,10 +309,9 @@ public class UnloadWorkflow implements Workflow {
         Schedulers.newParallel(numThreadsForWrites, new DefaultThreadFactory("workflow-write"));
     schedulers.add(schedulerForReads);
     schedulers.add(schedulerForWrites);
-    return Flux.fromIterable(readStatements)
-        .flatMap(
-            results ->
-                Flux.from(executor.readReactive(results))
+    return readAll(
+            scan ->
+                scan.read()
                     .publishOn(schedulerForReads, 500)
                     .transform(queryWarningsHandler)
                     .transform(totalItemsMonitor)
@@ -264,8 +321,7 @@ public class UnloadWorkflow implements Workflow {
                     .map(readResultMapper::map)
                     .transform(failedRecordsMonitor)
                     .transform(unmappableRecordsHandler),
-            readConcurrency,
-            500)
+            readConcurrency)
         .parallel(writeConcurrency)
         .runOn(schedulerForWrites)
         .groups()
@@ -285,35 +341,106 @@ public class UnloadWorkflow implements Workflow {
     int numThreads = Math.min(numCores * 2, actualConcurrency);
     Scheduler scheduler = Schedulers.newParallel(numThreads, new DefaultThreadFactory("workflow"));
     schedulers.add(scheduler);
-    return Flux.fromIterable(readStatements)
-        .flatMap(
-            results -> {
-              Flux<Record> records =
-                  Flux.from(executor.readReactive(results))
-                      .publishOn(scheduler, 500)
-                      .transform(queryWarningsHandler)
-                      .transform(totalItemsMonitor)
-                      .transform(totalItemsCounter)
-                      .transform(failedReadResultsMonitor)
-                      .transform(failedReadsHandler)
-                      .map(readResultMapper::map)
-                      .transform(failedRecordsMonitor)
-                      .transform(unmappableRecordsHandler);
-              if (actualConcurrency == writeConcurrency) {
-                records = records.transform(writer);
-              } else {
-                // If the actual concurrency is lesser than the connector's desired write
-                // concurrency, we need to give the connector a chance to switch writers
-                // frequently so that it can really redirect records to all the final destinations
-                // (to that many files on disk for example). If the connector is correctly
-                // implemented, each window will be redirected to a different destination
-                // in a round-robin fashion.
-                records = records.window(500).flatMap(window -> window.transform(writer), 1, 500);
-              }
-              return records.transform(failedRecordsMonitor).transform(failedRecordsHandler);
-            },
-            actualConcurrency,
-            500);
+    return readAll(
+        scan -> {
+          Flux<Record> records =
+              scan.read()
+                  .publishOn(scheduler, 500)
+                  .transform(queryWarningsHandler)
+                  .transform(totalItemsMonitor)
+                  .transform(totalItemsCounter)
+                  .transform(failedReadResultsMonitor)
+                  .transform(failedReadsHandler)
+                  .map(readResultMapper::map)
+                  .transform(failedRecordsMonitor)
+                  .transform(unmappableRecordsHandler);
+          if (actualConcurrency == writeConcurrency) {
+            records = records.transform(writer);
+          } else {
+            // If the actual concurrency is lesser than the connector's desired write
+            // concurrency, we need to give the connector a chance to switch writers
+            // frequently so that it can really redirect records to all the final destinations
+            // (to that many files on disk for example). If the connector is correctly
+            // implemented, each window will be redirected to a different destination
+            // in a round-robin fashion.
+            records = records.window(500).flatMap(window -> window.transform(writer), 1, 500);
+          }
+          return records.transform(failedRecordsMonitor).transform(failedRecordsHandler);
+        },
+        actualConcurrency);
+  }
+
+  private Flux<Record> checkpointedWriters() {
+    // writeConcurrency is >= 2 here. Each token range is written by its own writer invocation, so
+    // that its records are flushed when the range completes, and the range can be checkpointed.
+    int actualConcurrency = Math.min(readConcurrency, writeConcurrency);
+    int numThreads = Math.min(numCores * 2, actualConcurrency);
+    Scheduler scheduler =
+        numThreads == 1
+            ? Schedulers.immediate()
+            : Schedulers.newParallel(numThreads, new DefaultThreadFactory("workflow"));
+    schedulers.add(scheduler);
+    return readScheduler.schedule(
+        scan -> {
+          Consumer<Record> failedRecordsDetector =
+              record -> {
+                if (record instanceof ErrorRecord) {
+                  scan.markFailed();
+                }
+              };
+          return scan.read()
+              .publishOn(scheduler, 500)
+              .transform(queryWarningsHandler)
+              .transform(totalItemsMonitor)
+              .transform(totalItemsCounter)
+              .transform(failedReadResultsMonitor)
+              .doOnNext(
+                  result -> {
+                    if (!result.isSuccess()) {
+                      scan.markFailed();
+                    }
+                  })
+              .transform(failedReadsHandler)
+              .map(readResultMapper::map)
+              .transform(failedRecordsMonitor)
+              .doOnNext(failedRecordsDetector)
+              .transform(unmappableRecordsHandler)
+              .transform(writer)
+              .transform(failedRecordsMonitor)
+              .doOnNext(failedRecordsDetector)
+              .transform(failedRecordsHandler);
+        },
+        actualConcurrency,
+        500,
+        statement -> {
+          // only ranges read and written without errors can be skipped when resuming; a range
+          // that was split is complete once all of its splits are
+          if (statement.getRoutingToken() != null) {
+            checkpoint.markComplete(statement.getRoutingToken());
+          }
+        });
+  }
+
+  /**
+   * Executes all the read statements with the given function, and merges the results, with {@code
+   * concurrency} parallelism. Statements are scheduled by the replica-aware scheduler, which also
+   * enforces per-node limits and splits long-running scans, when enabled.
+   */
+  private <T> Flux<T> readAll(Function<RangeScan, Publisher<T>> pipeline, int concurrency) {
+    return readScheduler.schedule(pipeline, concurrency, 500);
+  }
+
+  private int determineReadConcurrencyPerNode() {
+    Collection<Node> nodes = session.getMetadata().getNodes().values();
+    long localNodes =
+        nodes.stream().filter(node -> node.getDistance() == NodeDistance.LOCAL).count();
+    if (localNodes == 0) {
+      localNodes = nodes.size();
+    }
+    if (localNodes <= 1) {
+      return 0;
+    }
+    return (int) Math.max(1, (2L * readConcurrency + localNodes - 1) / localNodes);
   }
 
   @Override